@@ -0,0 +1,135 @@
+package com.riquetti.ProjetoIntegrador.benchmark;
+
+import com.riquetti.ProjetoIntegrador.entity.ComercioDadosIbge;
+import com.riquetti.ProjetoIntegrador.entity.ComercioRaioAvenida;
+import com.riquetti.ProjetoIntegrador.entity.ComercioRaioVias;
+import com.riquetti.ProjetoIntegrador.entity.LocalizacaoComercio;
+import com.riquetti.ProjetoIntegrador.entity.Ponto;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Dados sintéticos e determinísticos de comércios ao redor de Limeira, utilizados pelos benchmarks.
+ */
+public final class DadosSinteticos {
+
+    private static final double LONGITUDE = -47.4042319;
+    private static final double LATITUDE = -22.561447;
+    private static final String[] ACESSIBILIDADE = {"Muito Ruim", "Ruim", "Média", "Boa", "Excelente"};
+
+    private DadosSinteticos() {
+    }
+
+    static List<ComercioRaioVias> comercioRaioVias(int quantidade) {
+        Random random = new Random(42);
+        List<ComercioRaioVias> lista = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            ComercioRaioVias entity = new ComercioRaioVias();
+            entity.setIdComercio((long) i + 1);
+            entity.setNome("Comércio " + i);
+            entity.setDescricao("Descrição do comércio " + i);
+            entity.setRaioAcaoMetros(500L + random.nextInt(2000));
+            entity.setLocalizacao(ponto(random));
+            entity.setComprimentoTotalPonderado(decimal(random, 20000));
+            entity.setComprimento500(decimal(random, 5000));
+            entity.setComprimento1000(decimal(random, 15000));
+            entity.setComprimento1500(decimal(random, 30000));
+            entity.setComprimento2000(decimal(random, 50000));
+            entity.setComprimento2500(decimal(random, 80000));
+            entity.setAcessibilidade(ACESSIBILIDADE[random.nextInt(ACESSIBILIDADE.length)]);
+            lista.add(entity);
+        }
+        return lista;
+    }
+
+    static List<ComercioDadosIbge> comercioDadosIbge(int quantidade) {
+        Random random = new Random(42);
+        List<ComercioDadosIbge> lista = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            ComercioDadosIbge entity = new ComercioDadosIbge();
+            entity.setIdComercio((long) i + 1);
+            entity.setNome("Comércio " + i);
+            entity.setLocalizacao(ponto(random));
+            entity.setRaioAcaoMetros(500L + random.nextInt(2000));
+            entity.setRendaMediaIbge2010(decimal(random, 5000));
+            entity.setMoradoresIbge2010(decimal(random, 30000));
+            lista.add(entity);
+        }
+        return lista;
+    }
+
+    static List<ComercioRaioAvenida> comercioRaioAvenida(int quantidade) {
+        Random random = new Random(42);
+        List<ComercioRaioAvenida> lista = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            lista.add(new ComercioRaioAvenida((long) i + 1, "Comércio " + i, ponto(random),
+                    500L + random.nextInt(2000), random.nextInt(5), random.nextInt(20), random.nextInt(60),
+                    random.nextInt(120), random.nextInt(200), random.nextInt(100)));
+        }
+        return lista;
+    }
+
+    static List<LocalizacaoComercio> localizacaoComercio(int quantidade) {
+        Random random = new Random(42);
+        List<LocalizacaoComercio> lista = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            lista.add(new LocalizacaoComercio((long) i + 1, "Comércio " + i, "Descrição do comércio " + i,
+                    1 + random.nextInt(10), decimal(random, 2500), ponto(random), "3526902"));
+        }
+        return lista;
+    }
+
+    /**
+     * Linhas com todas as colunas lidas pelos RowMappers dos repositórios, para o ResultSet sintético.
+     */
+    static List<Map<String, Object>> linhas(int quantidade) {
+        Random random = new Random(42);
+        List<Map<String, Object>> linhas = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            Ponto ponto = ponto(random);
+            Map<String, Object> linha = new HashMap<>();
+            linha.put("id_comercio", (long) i + 1);
+            linha.put("nome", "Comércio " + i);
+            linha.put("descricao", "Descrição do comércio " + i);
+            linha.put("id_tipo_comercio", 1L + random.nextInt(10));
+            linha.put("raio_acao_metros", decimal(random, 2500));
+            linha.put("longitude", ponto.longitude());
+            linha.put("latitude", ponto.latitude());
+            linha.put("comprimento_total_ponderado", decimal(random, 20000));
+            linha.put("comprimento500", decimal(random, 5000));
+            linha.put("comprimento1000", decimal(random, 15000));
+            linha.put("comprimento1500", decimal(random, 30000));
+            linha.put("comprimento2000", decimal(random, 50000));
+            linha.put("comprimento2500", decimal(random, 80000));
+            linha.put("acessibilidade", ACESSIBILIDADE[random.nextInt(ACESSIBILIDADE.length)]);
+            linha.put("renda_media_ibge2010", decimal(random, 5000));
+            linha.put("moradores_ibge2010", decimal(random, 30000));
+            linha.put("total_200m", random.nextInt(5));
+            linha.put("total_500m", random.nextInt(20));
+            linha.put("total_1km", random.nextInt(60));
+            linha.put("total_1_5km", random.nextInt(120));
+            linha.put("total_2km", random.nextInt(200));
+            linha.put("total_raio_acao_metros", random.nextInt(100));
+            linhas.add(linha);
+        }
+        return linhas;
+    }
+
+    public static String pontoTexto(Random random) {
+        Ponto ponto = ponto(random);
+        return "POINT(" + ponto.longitude() + " " + ponto.latitude() + ")";
+    }
+
+    private static Ponto ponto(Random random) {
+        return new Ponto(LONGITUDE + (random.nextDouble() - 0.5) * 0.1, LATITUDE + (random.nextDouble() - 0.5) * 0.1);
+    }
+
+    private static BigDecimal decimal(Random random, double maximo) {
+        return BigDecimal.valueOf(random.nextDouble() * maximo).setScale(6, java.math.RoundingMode.HALF_UP);
+    }
+}
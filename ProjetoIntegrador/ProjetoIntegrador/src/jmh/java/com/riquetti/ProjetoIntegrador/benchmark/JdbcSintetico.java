@@ -0,0 +1,110 @@
+package com.riquetti.ProjetoIntegrador.benchmark;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DataSource sintético, sem banco de dados, cujas consultas devolvem sempre as mesmas linhas em memória.
+ *
+ * Permite medir o caminho por linha do JdbcTemplate e dos RowMappers dos repositórios sem o custo de
+ * rede e de execução do PostgreSQL. Os comandos de atualização não alteram nada e retornam 0.
+ */
+final class JdbcSintetico {
+
+    private JdbcSintetico() {
+    }
+
+    static DataSource dataSource(List<Map<String, Object>> linhas) {
+        return proxy(DataSource.class, (metodo, args) -> switch (metodo) {
+            case "getConnection" -> conexao(linhas);
+            default -> null;
+        });
+    }
+
+    private static Connection conexao(List<Map<String, Object>> linhas) {
+        return proxy(Connection.class, (metodo, args) -> switch (metodo) {
+            case "createStatement" -> comando(Statement.class, linhas);
+            case "prepareStatement" -> comando(PreparedStatement.class, linhas);
+            case "getAutoCommit", "isClosed" -> false;
+            default -> null;
+        });
+    }
+
+    private static <T extends Statement> T comando(Class<T> tipo, List<Map<String, Object>> linhas) {
+        return proxy(tipo, (metodo, args) -> switch (metodo) {
+            case "executeQuery" -> resultSet(linhas);
+            case "executeUpdate", "getUpdateCount" -> 0;
+            case "execute" -> false;
+            default -> null;
+        });
+    }
+
+    private static ResultSet resultSet(List<Map<String, Object>> linhas) {
+        int[] posicao = {-1};
+        Object[] ultimo = {null};
+        return proxy(ResultSet.class, (metodo, args) -> {
+            switch (metodo) {
+                case "next":
+                    return ++posicao[0] < linhas.size();
+                case "getRow":
+                    return posicao[0] + 1;
+                case "wasNull":
+                    return ultimo[0] == null;
+                case "close":
+                case "getWarnings":
+                case "getMetaData":
+                    return null;
+                default:
+                    break;
+            }
+            if (!metodo.startsWith("get") || args == null || !(args[0] instanceof String coluna)) {
+                return null;
+            }
+            Object valor = linhas.get(posicao[0]).get(coluna);
+            ultimo[0] = valor;
+            return switch (metodo) {
+                case "getLong" -> valor == null ? 0L : ((Number) valor).longValue();
+                case "getInt" -> valor == null ? 0 : ((Number) valor).intValue();
+                case "getDouble" -> valor == null ? 0.0 : ((Number) valor).doubleValue();
+                case "getBigDecimal" -> valor == null ? null
+                        : valor instanceof BigDecimal decimal ? decimal : new BigDecimal(valor.toString());
+                case "getString" -> valor == null ? null : valor.toString();
+                default -> valor;
+            };
+        });
+    }
+
+    @FunctionalInterface
+    private interface Manipulador {
+        Object tratar(String metodo, Object[] args);
+    }
+
+    private static <T> T proxy(Class<T> tipo, Manipulador manipulador) {
+        Object instancia = Proxy.newProxyInstance(JdbcSintetico.class.getClassLoader(), new Class<?>[]{tipo},
+                (proxy, metodo, args) -> {
+                    if (metodo.getName().equals("unwrap") || metodo.getName().equals("isWrapperFor")) {
+                        return metodo.getReturnType() == boolean.class ? false : null;
+                    }
+                    Object resultado = manipulador.tratar(metodo.getName(), args);
+                    if (resultado == null && metodo.getReturnType().isPrimitive()) {
+                        Class<?> retorno = metodo.getReturnType();
+                        if (retorno == boolean.class) {
+                            return false;
+                        }
+                        if (retorno == void.class) {
+                            return null;
+                        }
+                        return retorno == long.class ? 0L : retorno == double.class ? 0.0 : retorno == float.class ? 0f : 0;
+                    }
+                    return resultado;
+                });
+        return tipo.cast(instancia);
+    }
+}
@@ -0,0 +1,92 @@
+package com.riquetti.ProjetoIntegrador.benchmark;
+
+import com.riquetti.ProjetoIntegrador.dto.ComercioDadosIbgeDTO;
+import com.riquetti.ProjetoIntegrador.dto.ComercioRaioAvenidaDTO;
+import com.riquetti.ProjetoIntegrador.dto.ComercioRaioViasDTO;
+import com.riquetti.ProjetoIntegrador.dto.LocalizacaoComercioDTO;
+import com.riquetti.ProjetoIntegrador.entity.ComercioDadosIbge;
+import com.riquetti.ProjetoIntegrador.entity.ComercioRaioAvenida;
+import com.riquetti.ProjetoIntegrador.entity.ComercioRaioVias;
+import com.riquetti.ProjetoIntegrador.entity.LocalizacaoComercio;
+import com.riquetti.ProjetoIntegrador.mapper.ComercioDadosIbgeMapper;
+import com.riquetti.ProjetoIntegrador.mapper.ComercioRaioAvenidaMapper;
+import com.riquetti.ProjetoIntegrador.mapper.ComercioRaioViasMapper;
+import com.riquetti.ProjetoIntegrador.mapper.LocalizacaoComercioMapper;
+import com.riquetti.ProjetoIntegrador.repository.ComercioRaioViasRepository;
+import com.riquetti.ProjetoIntegrador.service.ComercioRaioViasService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Conversão de entidades em DTOs pelos mappers do MapStruct e pela montagem manual de DTOs
+ * em {@link ComercioRaioViasService#findAllViasDistancia()}.
+ *
+ * As listas de entidades são montadas uma única vez; cada medição converte a lista inteira.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MapperBenchmark {
+
+    @Param({"100", "10000"})
+    public int quantidade;
+
+    private List<ComercioRaioVias> comercioRaioVias;
+    private List<ComercioDadosIbge> comercioDadosIbge;
+    private List<ComercioRaioAvenida> comercioRaioAvenida;
+    private List<LocalizacaoComercio> localizacaoComercio;
+    private ComercioRaioViasService comercioRaioViasService;
+
+    @Setup
+    public void preparar() {
+        comercioRaioVias = DadosSinteticos.comercioRaioVias(quantidade);
+        comercioDadosIbge = DadosSinteticos.comercioDadosIbge(quantidade);
+        comercioRaioAvenida = DadosSinteticos.comercioRaioAvenida(quantidade);
+        localizacaoComercio = DadosSinteticos.localizacaoComercio(quantidade);
+
+        List<ComercioRaioVias> snapshot = comercioRaioVias;
+        ComercioRaioViasRepository repository = new ComercioRaioViasRepository(null) {
+            @Override
+            public List<ComercioRaioVias> findAllSnapshot() {
+                return snapshot;
+            }
+        };
+        comercioRaioViasService = new ComercioRaioViasService(repository, ComercioRaioViasMapper.INSTANCE, Optional.empty(), true);
+    }
+
+    @Benchmark
+    public List<ComercioRaioViasDTO> comercioRaioViasMapper() {
+        return comercioRaioVias.stream().map(ComercioRaioViasMapper.INSTANCE::toDTO).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<ComercioRaioViasDTO> comercioRaioViasDistanciaDTO() {
+        return comercioRaioViasService.findAllViasDistancia();
+    }
+
+    @Benchmark
+    public List<ComercioDadosIbgeDTO> comercioDadosIbgeMapper() {
+        return comercioDadosIbge.stream().map(ComercioDadosIbgeMapper.INSTANCE::toDTO).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<ComercioRaioAvenidaDTO> comercioRaioAvenidaMapper() {
+        return comercioRaioAvenida.stream().map(ComercioRaioAvenidaMapper.INSTANCE::toDTO).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<LocalizacaoComercioDTO> localizacaoComercioMapper() {
+        return localizacaoComercio.stream().map(LocalizacaoComercioMapper.INSTANCE::toDTO).collect(Collectors.toList());
+    }
+}
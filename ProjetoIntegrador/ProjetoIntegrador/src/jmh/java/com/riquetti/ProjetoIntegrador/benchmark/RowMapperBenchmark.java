@@ -0,0 +1,74 @@
+package com.riquetti.ProjetoIntegrador.benchmark;
+
+import com.riquetti.ProjetoIntegrador.entity.ComercioDadosIbge;
+import com.riquetti.ProjetoIntegrador.entity.ComercioRaioAvenida;
+import com.riquetti.ProjetoIntegrador.entity.ComercioRaioVias;
+import com.riquetti.ProjetoIntegrador.entity.LocalizacaoComercio;
+import com.riquetti.ProjetoIntegrador.repository.ComercioDadosIbgeRepository;
+import com.riquetti.ProjetoIntegrador.repository.ComercioRaioAvenidaRepository;
+import com.riquetti.ProjetoIntegrador.repository.ComercioRaioViasRepository;
+import com.riquetti.ProjetoIntegrador.repository.LocalizacaoComercioRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Leitura de linhas pelos RowMappers dos repositórios, executados pelo JdbcTemplate sobre o
+ * {@link JdbcSintetico}. Mede apenas o custo por linha no lado Java (acesso às colunas, criação
+ * das entidades e dos pontos), sem o tempo de consulta do PostgreSQL.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RowMapperBenchmark {
+
+    @Param({"100", "10000"})
+    public int quantidade;
+
+    private LocalizacaoComercioRepository localizacaoComercioRepository;
+    private ComercioRaioViasRepository comercioRaioViasRepository;
+    private ComercioRaioAvenidaRepository comercioRaioAvenidaRepository;
+    private ComercioDadosIbgeRepository comercioDadosIbgeRepository;
+
+    @Setup
+    public void preparar() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(JdbcSintetico.dataSource(DadosSinteticos.linhas(quantidade)));
+        localizacaoComercioRepository = new LocalizacaoComercioRepository(jdbcTemplate);
+        comercioRaioViasRepository = new ComercioRaioViasRepository(jdbcTemplate);
+        comercioRaioAvenidaRepository = new ComercioRaioAvenidaRepository(jdbcTemplate, true);
+        comercioDadosIbgeRepository = new ComercioDadosIbgeRepository(jdbcTemplate, jdbcTemplate, true);
+    }
+
+    @Benchmark
+    public List<LocalizacaoComercio> localizacaoComercio() {
+        return localizacaoComercioRepository.findAll();
+    }
+
+    @Benchmark
+    public List<ComercioRaioVias> comercioRaioViasSnapshot() {
+        return comercioRaioViasRepository.findAllSnapshot();
+    }
+
+    @Benchmark
+    public List<ComercioRaioAvenida> comercioRaioAvenida() {
+        return comercioRaioAvenidaRepository.findAllComercios();
+    }
+
+    /**
+     * Raio informado na consulta: a sobreposição com os setores é calculada na própria consulta, sem gravação
+     * em comercio_setor_raio, e o benchmark mede apenas a leitura das linhas.
+     */
+    @Benchmark
+    public List<ComercioDadosIbge> comercioDadosIbgeComRaio() {
+        return comercioDadosIbgeRepository.findAllWithRaio(1000);
+    }
+}
@@ -0,0 +1,54 @@
+package com.riquetti.ProjetoIntegrador.controller;
+
+import com.riquetti.ProjetoIntegrador.benchmark.DadosSinteticos;
+import com.riquetti.ProjetoIntegrador.entity.Ponto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validação e leitura por expressões regulares dos pontos em texto (WKT) recebidos pelos controllers.
+ *
+ * Os validadores são estáticos e visíveis no pacote; o benchmark fica no mesmo pacote e os chama
+ * diretamente, sem instanciar os controllers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ValidacaoControllerBenchmark {
+
+    private static final int QUANTIDADE = 1024;
+
+    private String[] pontos;
+    private int indice;
+
+    @Setup
+    public void preparar() {
+        Random random = new Random(42);
+        pontos = new String[QUANTIDADE];
+        for (int i = 0; i < QUANTIDADE; i++) {
+            pontos[i] = DadosSinteticos.pontoTexto(random);
+        }
+    }
+
+    private String proximoPonto() {
+        return pontos[indice++ & (QUANTIDADE - 1)];
+    }
+
+    @Benchmark
+    public boolean comercioDadosIbgeControllerRegex() {
+        return ComercioDadosIbgeController.isValidLocationFormat(proximoPonto());
+    }
+
+    @Benchmark
+    public Ponto comercioRaioAvenidaControllerLeitura() {
+        return ComercioRaioAvenidaController.lerPonto(proximoPonto());
+    }
+}
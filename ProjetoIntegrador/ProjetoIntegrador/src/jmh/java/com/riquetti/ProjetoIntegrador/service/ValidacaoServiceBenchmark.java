@@ -0,0 +1,68 @@
+package com.riquetti.ProjetoIntegrador.service;
+
+import com.riquetti.ProjetoIntegrador.benchmark.DadosSinteticos;
+import com.riquetti.ProjetoIntegrador.entity.Ponto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validação dos pontos em texto (WKT) e do e-mail nos serviços, comparada à criação de um {@link Ponto}
+ * a partir de coordenadas numéricas.
+ *
+ * Os validadores são estáticos e visíveis no pacote; o benchmark fica no mesmo pacote e os chama
+ * diretamente, sem instanciar os serviços.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ValidacaoServiceBenchmark {
+
+    private static final int QUANTIDADE = 1024;
+
+    private String[] pontos;
+    private double[] longitudes;
+    private double[] latitudes;
+    private int indice;
+
+    @Setup
+    public void preparar() {
+        Random random = new Random(42);
+        pontos = new String[QUANTIDADE];
+        longitudes = new double[QUANTIDADE];
+        latitudes = new double[QUANTIDADE];
+        for (int i = 0; i < QUANTIDADE; i++) {
+            pontos[i] = DadosSinteticos.pontoTexto(random);
+            String[] coordenadas = pontos[i].substring(6, pontos[i].length() - 1).split(" ");
+            longitudes[i] = Double.parseDouble(coordenadas[0]);
+            latitudes[i] = Double.parseDouble(coordenadas[1]);
+        }
+    }
+
+    private String proximoPonto() {
+        return pontos[indice++ & (QUANTIDADE - 1)];
+    }
+
+    @Benchmark
+    public boolean comercioDadosIbgeServiceRegex() {
+        return ComercioDadosIbgeService.isValidPontoTexto(proximoPonto());
+    }
+
+    @Benchmark
+    public boolean usuarioServiceEmailRegex() {
+        return UsuarioService.isValidEmail("usuario" + (indice++ & 7) + "@riquetti.com.br");
+    }
+
+    @Benchmark
+    public Ponto pontoNumerico() {
+        int i = indice++ & (QUANTIDADE - 1);
+        return new Ponto(longitudes[i], latitudes[i]);
+    }
+}
@@ -0,0 +1,146 @@
+package com.riquetti.ProjetoIntegrador.Config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcTransactionManager;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Classe de configuração do acesso ao banco de dados.
+ *
+ * A aplicação utiliza dois pools de conexões com o mesmo banco de dados:
+ * <ul>
+ *     <li><b>crud</b> (padrão): cadastros, login e atualizações, com transações;</li>
+ *     <li><b>analise</b>: agregações espaciais pesadas (acessibilidade das vias, avenidas, dados do IBGE
+ *     e tiles), com tempo máximo por comando (statement_timeout) e uma fila de admissão limitada.</li>
+ * </ul>
+ * Assim, uma rajada de relatórios ocupa apenas o pool de análise e não impede um login ou a edição
+ * de um comércio. Os dois pools são envolvidos em um {@link DataSourceLimitado}, que limita as
+ * conexões em uso mesmo quando as requisições são executadas em threads virtuais.
+ *
+ * As propriedades de conexão (spring.datasource.*) são as do {@link DataSourceProperties} registrado pelo
+ * Spring Boot, compartilhadas pelos dois pools.
+ *
+ * Os comandos dos dois pools são medidos pelo {@link MonitorConsultasLentas}, que registra os que
+ * ultrapassam o tempo limite.
+ */
+@Configuration
+public class BancoDadosConfig {
+
+    /**
+     * Define o registro de consultas lentas dos dois pools. Os planos de execução são obtidos com uma
+     * conexão do pool de análise, resolvido apenas no primeiro plano.
+     *
+     * @param limiar         Tempo a partir do qual um comando é registrado.
+     * @param capacidade     Quantidade de comandos lentos mantidos.
+     * @param intervaloPlano Intervalo mínimo entre dois planos de um mesmo comando.
+     * @param analyze        True para EXPLAIN (ANALYZE, BUFFERS); false para apenas EXPLAIN.
+     * @param ocultar        Termos cujos comandos têm os parâmetros ocultados.
+     * @param analise        O pool de análise.
+     * @return o registro de consultas lentas.
+     */
+    @Bean
+    public MonitorConsultasLentas monitorConsultasLentas(@Value("${banco.consultas-lentas.limiar:500ms}") Duration limiar,
+                                                         @Value("${banco.consultas-lentas.capacidade:50}") int capacidade,
+                                                         @Value("${banco.consultas-lentas.intervalo-plano:10m}") Duration intervaloPlano,
+                                                         @Value("${banco.consultas-lentas.analyze:false}") boolean analyze,
+                                                         @Value("${banco.consultas-lentas.ocultar-parametros:usuarios,senha}") List<String> ocultar,
+                                                         @Qualifier("analiseDataSource") ObjectProvider<DataSourceLimitado> analise) {
+        return new MonitorConsultasLentas(limiar, capacidade, intervaloPlano, analyze, ocultar, analise::getObject);
+    }
+
+    /**
+     * Define o pool de conexões das operações cadastrais, utilizado por padrão.
+     *
+     * @param propriedades Propriedades de conexão com o banco de dados.
+     * @param monitor      Registro de consultas lentas.
+     * @param tamanhoPool  Quantidade máxima de conexões do pool.
+     * @param espera       Tempo máximo de espera por uma conexão antes de responder 503.
+     * @return o DataSource das operações cadastrais.
+     */
+    @Bean
+    @Primary
+    public DataSourceLimitado dataSource(DataSourceProperties propriedades, MonitorConsultasLentas monitor,
+                                         @Value("${banco.crud.tamanho-pool:10}") int tamanhoPool,
+                                         @Value("${banco.crud.espera-conexao:2s}") Duration espera) {
+        HikariDataSource pool = criarPool(propriedades, "crud", tamanhoPool);
+        return new DataSourceLimitado("crud", monitor.monitorar("crud", pool), tamanhoPool, 0, espera);
+    }
+
+    /**
+     * Define o pool de conexões das consultas analíticas.
+     *
+     * Cada conexão é aberta com statement_timeout, para que o PostgreSQL cancele uma agregação que
+     * ultrapasse o tempo máximo. As requisições sem conexão livre aguardam na fila de admissão até
+     * o tempo de espera; com a fila cheia, são recusadas imediatamente.
+     *
+     * @param propriedades   Propriedades de conexão com o banco de dados.
+     * @param monitor        Registro de consultas lentas.
+     * @param tamanhoPool    Quantidade máxima de conexões do pool.
+     * @param timeoutComando Tempo máximo de execução de cada comando SQL.
+     * @param filaMaxima     Quantidade máxima de requisições aguardando uma conexão.
+     * @param espera         Tempo máximo de espera na fila antes de responder 503.
+     * @return o DataSource das consultas analíticas.
+     */
+    @Bean
+    public DataSourceLimitado analiseDataSource(DataSourceProperties propriedades, MonitorConsultasLentas monitor,
+                                                @Value("${banco.analise.tamanho-pool:4}") int tamanhoPool,
+                                                @Value("${banco.analise.timeout-comando:60s}") Duration timeoutComando,
+                                                @Value("${banco.analise.fila-maxima:20}") int filaMaxima,
+                                                @Value("${banco.analise.espera-conexao:15s}") Duration espera) {
+        HikariDataSource pool = criarPool(propriedades, "analise", tamanhoPool);
+        pool.setConnectionInitSql("SET statement_timeout = " + timeoutComando.toMillis());
+        return new DataSourceLimitado("analise", monitor.monitorar("analise", pool), tamanhoPool, filaMaxima, espera);
+    }
+
+    /**
+     * Define o JdbcTemplate padrão, sobre o pool das operações cadastrais.
+     */
+    @Bean
+    @Primary
+    public JdbcTemplate jdbcTemplate(DataSourceLimitado dataSource) {
+        return new JdbcTemplate(dataSource);
+    }
+
+    /**
+     * Define o JdbcTemplate das consultas analíticas.
+     */
+    @Bean
+    public JdbcTemplate analiseJdbcTemplate(@Qualifier("analiseDataSource") DataSourceLimitado analiseDataSource) {
+        return new JdbcTemplate(analiseDataSource);
+    }
+
+    /**
+     * Define o gerenciador de transações padrão, sobre o pool das operações cadastrais.
+     */
+    @Bean
+    @Primary
+    public JdbcTransactionManager transactionManager(DataSourceLimitado dataSource) {
+        return new JdbcTransactionManager(dataSource);
+    }
+
+    /**
+     * Define o gerenciador de transações do pool de análise, utilizado pelas consultas em streaming
+     * que precisam de uma transação para manter o cursor aberto.
+     */
+    @Bean
+    public JdbcTransactionManager analiseTransactionManager(@Qualifier("analiseDataSource") DataSourceLimitado analiseDataSource) {
+        return new JdbcTransactionManager(analiseDataSource);
+    }
+
+    private static HikariDataSource criarPool(DataSourceProperties propriedades, String nome, int tamanhoPool) {
+        HikariDataSource pool = propriedades.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        pool.setPoolName(nome);
+        pool.setMaximumPoolSize(tamanhoPool);
+        return pool;
+    }
+}
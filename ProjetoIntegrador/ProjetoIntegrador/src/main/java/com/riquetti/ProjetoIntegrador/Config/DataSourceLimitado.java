@@ -0,0 +1,176 @@
+package com.riquetti.ProjetoIntegrador.Config;
+
+import com.riquetti.ProjetoIntegrador.dto.EstatisticasBancoDTO;
+import com.riquetti.ProjetoIntegrador.exception.ServiceUnavailableException;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * DataSource que limita a quantidade de conexões em uso ao mesmo tempo.
+ *
+ * Com as requisições em threads virtuais, o Tomcat deixa de limitar quantas requisições chegam ao banco
+ * de dados; sem este limite, centenas de requisições ficariam presas na fila do pool de conexões até o
+ * tempo máximo do pool. Aqui a espera por uma vaga é curta e, sem vaga, a requisição é recusada com
+ * {@link ServiceUnavailableException} (503), liberando a thread para as demais.
+ *
+ * A vaga é devolvida quando a conexão é fechada, uma única vez por conexão.
+ *
+ * As requisições que aguardam uma vaga formam a fila de admissão; com a fila cheia, a requisição é
+ * recusada imediatamente, sem esperar.
+ */
+public class DataSourceLimitado extends DelegatingDataSource implements AutoCloseable {
+
+    private final String nome;
+    private final int conexoesSimultaneas;
+    private final int filaMaxima;
+    private final Semaphore vagas;
+    private final Duration espera;
+    private final AtomicInteger aguardando = new AtomicInteger();
+    private final AtomicLong recusadas = new AtomicLong();
+
+    /**
+     * @param nome                Nome do pool, exibido nas estatísticas.
+     * @param dataSource          O DataSource original (pool de conexões).
+     * @param conexoesSimultaneas Quantidade máxima de conexões em uso ao mesmo tempo.
+     * @param filaMaxima          Quantidade máxima de requisições aguardando uma vaga; 0 para não limitar.
+     * @param espera              Tempo máximo de espera por uma vaga.
+     */
+    public DataSourceLimitado(String nome, DataSource dataSource, int conexoesSimultaneas, int filaMaxima,
+                              Duration espera) {
+        super(dataSource);
+        if (conexoesSimultaneas < 1) {
+            throw new IllegalArgumentException("O limite de conexões simultâneas deve ser maior que 0.");
+        }
+        if (filaMaxima < 0) {
+            throw new IllegalArgumentException("O tamanho máximo da fila não pode ser negativo.");
+        }
+        this.nome = nome;
+        this.conexoesSimultaneas = conexoesSimultaneas;
+        this.filaMaxima = filaMaxima;
+        this.vagas = new Semaphore(conexoesSimultaneas, true);
+        this.espera = espera;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        adquirirVaga();
+        try {
+            return liberarAoFechar(obtainTargetDataSource().getConnection());
+        } catch (SQLException | RuntimeException e) {
+            vagas.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        adquirirVaga();
+        try {
+            return liberarAoFechar(obtainTargetDataSource().getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            vagas.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Retorna a quantidade de vagas livres no momento.
+     */
+    public int vagasDisponiveis() {
+        return vagas.availablePermits();
+    }
+
+    /**
+     * Retorna a quantidade de requisições aguardando uma vaga no momento.
+     */
+    public int fila() {
+        return aguardando.get();
+    }
+
+    /**
+     * Retorna as estatísticas de uso do pool e da fila de admissão.
+     */
+    public EstatisticasBancoDTO estatisticas() {
+        return new EstatisticasBancoDTO(nome, conexoesSimultaneas - vagas.availablePermits(), conexoesSimultaneas,
+                aguardando.get(), filaMaxima, recusadas.get());
+    }
+
+    /**
+     * Fecha o pool de conexões original, se ele puder ser fechado.
+     */
+    @Override
+    public void close() {
+        if (obtainTargetDataSource() instanceof AutoCloseable pool) {
+            try {
+                pool.close();
+            } catch (Exception e) {
+                if (e instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new IllegalStateException("Não foi possível fechar o pool de conexões " + nome + ".", e);
+            }
+        }
+    }
+
+    private void adquirirVaga() {
+        if (vagas.tryAcquire()) {
+            return;
+        }
+        if (aguardando.incrementAndGet() > filaMaxima && filaMaxima > 0) {
+            aguardando.decrementAndGet();
+            recusar("Fila de consultas ao banco de dados (" + nome + ") cheia; tente novamente em instantes.");
+        }
+        try {
+            if (!vagas.tryAcquire(espera.toNanos(), TimeUnit.NANOSECONDS)) {
+                recusar("Limite de consultas simultâneas ao banco de dados (" + nome + ") atingido; tente novamente em instantes.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            recusar("Espera por uma conexão com o banco de dados interrompida.");
+        } finally {
+            aguardando.decrementAndGet();
+        }
+    }
+
+    private void recusar(String mensagem) {
+        recusadas.incrementAndGet();
+        throw new ServiceUnavailableException(mensagem);
+    }
+
+    private Connection liberarAoFechar(Connection conexao) {
+        AtomicBoolean liberada = new AtomicBoolean();
+        InvocationHandler handler = (proxy, metodo, argumentos) -> {
+            if (metodo.getName().equals("close") && liberada.compareAndSet(false, true)) {
+                try {
+                    return invocar(conexao, metodo, argumentos);
+                } finally {
+                    vagas.release();
+                }
+            }
+            return invocar(conexao, metodo, argumentos);
+        };
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, handler);
+    }
+
+    private static Object invocar(Connection conexao, Method metodo, Object[] argumentos) throws Throwable {
+        try {
+            return metodo.invoke(conexao, argumentos);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
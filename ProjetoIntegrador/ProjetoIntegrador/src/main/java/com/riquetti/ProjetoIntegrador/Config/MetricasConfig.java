@@ -0,0 +1,64 @@
+package com.riquetti.ProjetoIntegrador.Config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/**
+ * Classe de configuração das métricas da aplicação, publicadas em /actuator/prometheus.
+ *
+ * Todos os repositórios (@Repository) são medidos por método: tempo com histograma de percentis,
+ * registros retornados e falhas (ver {@link MetricasRepositorioInterceptor}). Os pools de conexões já
+ * são medidos pelo Actuator (hikaricp_*); aqui são acrescentadas a fila de admissão e as recusas do
+ * {@link DataSourceLimitado}.
+ */
+@Configuration
+public class MetricasConfig {
+
+    /**
+     * Envolve os repositórios com a medição das consultas.
+     *
+     * O método é estático e o registro de métricas é obtido apenas na primeira consulta, para que o
+     * post-processor seja criado antes dos repositórios sem antecipar a criação do registro.
+     *
+     * @param registro O registro de métricas do Actuator.
+     * @return o post-processor que aplica a medição aos beans anotados com @Repository.
+     */
+    @Bean
+    public static MetricasRepositorioPostProcessor metricasRepositorioPostProcessor(ObjectProvider<MeterRegistry> registro) {
+        return new MetricasRepositorioPostProcessor(registro::getObject);
+    }
+
+    /**
+     * Publica a fila de admissão e as recusas de cada pool de conexões, com a tag "pool".
+     *
+     * @param dataSources Os pools de conexões da aplicação.
+     * @return o MeterBinder dos pools.
+     */
+    @Bean
+    public MeterBinder metricasFilaBanco(List<DataSourceLimitado> dataSources) {
+        return registro -> {
+            for (DataSourceLimitado dataSource : dataSources) {
+                String pool = dataSource.estatisticas().nome();
+                Gauge.builder("banco.admissao.fila", dataSource, DataSourceLimitado::fila)
+                        .description("Requisições aguardando uma conexão com o banco de dados")
+                        .tag("pool", pool)
+                        .register(registro);
+                Gauge.builder("banco.admissao.em-uso", dataSource, ds -> ds.estatisticas().emUso())
+                        .description("Conexões em uso")
+                        .tag("pool", pool)
+                        .register(registro);
+                FunctionCounter.builder("banco.admissao.recusadas", dataSource, ds -> ds.estatisticas().recusadas())
+                        .description("Requisições recusadas (503) por falta de conexão")
+                        .tag("pool", pool)
+                        .register(registro);
+            }
+        };
+    }
+}
@@ -0,0 +1,179 @@
+package com.riquetti.ProjetoIntegrador.Config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.aop.support.AopUtils;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Mede cada chamada aos métodos públicos dos repositórios.
+ *
+ * Para cada método são registrados:
+ * <ul>
+ *     <li><b>repositorio.consulta</b>: timer com histograma de percentis, com o resultado (sucesso ou erro);</li>
+ *     <li><b>repositorio.linhas</b>: quantidade de registros retornados (tamanho da lista, registros
+ *     entregues ao consumidor nos métodos em streaming ou linhas alteradas);</li>
+ *     <li><b>repositorio.erros</b>: quantidade de falhas, pelo tipo da exceção.</li>
+ * </ul>
+ * Todos com as tags "repositorio" (nome da classe) e "metodo".
+ */
+class MetricasRepositorioInterceptor implements MethodInterceptor {
+
+    /**
+     * Faixa esperada dos tempos: limita os intervalos do histograma, até o tempo máximo do pool de análise.
+     */
+    private static final Duration TEMPO_MINIMO = Duration.ofMillis(1);
+    private static final Duration TEMPO_MAXIMO = Duration.ofSeconds(60);
+
+    private final Supplier<MeterRegistry> registro;
+    private final Map<Method, Medidores> medidores = new ConcurrentHashMap<>();
+
+    /**
+     * @param registro Fornece o registro de métricas, obtido apenas na primeira chamada.
+     */
+    MetricasRepositorioInterceptor(Supplier<MeterRegistry> registro) {
+        this.registro = registro;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocacao) throws Throwable {
+        Method metodo = invocacao.getMethod();
+        if (metodo.getDeclaringClass() == Object.class || AopUtils.isToStringMethod(metodo)) {
+            return invocacao.proceed();
+        }
+        Class<?> classe = invocacao.getThis() != null ? AopUtils.getTargetClass(invocacao.getThis()) : metodo.getDeclaringClass();
+        Medidores medidor = medidores.computeIfAbsent(metodo, m -> new Medidores(registro.get(), classe.getSimpleName(), m.getName()));
+
+        AtomicLong entregues = contarConsumidores(invocacao);
+        long inicio = System.nanoTime();
+        try {
+            Object resultado = invocacao.proceed();
+            medidor.sucesso.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+            long linhas = entregues != null ? entregues.get() : linhas(resultado);
+            if (linhas >= 0) {
+                medidor.linhas.record(linhas);
+            }
+            return resultado;
+        } catch (Throwable e) {
+            medidor.erro.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+            medidor.erros(e).increment();
+            throw e;
+        }
+    }
+
+    /**
+     * Nos métodos em streaming, que entregam cada registro a um Consumer, envolve o consumidor para contar os registros.
+     *
+     * @return O contador, ou null se o método não recebe um consumidor.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static AtomicLong contarConsumidores(MethodInvocation invocacao) {
+        if (!(invocacao instanceof ProxyMethodInvocation proxyInvocacao)) {
+            return null;
+        }
+        Object[] argumentos = proxyInvocacao.getArguments();
+        AtomicLong entregues = null;
+        for (int i = 0; i < argumentos.length; i++) {
+            if (argumentos[i] instanceof Consumer consumidor) {
+                AtomicLong contador = entregues != null ? entregues : new AtomicLong();
+                argumentos[i] = (Consumer<Object>) registro -> {
+                    contador.incrementAndGet();
+                    consumidor.accept(registro);
+                };
+                entregues = contador;
+            }
+        }
+        if (entregues != null) {
+            proxyInvocacao.setArguments(argumentos);
+        }
+        return entregues;
+    }
+
+    /**
+     * Quantidade de registros do retorno; -1 quando o retorno não representa registros (void, Map de agregados etc.).
+     */
+    static long linhas(Object resultado) {
+        if (resultado instanceof Collection<?> colecao) {
+            return colecao.size();
+        }
+        if (resultado instanceof Optional<?> opcional) {
+            return opcional.isPresent() ? 1 : 0;
+        }
+        if (resultado instanceof int[] lote) {
+            long total = 0;
+            for (int alteradas : lote) {
+                total += Math.max(alteradas, 0);
+            }
+            return total;
+        }
+        if (resultado instanceof Integer alteradas) {
+            return Math.max(alteradas, 0);
+        }
+        return -1;
+    }
+
+    /**
+     * Medidores de um método de repositório.
+     */
+    private static final class Medidores {
+
+        private final MeterRegistry registro;
+        private final String repositorio;
+        private final String metodo;
+        private final Timer sucesso;
+        private final Timer erro;
+        private final DistributionSummary linhas;
+        private final Map<Class<?>, Counter> erros = new ConcurrentHashMap<>();
+
+        private Medidores(MeterRegistry registro, String repositorio, String metodo) {
+            this.registro = registro;
+            this.repositorio = repositorio;
+            this.metodo = metodo;
+            this.sucesso = timer("sucesso");
+            this.erro = timer("erro");
+            this.linhas = DistributionSummary.builder("repositorio.linhas")
+                    .description("Registros retornados ou alterados por chamada ao repositório")
+                    .baseUnit("linhas")
+                    .tag("repositorio", repositorio)
+                    .tag("metodo", metodo)
+                    .publishPercentileHistogram()
+                    .register(registro);
+        }
+
+        private Timer timer(String resultado) {
+            return Timer.builder("repositorio.consulta")
+                    .description("Tempo de cada chamada ao repositório, incluindo a leitura dos registros")
+                    .tag("repositorio", repositorio)
+                    .tag("metodo", metodo)
+                    .tag("resultado", resultado)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(TEMPO_MINIMO)
+                    .maximumExpectedValue(TEMPO_MAXIMO)
+                    .register(registro);
+        }
+
+        private Counter erros(Throwable e) {
+            return erros.computeIfAbsent(e.getClass(), classe -> Counter.builder("repositorio.erros")
+                    .description("Falhas das chamadas ao repositório")
+                    .tag("repositorio", repositorio)
+                    .tag("metodo", metodo)
+                    .tag("excecao", classe.getSimpleName())
+                    .register(registro));
+        }
+    }
+}
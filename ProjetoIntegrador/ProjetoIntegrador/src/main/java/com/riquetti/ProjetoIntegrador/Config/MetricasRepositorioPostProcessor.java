@@ -0,0 +1,25 @@
+package com.riquetti.ProjetoIntegrador.Config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.aop.framework.AbstractAdvisingBeanPostProcessor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.stereotype.Repository;
+
+import java.util.function.Supplier;
+
+/**
+ * Aplica o {@link MetricasRepositorioInterceptor} aos beans anotados com @Repository.
+ *
+ * A medição é colocada antes dos demais advisors do proxy (por exemplo, a tradução de exceções),
+ * de modo que o tempo medido inclua todo o processamento da chamada.
+ */
+public class MetricasRepositorioPostProcessor extends AbstractAdvisingBeanPostProcessor {
+
+    MetricasRepositorioPostProcessor(Supplier<MeterRegistry> registro) {
+        setProxyTargetClass(true);
+        setBeforeExistingAdvisors(true);
+        this.advisor = new DefaultPointcutAdvisor(AnnotationMatchingPointcut.forClassAnnotation(Repository.class),
+                new MetricasRepositorioInterceptor(registro));
+    }
+}
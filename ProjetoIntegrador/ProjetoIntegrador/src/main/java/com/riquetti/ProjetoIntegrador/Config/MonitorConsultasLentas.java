@@ -0,0 +1,448 @@
+package com.riquetti.ProjetoIntegrador.Config;
+
+import com.riquetti.ProjetoIntegrador.dto.ConsultaLentaDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Wrapper;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Registra os comandos SQL que ultrapassam um tempo limite, com os seus parâmetros e, por amostragem,
+ * o plano de execução.
+ *
+ * As conexões dos pools são envolvidas em proxies que guardam os parâmetros de cada PreparedStatement e
+ * medem a execução, até o fechamento do ResultSet nas consultas; abaixo do limite o custo é apenas o da
+ * medição. Os comandos lentos são mantidos em um buffer circular com os últimos N registros, consultado em
+ * /api/banco/consultas-lentas.
+ *
+ * O plano é estimado (EXPLAIN) por padrão; com analyze, EXPLAIN (ANALYZE, BUFFERS) executa a consulta novamente,
+ * no pool de análise, e deve ser ativado apenas para diagnóstico. Em ambos os casos o plano é obtido:
+ * <ul>
+ *     <li>apenas para consultas (SELECT / WITH) que terminaram sem erro;</li>
+ *     <li>no máximo uma vez por comando a cada intervalo mínimo;</li>
+ *     <li>em uma única thread, com fila curta: se estiver ocupada, o registro fica sem plano;</li>
+ *     <li>em uma transação somente leitura, desfeita ao final, com uma conexão do pool de análise.</li>
+ * </ul>
+ */
+public class MonitorConsultasLentas implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(MonitorConsultasLentas.class);
+
+    private static final int TAMANHO_MAXIMO_VALOR = 200;
+    private static final int COMANDOS_AMOSTRADOS_MAXIMO = 1000;
+
+    private final long limiarNanos;
+    private final int capacidade;
+    private final long intervaloPlanoNanos;
+    private final boolean analyze;
+    private final List<String> ocultar;
+    private final Supplier<DataSource> dataSourcePlano;
+    private final ArrayDeque<ConsultaLentaDTO> recentes;
+    private final AtomicLong total = new AtomicLong();
+    private final Map<String, Long> ultimoPlano = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor executorPlano;
+
+    /**
+     * @param limiar          Tempo a partir do qual um comando é registrado.
+     * @param capacidade      Quantidade de comandos lentos mantidos (os mais antigos são descartados).
+     * @param intervaloPlano  Intervalo mínimo entre dois planos de um mesmo comando.
+     * @param analyze         True para EXPLAIN (ANALYZE, BUFFERS), que executa a consulta; false para apenas EXPLAIN.
+     * @param ocultar         Termos (tabelas ou colunas) cujos comandos têm os parâmetros ocultados, como "senha".
+     * @param dataSourcePlano Fornece o DataSource utilizado para obter os planos.
+     */
+    public MonitorConsultasLentas(Duration limiar, int capacidade, Duration intervaloPlano, boolean analyze,
+                                  List<String> ocultar, Supplier<DataSource> dataSourcePlano) {
+        if (capacidade < 1) {
+            throw new IllegalArgumentException("A capacidade do registro de consultas lentas deve ser maior que 0.");
+        }
+        this.limiarNanos = limiar.toNanos();
+        this.capacidade = capacidade;
+        this.intervaloPlanoNanos = intervaloPlano.toNanos();
+        this.analyze = analyze;
+        this.ocultar = ocultar.stream().map(termo -> termo.trim().toLowerCase(Locale.ROOT)).filter(t -> !t.isEmpty()).toList();
+        this.dataSourcePlano = dataSourcePlano;
+        this.recentes = new ArrayDeque<>(capacidade);
+        this.executorPlano = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(4), tarefa -> {
+            Thread thread = new Thread(tarefa, "consulta-lenta-plano");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Envolve um pool de conexões para que os seus comandos sejam medidos.
+     *
+     * @param pool       Nome do pool, exibido nos registros.
+     * @param dataSource O pool de conexões.
+     * @return o DataSource monitorado, que fecha o pool original ao ser fechado.
+     */
+    public DataSource monitorar(String pool, DataSource dataSource) {
+        return new DataSourceMonitorado(pool, dataSource);
+    }
+
+    /**
+     * Retorna os comandos lentos registrados, do mais recente ao mais antigo.
+     */
+    public synchronized List<ConsultaLentaDTO> recentes() {
+        List<ConsultaLentaDTO> lista = new ArrayList<>(recentes);
+        Collections.reverse(lista);
+        return lista;
+    }
+
+    /**
+     * Retorna a quantidade de comandos lentos desde o início da aplicação, inclusive os já descartados do buffer.
+     */
+    public long total() {
+        return total.get();
+    }
+
+    /**
+     * Descarta os comandos lentos registrados.
+     */
+    public synchronized void limpar() {
+        recentes.clear();
+    }
+
+    @Override
+    public void close() {
+        executorPlano.shutdownNow();
+    }
+
+    private void medir(String pool, String sql, Map<Integer, Object> parametros, long inicio, Throwable erro) {
+        long duracao = System.nanoTime() - inicio;
+        if (duracao < limiarNanos || sql == null || isExplain(sql)) {
+            return;
+        }
+        total.incrementAndGet();
+        Map<Integer, Object> copia = new TreeMap<>(parametros);
+        long duracaoMs = TimeUnit.NANOSECONDS.toMillis(duracao);
+        String mensagemErro = erro != null ? erro.getMessage() : null;
+        log.warn("Consulta lenta no pool {} ({} ms): {}", pool, duracaoMs, resumir(sql));
+
+        if (mensagemErro == null && isConsulta(sql) && amostrarPlano(sql)) {
+            try {
+                executorPlano.execute(() -> adicionar(new ConsultaLentaDTO(Instant.now(), pool, sql, formatar(sql, copia),
+                        duracaoMs, null, explicar(sql, copia))));
+                return;
+            } catch (RejectedExecutionException e) {
+                // Amostragem ocupada: registra sem o plano
+            }
+        }
+        adicionar(new ConsultaLentaDTO(Instant.now(), pool, sql, formatar(sql, copia), duracaoMs, mensagemErro, null));
+    }
+
+    private synchronized void adicionar(ConsultaLentaDTO consulta) {
+        if (recentes.size() == capacidade) {
+            recentes.removeFirst();
+        }
+        recentes.addLast(consulta);
+    }
+
+    private boolean amostrarPlano(String sql) {
+        long agora = System.nanoTime();
+        boolean[] amostrar = {false};
+        ultimoPlano.compute(sql, (comando, anterior) -> {
+            if (anterior == null || agora - anterior >= intervaloPlanoNanos) {
+                amostrar[0] = true;
+                return agora;
+            }
+            return anterior;
+        });
+        if (ultimoPlano.size() > COMANDOS_AMOSTRADOS_MAXIMO) {
+            ultimoPlano.clear();
+        }
+        return amostrar[0];
+    }
+
+    private String explicar(String sql, Map<Integer, Object> parametros) {
+        String explain = (analyze ? "EXPLAIN (ANALYZE, BUFFERS) " : "EXPLAIN ") + sql;
+        try (Connection conexao = dataSourcePlano.get().getConnection()) {
+            conexao.setReadOnly(true);
+            conexao.setAutoCommit(false);
+            try (PreparedStatement ps = conexao.prepareStatement(explain)) {
+                for (Map.Entry<Integer, Object> parametro : parametros.entrySet()) {
+                    if (parametro.getValue() instanceof Nulo nulo) {
+                        ps.setNull(parametro.getKey(), nulo.tipo());
+                    } else {
+                        ps.setObject(parametro.getKey(), parametro.getValue());
+                    }
+                }
+                StringBuilder plano = new StringBuilder();
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        plano.append(rs.getString(1)).append('\n');
+                    }
+                }
+                return plano.toString().stripTrailing();
+            } finally {
+                conexao.rollback();
+            }
+        } catch (SQLException | RuntimeException e) {
+            log.debug("Não foi possível obter o plano da consulta lenta: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private List<String> formatar(String sql, Map<Integer, Object> parametros) {
+        String comando = sql.toLowerCase(Locale.ROOT);
+        boolean oculto = ocultar.stream().anyMatch(comando::contains);
+        List<String> valores = new ArrayList<>(parametros.size());
+        for (Object valor : parametros.values()) {
+            valores.add(oculto ? "***" : formatar(valor));
+        }
+        return valores;
+    }
+
+    private static String formatar(Object valor) {
+        if (valor == null || valor instanceof Nulo) {
+            return "NULL";
+        }
+        if (valor instanceof byte[] bytes) {
+            return "<" + bytes.length + " bytes>";
+        }
+        String texto = String.valueOf(valor);
+        return texto.length() > TAMANHO_MAXIMO_VALOR ? texto.substring(0, TAMANHO_MAXIMO_VALOR) + "…" : texto;
+    }
+
+    private static String resumir(String sql) {
+        String resumo = sql.replaceAll("\\s+", " ").trim();
+        return resumo.length() > 300 ? resumo.substring(0, 300) + "…" : resumo;
+    }
+
+    private static boolean isConsulta(String sql) {
+        String comando = sql.stripLeading().toUpperCase(Locale.ROOT);
+        return comando.startsWith("SELECT") || comando.startsWith("WITH");
+    }
+
+    private static boolean isExplain(String sql) {
+        return sql.stripLeading().regionMatches(true, 0, "EXPLAIN", 0, 7);
+    }
+
+    /**
+     * Parâmetro definido com setNull, com o tipo SQL informado.
+     */
+    private record Nulo(int tipo) {
+    }
+
+    /**
+     * DataSource cujas conexões criam comandos monitorados.
+     */
+    private final class DataSourceMonitorado extends DelegatingDataSource implements AutoCloseable {
+
+        private final String pool;
+
+        private DataSourceMonitorado(String pool, DataSource dataSource) {
+            super(dataSource);
+            this.pool = pool;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return monitorarConexao(obtainTargetDataSource().getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return monitorarConexao(obtainTargetDataSource().getConnection(username, password));
+        }
+
+        @Override
+        public void close() {
+            if (obtainTargetDataSource() instanceof AutoCloseable original) {
+                try {
+                    original.close();
+                } catch (Exception e) {
+                    if (e instanceof InterruptedException) {
+                        Thread.currentThread().interrupt();
+                    }
+                    throw new IllegalStateException("Não foi possível fechar o pool de conexões " + pool + ".", e);
+                }
+            }
+        }
+
+        private Connection monitorarConexao(Connection conexao) {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, metodo, argumentos) -> {
+                        if (metodo.getDeclaringClass() == Wrapper.class) {
+                            return desembrulhar(proxy, conexao, metodo, argumentos);
+                        }
+                        Object resultado = invocar(conexao, metodo, argumentos);
+                        String nome = metodo.getName();
+                        if (resultado instanceof CallableStatement comando && nome.equals("prepareCall")) {
+                            return monitorarComando(comando, CallableStatement.class, (String) argumentos[0]);
+                        }
+                        if (resultado instanceof PreparedStatement comando && nome.equals("prepareStatement")) {
+                            return monitorarComando(comando, PreparedStatement.class, (String) argumentos[0]);
+                        }
+                        if (resultado instanceof Statement comando && nome.equals("createStatement")) {
+                            return monitorarComando(comando, Statement.class, null);
+                        }
+                        return resultado;
+                    });
+        }
+
+        /**
+         * Envolve um comando. Quando a execução retorna um ResultSet, a medição termina apenas no fechamento do
+         * ResultSet (ou do comando, da próxima execução ou de getMoreResults): com fetchSize, as linhas de uma
+         * consulta em streaming são buscadas durante a iteração, e o tempo da execução sozinho não a representa.
+         */
+        private Object monitorarComando(Statement comando, Class<? extends Statement> tipo, String sqlPreparado) {
+            Map<Integer, Object> parametros = new TreeMap<>();
+            Medicao[] pendente = {null};
+            return Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[]{tipo}, (proxy, metodo, argumentos) -> {
+                if (metodo.getDeclaringClass() == Wrapper.class) {
+                    return desembrulhar(proxy, comando, metodo, argumentos);
+                }
+                String nome = metodo.getName();
+                if (nome.startsWith("execute")) {
+                    encerrar(pendente);
+                    String sql = argumentos != null && argumentos.length > 0 && argumentos[0] instanceof String texto
+                            ? texto : sqlPreparado;
+                    Medicao medicao = new Medicao(sql, new TreeMap<>(parametros), System.nanoTime());
+                    try {
+                        Object resultado = invocar(comando, metodo, argumentos);
+                        if (resultado instanceof ResultSet rs) {
+                            pendente[0] = medicao;
+                            return monitorarResultado(rs, medicao);
+                        }
+                        if (nome.equals("execute") && Boolean.TRUE.equals(resultado)) {
+                            pendente[0] = medicao; // O ResultSet é obtido em seguida por getResultSet
+                            return resultado;
+                        }
+                        medicao.encerrar(null);
+                        return resultado;
+                    } catch (Throwable e) {
+                        medicao.encerrar(e);
+                        throw e;
+                    }
+                }
+                if (nome.equals("getResultSet")) {
+                    Object resultado = invocar(comando, metodo, argumentos);
+                    return resultado instanceof ResultSet rs && pendente[0] != null
+                            ? monitorarResultado(rs, pendente[0]) : resultado;
+                }
+                if (nome.equals("close") || nome.equals("getMoreResults")) {
+                    try {
+                        return invocar(comando, metodo, argumentos);
+                    } finally {
+                        encerrar(pendente);
+                    }
+                }
+                if (nome.startsWith("set") && argumentos != null && argumentos.length >= 2 && argumentos[0] instanceof Integer indice) {
+                    parametros.put(indice, nome.equals("setNull") ? new Nulo((Integer) argumentos[1]) : argumentos[1]);
+                } else if (nome.equals("clearParameters")) {
+                    parametros.clear();
+                }
+                return invocar(comando, metodo, argumentos);
+            });
+        }
+
+        private ResultSet monitorarResultado(ResultSet resultado, Medicao medicao) {
+            return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                    (proxy, metodo, argumentos) -> {
+                        if (metodo.getDeclaringClass() == Wrapper.class) {
+                            return desembrulhar(proxy, resultado, metodo, argumentos);
+                        }
+                        if (metodo.getName().equals("close")) {
+                            try {
+                                return invocar(resultado, metodo, argumentos);
+                            } finally {
+                                medicao.encerrar(null);
+                            }
+                        }
+                        try {
+                            return invocar(resultado, metodo, argumentos);
+                        } catch (SQLException e) {
+                            medicao.falhou(e);
+                            throw e;
+                        }
+                    });
+        }
+
+        private void encerrar(Medicao[] pendente) {
+            if (pendente[0] != null) {
+                pendente[0].encerrar(null);
+                pendente[0] = null;
+            }
+        }
+
+        /**
+         * Execução de um comando, da chamada a execute* até o fechamento do seu ResultSet; registrada uma única vez.
+         */
+        private final class Medicao {
+
+            private final String sql;
+            private final Map<Integer, Object> parametros;
+            private final long inicio;
+            private Throwable erro;
+            private boolean encerrada;
+
+            private Medicao(String sql, Map<Integer, Object> parametros, long inicio) {
+                this.sql = sql;
+                this.parametros = parametros;
+                this.inicio = inicio;
+            }
+
+            private void falhou(Throwable erro) {
+                if (this.erro == null) {
+                    this.erro = erro;
+                }
+            }
+
+            private void encerrar(Throwable erro) {
+                if (encerrada) {
+                    return;
+                }
+                encerrada = true;
+                medir(pool, sql, parametros, inicio, erro != null ? erro : this.erro);
+            }
+        }
+    }
+
+    /**
+     * unwrap e isWrapperFor de um proxy: o próprio proxy para as interfaces JDBC que ele implementa e, para as
+     * demais (como os tipos do driver do PostgreSQL), o objeto envolvido.
+     */
+    private static Object desembrulhar(Object proxy, Wrapper alvo, Method metodo, Object[] argumentos) throws SQLException {
+        Class<?> tipo = (Class<?>) argumentos[0];
+        if (metodo.getName().equals("isWrapperFor")) {
+            return tipo.isInstance(proxy) || alvo.isWrapperFor(tipo);
+        }
+        return tipo.isInstance(proxy) ? proxy : alvo.unwrap(tipo);
+    }
+
+    private static Object invocar(Object alvo, Method metodo, Object[] argumentos) throws Throwable {
+        try {
+            return metodo.invoke(alvo, argumentos);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -1,9 +1,22 @@
 package com.riquetti.ProjetoIntegrador.Config;
 
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.DefaultConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+
 /**
  * Classe de configuração para criar um bean do RestTemplate.
  *
@@ -13,11 +26,63 @@ import org.springframework.web.client.RestTemplate;
  *
  * Ao declarar este bean, o Spring gerencia o ciclo de vida do objeto RestTemplate,
  * garantindo sua reutilização e facilitando a injeção de dependência em qualquer parte da aplicação.
+ *
+ * As requisições utilizam um pool de conexões persistentes (keep-alive) do Apache HttpClient, com
+ * limites de tempo para conectar, para aguardar uma conexão livre do pool e para ler a resposta, de
+ * modo que uma API externa lenta não prenda as threads da aplicação indefinidamente.
  */
 @Configuration
 
 public class RestTemplateConfig {
 
+    /**
+     * Define o cliente HTTP com pool de conexões, fechado pelo Spring no encerramento da aplicação.
+     *
+     * A descompressão automática é desativada para que o conteúdo em gzip (por exemplo, as malhas do
+     * IBGE) seja repassado aos clientes sem ser descomprimido e comprimido novamente.
+     *
+     * @param conexoesMaximas Quantidade máxima de conexões abertas no pool.
+     * @param conexoesPorRota Quantidade máxima de conexões abertas para um mesmo servidor.
+     * @param timeoutConexao  Tempo máximo para estabelecer a conexão.
+     * @param timeoutLeitura  Tempo máximo de espera por dados da resposta.
+     * @param timeoutPool     Tempo máximo de espera por uma conexão livre do pool.
+     * @param keepAlive       Tempo máximo que uma conexão ociosa é mantida aberta para reutilização.
+     * @return o cliente HTTP.
+     */
+    @Bean
+    public CloseableHttpClient httpClient(@Value("${http.cliente.conexoes-maximas:20}") int conexoesMaximas,
+                                          @Value("${http.cliente.conexoes-por-rota:10}") int conexoesPorRota,
+                                          @Value("${http.cliente.timeout-conexao:2s}") Duration timeoutConexao,
+                                          @Value("${http.cliente.timeout-leitura:10s}") Duration timeoutLeitura,
+                                          @Value("${http.cliente.timeout-pool:1s}") Duration timeoutPool,
+                                          @Value("${http.cliente.keep-alive:30s}") Duration keepAlive) {
+        PoolingHttpClientConnectionManager pool = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(conexoesMaximas)
+                .setMaxConnPerRoute(conexoesPorRota)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.of(timeoutConexao))
+                        .setSocketTimeout(Timeout.of(timeoutLeitura))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                        .build())
+                .build();
+        TimeValue keepAliveMaximo = TimeValue.of(keepAlive);
+        return HttpClients.custom()
+                .setConnectionManager(pool)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.of(timeoutPool))
+                        .setResponseTimeout(Timeout.of(timeoutLeitura))
+                        .build())
+                // Respeita o Keep-Alive informado pelo servidor, limitado ao máximo configurado
+                .setKeepAliveStrategy((resposta, contexto) -> {
+                    TimeValue informado = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(resposta, contexto);
+                    return informado.compareTo(keepAliveMaximo) < 0 ? informado : keepAliveMaximo;
+                })
+                .evictExpiredConnections()
+                .evictIdleConnections(keepAliveMaximo)
+                .disableContentCompression()
+                .build();
+    }
+
     /**
      * Define um bean do tipo RestTemplate.
      *
@@ -25,11 +90,12 @@ public class RestTemplateConfig {
      * com APIs RESTful, como GET, POST, PUT e DELETE. Ele pode ser configurado com interceptadores,
      * manipuladores de erros e customizações adicionais.
      *
+     * @param httpClient o cliente HTTP com pool de conexões.
      * @return uma nova instância do RestTemplate.
      */
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(CloseableHttpClient httpClient) {
+        return new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
     }
 
 }
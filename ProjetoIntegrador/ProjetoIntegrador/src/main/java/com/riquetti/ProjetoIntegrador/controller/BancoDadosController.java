@@ -0,0 +1,79 @@
+package com.riquetti.ProjetoIntegrador.controller;
+
+import com.riquetti.ProjetoIntegrador.Config.DataSourceLimitado;
+import com.riquetti.ProjetoIntegrador.Config.MonitorConsultasLentas;
+import com.riquetti.ProjetoIntegrador.dto.ConsultaLentaDTO;
+import com.riquetti.ProjetoIntegrador.dto.EstatisticasBancoDTO;
+import com.riquetti.ProjetoIntegrador.dto.VerificacaoIndiceDTO;
+import com.riquetti.ProjetoIntegrador.service.VerificacaoIndicesService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Controlador para acompanhar o uso dos pools de conexões com o banco de dados (crud e analise)
+ * os comandos SQL lentos e o uso dos índices espaciais.
+ */
+@RestController
+@RequestMapping("/api/banco")
+public class BancoDadosController {
+
+    private final List<DataSourceLimitado> pools;
+    private final MonitorConsultasLentas monitor;
+    private final VerificacaoIndicesService verificacaoIndices;
+
+    public BancoDadosController(List<DataSourceLimitado> pools, MonitorConsultasLentas monitor,
+                                VerificacaoIndicesService verificacaoIndices) {
+        this.pools = pools;
+        this.monitor = monitor;
+        this.verificacaoIndices = verificacaoIndices;
+    }
+
+    /**
+     * Obtém, para cada pool, as conexões em uso, a profundidade da fila de admissão e as requisições recusadas.
+     */
+    @GetMapping("/estatisticas")
+    public ResponseEntity<List<EstatisticasBancoDTO>> getEstatisticas() {
+        List<EstatisticasBancoDTO> estatisticas = pools.stream()
+                .map(DataSourceLimitado::estatisticas)
+                .toList();
+        return new ResponseEntity<>(estatisticas, HttpStatus.OK);
+    }
+
+    /**
+     * Obtém os últimos comandos SQL lentos, do mais recente ao mais antigo, com os parâmetros e,
+     * quando amostrado, o plano de execução.
+     */
+    @GetMapping("/consultas-lentas")
+    public ResponseEntity<List<ConsultaLentaDTO>> getConsultasLentas() {
+        return ResponseEntity.ok()
+                .header("X-Total-Consultas-Lentas", String.valueOf(monitor.total()))
+                .body(monitor.recentes());
+    }
+
+    /**
+     * Descarta os comandos SQL lentos registrados.
+     */
+    @DeleteMapping("/consultas-lentas")
+    public ResponseEntity<Map<String, String>> limparConsultasLentas() {
+        monitor.limpar();
+        Map<String, String> response = new HashMap<>();
+        response.put("message", "Registro de consultas lentas limpo.");
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
+    /**
+     * Verifica se as consultas espaciais conseguem utilizar os índices das camadas analíticas.
+     */
+    @GetMapping("/indices")
+    public ResponseEntity<List<VerificacaoIndiceDTO>> getVerificacaoIndices() {
+        return new ResponseEntity<>(verificacaoIndices.verificar(), HttpStatus.OK);
+    }
+}
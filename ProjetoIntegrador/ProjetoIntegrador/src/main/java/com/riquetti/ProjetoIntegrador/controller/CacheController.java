@@ -0,0 +1,48 @@
+package com.riquetti.ProjetoIntegrador.controller;
+
+import com.riquetti.ProjetoIntegrador.dto.EstatisticasCacheDTO;
+import com.riquetti.ProjetoIntegrador.service.ConsultaPontoCacheService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Controlador para acompanhar e invalidar o cache das consultas de ponto + raio.
+ */
+@RestController
+@RequestMapping("/api/cache/ponto-raio")
+public class CacheController {
+
+    private final ConsultaPontoCacheService service;
+
+    public CacheController(ConsultaPontoCacheService service) {
+        this.service = service;
+    }
+
+    /**
+     * Obtém as estatísticas de acertos, falhas e remoções do cache.
+     */
+    @GetMapping
+    public ResponseEntity<EstatisticasCacheDTO> getEstatisticas() {
+        return new ResponseEntity<>(service.estatisticas(), HttpStatus.OK);
+    }
+
+    /**
+     * Invalida todas as consultas em cache, por exemplo após a recarga das bases do IBGE ou de ruas.
+     *
+     * @return Mensagem com o número de consultas removidas.
+     */
+    @PostMapping("/invalidar")
+    public ResponseEntity<Map<String, String>> invalidar() {
+        int total = service.invalidar();
+        Map<String, String> response = new HashMap<>();
+        response.put("message", "Cache invalidado: " + total + " consultas removidas.");
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+}
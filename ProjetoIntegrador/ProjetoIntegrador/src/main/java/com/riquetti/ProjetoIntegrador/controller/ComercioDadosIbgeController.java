@@ -2,6 +2,8 @@ package com.riquetti.ProjetoIntegrador.controller;
 
 import com.riquetti.ProjetoIntegrador.dto.ComercioDadosIbgeDTO;
 import com.riquetti.ProjetoIntegrador.service.ComercioDadosIbgeService;
+import com.riquetti.ProjetoIntegrador.service.ConsultaPontoCacheService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -19,9 +21,14 @@ import java.util.Map;
 public class ComercioDadosIbgeController {
 
     private final ComercioDadosIbgeService service;
+    private final ConsultaPontoCacheService cacheService;
+    private final ObjectMapper objectMapper;
 
-    public ComercioDadosIbgeController(ComercioDadosIbgeService service) {
+    public ComercioDadosIbgeController(ComercioDadosIbgeService service, ConsultaPontoCacheService cacheService,
+                                       ObjectMapper objectMapper) {
         this.service = service;
+        this.cacheService = cacheService;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -92,8 +99,31 @@ public class ComercioDadosIbgeController {
         return new ResponseEntity<>(result, HttpStatus.OK);
     }
 
+    /**
+     * Obtém as localizações de todos os comércios com o raio de ação informado, em streaming.
+     * Cada registro é enviado assim que é lido do banco de dados, como NDJSON (padrão) ou array JSON.
+     */
+    @GetMapping("raio/stream")
+    public ResponseEntity<?> streamAllLocalizacaoComercioWithRaio(
+            @RequestParam(value = "raioAcaoMetros", required = false) String raioAcaoMetrosStr,
+            @RequestParam(value = "formato", defaultValue = "ndjson") String formato) {
+
+        if (isInvalidRaio(raioAcaoMetrosStr)) {
+            return badRequest("O valor do raio deve ser um número válido e maior que 0.");
+        }
+
+        if (!RespostaStreaming.isFormatoValido(formato)) {
+            return badRequest("O formato deve ser 'ndjson' ou 'json'.");
+        }
+
+        Double raioAcaoMetros = Double.parseDouble(raioAcaoMetrosStr);
+        return RespostaStreaming.<ComercioDadosIbgeDTO>criar(objectMapper, formato,
+                consumidor -> service.streamAllLocalizacaoComercioWithRaio(raioAcaoMetros, consumidor));
+    }
+
     /**
      * Obtém as localizações de um comércio baseado em um ponto e um raio de ação.
+     * A consulta passa pelo cache de ponto + raio.
      */
     @GetMapping("/ponto-raio")
     public ResponseEntity<?> getLocalizacaoComercioByPontoAndRaio(
@@ -113,11 +143,11 @@ public class ComercioDadosIbgeController {
         }
 
         Long raioAcaoMetros = Long.parseLong(raioAcaoMetrosStr);
-        List<ComercioDadosIbgeDTO> result = service.getLocalizacaoComercioByPontoAndRaio(pontoTexto, raioAcaoMetros);
+        List<ComercioDadosIbgeDTO> result = cacheService.getLocalizacaoComercioByPontoAndRaio(pontoTexto, raioAcaoMetros);
         return new ResponseEntity<>(result, HttpStatus.OK);
     }
 
-    private boolean isValidLocationFormat(String pontoTexto) {
+    static boolean isValidLocationFormat(String pontoTexto) {
         return pontoTexto.matches("POINT\\s*\\(\\s*-?\\d+\\.\\d+\\s+-?\\d+\\.\\d+\\s*\\)");
     }
 
@@ -1,7 +1,9 @@
 package com.riquetti.ProjetoIntegrador.controller;
 
 import com.riquetti.ProjetoIntegrador.dto.ComercioRaioAvenidaDTO;
+import com.riquetti.ProjetoIntegrador.entity.Ponto;
 import com.riquetti.ProjetoIntegrador.service.ComercioRaioAvenidaService;
+import com.riquetti.ProjetoIntegrador.service.ConsultaPontoCacheService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -9,6 +11,8 @@ import org.springframework.web.bind.annotation.*;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * Controlador para gerenciar as operações relacionadas aos dados de localização dos comércios vias próximas.
@@ -18,18 +22,30 @@ import java.util.Map;
 @RequestMapping("/api0/comercio-raio-avenida")
 public class ComercioRaioAvenidaController {
 
+    /**
+     * Formato do ponto recebido na requisição: POINT(longitude latitude).
+     */
+    private static final Pattern PONTO = Pattern.compile("^POINT\\((-?\\d+\\.\\d+) (-?\\d+\\.\\d+)\\)$");
+
     /**
      * Serviço para operações relacionadas a comércios e raios de ação.
      */
     private final ComercioRaioAvenidaService service;
 
+    /**
+     * Cache das consultas de ponto + raio.
+     */
+    private final ConsultaPontoCacheService cacheService;
+
     /**
      * Construtor do controlador que recebe o serviço.
      *
      * @param service O serviço responsável por gerenciar as operações de comércios.
+     * @param cacheService O cache das consultas de ponto + raio.
      */
-    public ComercioRaioAvenidaController(ComercioRaioAvenidaService service) {
+    public ComercioRaioAvenidaController(ComercioRaioAvenidaService service, ConsultaPontoCacheService cacheService) {
         this.service = service;
+        this.cacheService = cacheService;
     }
 
     /**
@@ -131,14 +147,15 @@ public class ComercioRaioAvenidaController {
      */
     @GetMapping("/ponto-raio-avenida")
     public ResponseEntity<?> getPontoRaioAvenida(@RequestParam String localizacaoTexto) {
-        // Valida se a localização está no formato esperado
-        if (!isValidPointFormat(localizacaoTexto)) {
+        // Converte a localização para o ponto de consulta, validando o formato
+        Ponto ponto = lerPonto(localizacaoTexto);
+        if (ponto == null) {
             Map<String, String> errorResponse = new HashMap<>();
             errorResponse.put("message", "O formato do ponto de texto deve ser 'POINT(x y)', onde x e y são coordenadas válidas.");
             return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
         }
 
-        List<ComercioRaioAvenidaDTO> result = service.getPontoRaioAvenida(localizacaoTexto);
+        List<ComercioRaioAvenidaDTO> result = cacheService.getPontoRaioAvenida(ponto);
         return ResponseEntity.ok(result);
     }
 
@@ -155,8 +172,9 @@ public class ComercioRaioAvenidaController {
             @RequestParam String localizacaoTexto,
             @RequestParam String raioAcaopersolizado) {
 
-        // Valida se a localização está no formato esperado
-        if (!isValidPointFormat(localizacaoTexto)) {
+        // Converte a localização para o ponto de consulta, validando o formato
+        Ponto ponto = lerPonto(localizacaoTexto);
+        if (ponto == null) {
             Map<String, String> errorResponse = new HashMap<>();
             errorResponse.put("message", "O formato do ponto de texto deve ser 'POINT(x y)', onde x e y são coordenadas válidas.");
             return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
@@ -177,18 +195,29 @@ public class ComercioRaioAvenidaController {
             return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
         }
 
-        List<ComercioRaioAvenidaDTO> result = service.getLocalizacaoRaioAvenida(localizacaoTexto, raio);
+        List<ComercioRaioAvenidaDTO> result = cacheService.getLocalizacaoRaioAvenida(ponto, raio);
         return ResponseEntity.ok(result);
     }
 
     /**
-     * Verifica se o texto está no formato válido de POINT.
+     * Converte o texto no formato POINT(longitude latitude) para o ponto de consulta.
      *
-     * @param point Texto a ser verificado.
-     * @return true se o formato for válido, false caso contrário.
+     * @param point Texto a ser convertido.
+     * @return O ponto, ou null se o formato ou as coordenadas forem inválidos.
      */
-    private boolean isValidPointFormat(String point) {
-        return point != null && point.matches("^POINT\\(-?\\d+\\.\\d+ -?\\d+\\.\\d+\\)$");
+    static Ponto lerPonto(String point) {
+        if (point == null) {
+            return null;
+        }
+        Matcher matcher = PONTO.matcher(point);
+        if (!matcher.matches()) {
+            return null;
+        }
+        try {
+            return new Ponto(Double.parseDouble(matcher.group(1)), Double.parseDouble(matcher.group(2)));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
     }
 
 }
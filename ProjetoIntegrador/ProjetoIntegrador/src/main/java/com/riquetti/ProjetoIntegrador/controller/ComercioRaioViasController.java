@@ -2,6 +2,7 @@ package com.riquetti.ProjetoIntegrador.controller;
 
 import com.riquetti.ProjetoIntegrador.dto.ComercioRaioViasDTO;
 import com.riquetti.ProjetoIntegrador.service.ComercioRaioViasService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -19,9 +20,11 @@ import java.util.Map;
 public class ComercioRaioViasController {
 
     private final ComercioRaioViasService service;
+    private final ObjectMapper objectMapper;
 
-    public ComercioRaioViasController(ComercioRaioViasService service) {
+    public ComercioRaioViasController(ComercioRaioViasService service, ObjectMapper objectMapper) {
         this.service = service;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -97,5 +100,44 @@ public class ComercioRaioViasController {
     public List<ComercioRaioViasDTO> getAllViasDistancia() {
         return service.findAllViasDistancia();
     }
-}
 
+    /**
+     * Obtém todas as distâncias das vias de comércio em streaming.
+     * Cada registro é enviado assim que é lido do snapshot, como NDJSON (padrão) ou array JSON.
+     *
+     * @param formato "ndjson" ou "json".
+     * @return Corpo em streaming com as ComercioRaioViasDTO com distâncias.
+     */
+    @GetMapping("/distancias/stream")
+    public ResponseEntity<?> streamAllViasDistancia(
+            @RequestParam(value = "formato", defaultValue = "ndjson") String formato) {
+        if (!RespostaStreaming.isFormatoValido(formato)) {
+            Map<String, String> errorResponse = new HashMap<>();
+            errorResponse.put("message", "O formato deve ser 'ndjson' ou 'json'.");
+            return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+        }
+
+        return RespostaStreaming.<ComercioRaioViasDTO>criar(objectMapper, formato, service::streamAllViasDistancia);
+    }
+
+    /**
+     * Recalcula o snapshot de acessibilidade de todos os comércios.
+     * Utilizado após a recarga da base de vias OSM.
+     *
+     * @return Mensagem com o número de comércios recalculados, ou 409 se o snapshot estiver desativado.
+     */
+    @PostMapping("/snapshot/atualizar")
+    public ResponseEntity<Map<String, String>> refreshSnapshot() {
+        int total;
+        try {
+            total = service.refreshAllSnapshots();
+        } catch (IllegalStateException e) {
+            Map<String, String> errorResponse = new HashMap<>();
+            errorResponse.put("message", e.getMessage());
+            return new ResponseEntity<>(errorResponse, HttpStatus.CONFLICT);
+        }
+        Map<String, String> response = new HashMap<>();
+        response.put("message", "Snapshot de acessibilidade atualizado para " + total + " comércios.");
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+}
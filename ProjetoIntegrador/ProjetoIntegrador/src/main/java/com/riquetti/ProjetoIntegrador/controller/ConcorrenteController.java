@@ -1,6 +1,7 @@
 package com.riquetti.ProjetoIntegrador.controller;
 
 import com.riquetti.ProjetoIntegrador.dto.ConcorrenteDTO;
+import com.riquetti.ProjetoIntegrador.dto.ConcorrenteProximoDTO;
 import com.riquetti.ProjetoIntegrador.service.ConcorrenteService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -95,4 +96,34 @@ public class ConcorrenteController {
         List<ConcorrenteDTO> concorrentes = service.findByRaioFromComercio(idComercio);
         return new ResponseEntity<>(concorrentes, HttpStatus.OK);
     }
+
+    /**
+     * Obtém os K comércios mais próximos de um comércio ou de um ponto, ordenados pela distância.
+     *
+     * @param idComercio     O ID do comércio de origem; alternativo à longitude e latitude.
+     * @param longitude      A longitude da origem; alternativa ao idComercio.
+     * @param latitude       A latitude da origem; alternativa ao idComercio.
+     * @param idTipoComercio Filtro opcional pelo tipo de comércio dos concorrentes.
+     * @param k              A quantidade de concorrentes, entre 1 e 100 (padrão 10).
+     * @return Uma lista de DTOs de concorrentes com a distância em metros; vazia se o comércio de origem não existir.
+     */
+    @GetMapping("/nearest")
+    public ResponseEntity<?> getConcorrentesMaisProximos(
+            @RequestParam(required = false) Long idComercio,
+            @RequestParam(required = false) Double longitude,
+            @RequestParam(required = false) Double latitude,
+            @RequestParam(required = false) Long idTipoComercio,
+            @RequestParam(required = false) Integer k) {
+
+        List<ConcorrenteProximoDTO> concorrentes;
+        try {
+            concorrentes = service.getConcorrentesMaisProximos(idComercio, longitude, latitude, idTipoComercio, k);
+        } catch (IllegalArgumentException e) {
+            Map<String, String> errorResponse = new HashMap<>();
+            errorResponse.put("message", e.getMessage());
+            return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+        }
+
+        return new ResponseEntity<>(concorrentes, HttpStatus.OK);
+    }
 }
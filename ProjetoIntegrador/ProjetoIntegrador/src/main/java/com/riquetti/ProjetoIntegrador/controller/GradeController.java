@@ -0,0 +1,38 @@
+package com.riquetti.ProjetoIntegrador.controller;
+
+import com.riquetti.ProjetoIntegrador.service.GradeService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Controlador para a manutenção da grade pré-agregada utilizada nas consultas de ponto + raio.
+ */
+@RestController
+@RequestMapping("/api/grade")
+public class GradeController {
+
+    private final GradeService service;
+
+    public GradeController(GradeService service) {
+        this.service = service;
+    }
+
+    /**
+     * Reconstrói a grade após a atualização das bases do IBGE ou de ruas.
+     *
+     * @return Mensagem com o número de células criadas.
+     */
+    @PostMapping("/reconstruir")
+    public ResponseEntity<Map<String, String>> reconstruir() {
+        int celulas = service.reconstruir();
+        Map<String, String> response = new HashMap<>();
+        response.put("message", "Grade reconstruída com " + celulas + " células.");
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+}
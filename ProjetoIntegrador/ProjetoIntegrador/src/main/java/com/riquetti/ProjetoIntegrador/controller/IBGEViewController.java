@@ -1,14 +1,25 @@
 package com.riquetti.ProjetoIntegrador.controller;
 
-import com.riquetti.ProjetoIntegrador.service.IBGEService;
+import com.riquetti.ProjetoIntegrador.exception.ResourceNotFoundException;
+import com.riquetti.ProjetoIntegrador.exception.ServiceUnavailableException;
+import com.riquetti.ProjetoIntegrador.service.MalhaMunicipio;
+import com.riquetti.ProjetoIntegrador.service.MalhaMunicipioService;
+import com.riquetti.ProjetoIntegrador.service.OpcoesMalha;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.context.request.WebRequest;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -20,17 +31,32 @@ import java.util.Map;
 @RestController
 public class IBGEViewController {
 
+    private static final MediaType GEO_JSON = MediaType.parseMediaType("application/geo+json");
+
     @Autowired
-    private IBGEService ibgeService;
+    private MalhaMunicipioService malhaMunicipioService;
 
     /**
      * Obtém o GeoJSON da malha do município especificado.
+     * A malha é servida do cache local; aos clientes que aceitam gzip, é enviada já comprimida
+     * (Content-Encoding: gzip). Responde 304 quando o ETag informado em If-None-Match ainda é o da malha.
+     *
+     * Para reduzir o tamanho da resposta, a malha pode ser simplificada (tolerancia, em metros), ter as
+     * coordenadas arredondadas (precisao, em casas decimais) e ser recortada por um retângulo
+     * (bbox=oeste,sul,leste,norte); o resultado de cada combinação fica em cache.
      *
      * @param municipioId O ID do município, não pode ser nulo ou vazio.
+     * @param tolerancia  Tolerância opcional da simplificação Douglas-Peucker, em metros.
+     * @param precisao    Quantidade opcional de casas decimais das coordenadas.
+     * @param bbox        Retângulo opcional de recorte, no formato "oeste,sul,leste,norte".
      * @return O GeoJSON da malha do município ou uma mensagem de erro.
      */
     @GetMapping("/malha/{municipioId}")
-    public ResponseEntity<?> getMalhaMunicipio(@PathVariable String municipioId) {
+    public ResponseEntity<?> getMalhaMunicipio(@PathVariable String municipioId,
+                                               @RequestParam(required = false) Double tolerancia,
+                                               @RequestParam(required = false) Integer precisao,
+                                               @RequestParam(required = false) String bbox,
+                                               WebRequest request) {
         // Verifica se municipioId está nulo ou vazio
         if (municipioId == null || municipioId.trim().isEmpty()) {
             Map<String, String> errorResponse = new HashMap<>();
@@ -38,18 +64,47 @@ public class IBGEViewController {
             return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
         }
 
-        // Chama o serviço para obter o GeoJSON da malha do município
-        String geoJson = ibgeService.getMalhaMunicipio(municipioId);
-
-        // Verifica se o município foi encontrado
-        if (geoJson == null || geoJson.isEmpty()) {
+        // Obtém a malha do cache (memória, disco ou IBGE)
+        MalhaMunicipio malha;
+        try {
+            OpcoesMalha opcoes = OpcoesMalha.de(tolerancia, precisao, bbox);
+            malha = malhaMunicipioService.getMalha(municipioId.trim(), opcoes);
+        } catch (IllegalArgumentException e) {
             Map<String, String> errorResponse = new HashMap<>();
-            errorResponse.put("message", "Município não encontrado para o ID especificado: " + municipioId);
+            errorResponse.put("message", e.getMessage());
+            return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+        } catch (ResourceNotFoundException e) {
+            Map<String, String> errorResponse = new HashMap<>();
+            errorResponse.put("message", e.getMessage());
             return new ResponseEntity<>(errorResponse, HttpStatus.NOT_FOUND);
+        } catch (ServiceUnavailableException e) {
+            Map<String, String> errorResponse = new HashMap<>();
+            errorResponse.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(errorResponse);
+        } catch (RestClientException e) {
+            Map<String, String> errorResponse = new HashMap<>();
+            errorResponse.put("message", "Erro ao buscar malha do município");
+            return new ResponseEntity<>(errorResponse, HttpStatus.BAD_GATEWAY);
+        }
+
+        CacheControl cacheControl = CacheControl.maxAge(Duration.ofDays(1)).cachePublic();
+        if (request.checkNotModified(malha.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(malha.etag()).cacheControl(cacheControl).build();
         }
 
-        // Retorna o GeoJSON se o município for encontrado
-        return new ResponseEntity<>(geoJson, HttpStatus.OK);
+        // Envia o GeoJSON comprimido sem recompressão quando o cliente aceita gzip
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+        ResponseEntity.BodyBuilder resposta = ResponseEntity.ok()
+                .contentType(GEO_JSON)
+                .eTag(malha.etag())
+                .cacheControl(cacheControl)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            return resposta.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(malha.geoJsonGzip());
+        }
+        return resposta.body(malha.geoJson());
     }
 }
-
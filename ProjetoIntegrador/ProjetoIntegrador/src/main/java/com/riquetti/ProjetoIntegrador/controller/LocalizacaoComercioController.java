@@ -1,16 +1,23 @@
 package com.riquetti.ProjetoIntegrador.controller;
 
+import com.riquetti.ProjetoIntegrador.dto.ImportacaoComercioDTO;
 import com.riquetti.ProjetoIntegrador.dto.LocalizacaoComercioDTO;
+import com.riquetti.ProjetoIntegrador.exception.ResourceNotFoundException;
+import com.riquetti.ProjetoIntegrador.service.FormatoImportacao;
+import com.riquetti.ProjetoIntegrador.service.ImportacaoComercioService;
 import com.riquetti.ProjetoIntegrador.service.LocalizacaoComercioService;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Min;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigDecimal;
 import java.util.List;
-import java.util.regex.Pattern;
+import java.util.Map;
 
 /**
  * Controlador para gerenciar as operações relacionadas aos dados de comércios.
@@ -21,9 +28,11 @@ import java.util.regex.Pattern;
 public class LocalizacaoComercioController {
 
     private final LocalizacaoComercioService service;
+    private final ImportacaoComercioService importacaoService;
 
-    public LocalizacaoComercioController(LocalizacaoComercioService service) {
+    public LocalizacaoComercioController(LocalizacaoComercioService service, ImportacaoComercioService importacaoService) {
         this.service = service;
+        this.importacaoService = importacaoService;
     }
 
     /**
@@ -62,12 +71,36 @@ public class LocalizacaoComercioController {
         return ResponseEntity.status(HttpStatus.CREATED).build();
     }
 
+    /**
+     * Importa comércios em lote a partir de um arquivo CSV, NDJSON ou GeoJSON enviado no corpo da requisição.
+     * O arquivo é lido à medida que chega; registros inválidos são rejeitados sem interromper a importação.
+     *
+     * @param formato     "csv", "ndjson" ou "geojson"; se omitido, é identificado pelo Content-Type.
+     * @param contentType O Content-Type da requisição (text/csv, application/x-ndjson ou application/geo+json).
+     * @param corpo       O conteúdo do arquivo, em UTF-8.
+     * @return O resultado da importação com a quantidade de registros importados e os erros por linha.
+     */
+    @PostMapping(value = "/importacao", consumes = {"text/csv", "application/x-ndjson", "application/geo+json",
+            "application/json", "application/octet-stream"})
+    public ResponseEntity<?> importarLocalizacaoComercios(
+            @RequestParam(value = "formato", required = false) String formato,
+            @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) String contentType,
+            InputStream corpo) throws IOException {
+        ImportacaoComercioDTO resultado;
+        try {
+            resultado = importacaoService.importar(corpo, FormatoImportacao.de(formato, contentType));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+        return ResponseEntity.ok(resultado);
+    }
+
     /**
      * Atualiza os dados de um comércio existente.
      *
      * @param idComercio O ID do comércio a ser atualizado, deve ser um inteiro maior que 0 e não nulo.
      * @param dto        O DTO contendo os dados atualizados do comércio.
-     * @return Uma resposta indicando que a localização foi atualizada com sucesso.
+     * @return Uma resposta indicando que a localização foi atualizada com sucesso, ou 404 se o comércio não existir.
      */
     @PutMapping("/{idComercio}")
     public ResponseEntity<Void> updateLocalizacaoComercio(@PathVariable @Min(1) Long idComercio, @RequestBody @Valid LocalizacaoComercioDTO dto) {
@@ -75,7 +108,11 @@ public class LocalizacaoComercioController {
             return ResponseEntity.badRequest().build();
         }
         validateLocalizacaoComercio(dto);
-        service.updateLocalizacaoComercio(dto);
+        try {
+            service.updateLocalizacaoComercio(dto);
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
         return ResponseEntity.ok().build();
     }
 
@@ -106,19 +143,8 @@ public class LocalizacaoComercioController {
         if (dto.raioAcaoMetros() == null || dto.raioAcaoMetros().compareTo(BigDecimal.ZERO) <= 0) {
             throw new IllegalArgumentException("O raio de ação deve ser um número maior que 0 e não nulo.");
         }
-        if (dto.localizacao() == null || !isValidPointFormat(dto.localizacao())) {
-            throw new IllegalArgumentException("A localização deve estar no formato POINT(lon lat), por exemplo, POINT(-47.3990964 -22.5692409).");
+        if (dto.localizacao() == null) {
+            throw new IllegalArgumentException("A localização deve ser informada com longitude e latitude, por exemplo, {\"longitude\": -47.3990964, \"latitude\": -22.5692409}.");
         }
     }
-
-    /**
-     * Verifica se a string da localização está no formato válido de POINT.
-     *
-     * @param point A string representando a localização.
-     * @return true se o formato estiver correto, caso contrário, false.
-     */
-    private boolean isValidPointFormat(String point) {
-        String pointPattern = "^POINT\\s*\\(-?\\d+(\\.\\d+)?\\s+-?\\d+(\\.\\d+)?\\)$";
-        return Pattern.matches(pointPattern, point);
-    }
 }
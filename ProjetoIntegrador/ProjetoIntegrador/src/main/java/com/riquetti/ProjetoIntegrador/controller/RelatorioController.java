@@ -0,0 +1,118 @@
+package com.riquetti.ProjetoIntegrador.controller;
+
+import com.riquetti.ProjetoIntegrador.dto.RelatorioJobDTO;
+import com.riquetti.ProjetoIntegrador.exception.ResourceNotFoundException;
+import com.riquetti.ProjetoIntegrador.service.FormatoRelatorio;
+import com.riquetti.ProjetoIntegrador.service.RelatorioJobService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Controlador dos relatórios de todos os comércios executados em segundo plano.
+ *
+ * O relatório é criado com POST, que responde 202 com o ID para acompanhamento; o progresso é consultado
+ * com GET e, concluído o relatório, o resultado é baixado em JSON ou CSV.
+ */
+@RestController
+@RequestMapping("/api/relatorios")
+public class RelatorioController {
+
+    private final RelatorioJobService service;
+
+    public RelatorioController(RelatorioJobService service) {
+        this.service = service;
+    }
+
+    /**
+     * Cria um relatório de todos os comércios.
+     *
+     * @param tipo           "vias", "avenidas" ou "dados-ibge".
+     * @param raioAcaoMetros O raio de ação em metros, obrigatório no relatório "dados-ibge".
+     * @return 202 com a situação inicial do relatório e o endereço para acompanhamento.
+     */
+    @PostMapping
+    public ResponseEntity<?> criar(@RequestParam("tipo") String tipo,
+                                   @RequestParam(value = "raioAcaoMetros", required = false) Double raioAcaoMetros) {
+        try {
+            RelatorioJobDTO relatorio = service.submeter(tipo, raioAcaoMetros);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/relatorios/" + relatorio.idJob()))
+                    .body(relatorio);
+        } catch (IllegalArgumentException e) {
+            return erro(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    /**
+     * Consulta a situação e o progresso de um relatório.
+     *
+     * @param idJob O ID do relatório.
+     * @return A situação do relatório.
+     */
+    @GetMapping("/{idJob}")
+    public ResponseEntity<?> consultar(@PathVariable String idJob) {
+        try {
+            return new ResponseEntity<>(service.consultar(UUID.fromString(idJob)), HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return erro(HttpStatus.BAD_REQUEST, "O ID do relatório é inválido.");
+        } catch (ResourceNotFoundException e) {
+            return erro(HttpStatus.NOT_FOUND, e.getMessage());
+        }
+    }
+
+    /**
+     * Baixa o resultado de um relatório concluído.
+     *
+     * @param idJob   O ID do relatório.
+     * @param formato "json" (padrão) ou "csv".
+     * @return O resultado como anexo, escrito em streaming a partir dos blocos gravados em disco.
+     */
+    @GetMapping("/{idJob}/resultado")
+    public ResponseEntity<?> baixar(@PathVariable String idJob,
+                                    @RequestParam(value = "formato", defaultValue = "json") String formato) {
+        UUID id;
+        FormatoRelatorio formatoRelatorio;
+        try {
+            id = UUID.fromString(idJob);
+            formatoRelatorio = FormatoRelatorio.de(formato);
+        } catch (IllegalArgumentException e) {
+            return erro(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+
+        RelatorioJobDTO relatorio;
+        List<Path> arquivos;
+        try {
+            relatorio = service.consultar(id);
+            arquivos = service.arquivosResultado(id);
+        } catch (ResourceNotFoundException e) {
+            return erro(HttpStatus.NOT_FOUND, e.getMessage());
+        } catch (IllegalStateException e) {
+            return erro(HttpStatus.CONFLICT, e.getMessage());
+        }
+
+        boolean csv = formatoRelatorio == FormatoRelatorio.CSV;
+        String nomeArquivo = "relatorio-" + relatorio.tipo() + "-" + id + (csv ? ".csv" : ".json");
+        StreamingResponseBody corpo = saida -> service.escreverResultado(formatoRelatorio, arquivos, saida);
+        return ResponseEntity.ok()
+                .contentType(csv ? MediaType.parseMediaType("text/csv;charset=UTF-8") : MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + nomeArquivo + "\"")
+                .body(corpo);
+    }
+
+    private static ResponseEntity<Map<String, String>> erro(HttpStatus status, String mensagem) {
+        Map<String, String> errorResponse = new HashMap<>();
+        errorResponse.put("message", mensagem);
+        return new ResponseEntity<>(errorResponse, status);
+    }
+}
@@ -0,0 +1,83 @@
+package com.riquetti.ProjetoIntegrador.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Monta respostas que escrevem os registros à medida que são lidos do banco de dados,
+ * sem materializar a lista completa em memória.
+ *
+ * Formatos suportados: "ndjson" (um objeto JSON por linha) e "json" (array JSON enviado em partes).
+ * O primeiro registro é enviado imediatamente e os demais são descarregados a cada lote.
+ */
+final class RespostaStreaming {
+
+    static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private static final int REGISTROS_POR_FLUSH = 100;
+
+    private RespostaStreaming() {
+    }
+
+    /**
+     * Verifica se o formato solicitado é suportado.
+     *
+     * @param formato O formato informado na requisição.
+     * @return True se o formato for "ndjson" ou "json", caso contrário, False.
+     */
+    static boolean isFormatoValido(String formato) {
+        return "ndjson".equalsIgnoreCase(formato) || "json".equalsIgnoreCase(formato);
+    }
+
+    /**
+     * Cria a resposta em streaming.
+     *
+     * @param objectMapper O ObjectMapper da aplicação, utilizado para serializar cada registro.
+     * @param formato      "ndjson" ou "json".
+     * @param produtor     Função que percorre os registros e os entrega ao consumidor recebido.
+     * @param <T>          Tipo dos registros.
+     * @return ResponseEntity com o corpo em streaming e o Content-Type correspondente ao formato.
+     */
+    static <T> ResponseEntity<StreamingResponseBody> criar(ObjectMapper objectMapper, String formato,
+                                                           Consumer<Consumer<T>> produtor) {
+        boolean ndjson = "ndjson".equalsIgnoreCase(formato);
+        StreamingResponseBody corpo = saida -> {
+            try (JsonGenerator gerador = objectMapper.getFactory().createGenerator(saida)) {
+                if (ndjson) {
+                    // Sem o separador padrão (espaço) entre valores raiz: cada linha começa no próprio objeto
+                    gerador.setRootValueSeparator(null);
+                } else {
+                    gerador.writeStartArray();
+                }
+                int[] escritos = {0};
+                produtor.accept(registro -> {
+                    try {
+                        gerador.writeObject(registro);
+                        if (ndjson) {
+                            gerador.writeRaw('\n');
+                        }
+                        if (++escritos[0] == 1 || escritos[0] % REGISTROS_POR_FLUSH == 0) {
+                            gerador.flush();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                if (!ndjson) {
+                    gerador.writeEndArray();
+                }
+            }
+        };
+        return ResponseEntity.status(HttpStatus.OK)
+                .contentType(ndjson ? APPLICATION_NDJSON : MediaType.APPLICATION_JSON)
+                .body(corpo);
+    }
+}
@@ -0,0 +1,125 @@
+package com.riquetti.ProjetoIntegrador.controller;
+
+import com.riquetti.ProjetoIntegrador.dto.EstatisticasCacheDTO;
+import com.riquetti.ProjetoIntegrador.dto.TileDensidadeDTO;
+import com.riquetti.ProjetoIntegrador.service.CacheDisco;
+import com.riquetti.ProjetoIntegrador.service.CamadaVetorial;
+import com.riquetti.ProjetoIntegrador.service.DensidadeTileService;
+import com.riquetti.ProjetoIntegrador.service.Tile;
+import com.riquetti.ProjetoIntegrador.service.VetorTileService;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Controlador dos tiles do mapa de comércios, no esquema XYZ do Leaflet.
+ */
+@RestController
+@RequestMapping("/tiles")
+public class TileController {
+
+    private static final MediaType MAPBOX_VECTOR_TILE = MediaType.parseMediaType("application/vnd.mapbox-vector-tile");
+
+    private final DensidadeTileService densidadeTileService;
+    private final VetorTileService vetorTileService;
+
+    public TileController(DensidadeTileService densidadeTileService, VetorTileService vetorTileService) {
+        this.densidadeTileService = densidadeTileService;
+        this.vetorTileService = vetorTileService;
+    }
+
+    /**
+     * Obtém a grade de densidade de comércios de um tile.
+     *
+     * @param z              O nível de zoom, entre 0 e 22.
+     * @param x              A coluna do tile.
+     * @param y              A linha do tile.
+     * @param idTipoComercio Filtro opcional pelo tipo de comércio.
+     * @return As células ocupadas do tile, com a quantidade e a posição média dos comércios.
+     */
+    @GetMapping("/{z}/{x}/{y}")
+    public ResponseEntity<?> getTileDensidade(@PathVariable int z, @PathVariable int x, @PathVariable int y,
+                                              @RequestParam(required = false) Long idTipoComercio) {
+        TileDensidadeDTO tile;
+        try {
+            tile = densidadeTileService.getTile(new Tile(z, x, y), idTipoComercio);
+        } catch (IllegalArgumentException e) {
+            Map<String, String> errorResponse = new HashMap<>();
+            errorResponse.put("message", e.getMessage());
+            return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+        }
+        return new ResponseEntity<>(tile, HttpStatus.OK);
+    }
+
+    /**
+     * Obtém as estatísticas do cache de tiles de densidade, por nível de zoom.
+     */
+    @GetMapping("/estatisticas")
+    public ResponseEntity<List<EstatisticasCacheDTO>> getEstatisticas() {
+        return new ResponseEntity<>(densidadeTileService.estatisticas(), HttpStatus.OK);
+    }
+
+    /**
+     * Obtém o tile vetorial (Mapbox Vector Tile) de uma camada de referência, recortado e simplificado
+     * para o zoom. Responde 304 quando o ETag informado em If-None-Match ainda é o do tile.
+     *
+     * @param camada A camada: "vias" (camada_vias), "ruas" (camada_ruas) ou "setores" (camada_setores).
+     * @param z      O nível de zoom, entre 0 e 22.
+     * @param x      A coluna do tile.
+     * @param y      A linha do tile.
+     * @return O tile codificado, com o ETag; vazio quando nenhuma feição cruza o tile.
+     */
+    @GetMapping("/mvt/{camada}/{z}/{x}/{y}.pbf")
+    public ResponseEntity<?> getTileVetorial(@PathVariable String camada, @PathVariable int z,
+                                             @PathVariable int x, @PathVariable int y, WebRequest request) {
+        CacheDisco.Arquivo tile;
+        try {
+            tile = vetorTileService.getTile(CamadaVetorial.de(camada), new Tile(z, x, y));
+        } catch (IllegalArgumentException e) {
+            Map<String, String> errorResponse = new HashMap<>();
+            errorResponse.put("message", e.getMessage());
+            return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+        }
+        CacheControl cacheControl = CacheControl.maxAge(Duration.ofHours(1)).cachePublic();
+        if (request.checkNotModified(tile.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(tile.etag()).cacheControl(cacheControl).build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MAPBOX_VECTOR_TILE)
+                .eTag(tile.etag())
+                .cacheControl(cacheControl)
+                .body(tile.conteudo());
+    }
+
+    /**
+     * Remove do disco os tiles vetoriais de uma camada, por exemplo após a recarga da base correspondente.
+     *
+     * @param camada A camada: "vias", "ruas" ou "setores".
+     * @return Mensagem com o número de tiles removidos.
+     */
+    @PostMapping("/mvt/{camada}/invalidar")
+    public ResponseEntity<Map<String, String>> invalidarTilesVetoriais(@PathVariable String camada) {
+        Map<String, String> response = new HashMap<>();
+        try {
+            int total = vetorTileService.invalidar(CamadaVetorial.de(camada));
+            response.put("message", "Cache invalidado: " + total + " tiles removidos.");
+        } catch (IllegalArgumentException e) {
+            response.put("message", e.getMessage());
+            return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        }
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+}
@@ -0,0 +1,23 @@
+package com.riquetti.ProjetoIntegrador.dto;
+
+import com.riquetti.ProjetoIntegrador.entity.Ponto;
+
+/**
+ * DTO de uma célula da grade de densidade de um tile.
+ *
+ * @param coluna     Coluna da célula no tile, a partir do oeste.
+ * @param linha      Linha da célula no tile, a partir do norte.
+ * @param quantidade Quantidade de comércios na célula.
+ * @param centro     Posição média dos comércios da célula.
+ * @param idComercio ID do comércio quando a célula contém apenas um; caso contrário, null.
+ * @param nome       Nome do comércio quando a célula contém apenas um; caso contrário, null.
+ */
+public record CelulaDensidadeDTO(
+        int coluna,
+        int linha,
+        long quantidade,
+        Ponto centro,
+        Long idComercio,
+        String nome
+) {
+}
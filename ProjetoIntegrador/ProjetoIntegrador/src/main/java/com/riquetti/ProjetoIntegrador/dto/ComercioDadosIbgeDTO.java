@@ -1,5 +1,7 @@
 package com.riquetti.ProjetoIntegrador.dto;
 
+import com.riquetti.ProjetoIntegrador.entity.Ponto;
+
 import java.math.BigDecimal;
 
 /**
@@ -8,9 +10,7 @@ import java.math.BigDecimal;
  *
  * @param idComercio            Representa o identificador único de um comércio.
  * @param nome                  Nome atribuído ao comércio.
- * @param localizacaoTexto      Localização em formato texto (WKT).
- *                              Contém a representação da localização do comércio no
- *                              formato Well-Known Text (WKT) "POINT(-47.3990964 -22.5692409)".
+ * @param localizacao           Localização do comércio, {"longitude": -47.3990964, "latitude": -22.5692409}.
  * @param raioAcaoMetros        Raio de ação em metros (área de influência do comércio).
  *                              Define o alcance em metros ao redor do comércio para fins de análise geoespacial.
  * @param rendaMediaIbge2010    Renda média por setor censitário, de acordo com o IBGE em 2010.
@@ -22,7 +22,7 @@ public record ComercioDadosIbgeDTO(
 
         Long idComercio,
         String nome,
-        String localizacaoTexto,
+        Ponto localizacao,
         Long raioAcaoMetros,
         BigDecimal rendaMediaIbge2010,
         BigDecimal moradoresIbge2010
@@ -1,5 +1,7 @@
 package com.riquetti.ProjetoIntegrador.dto;
 
+import com.riquetti.ProjetoIntegrador.entity.Ponto;
+
 /**
  * Classe DTO que representa um comércio e sua localização, incluindo informações sobre
  *  * o raio de ação e a contagem de comércios em diferentes distâncias.
@@ -7,7 +9,7 @@ package com.riquetti.ProjetoIntegrador.dto;
  *
  * @param idComercio        O identificador único do comércio.
  * @param nome              O nome do comércio.
- * @param localizacaoTexto  A localização do comércio em formato Well-Known Text (WKT) "POINT(-47.3990964 -22.5692409)".
+ * @param localizacao       A localização do comércio, ou o ponto de consulta, em longitude e latitude.
  * @param raioAcaoMetros    Raio de ação em metros (área de influência do comércio).
  *                          Define o alcance em metros ao redor do comércio para análises geoespaciais.
  * @param total200m         Contagem de vias e avenidas dentro de um raio de 200 metros.
@@ -21,7 +23,7 @@ public record ComercioRaioAvenidaDTO(
 
         Long idComercio,
         String nome,
-        String localizacaoTexto,
+        Ponto localizacao,
         Long raioAcaoMetros,
         int total200m,
         int total500m,
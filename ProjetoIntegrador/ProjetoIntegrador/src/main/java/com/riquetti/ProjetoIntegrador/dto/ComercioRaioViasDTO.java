@@ -1,5 +1,7 @@
 package com.riquetti.ProjetoIntegrador.dto;
 
+import com.riquetti.ProjetoIntegrador.entity.Ponto;
+
 import java.math.BigDecimal;
 
 /**
@@ -23,8 +25,8 @@ import java.math.BigDecimal;
  * @param comprimento2500                O comprimento das vias dentro de um raio de 2,5 km.
  * @param acessibilidade                 Classificação da informação sobre a acessibilidade do comércio.
  *                                       Classificação da acessibilidade em muito ruim, ruim, média, boa e Excelente
- * @param localizacao                    A localização do comércio em formato Well-Known Text (WKT)
- *                                       "POINT(-47.3990964 -22.5692409)".
+ * @param localizacao                    A localização do comércio,
+ *                                       {"longitude": -47.3990964, "latitude": -22.5692409}.
  */
 public record ComercioRaioViasDTO(
 
@@ -39,7 +41,7 @@ public record ComercioRaioViasDTO(
         BigDecimal comprimento2000,
         BigDecimal comprimento2500,
         String acessibilidade,
-        String localizacao
+        Ponto localizacao
 
 ) {
 }
@@ -1,5 +1,7 @@
 package com.riquetti.ProjetoIntegrador.dto;
 
+import com.riquetti.ProjetoIntegrador.entity.Ponto;
+
 /**
  * Classe DTO  que representa a busca os dos comercios concorrentes.
  * Buscar os comercios dentro do raio de de ação.
@@ -7,7 +9,7 @@ package com.riquetti.ProjetoIntegrador.dto;
  * @param nome              O nome do comércio.
  * @param descricao         A descrição do comércio.
  * @param idTipoComercio    O identificador do tipo de comércio.
- * @param localizacao       A localização do comércio em formato Well-Known Text (WKT) "POINT(-47.3990964 -22.5692409)".
+ * @param localizacao       A localização do comércio, em longitude e latitude.
  */
 public record ConcorrenteDTO(
 
@@ -15,7 +17,7 @@ public record ConcorrenteDTO(
         String nome,
         String descricao,
         Long idTipoComercio,
-        String localizacao
+        Ponto localizacao
 
 ) {
 }
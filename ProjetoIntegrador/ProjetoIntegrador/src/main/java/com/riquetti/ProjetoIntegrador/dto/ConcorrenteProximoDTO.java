@@ -0,0 +1,25 @@
+package com.riquetti.ProjetoIntegrador.dto;
+
+import com.riquetti.ProjetoIntegrador.entity.Ponto;
+
+/**
+ * Classe DTO que representa um dos comércios mais próximos de uma origem, ordenados pela distância.
+ *
+ * @param idComercio      O identificador único do comércio.
+ * @param nome            O nome do comércio.
+ * @param descricao       A descrição do comércio.
+ * @param idTipoComercio  O identificador do tipo de comércio.
+ * @param localizacao     A localização do comércio, {"longitude": -47.3990964, "latitude": -22.5692409}.
+ * @param distanciaMetros A distância até a origem da busca, em metros.
+ */
+public record ConcorrenteProximoDTO(
+
+        Long idComercio,
+        String nome,
+        String descricao,
+        Long idTipoComercio,
+        Ponto localizacao,
+        Double distanciaMetros
+
+) {
+}
@@ -0,0 +1,26 @@
+package com.riquetti.ProjetoIntegrador.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * DTO com um comando SQL que ultrapassou o tempo limite de consulta lenta.
+ *
+ * @param momento    Momento em que o comando terminou.
+ * @param pool       Pool de conexões em que o comando foi executado (crud ou analise).
+ * @param sql        O comando SQL, com os marcadores "?".
+ * @param parametros Os parâmetros, na ordem dos marcadores; "***" quando o comando envolve dados sensíveis.
+ * @param duracaoMs  Tempo de execução em milissegundos.
+ * @param erro       Mensagem de erro, quando o comando falhou (por exemplo, cancelado pelo statement_timeout).
+ * @param plano      Plano de execução (EXPLAIN, ou EXPLAIN (ANALYZE, BUFFERS) se ativado); nulo quando o plano não foi amostrado.
+ */
+public record ConsultaLentaDTO(
+        Instant momento,
+        String pool,
+        String sql,
+        List<String> parametros,
+        long duracaoMs,
+        String erro,
+        String plano
+) {
+}
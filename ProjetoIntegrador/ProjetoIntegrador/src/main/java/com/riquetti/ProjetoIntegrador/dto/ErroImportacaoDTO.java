@@ -0,0 +1,13 @@
+package com.riquetti.ProjetoIntegrador.dto;
+
+/**
+ * DTO com o erro de um registro rejeitado na importação de comércios.
+ *
+ * @param linha    Número do registro no arquivo: linha no CSV/NDJSON ou posição da feature no GeoJSON, a partir de 1.
+ * @param mensagem Motivo da rejeição.
+ */
+public record ErroImportacaoDTO(
+        long linha,
+        String mensagem
+) {
+}
@@ -0,0 +1,21 @@
+package com.riquetti.ProjetoIntegrador.dto;
+
+/**
+ * DTO com o uso de um pool de conexões com o banco de dados e da sua fila de admissão.
+ *
+ * @param nome            Nome do pool (crud ou analise).
+ * @param emUso           Conexões em uso no momento.
+ * @param conexoesMaximas Quantidade máxima de conexões em uso ao mesmo tempo.
+ * @param fila            Requisições aguardando uma conexão no momento.
+ * @param filaMaxima      Quantidade máxima de requisições na fila; 0 quando não há limite.
+ * @param recusadas       Requisições recusadas (503) por falta de vaga desde o início da aplicação.
+ */
+public record EstatisticasBancoDTO(
+        String nome,
+        int emUso,
+        int conexoesMaximas,
+        int fila,
+        int filaMaxima,
+        long recusadas
+) {
+}
@@ -0,0 +1,23 @@
+package com.riquetti.ProjetoIntegrador.dto;
+
+/**
+ * DTO com as estatísticas de um cache de consultas.
+ *
+ * @param nome          Nome do cache.
+ * @param acertos       Consultas respondidas pelo cache.
+ * @param falhas        Consultas que precisaram ir ao banco de dados.
+ * @param agrupadas     Consultas que aguardaram o cálculo em andamento da mesma chave, sem repeti-lo.
+ * @param remocoes      Entradas removidas por tamanho ou expiração.
+ * @param tamanho       Quantidade atual de entradas.
+ * @param tamanhoMaximo Quantidade máxima de entradas.
+ */
+public record EstatisticasCacheDTO(
+        String nome,
+        long acertos,
+        long falhas,
+        long agrupadas,
+        long remocoes,
+        int tamanho,
+        int tamanhoMaximo
+) {
+}
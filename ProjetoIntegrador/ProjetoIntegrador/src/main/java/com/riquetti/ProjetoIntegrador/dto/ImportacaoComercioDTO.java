@@ -0,0 +1,19 @@
+package com.riquetti.ProjetoIntegrador.dto;
+
+import java.util.List;
+
+/**
+ * DTO com o resultado de uma importação de comércios em lote.
+ *
+ * @param registrosLidos Quantidade de registros lidos do arquivo.
+ * @param importados     Quantidade de comércios gravados.
+ * @param rejeitados     Quantidade de registros rejeitados.
+ * @param erros          Erros dos registros rejeitados, limitados aos primeiros; ver {@code rejeitados} para o total.
+ */
+public record ImportacaoComercioDTO(
+        long registrosLidos,
+        long importados,
+        long rejeitados,
+        List<ErroImportacaoDTO> erros
+) {
+}
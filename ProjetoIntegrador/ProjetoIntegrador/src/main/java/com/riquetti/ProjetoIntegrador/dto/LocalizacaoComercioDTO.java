@@ -1,5 +1,7 @@
 package com.riquetti.ProjetoIntegrador.dto;
 
+import com.riquetti.ProjetoIntegrador.entity.Ponto;
+
 import java.math.BigDecimal;
 
 /**
@@ -11,7 +13,7 @@ import java.math.BigDecimal;
  * @param idTipoComercio    O identificador do tipo de comércio.
  * @param raioAcaoMetros    Raio de ação em metros (área de influência do comércio).
  *
- * @param localizacao       A localização do comércio em formato Well-Known Text (WKT) "POINT(-47.3990964 -22.5692409)".
+ * @param localizacao       A localização do comércio, {"longitude": -47.3990964, "latitude": -22.5692409}.
  */
 
 public record LocalizacaoComercioDTO(
@@ -21,7 +23,7 @@ public record LocalizacaoComercioDTO(
         String descricao,
         Long idTipoComercio,
         BigDecimal raioAcaoMetros,
-        String localizacao
+        Ponto localizacao
 
 ) {
 }
@@ -0,0 +1,33 @@
+package com.riquetti.ProjetoIntegrador.dto;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * DTO com a situação de um relatório executado em segundo plano.
+ *
+ * @param idJob          Identificador do relatório.
+ * @param tipo           Tipo do relatório: "vias", "avenidas" ou "dados-ibge".
+ * @param raioAcaoMetros Raio de ação em metros do relatório "dados-ibge".
+ * @param status         PENDENTE, EXECUTANDO, CONCLUIDO ou FALHOU.
+ * @param processados    Comércios já processados.
+ * @param total          Total de comércios do relatório.
+ * @param erro           Mensagem de erro quando o relatório falhou.
+ * @param criadoEm       Momento da criação.
+ * @param iniciadoEm     Momento em que o primeiro bloco começou a ser processado.
+ * @param concluidoEm    Momento em que o último bloco foi concluído.
+ */
+public record RelatorioJobDTO(
+        UUID idJob,
+        String tipo,
+        BigDecimal raioAcaoMetros,
+        String status,
+        int processados,
+        int total,
+        String erro,
+        Instant criadoEm,
+        Instant iniciadoEm,
+        Instant concluidoEm
+) {
+}
@@ -0,0 +1,23 @@
+package com.riquetti.ProjetoIntegrador.dto;
+
+import java.util.List;
+
+/**
+ * DTO de um tile de densidade de comércios: os comércios do tile agregados em uma grade regular.
+ *
+ * @param z              Nível de zoom.
+ * @param x              Coluna do tile.
+ * @param y              Linha do tile.
+ * @param celulasPorLado Quantidade de células em cada lado da grade do tile.
+ * @param total          Quantidade de comércios no tile.
+ * @param celulas        Células com pelo menos um comércio.
+ */
+public record TileDensidadeDTO(
+        int z,
+        int x,
+        int y,
+        int celulasPorLado,
+        long total,
+        List<CelulaDensidadeDTO> celulas
+) {
+}
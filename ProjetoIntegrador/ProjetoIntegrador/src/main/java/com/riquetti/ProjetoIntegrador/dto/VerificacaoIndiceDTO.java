@@ -0,0 +1,21 @@
+package com.riquetti.ProjetoIntegrador.dto;
+
+import java.util.List;
+
+/**
+ * DTO com o resultado da verificação de uso dos índices por uma consulta espacial.
+ *
+ * @param consulta  Descrição da consulta verificada.
+ * @param tabela    A tabela percorrida pela consulta.
+ * @param usaIndice True se o planejador consegue percorrer a tabela por um dos seus índices.
+ * @param indices   Os índices da tabela utilizados no plano.
+ * @param erro      Mensagem de erro, quando a consulta não pôde ser planejada (por exemplo, tabela inexistente).
+ */
+public record VerificacaoIndiceDTO(
+        String consulta,
+        String tabela,
+        boolean usaIndice,
+        List<String> indices,
+        String erro
+) {
+}
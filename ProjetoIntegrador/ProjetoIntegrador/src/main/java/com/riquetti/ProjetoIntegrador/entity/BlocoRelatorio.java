@@ -0,0 +1,12 @@
+package com.riquetti.ProjetoIntegrador.entity;
+
+/**
+ * Faixa de IDs de comércio processada de uma vez em um relatório executado em segundo plano.
+ *
+ * @param bloco      Número do bloco, a partir de 0, na ordem dos IDs.
+ * @param idInicial  Menor ID de comércio do bloco.
+ * @param idFinal    Maior ID de comércio do bloco.
+ * @param quantidade Quantidade de comércios do bloco na criação do relatório.
+ */
+public record BlocoRelatorio(int bloco, long idInicial, long idFinal, int quantidade) {
+}
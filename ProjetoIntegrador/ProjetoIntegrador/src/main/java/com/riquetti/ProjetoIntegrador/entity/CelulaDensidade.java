@@ -0,0 +1,44 @@
+package com.riquetti.ProjetoIntegrador.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Entidade que representa uma célula da grade de densidade de um tile: a quantidade de comércios
+ * na célula e a posição média deles.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CelulaDensidade {
+    /**
+     * Coluna da célula no tile, a partir do oeste.
+     */
+    private int coluna;
+
+    /**
+     * Linha da célula no tile, a partir do norte.
+     */
+    private int linha;
+
+    /**
+     * Quantidade de comércios na célula.
+     */
+    private long quantidade;
+
+    /**
+     * Posição média dos comércios da célula.
+     */
+    private Ponto centro;
+
+    /**
+     * Identificador do comércio quando a célula contém apenas um; caso contrário, o menor ID da célula.
+     */
+    private Long idComercio;
+
+    /**
+     * Nome do comércio quando a célula contém apenas um.
+     */
+    private String nome;
+}
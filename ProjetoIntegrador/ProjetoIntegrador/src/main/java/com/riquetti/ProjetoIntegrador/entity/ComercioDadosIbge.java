@@ -29,11 +29,9 @@ public class ComercioDadosIbge {
     private String nome;
 
     /**
-     * Localização em formato texto (WKT).
-     * Armazena a representação da localização do comércio no formato Well-Known Text (WKT).
-     * "POINT(-47.3990964 -22.5692409)".
+     * Localização do comércio (longitude e latitude).
      */
-    private String localizacaoTexto;
+    private Ponto localizacao;
 
     /**
      * Raio de ação em metros (área de influência do comércio).
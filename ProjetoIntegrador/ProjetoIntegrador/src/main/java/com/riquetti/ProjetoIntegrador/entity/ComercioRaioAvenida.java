@@ -27,9 +27,9 @@ public class ComercioRaioAvenida {
      */
     private String nome;
     /**
-     * A localização do comércio em formato Well-Known Text (WKT) "POINT(-47.3990964 -22.5692409)".
+     * A localização do comércio, ou o ponto de consulta.
      */
-    private String localizacaoTexto;
+    private Ponto localizacao;
     /**
      * Raio de ação em metros (área de influência do comércio).
      * Define o alcance em metros ao redor do comércio para análises geoespaciais.
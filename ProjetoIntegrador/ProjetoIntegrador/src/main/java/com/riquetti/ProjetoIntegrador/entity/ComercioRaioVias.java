@@ -55,10 +55,9 @@ public class ComercioRaioVias {
     private String acessibilidade;
 
     /**
-     * Localização geográfica do comércio em formato WKT (Well-Known Text).
-     * "POINT(-47.3990964 -22.5692409)".
+     * Localização geográfica do comércio (longitude e latitude).
      */
-    private String localizacao;
+    private Ponto localizacao;
 
     /**
      * Comprimento das vias dentro de um raio de 500 metros do comércio.
@@ -34,8 +34,7 @@ public class Concorrente {
     private Long idTipoComercio;
 
     /**
-     * Localização geográfica do comércio concorrente em formato WKT (Well-Known Text).
-     * "POINT(-47.3990964 -22.5692409)".
+     * Localização geográfica do comércio concorrente.
      */
-    private String localizacao;
+    private Ponto localizacao;
 }
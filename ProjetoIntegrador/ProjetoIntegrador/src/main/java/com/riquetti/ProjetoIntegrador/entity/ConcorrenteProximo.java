@@ -0,0 +1,44 @@
+package com.riquetti.ProjetoIntegrador.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Entidade que representa um comércio próximo a uma origem, com a distância até ela,
+ * retornado pela busca dos K concorrentes mais próximos.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ConcorrenteProximo {
+    /**
+     * Identificador único do comércio.
+     */
+    private Long idComercio;
+
+    /**
+     * Nome do comércio.
+     */
+    private String nome;
+
+    /**
+     * Descrição detalhada do comércio.
+     */
+    private String descricao;
+
+    /**
+     * Identificador do tipo de comércio.
+     */
+    private Long idTipoComercio;
+
+    /**
+     * Localização geográfica do comércio.
+     */
+    private Ponto localizacao;
+
+    /**
+     * Distância geodésica até a origem da busca, em metros.
+     */
+    private Double distanciaMetros;
+}
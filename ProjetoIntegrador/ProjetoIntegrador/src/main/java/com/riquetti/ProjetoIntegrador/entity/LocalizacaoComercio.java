@@ -45,9 +45,13 @@ public class LocalizacaoComercio {
     private BigDecimal raioAcaoMetros;
 
     /**
-     * Localização geográfica do comércio no formato WKT (Well-Known Text).
-     * Exemplo: "POINT(-47.3990964 -22.5692409)".
+     * Localização geográfica do comércio (longitude e latitude).
      */
-    private String localizacao;
+    private Ponto localizacao;
+
+    /**
+     * Código IBGE do município (cd_mun) resolvido pela localização, que seleciona a partição das camadas analíticas.
+     */
+    private String cdMun;
 
 }
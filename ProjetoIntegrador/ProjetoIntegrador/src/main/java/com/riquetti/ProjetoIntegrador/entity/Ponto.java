@@ -0,0 +1,22 @@
+package com.riquetti.ProjetoIntegrador.entity;
+
+/**
+ * Ponto geográfico em WGS 84 (SRID 4326).
+ *
+ * Lido do banco de dados com ST_X/ST_Y e gravado com ST_MakePoint, sem conversão para texto (WKT).
+ * Em JSON é representado pelos números {"longitude": -47.3990964, "latitude": -22.5692409}.
+ *
+ * @param longitude Longitude em graus, entre -180 e 180.
+ * @param latitude  Latitude em graus, entre -90 e 90.
+ */
+public record Ponto(double longitude, double latitude) {
+
+    public Ponto {
+        if (!Double.isFinite(longitude) || longitude < -180 || longitude > 180) {
+            throw new IllegalArgumentException("A longitude deve ser um número entre -180 e 180.");
+        }
+        if (!Double.isFinite(latitude) || latitude < -90 || latitude > 90) {
+            throw new IllegalArgumentException("A latitude deve ser um número entre -90 e 90.");
+        }
+    }
+}
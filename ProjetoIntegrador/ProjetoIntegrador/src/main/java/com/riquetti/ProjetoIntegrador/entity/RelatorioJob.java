@@ -0,0 +1,61 @@
+package com.riquetti.ProjetoIntegrador.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Entidade que representa um relatório de todos os comércios executado em segundo plano.
+ */
+@Table(name = "relatorio_job")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RelatorioJob {
+
+    /**
+     * Identificador do relatório, informado ao cliente para acompanhar a execução.
+     */
+    private UUID idJob;
+
+    /**
+     * Tipo do relatório: "vias", "avenidas" ou "dados-ibge".
+     */
+    private String tipo;
+
+    /**
+     * Raio de ação em metros, utilizado pelo relatório "dados-ibge"; null nos demais.
+     */
+    private BigDecimal raioAcaoMetros;
+
+    /**
+     * Situação do relatório: PENDENTE, EXECUTANDO, CONCLUIDO ou FALHOU.
+     */
+    private String status;
+
+    /**
+     * Quantidade de comércios processados nos blocos já concluídos.
+     */
+    private int processados;
+
+    /**
+     * Quantidade total de comércios do relatório.
+     */
+    private int total;
+
+    /**
+     * Mensagem de erro quando o relatório falhou.
+     */
+    private String erro;
+
+    private Instant criadoEm;
+
+    private Instant iniciadoEm;
+
+    private Instant concluidoEm;
+}
@@ -0,0 +1,17 @@
+package com.riquetti.ProjetoIntegrador.exception;
+
+/**
+ * Exceção lançada quando um serviço externo não pode ser consultado no momento, por exemplo
+ * porque o limite de requisições simultâneas foi atingido. A requisição pode ser repetida depois.
+ */
+public class ServiceUnavailableException extends RuntimeException {
+
+    /**
+     * Construtor que aceita uma mensagem de erro.
+     *
+     * @param message A mensagem que descreve a condição de erro.
+     */
+    public ServiceUnavailableException(String message) {
+        super(message);
+    }
+}
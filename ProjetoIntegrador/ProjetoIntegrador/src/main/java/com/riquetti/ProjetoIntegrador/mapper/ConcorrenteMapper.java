@@ -1,7 +1,9 @@
 package com.riquetti.ProjetoIntegrador.mapper;
 
 import com.riquetti.ProjetoIntegrador.dto.ConcorrenteDTO;
+import com.riquetti.ProjetoIntegrador.dto.ConcorrenteProximoDTO;
 import com.riquetti.ProjetoIntegrador.entity.Concorrente;
+import com.riquetti.ProjetoIntegrador.entity.ConcorrenteProximo;
 import org.mapstruct.Mapper;
 import org.mapstruct.factory.Mappers;
 
@@ -32,4 +34,12 @@ public interface ConcorrenteMapper {
      */
     Concorrente toEntity(ConcorrenteDTO dto);
 
+    /**
+     * Converte uma entidade ConcorrenteProximo para um DTO ConcorrenteProximoDTO.
+     *
+     * @param entity A entidade a ser convertida.
+     * @return O DTO correspondente à entidade fornecida.
+     */
+    ConcorrenteProximoDTO toDTO(ConcorrenteProximo entity);
+
 }
@@ -3,6 +3,7 @@ package com.riquetti.ProjetoIntegrador.mapper;
 import com.riquetti.ProjetoIntegrador.dto.LocalizacaoComercioDTO;
 import com.riquetti.ProjetoIntegrador.entity.LocalizacaoComercio;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import org.mapstruct.factory.Mappers;
 
 @Mapper
@@ -23,10 +24,12 @@ public interface LocalizacaoComercioMapper {
 
     /**
      * Converte um DTO LocalizacaoComercioDTO para uma entidade LocalizacaoComercio.
+     * O município (cd_mun) é resolvido pelo banco de dados a partir da localização.
      *
      * @param dto O DTO a ser convertido.
      * @return A entidade correspondente ao DTO fornecido.
      */
+    @Mapping(target = "cdMun", ignore = true)
     LocalizacaoComercio toEntity(LocalizacaoComercioDTO dto);
 
 }
@@ -0,0 +1,26 @@
+package com.riquetti.ProjetoIntegrador.mapper;
+
+import com.riquetti.ProjetoIntegrador.dto.RelatorioJobDTO;
+import com.riquetti.ProjetoIntegrador.entity.RelatorioJob;
+import org.mapstruct.Mapper;
+import org.mapstruct.factory.Mappers;
+
+/**
+ * Interface de mapeamento para converter a entidade RelatorioJob no DTO RelatorioJobDTO.
+ */
+@Mapper
+public interface RelatorioJobMapper {
+
+    /**
+     * Instância do mapeador para uso em conversões.
+     */
+    RelatorioJobMapper INSTANCE = Mappers.getMapper(RelatorioJobMapper.class);
+
+    /**
+     * Converte uma entidade RelatorioJob para um DTO RelatorioJobDTO.
+     *
+     * @param entity A entidade a ser convertida.
+     * @return O DTO correspondente à entidade fornecida.
+     */
+    RelatorioJobDTO toDTO(RelatorioJob entity);
+}
@@ -0,0 +1,62 @@
+package com.riquetti.ProjetoIntegrador.repository;
+
+/**
+ * Tabelas das camadas analíticas particionadas por município e trechos SQL para resolver o município.
+ *
+ * Cada camada é uma tabela particionada por lista (PARTITION BY LIST) na coluna cd_mun, o código IBGE de
+ * 7 dígitos do município, com uma partição por município carregado (migração V3__camadas_por_municipio.sql).
+ * As consultas filtram a camada pelo cd_mun do comércio ou do ponto, e o PostgreSQL percorre apenas a partição
+ * daquele município. Um novo município é incluído carregando os seus dados com public.carregar_municipio(...),
+ * sem alteração no código.
+ */
+final class CamadasMunicipio {
+
+    /**
+     * Vias do OpenStreetMap (fclass, geom, geom_utm).
+     */
+    static final String VIAS = "public.camada_vias";
+
+    /**
+     * Logradouros (gid, nm_tip_log, geom, geom_utm).
+     */
+    static final String RUAS = "public.camada_ruas";
+
+    /**
+     * Setores censitários (cd_geocodi, geom, geom_utm).
+     */
+    static final String SETORES = "public.camada_setores";
+
+    /**
+     * Tabela básica do Censo por setor ("Cod_setor", "V002" moradores e "V005" renda média).
+     */
+    static final String BASICO = "public.camada_basico";
+
+    private CamadasMunicipio() {
+    }
+
+    /**
+     * Subconsulta que resolve o município de um ponto pelos limites carregados em `municipio`.
+     *
+     * O município é o mais próximo do ponto (operador KNN <->, pelo índice GiST de municipio.geom): o próprio
+     * município quando o ponto está dentro dele e, nas frestas entre os setores censitários ou fora dos municípios
+     * carregados, o vizinho mais próximo, em vez de nenhum. Sem município a consulta do comércio não teria
+     * partição e retornaria zero vias, zero avenidas e renda nula.
+     *
+     * @param ponto Expressão SQL do ponto (SRID 4326), geometry ou geography.
+     * @return O trecho SQL com o cd_mun do município mais próximo do ponto, ou NULL sem municípios carregados.
+     */
+    static String municipio(String ponto) {
+        return "(SELECT m.cd_mun FROM public.municipio AS m WHERE m.geom IS NOT NULL " +
+                "ORDER BY m.geom <-> " + ponto + "::geometry LIMIT 1)";
+    }
+
+    /**
+     * Município de um setor censitário: os 7 primeiros dígitos do código do setor são o código do município.
+     *
+     * @param codigoSetor Expressão SQL do código do setor (cd_geocodi).
+     * @return O trecho SQL com o cd_mun do setor.
+     */
+    static String municipioDoSetor(String codigoSetor) {
+        return "left(" + codigoSetor + ", 7)";
+    }
+}
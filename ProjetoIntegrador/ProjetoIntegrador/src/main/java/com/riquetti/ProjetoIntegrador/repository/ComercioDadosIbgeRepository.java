@@ -1,11 +1,18 @@
 package com.riquetti.ProjetoIntegrador.repository;
 
 import com.riquetti.ProjetoIntegrador.entity.ComercioDadosIbge;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Repositório responsável pela interação com a tabela `localizacao_comercios`
@@ -15,21 +22,128 @@ import java.util.List;
  * Númeor de moradores - Cálculo da soma de moradores por setor censitário,
  * utiliza o raio de ação para delimitar a região a ser análisada.
  * No Banco de Dados foi utilizado a extensão postgis para análises espaciais.
+ *
+ * A sobreposição entre o raio de ação de cada comércio e os setores censitários é calculada uma única vez
+ * e armazenada em `comercio_setor_sobreposicao`, com a fração da área de cada setor que fica dentro do raio.
+ * Renda e moradores passam a ser agregados ponderados por essa fração, sem junção espacial a cada consulta.
+ * A sobreposição é gravada na inclusão do comércio e refeita quando a localização ou o raio de ação mudam; as
+ * consultas apenas a leem, e um comércio ainda sem sobreposição não é retornado até o cálculo. Um raio informado
+ * na requisição tem a sobreposição calculada na própria consulta, sem gravação: os raios escolhidos pelos
+ * clientes não acumulam linhas nas tabelas pré-calculadas.
+ *
+ * Os setores e a tabela básica ficam em `camada_setores` e `camada_basico`, particionadas por município
+ * (cd_mun): a sobreposição percorre apenas os setores do município do comércio, e cada setor é buscado
+ * na partição do seu município (os 7 primeiros dígitos do código do setor).
  */
 @Repository
 public class ComercioDadosIbgeRepository {
 
 
     private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate analiseJdbcTemplate;
+    private final boolean refinarBorda;
 
     /**
-     * Construtor para injeção de dependência do JdbcTemplate.
+     * Quantidade de comércios calculados por comando no cálculo das sobreposições pendentes, para que cada
+     * comando termine dentro do statement_timeout do pool de análise.
+     */
+    private static final int TAMANHO_BLOCO_SOBREPOSICAO = 100;
+
+    /**
+     * Renda média ponderada pela fração de área de cada setor e soma dos moradores proporcional à área.
+     * Espera os aliases "sobreposicao" (coluna fracao_area) e "basico".
+     */
+    private static final String AGREGADOS_PONDERADOS =
+            "    ROUND((SUM(basico.\"V005\" * sobreposicao.fracao_area) / NULLIF(SUM(sobreposicao.fracao_area), 0))::numeric, 2) AS renda_media_ibge2010, " +
+            "    ROUND(SUM(basico.\"V002\" * sobreposicao.fracao_area)::numeric, 2) AS moradores_ibge2010 ";
+
+    /**
+     * Junção lateral que calcula, sem gravar, a fração da área de cada setor do município do comércio
+     * (alias "loc") dentro de um raio informado. Setores degenerados (área zero) têm fração zero.
+     * Produz o alias "sobreposicao" com as colunas cd_geocodi e fracao_area.
      *
-     * @param jdbcTemplate o JdbcTemplate utilizado para executar as consultas.
+     * @param raio Expressão SQL do raio em metros.
+     * @return O trecho SQL da junção.
+     */
+    private static String sobreposicaoNoRaio(String raio) {
+        return "CROSS JOIN LATERAL (\n" +
+                "    SELECT \n" +
+                "        ibge.cd_geocodi, \n" +
+                "        COALESCE(ST_Area(ST_Intersection(ibge.geom_utm, area.buffer)) \n" +
+                "            / NULLIF(ST_Area(ibge.geom_utm), 0), 0) AS fracao_area \n" + // Fração da área do setor dentro do raio
+                "    FROM (SELECT ST_Buffer(loc.localizacao_utm, (" + raio + ")::double precision) AS buffer) AS area \n" +
+                "    JOIN " + CamadasMunicipio.SETORES + " AS ibge \n" +
+                "        ON ibge.cd_mun = loc.cd_mun \n" + // Apenas a partição do município do comércio
+                "        AND ST_Intersects(area.buffer, ibge.geom_utm)\n" +
+                ") AS sobreposicao\n";
+    }
+
+    /**
+     * Quantidade de linhas buscadas por vez nas consultas em streaming.
      */
+    private static final int TAMANHO_LOTE_STREAMING = 500;
+
+    /**
+     * Consulta dos comércios com um raio de ação informado (parâmetros: raio, raio e os do filtro).
+     * O filtro dos comércios (alias "loc") é aplicado em "%s".
+     */
+    private static final String CONSULTA_COM_RAIO =
+            "SELECT \n" +
+                    "    loc.id_comercio,\n" +
+                    "    loc.nome,\n" +
+                    "    " + PontoColunas.selecionar("loc.localizacao") + ",\n" +
+                    "    ? AS raio_acao_metros,\n" +
+                    AGREGADOS_PONDERADOS + "\n" +
+                    "FROM \n" +
+                    "    \"localizacao_comercios\" AS loc\n" +
+                    sobreposicaoNoRaio("?") + // Setores dentro do raio informado, calculados na consulta
+                    "JOIN \n" +
+                    "    " + CamadasMunicipio.BASICO + " AS basico\n" +
+                    "ON \n" +
+                    "    basico.cd_mun = " + CamadasMunicipio.municipioDoSetor("sobreposicao.cd_geocodi") + "\n" +
+                    "    AND sobreposicao.cd_geocodi = basico.\"Cod_setor\"\n" +
+                    "%s" +
+                    "GROUP BY \n" +
+                    "    loc.id_comercio, \n" +
+                    "    loc.nome, \n" +
+                    "    loc.localizacao";
+
+    /**
+     * Consulta de todos os comércios com um raio de ação informado (parâmetros: raio, raio).
+     */
+    private static final String CONSULTA_TODOS_COM_RAIO = CONSULTA_COM_RAIO.formatted("");
+
+    /**
+     * Consulta dos comércios de uma faixa de IDs com um raio de ação informado (parâmetros: raio, raio,
+     * ID inicial, ID final), utilizada nos relatórios executados em blocos.
+     */
+    private static final String CONSULTA_FAIXA_COM_RAIO = CONSULTA_COM_RAIO.formatted(
+            "WHERE \n    loc.id_comercio BETWEEN ? AND ?\n") + "\nORDER BY loc.id_comercio";
+
+    private static final RowMapper<ComercioDadosIbge> COMERCIO_COM_RAIO_ROW_MAPPER = (rs, rowNum) -> {
+        ComercioDadosIbge loc = new ComercioDadosIbge();
+        loc.setIdComercio(rs.getLong("id_comercio"));
+        loc.setNome(rs.getString("nome"));
+        loc.setLocalizacao(PontoColunas.ler(rs));
+        loc.setRaioAcaoMetros(rs.getLong("raio_acao_metros"));
+        loc.setRendaMediaIbge2010(rs.getBigDecimal("renda_media_ibge2010"));
+        loc.setMoradoresIbge2010(rs.getBigDecimal("moradores_ibge2010"));
+        return loc;
+    };
 
-    public ComercioDadosIbgeRepository(JdbcTemplate jdbcTemplate) {
+    /**
+     * Construtor para injeção de dependência do JdbcTemplate.
+     *
+     * @param jdbcTemplate        o JdbcTemplate utilizado para descartar as sobreposições na transação do cadastro.
+     * @param analiseJdbcTemplate o JdbcTemplate do pool de análise, utilizado nas consultas e no cálculo das sobreposições.
+     * @param refinarBorda        Se as células da grade na borda do raio são recortadas exatamente nas consultas por ponto.
+     */
+    public ComercioDadosIbgeRepository(JdbcTemplate jdbcTemplate,
+                                       @Qualifier("analiseJdbcTemplate") JdbcTemplate analiseJdbcTemplate,
+                                       @Value("${grade.refinar-borda:true}") boolean refinarBorda) {
         this.jdbcTemplate = jdbcTemplate;
+        this.analiseJdbcTemplate = analiseJdbcTemplate;
+        this.refinarBorda = refinarBorda;
     }
 
     /**
@@ -43,23 +157,21 @@ public class ComercioDadosIbgeRepository {
                 "SELECT " +
                         "    loc.id_comercio, " +
                         "    loc.nome, " +
-                        "    ST_AsText(loc.localizacao) AS localizacao_texto, " +
+                        "    " + PontoColunas.selecionar("loc.localizacao") + ", " +
                         "    loc.raio_acao_metros, " +
-                        "    ROUND(AVG(basico.\"V005\")::numeric, 2) AS Renda_Media_IBGE2010, " + // Média de renda dos moradores do setor censitário dentro do raio
-                        "    SUM(basico.\"V002\") AS moradores_ibge2010 " + // Soma dos moradores do setor censitário dentro do raio
+                        AGREGADOS_PONDERADOS +
                         "FROM " +
                         "    \"localizacao_comercios\" AS loc " +
                         "JOIN " +
-                        "    \"IBGE_Limeira_2010\" AS ibge " +
+                        "    comercio_setor_sobreposicao AS sobreposicao " + // Setores pré-calculados para o raio de ação
                         "ON " +
-                        "    ST_Intersects(" + // Verifica se o setor intercepta o buffer (raio de ação)
-                        "        ST_Buffer(loc.localizacao::geography, loc.raio_acao_metros)::geometry, " +
-                        "        ibge.geom::geometry" +  // Buffer com o raio
-                        "    ) " +
+                        "    sobreposicao.id_comercio = loc.id_comercio " +
+                        "    AND sobreposicao.raio_acao_metros = loc.raio_acao_metros " +
                         "JOIN " +
-                        "    \"Basico_Limeira_IBGE2010\" AS basico " +
+                        "    " + CamadasMunicipio.BASICO + " AS basico " +
                         "ON " +
-                        "    ibge.cd_geocodi = basico.\"Cod_setor\" " +
+                        "    basico.cd_mun = " + CamadasMunicipio.municipioDoSetor("sobreposicao.cd_geocodi") + " " +
+                        "    AND sobreposicao.cd_geocodi = basico.\"Cod_setor\" " +
                         "WHERE " +
                         "    loc.id_comercio = ? " +
                         "GROUP BY " +
@@ -68,13 +180,13 @@ public class ComercioDadosIbgeRepository {
                         "    loc.localizacao, " +
                         "    loc.raio_acao_metros";
 
-        return jdbcTemplate.query(sql, new Object[]{idComercio}, (rs, rowNum) -> {
+        return analiseJdbcTemplate.query(sql, new Object[]{idComercio}, (rs, rowNum) -> {
             ComercioDadosIbge comercio = new ComercioDadosIbge();
             comercio.setIdComercio(rs.getLong("id_comercio"));
             comercio.setNome(rs.getString("nome"));
-            comercio.setLocalizacaoTexto(rs.getString("localizacao_texto"));
+            comercio.setLocalizacao(PontoColunas.ler(rs));
             comercio.setRaioAcaoMetros(rs.getLong("raio_acao_metros"));
-            comercio.setRendaMediaIbge2010(rs.getBigDecimal("Renda_Media_IBGE2010"));
+            comercio.setRendaMediaIbge2010(rs.getBigDecimal("renda_media_ibge2010"));
             comercio.setMoradoresIbge2010(rs.getBigDecimal("moradores_ibge2010"));
             return comercio;
         });
@@ -92,23 +204,17 @@ public class ComercioDadosIbgeRepository {
                 "SELECT " +
                         "    loc.id_comercio, " +
                         "    loc.nome, " +
-                        "    ST_AsText(loc.localizacao) AS localizacao_texto, " +
+                        "    " + PontoColunas.selecionar("loc.localizacao") + ", " +
                         "    ? AS raio_acao_metros, " +
-                        "    ROUND(AVG(basico.\"V005\")::numeric, 2) AS Renda_Media_IBGE2010, " + // Média de renda dos moradores do setor censitário dentro do raio
-                        "    SUM(basico.\"V002\") AS moradores_ibge2010 " + // Soma dos moradores do setor censitário dentro do raio
+                        AGREGADOS_PONDERADOS +
                         "FROM " +
                         "    \"localizacao_comercios\" AS loc " +
+                        sobreposicaoNoRaio("?") + // Setores dentro do raio informado, calculados na consulta
                         "JOIN " +
-                        "    \"IBGE_Limeira_2010\" AS ibge " +
-                        "ON " +
-                        "    ST_Intersects(" + // Verifica se o setor intercepta o buffer (raio de ação)
-                        "        ST_Buffer(loc.localizacao::geography, ?)::geometry, " + // Buffer com o raio
-                        "        ibge.geom::geometry" +
-                        "    ) " +
-                        "JOIN " +
-                        "    \"Basico_Limeira_IBGE2010\" AS basico " +
+                        "    " + CamadasMunicipio.BASICO + " AS basico " +
                         "ON " +
-                        "    ibge.cd_geocodi = basico.\"Cod_setor\" " +
+                        "    basico.cd_mun = " + CamadasMunicipio.municipioDoSetor("sobreposicao.cd_geocodi") + " " +
+                        "    AND sobreposicao.cd_geocodi = basico.\"Cod_setor\" " +
                         "WHERE " +
                         "    loc.id_comercio = ? " +
                         "GROUP BY " +
@@ -116,13 +222,13 @@ public class ComercioDadosIbgeRepository {
                         "    loc.nome, " +
                         "    loc.localizacao";
 
-        return jdbcTemplate.query(sql, new Object[]{raioAcaoMetros, raioAcaoMetros, idComercio}, (rs, rowNum) -> {
+        return analiseJdbcTemplate.query(sql, new Object[]{raioAcaoMetros, raioAcaoMetros, idComercio}, (rs, rowNum) -> {
             ComercioDadosIbge comercio = new ComercioDadosIbge();
             comercio.setIdComercio(rs.getLong("id_comercio"));
             comercio.setNome(rs.getString("nome"));
-            comercio.setLocalizacaoTexto(rs.getString("localizacao_texto"));
+            comercio.setLocalizacao(PontoColunas.ler(rs));
             comercio.setRaioAcaoMetros(rs.getLong("raio_acao_metros"));
-            comercio.setRendaMediaIbge2010(rs.getBigDecimal("Renda_Media_IBGE2010"));
+            comercio.setRendaMediaIbge2010(rs.getBigDecimal("renda_media_ibge2010"));
             comercio.setMoradoresIbge2010(rs.getBigDecimal("moradores_ibge2010"));
             return comercio;
         });
@@ -138,36 +244,34 @@ public class ComercioDadosIbgeRepository {
                 "SELECT " +
                         "    loc.id_comercio, " +
                         "    loc.nome, " +
-                        "    ST_AsText(loc.localizacao) AS localizacao_texto, " +
+                        "    " + PontoColunas.selecionar("loc.localizacao") + ", " +
                         "    loc.raio_acao_metros, " +
-                        "    ROUND(AVG(basico.\"V005\")::numeric, 2) AS renda_media_ibge2010, " + // Média de renda dos moradores do setor censitário dentro do raio
-                        "    ROUND(SUM(basico.\"V002\")::numeric, 2) AS moradores_ibge2010 " +  // Adicionando a soma de moradores
+                        AGREGADOS_PONDERADOS +
                         "FROM " +
                         "    \"localizacao_comercios\" AS loc " +
                         "JOIN " +
-                        "    \"IBGE_Limeira_2010\" AS ibge " +
+                        "    comercio_setor_sobreposicao AS sobreposicao " + // Setores pré-calculados para o raio de ação
                         "ON " +
-                        "    ST_Intersects( " + // Verifica se o setor intercepta o buffer (raio de ação)
-                        "        ST_Buffer(loc.localizacao::geography, loc.raio_acao_metros)::geometry, " + // Buffer com o raio
-                        "        ibge.geom::geometry " +
-                        "    ) " +
+                        "    sobreposicao.id_comercio = loc.id_comercio " +
+                        "    AND sobreposicao.raio_acao_metros = loc.raio_acao_metros " +
                         "JOIN " +
-                        "    \"Basico_Limeira_IBGE2010\" AS basico " +
+                        "    " + CamadasMunicipio.BASICO + " AS basico " +
                         "ON " +
-                        "    ibge.cd_geocodi = basico.\"Cod_setor\" " +
+                        "    basico.cd_mun = " + CamadasMunicipio.municipioDoSetor("sobreposicao.cd_geocodi") + " " +
+                        "    AND sobreposicao.cd_geocodi = basico.\"Cod_setor\" " +
                         "GROUP BY " +
                         "    loc.id_comercio, " +
                         "    loc.nome, " +
                         "    loc.localizacao, " +
                         "    loc.raio_acao_metros;";
 
-        return jdbcTemplate.query(sql, (rs, rowNum) -> {
+        return analiseJdbcTemplate.query(sql, (rs, rowNum) -> {
             ComercioDadosIbge comercio = new ComercioDadosIbge();
 
             // Definindo os campos de Comércio
             comercio.setIdComercio(rs.getLong("id_comercio"));
             comercio.setNome(rs.getString("nome"));
-            comercio.setLocalizacaoTexto(rs.getString("localizacao_texto"));
+            comercio.setLocalizacao(PontoColunas.ler(rs));
             comercio.setRaioAcaoMetros(rs.getLong("raio_acao_metros"));
 
             // Definindo a renda média
@@ -191,85 +295,217 @@ public class ComercioDadosIbgeRepository {
      * @return Lista de todos os ComercioDadosIbge dentro do raio especificado.
      */
     public List<ComercioDadosIbge> findAllWithRaio(double raioAcaoMetros) {
-        String sql =
-                "SELECT \n" +
-                        "    loc.id_comercio,\n" +
-                        "    loc.nome,\n" +
-                        "    ST_AsText(loc.localizacao) AS localizacao_texto,\n" +
-                        "    ? AS raio_acao_metros,\n" +
-                        "    ROUND(AVG(basico.\"V005\")::numeric, 2) AS Renda_Media_IBGE2010, \n" + // Média de renda dos moradores do setor censitário dentro do raio
-                        "    SUM(basico.\"V002\") AS moradores_ibge2010 \n" + // Soma dos moradores do setor censitário dentro do raio
-                        "FROM \n" +
-                        "    \"localizacao_comercios\" AS loc\n" +
-                        "JOIN \n" +
-                        "    \"IBGE_Limeira_2010\" AS ibge\n" +
-                        "ON \n" +
-                        "    ST_Intersects(\n" + // Verifica se o setor intercepta o buffer (raio de ação)
-                        "        ST_Buffer(loc.localizacao::geography, ?)::geometry, \n" + // Buffer com o raio
-                        "        ibge.geom::geometry\n" +
-                        "    )\n" +
-                        "JOIN \n" +
-                        "    \"Basico_Limeira_IBGE2010\" AS basico\n" +
-                        "ON \n" +
-                        "    ibge.cd_geocodi = basico.\"Cod_setor\"\n" +
-                        "GROUP BY \n" +
-                        "    loc.id_comercio, \n" +
-                        "    loc.nome, \n" +
-                        "    loc.localizacao;";
+        return analiseJdbcTemplate.query(CONSULTA_TODOS_COM_RAIO, COMERCIO_COM_RAIO_ROW_MAPPER, raioAcaoMetros, raioAcaoMetros);
+    }
 
-        return jdbcTemplate.query(sql, new Object[]{raioAcaoMetros, raioAcaoMetros}, (rs, rowNum) -> {
-            ComercioDadosIbge loc = new ComercioDadosIbge();
-            loc.setIdComercio(rs.getLong("id_comercio"));
-            loc.setNome(rs.getString("nome"));
-            loc.setLocalizacaoTexto(rs.getString("localizacao_texto"));
-            loc.setRaioAcaoMetros(rs.getLong("raio_acao_metros"));
-            loc.setRendaMediaIbge2010(rs.getBigDecimal("Renda_Media_IBGE2010"));
-            loc.setMoradoresIbge2010(rs.getBigDecimal("moradores_ibge2010"));
-            return loc;
-        });
+    /**
+     * Busca os dados de comércio e IBGE com um raio de ação especificado para os comércios de uma faixa de IDs.
+     *
+     * @param raioAcaoMetros Raio de ação em metros.
+     * @param idInicial      Menor ID de comércio da faixa.
+     * @param idFinal        Maior ID de comércio da faixa.
+     * @return Lista de ComercioDadosIbge da faixa, ordenada pelo ID do comércio.
+     */
+    public List<ComercioDadosIbge> findWithRaioEntre(double raioAcaoMetros, long idInicial, long idFinal) {
+        return analiseJdbcTemplate.query(CONSULTA_FAIXA_COM_RAIO, COMERCIO_COM_RAIO_ROW_MAPPER,
+                raioAcaoMetros, raioAcaoMetros, idInicial, idFinal);
+    }
+
+    /**
+     * Percorre todos os dados de comércio e IBGE com um raio de ação especificado, entregando cada
+     * registro ao consumidor assim que é lido, sem montar uma lista intermediária.
+     *
+     * O ResultSet é somente leitura, apenas para frente e buscado em lotes; para que o driver do
+     * PostgreSQL utilize um cursor, o método deve ser chamado dentro de uma transação.
+     *
+     * @param raioAcaoMetros Raio de ação em metros.
+     * @param consumidor     Função que recebe cada ComercioDadosIbge.
+     */
+    public void forEachWithRaio(double raioAcaoMetros, Consumer<ComercioDadosIbge> consumidor) {
+        analiseJdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(CONSULTA_TODOS_COM_RAIO,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(TAMANHO_LOTE_STREAMING);
+            ps.setDouble(1, raioAcaoMetros);
+            ps.setDouble(2, raioAcaoMetros);
+            return ps;
+        }, (RowCallbackHandler) rs -> consumidor.accept(COMERCIO_COM_RAIO_ROW_MAPPER.mapRow(rs, rs.getRow())));
     }
 
     /**
      * Método para buscar todos os dados de comércio e IBGE de um ponto geográfico com um raio de ação especificado.
+     *
+     * A consulta utiliza a grade pré-agregada (`grade_setor`): as células totalmente dentro do raio
+     * somam a fração de área já calculada de cada setor; as células na borda são recortadas exatamente pelo
+     * buffer quando `grade.refinar-borda=true`, ou consideradas inteiras se o centro estiver dentro do raio.
+     *
      * @param pontoTexto Ponto do comercio a ser buscado.
      * @param raioAcaoMetros Raio de ação em metros.
      * @return
      */
     public List<ComercioDadosIbge> findByLocationAndRaio(String pontoTexto, Long raioAcaoMetros) {
         String sql =
-                "SELECT \n" +
-                        "    ST_AsText(ST_SetSRID(ST_GeomFromText(?), 4326)) AS localizacao_texto, \n" +
-                        "    ? AS raio_acao_metros,\n" +
-                        "    ROUND(AVG(basico.\"V005\")::numeric, 2) AS Renda_Media_IBGE2010,\n" + // Média de renda dos moradores do setor censitário dentro do raio
-                        "    SUM(basico.\"V002\") AS moradores_ibge2010 \n" + // Soma dos moradores do setor censitário dentro do raio
+                "WITH p AS (\n" +
+                        "    SELECT \n" +
+                        "        entrada.geom, \n" +
+                        "        ST_Transform(entrada.geom, " + GradeRepository.SRID_UTM + ") AS utm, \n" +
+                        "        entrada.raio, \n" +
+                        "        entrada.refinar, \n" +
+                        "        ST_Buffer(ST_Transform(entrada.geom, " + GradeRepository.SRID_UTM + "), entrada.raio) AS buffer\n" + // Buffer com o raio, em UTM
+                        "    FROM (SELECT ST_SetSRID(ST_GeomFromText(?), 4326) AS geom, ?::double precision AS raio, ?::boolean AS refinar) AS entrada\n" +
+                        "), \n" +
+                        "celulas AS (\n" +
+                        "    SELECT \n" +
+                        "        celula.id_celula, \n" +
+                        "        ST_MaxDistance(celula.geom_utm, p.utm) <= p.raio AS interna, \n" + // Célula totalmente dentro do raio
+                        "        ST_DWithin(ST_Centroid(celula.geom_utm), p.utm, p.raio) AS centro_no_raio\n" +
+                        "    FROM grade AS celula, p \n" +
+                        "    WHERE ST_DWithin(celula.geom_utm, p.utm, p.raio)\n" +
+                        "), \n" +
+                        "sobreposicao AS (\n" +
+                        "    SELECT \n" +
+                        "        setor.cd_geocodi, \n" +
+                        "        SUM(CASE \n" +
+                        "            WHEN celulas.interna THEN setor.fracao \n" +
+                        "            WHEN p.refinar THEN setor.fracao * ST_Area(ST_Intersection(setor.geom_utm, p.buffer)) \n" +
+                        "                                / NULLIF(ST_Area(setor.geom_utm), 0) \n" + // Recorte exato da borda
+                        "            WHEN celulas.centro_no_raio THEN setor.fracao \n" +
+                        "            ELSE 0 \n" +
+                        "        END) AS fracao_area\n" +
+                        "    FROM celulas \n" +
+                        "    JOIN grade_setor AS setor ON setor.id_celula = celulas.id_celula \n" +
+                        "    CROSS JOIN p \n" +
+                        "    GROUP BY setor.cd_geocodi\n" +
+                        ")\n" +
+                        "SELECT \n" +
+                        "    " + PontoColunas.selecionar("p.geom") + ", \n" +
+                        "    p.raio AS raio_acao_metros,\n" +
+                        AGREGADOS_PONDERADOS + "\n" +
                         "FROM \n" +
-                        "    \"IBGE_Limeira_2010\" AS ibge\n" +
+                        "    p\n" +
+                        "CROSS JOIN \n" +
+                        "    sobreposicao\n" +
                         "JOIN \n" +
-                        "    \"Basico_Limeira_IBGE2010\" AS basico\n" +
+                        "    " + CamadasMunicipio.BASICO + " AS basico\n" +
                         "ON \n" +
-                        "    ibge.cd_geocodi = basico.\"Cod_setor\"\n" +
-                        "WHERE \n" +
-                        "    ST_Intersects(\n" + // Verifica se o setor intercepta o buffer (raio de ação)
-                        "        ST_Buffer(ST_SetSRID(ST_GeomFromText(?), 4326)::geography, ?)::geometry, \n" +
-                        "        ibge.geom::geometry\n" + // Buffer com o raio
-                        "    )\n" +
+                        "    basico.cd_mun = " + CamadasMunicipio.municipioDoSetor("sobreposicao.cd_geocodi") + "\n" +
+                        "    AND sobreposicao.cd_geocodi = basico.\"Cod_setor\"\n" +
                         "GROUP BY \n" +
-                        "    localizacao_texto, \n" +
-                        "    raio_acao_metros;";
+                        "    p.geom, \n" +
+                        "    p.raio;";
 
-        return jdbcTemplate.query(sql, new Object[]{pontoTexto, raioAcaoMetros, pontoTexto, raioAcaoMetros}, (rs, rowNum) -> {
+        return analiseJdbcTemplate.query(sql, new Object[]{pontoTexto, raioAcaoMetros, refinarBorda}, (rs, rowNum) -> {
             ComercioDadosIbge loc = new ComercioDadosIbge();
 
             loc.setIdComercio(0L); // Valor padrão para idComercio
             loc.setNome("Ponto de consulta"); // Valor padrão para nome
 
-            loc.setLocalizacaoTexto(rs.getString("localizacao_texto"));
+            loc.setLocalizacao(PontoColunas.ler(rs));
             loc.setRaioAcaoMetros(rs.getLong("raio_acao_metros"));
-            loc.setRendaMediaIbge2010(rs.getBigDecimal("Renda_Media_IBGE2010"));
+            loc.setRendaMediaIbge2010(rs.getBigDecimal("renda_media_ibge2010"));
             loc.setMoradoresIbge2010(rs.getBigDecimal("moradores_ibge2010"));
 
             return loc;
         });
     }
 
-}
\ No newline at end of file
+    /**
+     * Remove as sobreposições pré-calculadas de um comércio.
+     * Deve ser chamado quando a localização ou o raio de ação do comércio forem alterados.
+     *
+     * @param idComercio ID do comércio.
+     * @return O número de combinações comércio/raio descartadas.
+     */
+    public int invalidarSobreposicao(Long idComercio) {
+        jdbcTemplate.update("DELETE FROM comercio_setor_sobreposicao WHERE id_comercio = ?", idComercio);
+        return jdbcTemplate.update("DELETE FROM comercio_setor_raio WHERE id_comercio = ?", idComercio);
+    }
+
+    /**
+     * Calcula e grava a sobreposição de um comércio com os setores censitários para o seu raio de ação,
+     * se ainda não existir.
+     *
+     * @param idComercio ID do comércio.
+     * @return O número de pedaços de setores gravados.
+     */
+    public int calcularSobreposicao(Long idComercio) {
+        return garantirSobreposicao("loc.id_comercio = ?", idComercio);
+    }
+
+    /**
+     * Calcula a sobreposição dos comércios que ainda não a possuem para o seu raio de ação, em blocos de
+     * {@value #TAMANHO_BLOCO_SOBREPOSICAO} comércios, um comando por bloco.
+     *
+     * @return O número de comércios calculados.
+     */
+    public int calcularSobreposicoesPendentes() {
+        List<Long> pendentes = analiseJdbcTemplate.queryForList(
+                "SELECT loc.id_comercio \n" +
+                        "FROM localizacao_comercios AS loc \n" +
+                        "WHERE NOT EXISTS (\n" +
+                        "    SELECT 1 FROM comercio_setor_raio AS calculado \n" +
+                        "    WHERE calculado.id_comercio = loc.id_comercio AND calculado.raio_acao_metros = loc.raio_acao_metros::numeric\n" +
+                        ") \n" +
+                        "ORDER BY loc.id_comercio", Long.class);
+        String sql = garantirSobreposicaoSql("loc.id_comercio = ANY (?)");
+        for (int inicio = 0; inicio < pendentes.size(); inicio += TAMANHO_BLOCO_SOBREPOSICAO) {
+            Object[] bloco = pendentes.subList(inicio, Math.min(inicio + TAMANHO_BLOCO_SOBREPOSICAO, pendentes.size())).toArray();
+            analiseJdbcTemplate.update(sql, ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", bloco)));
+        }
+        return pendentes.size();
+    }
+
+    /**
+     * Calcula e grava a sobreposição com os setores censitários dos comércios que ainda não a possuem
+     * para o seu próprio raio de ação. Cada comércio é calculado uma única vez por raio de ação e registrado
+     * em `comercio_setor_raio`, inclusive quando nenhum setor é interceptado. Setores degenerados
+     * (área zero) são gravados com fração zero.
+     *
+     * @param filtro     Filtro SQL aplicado aos comércios (alias "loc").
+     * @param parametros Parâmetros do filtro.
+     * @return O número de pedaços de setores gravados.
+     */
+    private int garantirSobreposicao(String filtro, Object... parametros) {
+        return analiseJdbcTemplate.update(garantirSobreposicaoSql(filtro), parametros);
+    }
+
+    /**
+     * Monta o comando que grava a sobreposição dos comércios pendentes que atendem ao filtro.
+     *
+     * @param filtro Filtro SQL aplicado aos comércios (alias "loc").
+     * @return O comando SQL de inserção.
+     */
+    private static String garantirSobreposicaoSql(String filtro) {
+        return "WITH pendentes AS (\n" +
+                "    SELECT base.id_comercio, base.cd_mun, base.localizacao_utm, base.raio \n" +
+                "    FROM (\n" +
+                "        SELECT loc.id_comercio, loc.cd_mun, loc.localizacao_utm, loc.raio_acao_metros::numeric AS raio \n" +
+                "        FROM localizacao_comercios AS loc \n" +
+                "        WHERE " + filtro + "\n" +
+                "    ) AS base \n" +
+                "    WHERE NOT EXISTS (\n" +
+                "        SELECT 1 FROM comercio_setor_raio AS calculado \n" +
+                "        WHERE calculado.id_comercio = base.id_comercio AND calculado.raio_acao_metros = base.raio\n" +
+                "    )\n" +
+                "), \n" +
+                "registro AS (\n" +
+                "    INSERT INTO comercio_setor_raio (id_comercio, raio_acao_metros) \n" +
+                "    SELECT id_comercio, raio FROM pendentes \n" +
+                "    ON CONFLICT DO NOTHING\n" +
+                ")\n" +
+                "INSERT INTO comercio_setor_sobreposicao (id_comercio, raio_acao_metros, cd_geocodi, fracao_area) \n" +
+                "SELECT \n" +
+                "    p.id_comercio, \n" +
+                "    p.raio, \n" +
+                "    ibge.cd_geocodi, \n" +
+                "    COALESCE(ST_Area(ST_Intersection(ibge.geom_utm, area.buffer)) \n" +
+                "        / NULLIF(ST_Area(ibge.geom_utm), 0), 0) \n" + // Fração da área do setor dentro do raio
+                "FROM pendentes AS p \n" +
+                "CROSS JOIN LATERAL (SELECT ST_Buffer(p.localizacao_utm, p.raio) AS buffer) AS area \n" +
+                "JOIN " + CamadasMunicipio.SETORES + " AS ibge \n" +
+                "    ON ibge.cd_mun = p.cd_mun \n" + // Apenas a partição do município do comércio
+                "    AND ST_Intersects(area.buffer, ibge.geom_utm) \n" +
+                "ON CONFLICT DO NOTHING";
+    }
+
+}
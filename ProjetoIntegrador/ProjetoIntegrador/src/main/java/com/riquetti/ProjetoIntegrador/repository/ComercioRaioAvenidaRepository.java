@@ -1,7 +1,11 @@
 package com.riquetti.ProjetoIntegrador.repository;
 
 import com.riquetti.ProjetoIntegrador.entity.ComercioRaioAvenida;
+import com.riquetti.ProjetoIntegrador.entity.Ponto;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -12,22 +16,83 @@ import java.util.List;
  * dados de vias do IBGE.
  * Os Dados são utilizados para cálcular de contagem de vias e avenidas.
  * No Banco de Dados foi utilizado a extensão postgis para análises espaciais.
+ *
+ * As vias são pré-filtradas com ST_DWithin no maior anel (que utiliza o índice espacial)
+ * e a distância de cada via ao comércio é calculada uma única vez, em metros, sobre as colunas
+ * projetadas em SIRGAS 2000 / UTM 23S (geom_utm e localizacao_utm), sem conversões por linha. A contagem de cada
+ * anel (200m, 500m, 1km, 1,5km, 2km e raio de ação) é feita sobre essa distância.
+ *
+ * As ruas ficam em `camada_ruas`, particionada por município (cd_mun): cada comércio ou ponto é comparado
+ * apenas às ruas da partição do seu município.
  */
 @Repository
 public class ComercioRaioAvenidaRepository {
 
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Se as avenidas cuja distância não é decidida pelas células da grade são medidas exatamente.
+     */
+    private final boolean refinarBorda;
+
+    /**
+     * Maior anel fixo de contagem, em metros. Limita a busca das vias quando o raio de ação é menor.
+     */
+    private static final int MAIOR_ANEL_METROS = 2000;
+
+    /**
+     * Contagem das vias nos anéis fixos a partir da distância (em metros) calculada na subconsulta "ruas".
+     */
+    private static final String CONTAGEM_ANEIS =
+            "COUNT(*) FILTER (WHERE ruas.distancia <= 200) AS total_200m, " +
+            "COUNT(*) FILTER (WHERE ruas.distancia <= 500) AS total_500m, " +
+            "COUNT(*) FILTER (WHERE ruas.distancia <= 1000) AS total_1km, " +
+            "COUNT(*) FILTER (WHERE ruas.distancia <= 1500) AS total_1_5km, " +
+            "COUNT(*) FILTER (WHERE ruas.distancia <= 2000) AS total_2km ";
+
     /**
+     * Subconsulta lateral que seleciona as avenidas e vias próximas de "origem" (geometria em UTM 23S)
+     * dentro do raio informado e calcula a distância de cada uma apenas uma vez.
      *
+     * @param origem    expressão SQL da geometria de origem, em SIRGAS 2000 / UTM 23S.
+     * @param municipio expressão SQL do município (cd_mun) da origem, que seleciona a partição das ruas.
+     * @param raio      expressão SQL do raio máximo de busca em metros.
+     * @return o trecho SQL da junção lateral com alias "ruas".
      */
-    private final JdbcTemplate jdbcTemplate;
+    private static String ruasProximas(String origem, String municipio, String raio) {
+        return "LEFT JOIN LATERAL (" +
+                "SELECT ST_Distance(r.geom_utm, " + origem + ") AS distancia " +
+                "FROM " + CamadasMunicipio.RUAS + " AS r " +
+                "WHERE r.cd_mun = " + municipio + " " +
+                "AND r.nm_tip_log IN ('AVENIDA', 'VIA') " +
+                // Filtro espacial no maior anel: apenas as vias candidatas são avaliadas
+                "AND ST_DWithin(r.geom_utm, " + origem + ", " + raio + ")" +
+                ") AS ruas ON TRUE ";
+    }
+
+    private static final RowMapper<ComercioRaioAvenida> COMERCIO_ROW_MAPPER = (rs, rowNum) -> new ComercioRaioAvenida(
+            rs.getLong("id_comercio"),
+            rs.getString("nome"),
+            PontoColunas.ler(rs),
+            rs.getLong("raio_acao_metros"),
+            rs.getInt("total_200m"),
+            rs.getInt("total_500m"),
+            rs.getInt("total_1km"),
+            rs.getInt("total_1_5km"),
+            rs.getInt("total_2km"),
+            rs.getInt("total_raio_acao_metros")
+    );
 
     /**
      * Construtor para injeção de dependência do JdbcTemplate.
      *
-     * @param jdbcTemplate o JdbcTemplate utilizado para executar as consultas.
+     * @param jdbcTemplate o JdbcTemplate do pool de análise, utilizado para executar as consultas.
+     * @param refinarBorda se as avenidas na borda dos anéis são medidas exatamente nas consultas por ponto.
      */
-    public ComercioRaioAvenidaRepository(JdbcTemplate jdbcTemplate) {
+    public ComercioRaioAvenidaRepository(@Qualifier("analiseJdbcTemplate") JdbcTemplate jdbcTemplate,
+                                         @Value("${grade.refinar-borda:true}") boolean refinarBorda) {
         this.jdbcTemplate = jdbcTemplate;
+        this.refinarBorda = refinarBorda;
     }
 
     /**
@@ -37,30 +102,38 @@ public class ComercioRaioAvenidaRepository {
      * @return uma lista de objetos ComercioRaioAvenida representando todos os comércios e sus informações.
      */
     public List<ComercioRaioAvenida> findAllComercios() {
-        String sql = "SELECT loc.id_comercio, loc.nome, ST_AsText(loc.localizacao) AS localizacao_texto, " +
+        return jdbcTemplate.query(consultaComercios(""), COMERCIO_ROW_MAPPER);
+    }
+
+    /**
+     * Busca os comércios de uma faixa de IDs e a contagem de ruas em diferentes distâncias,
+     * com a mesma consulta de {@link #findAllComercios()}. Utilizado nos relatórios executados em blocos.
+     *
+     * @param idInicial Menor ID de comércio da faixa.
+     * @param idFinal   Maior ID de comércio da faixa.
+     * @return uma lista de ComercioRaioAvenida da faixa, ordenada pelo ID do comércio.
+     */
+    public List<ComercioRaioAvenida> findComerciosEntre(long idInicial, long idFinal) {
+        String sql = consultaComercios("WHERE loc.id_comercio BETWEEN ? AND ? ") + " ORDER BY loc.id_comercio";
+        return jdbcTemplate.query(sql, COMERCIO_ROW_MAPPER, idInicial, idFinal);
+    }
+
+    /**
+     * Monta a consulta dos comércios com a contagem de ruas por anel.
+     *
+     * @param filtro A cláusula WHERE aplicada aos comércios, ou vazio para todos.
+     * @return o comando SQL.
+     */
+    private static String consultaComercios(String filtro) {
+        return "SELECT loc.id_comercio, loc.nome, " + PontoColunas.selecionar("loc.localizacao") + ", " +
                 "loc.raio_acao_metros, " +
-                // Utiliza a localização, gera um buffer considerando o raio de ação, intercepta com a base de vias do IBGE e realiza a contagem
-                "COUNT(CASE WHEN ST_Intersects(ST_Buffer(loc.localizacao::geography, 200)::geometry, ruas.geom::geometry) THEN 1 ELSE NULL END) AS total_200m, " +
-                "COUNT(CASE WHEN ST_Intersects(ST_Buffer(loc.localizacao::geography, 500)::geometry, ruas.geom::geometry) THEN 1 ELSE NULL END) AS total_500m, " +
-                "COUNT(CASE WHEN ST_Intersects(ST_Buffer(loc.localizacao::geography, 1000)::geometry, ruas.geom::geometry) THEN 1 ELSE NULL END) AS total_1km, " +
-                "COUNT(CASE WHEN ST_Intersects(ST_Buffer(loc.localizacao::geography, 1500)::geometry, ruas.geom::geometry) THEN 1 ELSE NULL END) AS total_1_5km, " +
-                "COUNT(CASE WHEN ST_Intersects(ST_Buffer(loc.localizacao::geography, 2000)::geometry, ruas.geom::geometry) THEN 1 ELSE NULL END) AS total_2km, " +
-                "COUNT(CASE WHEN ST_Intersects(ST_Buffer(loc.localizacao::geography, loc.raio_acao_metros)::geometry, ruas.geom::geometry) THEN 1 ELSE NULL END) AS total_raio_acao_metros " +
+                // Contagem por anel a partir da distância de cada via até o comércio
+                CONTAGEM_ANEIS + ", " +
+                "COUNT(*) FILTER (WHERE ruas.distancia <= loc.raio_acao_metros) AS total_raio_acao_metros " +
                 "FROM localizacao_comercios AS loc " +
-                "JOIN \"SHP_Ruas\" AS ruas ON ruas.nm_tip_log IN ('AVENIDA', 'VIA') " +
+                ruasProximas("loc.localizacao_utm", "loc.cd_mun", "GREATEST(" + MAIOR_ANEL_METROS + ", loc.raio_acao_metros)") +
+                filtro +
                 "GROUP BY loc.id_comercio, loc.nome, loc.localizacao, loc.raio_acao_metros";
-        return jdbcTemplate.query(sql, (rs, rowNum) -> new ComercioRaioAvenida(
-                rs.getLong("id_comercio"),
-                rs.getString("nome"),
-                rs.getString("localizacao_texto"),
-                rs.getLong("raio_acao_metros"),
-                rs.getInt("total_200m"),
-                rs.getInt("total_500m"),
-                rs.getInt("total_1km"),
-                rs.getInt("total_1_5km"),
-                rs.getInt("total_2km"),
-                rs.getInt("total_raio_acao_metros")
-        ));
     }
 
     /**
@@ -70,31 +143,16 @@ public class ComercioRaioAvenidaRepository {
      * @return uma lista de ComercioRaioAvenida contendo os comercios que correspondem ao id fornecido.
      */
     public List<ComercioRaioAvenida> findComerciosById(Long idComercio) {
-        String sql = "SELECT loc.id_comercio, loc.nome, ST_AsText(loc.localizacao) AS localizacao_texto, " +
-                "loc.raio_acao_metros," +
-                // Utiliza a localização, gera um buffer considerando o raio de ação, intercepta com a base de vias do IBGE e realiza a contagem
-                "COUNT(CASE WHEN ST_Intersects(ST_Buffer(loc.localizacao::geography, 200)::geometry, ruas.geom::geometry) THEN 1 ELSE NULL END) AS total_200m, " +
-                "COUNT(CASE WHEN ST_Intersects(ST_Buffer(loc.localizacao::geography, 500)::geometry, ruas.geom::geometry) THEN 1 ELSE NULL END) AS total_500m, " +
-                "COUNT(CASE WHEN ST_Intersects(ST_Buffer(loc.localizacao::geography, 1000)::geometry, ruas.geom::geometry) THEN 1 ELSE NULL END) AS total_1km, " +
-                "COUNT(CASE WHEN ST_Intersects(ST_Buffer(loc.localizacao::geography, 1500)::geometry, ruas.geom::geometry) THEN 1 ELSE NULL END) AS total_1_5km, " +
-                "COUNT(CASE WHEN ST_Intersects(ST_Buffer(loc.localizacao::geography, 2000)::geometry, ruas.geom::geometry) THEN 1 ELSE NULL END) AS total_2km, " +
-                "COUNT(CASE WHEN ST_Intersects(ST_Buffer(loc.localizacao::geography, loc.raio_acao_metros)::geometry, ruas.geom::geometry) THEN 1 ELSE NULL END) AS total_raio_acao_metros " +
+        String sql = "SELECT loc.id_comercio, loc.nome, " + PontoColunas.selecionar("loc.localizacao") + ", " +
+                "loc.raio_acao_metros, " +
+                // Contagem por anel a partir da distância de cada via até o comércio
+                CONTAGEM_ANEIS + ", " +
+                "COUNT(*) FILTER (WHERE ruas.distancia <= loc.raio_acao_metros) AS total_raio_acao_metros " +
                 "FROM localizacao_comercios AS loc " +
-                "JOIN \"SHP_Ruas\" AS ruas ON ruas.nm_tip_log IN ('AVENIDA', 'VIA') " +
+                ruasProximas("loc.localizacao_utm", "loc.cd_mun", "GREATEST(" + MAIOR_ANEL_METROS + ", loc.raio_acao_metros)") +
                 "WHERE loc.id_comercio = ? " +
                 "GROUP BY loc.id_comercio, loc.nome, loc.localizacao, loc.raio_acao_metros";
-        return jdbcTemplate.query(sql, new Object[]{idComercio}, (rs, rowNum) -> new ComercioRaioAvenida(
-                rs.getLong("id_comercio"),
-                rs.getString("nome"),
-                rs.getString("localizacao_texto"),
-                rs.getLong("raio_acao_metros"),
-                rs.getInt("total_200m"),
-                rs.getInt("total_500m"),
-                rs.getInt("total_1km"),
-                rs.getInt("total_1_5km"),
-                rs.getInt("total_2km"),
-                rs.getInt("total_raio_acao_metros")
-        ));
+        return jdbcTemplate.query(sql, COMERCIO_ROW_MAPPER, idComercio);
     }
 
     /**
@@ -105,18 +163,18 @@ public class ComercioRaioAvenidaRepository {
      * @return um objeto ComercioRaioAvenida correspondente ao comercio filtrado.
      */
     public ComercioRaioAvenida findComercioByIdAndRaio(Long idComercio, Double raioAcaoMetros) {
-        String sql = "SELECT loc.id_comercio, loc.nome, ST_AsText(loc.localizacao) AS localizacao_texto, " +
-                // Utiliza a localização, gera um buffer considerando o raio de ação, intercepta com a base de vias do IBGE e realiza a contagem
-                "COUNT(CASE WHEN ST_Intersects(ST_Buffer(loc.localizacao::geography, ?)::geometry, ruas.geom::geometry) THEN 1 ELSE NULL END) AS total_raio_acao_metros " +
+        String sql = "SELECT loc.id_comercio, loc.nome, " + PontoColunas.selecionar("loc.localizacao") + ", " +
+                // Apenas as vias dentro do raio informado são retornadas pela subconsulta
+                "COUNT(ruas.distancia) AS total_raio_acao_metros " +
                 "FROM localizacao_comercios AS loc " +
-                "JOIN \"SHP_Ruas\" AS ruas ON ruas.nm_tip_log IN ('AVENIDA', 'VIA') " +
+                ruasProximas("loc.localizacao_utm", "loc.cd_mun", "?") +
                 "WHERE loc.id_comercio = ? " +
                 "GROUP BY loc.id_comercio, loc.nome, loc.localizacao";
 
         return jdbcTemplate.queryForObject(sql, new Object[]{raioAcaoMetros, idComercio}, (rs, rowNum) -> new ComercioRaioAvenida(
                 rs.getLong("id_comercio"),
                 rs.getString("nome"),
-                rs.getString("localizacao_texto"),
+                PontoColunas.ler(rs),
                 raioAcaoMetros.longValue(), // Converte para Long para a entidade
                 0, 0, 0, 0, 0,  // valores dummy para os outros campos
                 rs.getInt("total_raio_acao_metros")
@@ -126,38 +184,33 @@ public class ComercioRaioAvenidaRepository {
     /**
      * Busca dados filtrados pela localização fornecida.
      *
-     * @param localizacaoTexto  localizacaoTexto a localização em formato POINT(-47.4042319 -22.561447) a ser filtrada.
+     * @param longitude a longitude do ponto de consulta (SRID 4326).
+     * @param latitude  a latitude do ponto de consulta (SRID 4326).
      * @return uma lista de ComercioRaioAvenida contendo os resultados da busca.
      */
-    public List<ComercioRaioAvenida> findPontoRaioAvenida(String localizacaoTexto) {
-        // Extrair longitude e latitude do texto POINT(-47.4042319 -22.561447)
-        String[] coordinates = localizacaoTexto.replace("POINT(", "").replace(")", "").split(" ");
-        double longitude = Double.parseDouble(coordinates[0]);
-        double latitude = Double.parseDouble(coordinates[1]);
-
-        // Definir o ponto uma vez para reutilizá-lo nos buffers
-        String sql = "WITH ponto AS (" +
-                "SELECT ST_SetSRID(ST_MakePoint(?, ?), 4326) AS geom" +
+    public List<ComercioRaioAvenida> findPontoRaioAvenida(double longitude, double latitude) {
+        // Definir o ponto uma vez para reutilizá-lo no filtro e no cálculo da distância
+        // O município é resolvido uma única vez (MATERIALIZED) e seleciona a partição das ruas
+        String sql = "WITH ponto AS MATERIALIZED (" +
+                "SELECT entrada.geom, ST_Transform(entrada.geom, " + GradeRepository.SRID_UTM + ") AS utm, " +
+                CamadasMunicipio.municipio("entrada.geom") + " AS cd_mun " +
+                "FROM (SELECT ST_SetSRID(ST_MakePoint(?, ?), 4326) AS geom) AS entrada" +
                 ") " +
                 "SELECT " +
                 "0 AS id_comercio, " +  // Definindo id_comercio como 0
                 "'Ponto de consulta' AS nome, " +  // Definindo nome como 'Ponto de consulta'
-                "ST_AsText(p.geom) AS localizacao_texto, " +  // Retorna a localização do ponto
-                // Utiliza a localização, gera um buffer considerando o raio de ação, intercepta com a base de vias do IBGE e realiza a contagem
-                "COUNT(CASE WHEN ST_Intersects(ST_Buffer(p.geom::geography, 200)::geometry, ruas.geom::geometry) THEN 1 ELSE NULL END) AS total_200m, " +
-                "COUNT(CASE WHEN ST_Intersects(ST_Buffer(p.geom::geography, 500)::geometry, ruas.geom::geometry) THEN 1 ELSE NULL END) AS total_500m, " +
-                "COUNT(CASE WHEN ST_Intersects(ST_Buffer(p.geom::geography, 1000)::geometry, ruas.geom::geometry) THEN 1 ELSE NULL END) AS total_1km, " +
-                "COUNT(CASE WHEN ST_Intersects(ST_Buffer(p.geom::geography, 1500)::geometry, ruas.geom::geometry) THEN 1 ELSE NULL END) AS total_1_5km, " +
-                "COUNT(CASE WHEN ST_Intersects(ST_Buffer(p.geom::geography, 2000)::geometry, ruas.geom::geometry) THEN 1 ELSE NULL END) AS total_2km " +
-                "FROM ponto p, \"SHP_Ruas\" AS ruas " +
-                "WHERE ruas.nm_tip_log IN ('AVENIDA', 'VIA') " +
+                // Contagem por anel a partir da distância de cada via até o ponto
+                CONTAGEM_ANEIS +
+                "FROM ponto p " +
+                ruasProximas("p.utm", "p.cd_mun", String.valueOf(MAIOR_ANEL_METROS)) +
                 "GROUP BY p.geom";
 
         // Executar a consulta com os parâmetros de latitude e longitude
+        Ponto ponto = new Ponto(longitude, latitude);
         return jdbcTemplate.query(sql, new Object[]{longitude, latitude}, (rs, rowNum) -> new ComercioRaioAvenida(
                 0L,  // id_comercio sempre como 0
                 "Ponto de consulta",  // nome sempre como 'Ponto de consulta'
-                rs.getString("localizacao_texto"),
+                ponto,  // O próprio ponto de consulta
                 0L,  // raioAcaoMetros como 0
                 rs.getInt("total_200m"),
                 rs.getInt("total_500m"),
@@ -170,41 +223,61 @@ public class ComercioRaioAvenidaRepository {
 
     /**
      * Método para buscar dados filtrados pela localização e raio de ação.
+     * A contagem utiliza a grade pré-agregada (`grade_rua`) e mede exatamente apenas as avenidas
+     * cuja classificação em algum anel não pode ser decidida pelas células.
      *
-     * @param localizacaoTexto a localização em formato POINT (ex: POINT(-47.4042319 -22.561447)) a ser filtrada.
+     * @param longitude a longitude do ponto de consulta (SRID 4326).
+     * @param latitude  a latitude do ponto de consulta (SRID 4326).
      * @param raioAcaopersolizado o raio de ação em metros para calcular a quantidade de ruas dentro desse raio.
      * @return uma lista de ComercioRaioAvenida contendo informações sobre o ponto de consulta e a contagem de ruas nas diferentes distâncias.
      */
-    public List<ComercioRaioAvenida> findLocalizacaoRaioAvenida(String localizacaoTexto, double raioAcaopersolizado) {
-        // Extrair longitude e latitude do texto POINT(-47.4042319 -22.561447)
-        String[] coordinates = localizacaoTexto.replace("POINT(", "").replace(")", "").split(" ");
-        double longitude = Double.parseDouble(coordinates[0]);
-        double latitude = Double.parseDouble(coordinates[1]);
-
-        // Definir o ponto uma vez para reutilizá-lo nos buffers
-        String sql = "WITH ponto AS (" +
-                "SELECT ST_SetSRID(ST_MakePoint(?, ?), 4326) AS geom" +
+    public List<ComercioRaioAvenida> findLocalizacaoRaioAvenida(double longitude, double latitude, double raioAcaopersolizado) {
+        // Limites da distância de cada avenida a partir das células da grade (grade_rua) que ela cruza:
+        // mínima = menor distância até uma dessas células, máxima = menor distância máxima até uma delas.
+        // Se nenhum anel cai entre os limites, o ponto médio classifica a avenida corretamente em todos os anéis;
+        // caso contrário a distância é medida exatamente (ou aproximada pelo ponto médio sem refinamento).
+        String sql = "WITH p AS (" +
+                "SELECT entrada.geom, ST_Transform(entrada.geom, " + GradeRepository.SRID_UTM + ") AS utm, " +
+                "entrada.raio, entrada.refinar " +
+                "FROM (SELECT ST_SetSRID(ST_MakePoint(?, ?), 4326) AS geom, ?::double precision AS raio, ?::boolean AS refinar) AS entrada" +
+                "), " +
+                "limites AS (" +
+                "SELECT celula.cd_mun, avenida.gid, " +
+                "MIN(ST_Distance(celula.geom_utm, p.utm)) AS minima, " +
+                "MIN(ST_MaxDistance(celula.geom_utm, p.utm)) AS maxima " +
+                "FROM p " +
+                "JOIN grade AS celula ON ST_DWithin(celula.geom_utm, p.utm, GREATEST(" + MAIOR_ANEL_METROS + ", p.raio)) " +
+                "JOIN grade_rua AS avenida ON avenida.id_celula = celula.id_celula " +
+                "GROUP BY celula.cd_mun, avenida.gid" +
+                "), " +
+                "ruas AS (" +
+                "SELECT CASE " +
+                "WHEN p.refinar AND EXISTS (" +
+                "SELECT 1 FROM unnest(ARRAY[200, 500, 1000, 1500, 2000, p.raio]) AS anel(distancia) " +
+                "WHERE anel.distancia >= limites.minima AND anel.distancia < limites.maxima" +
+                ") " +
+                "THEN (SELECT ST_Distance(r.geom_utm, p.utm) FROM " + CamadasMunicipio.RUAS + " AS r " +
+                "WHERE r.cd_mun = limites.cd_mun AND r.gid = limites.gid) " +
+                "ELSE (limites.minima + limites.maxima) / 2 " +
+                "END AS distancia " +
+                "FROM limites CROSS JOIN p" +
                 ") " +
                 "SELECT " +
                 "0 AS id_comercio, " +  // Definindo id_comercio como 0
                 "'Ponto de consulta' AS nome, " +  // Definindo nome como 'Ponto de consulta'
-                "ST_AsText(p.geom) AS localizacao_texto, " +  // Retorna a localização do ponto
-                // Utiliza a localização, gera um buffer considerando o raio de ação, intercepta com a base de vias do IBGE e realiza a contagem
-                "COUNT(CASE WHEN ST_Intersects(ST_Buffer(p.geom::geography, 200)::geometry, ruas.geom::geometry) THEN 1 ELSE NULL END) AS total_200m, " +
-                "COUNT(CASE WHEN ST_Intersects(ST_Buffer(p.geom::geography, 500)::geometry, ruas.geom::geometry) THEN 1 ELSE NULL END) AS total_500m, " +
-                "COUNT(CASE WHEN ST_Intersects(ST_Buffer(p.geom::geography, 1000)::geometry, ruas.geom::geometry) THEN 1 ELSE NULL END) AS total_1km, " +
-                "COUNT(CASE WHEN ST_Intersects(ST_Buffer(p.geom::geography, 1500)::geometry, ruas.geom::geometry) THEN 1 ELSE NULL END) AS total_1_5km, " +
-                "COUNT(CASE WHEN ST_Intersects(ST_Buffer(p.geom::geography, 2000)::geometry, ruas.geom::geometry) THEN 1 ELSE NULL END) AS total_2km, " +
-                "COUNT(CASE WHEN ST_Intersects(ST_Buffer(p.geom::geography, ?)::geometry, ruas.geom::geometry) THEN 1 ELSE NULL END) AS total_raio_acao_metros " +
-                "FROM ponto p, \"SHP_Ruas\" AS ruas " +
-                "WHERE ruas.nm_tip_log IN ('AVENIDA', 'VIA') " +
+                // Contagem por anel a partir da distância de cada via até o ponto
+                CONTAGEM_ANEIS + ", " +
+                "COUNT(*) FILTER (WHERE ruas.distancia <= p.raio) AS total_raio_acao_metros " +
+                "FROM p " +
+                "LEFT JOIN ruas ON TRUE " +
                 "GROUP BY p.geom";
 
         // Executar a consulta com os parâmetros de latitude, longitude e raio de ação
-        return jdbcTemplate.query(sql, new Object[]{longitude, latitude, raioAcaopersolizado}, (rs, rowNum) -> new ComercioRaioAvenida(
+        Ponto ponto = new Ponto(longitude, latitude);
+        return jdbcTemplate.query(sql, new Object[]{longitude, latitude, raioAcaopersolizado, refinarBorda}, (rs, rowNum) -> new ComercioRaioAvenida(
                 0L,  // id_comercio sempre como 0
                 "Ponto de consulta",  // nome sempre como 'Ponto de consulta'
-                rs.getString("localizacao_texto"),
+                ponto,  // O próprio ponto de consulta
                 (long) raioAcaopersolizado,  // Passando o valor do raio de ação
                 rs.getInt("total_200m"),
                 rs.getInt("total_500m"),
@@ -1,10 +1,18 @@
 package com.riquetti.ProjetoIntegrador.repository;
 
 import com.riquetti.ProjetoIntegrador.entity.ComercioRaioVias;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 /**
  * Repositório responsável pela interação com a tabela `localizacao_comercios`
@@ -25,19 +33,206 @@ import java.util.List;
  *
  * Comprimento - Cálculo considera o comprimento das vias somadas dentro do raio de ação.
  * No Banco de Dados foi utilizado a extensão postgis para análises espaciais.
+ *
+ * Nas consultas por distância cada via é recortada uma única vez pelo maior anel, e o comprimento
+ * em cada anel (500 a 2500 metros e raio de ação) é o da interseção exata do recorte com o anel.
+ * A interseção só é calculada para os recortes que cruzam a borda do anel: um recorte inteiramente
+ * dentro do anel (distância máxima ao comércio até o raio) conta o comprimento total, e um recorte
+ * inteiramente fora, zero. Os anéis são buffers com 32 segmentos por quarto de círculo, cujo raio
+ * difere do círculo em menos de 0,05% (cerca de 1 metro no anel de 2500 metros).
+ *
+ * Os comprimentos e distâncias são planos, em metros, sobre as colunas projetadas em SIRGAS 2000 / UTM 23S
+ * (vias.geom_utm e comercio.localizacao_utm), mantidas pelo banco de dados e indexadas: nenhuma geometria é
+ * convertida para geography por linha. Em Limeira a diferença para o cálculo geodésico é inferior a 0,1%.
+ *
+ * As vias ficam em `camada_vias`, particionada por município (cd_mun): cada comércio é comparado apenas
+ * às vias da partição do seu município.
  */
 @Repository
 public class ComercioRaioViasRepository {
 
-    private final JdbcTemplate jdbcTemplate;
+    /**
+     * JdbcTemplate do pool de análise, utilizado nos cálculos de acessibilidade sobre as vias e no snapshot.
+     */
+    private final JdbcTemplate analiseJdbcTemplate;
+
+    /**
+     * Quantidade de linhas buscadas por vez nas consultas em streaming.
+     */
+    private static final int TAMANHO_LOTE_STREAMING = 500;
+
+    /**
+     * Quantidade de comércios recalculados por comando na atualização do snapshot, para que cada comando
+     * termine dentro do statement_timeout do pool de análise.
+     */
+    private static final int TAMANHO_BLOCO_SNAPSHOT = 100;
+
+    /**
+     * Leitura do snapshot de acessibilidade de todos os comércios.
+     */
+    private static final String CONSULTA_SNAPSHOT = """
+        SELECT
+          comercio.id_comercio,
+          comercio.nome,
+          comercio.descricao,
+          comercio.raio_acao_metros,
+          ST_X(comercio.localizacao::geometry) AS longitude,
+          ST_Y(comercio.localizacao::geometry) AS latitude,
+          snapshot.comprimento_total_ponderado,
+          snapshot.comprimento500,
+          snapshot.comprimento1000,
+          snapshot.comprimento1500,
+          snapshot.comprimento2000,
+          snapshot.comprimento2500,
+          snapshot.acessibilidade
+        FROM
+          public.localizacao_comercios AS comercio
+        JOIN
+          public.comercio_raio_vias_snapshot AS snapshot
+        ON
+          snapshot.id_comercio = comercio.id_comercio
+        ORDER BY
+          comercio.id_comercio
+        """;
+
+    /**
+     * Consulta das vias por anéis de distância. O filtro dos comércios é aplicado em "%s".
+     */
+    private static final String CONSULTA_DISTANCIAS = """
+    WITH comercios AS MATERIALIZED (
+      SELECT
+        comercio.id_comercio,
+        comercio.nome,
+        comercio.descricao,
+        comercio.raio_acao_metros,
+        comercio.localizacao,
+        comercio.cd_mun,
+        comercio.localizacao_utm AS origem,
+        GREATEST(2500, comercio.raio_acao_metros) AS maior_anel,
+        -- Um único buffer por anel e por comércio
+        ST_Buffer(comercio.localizacao_utm, GREATEST(2500, comercio.raio_acao_metros), 'quad_segs=32') AS area_maior_anel,
+        ST_Buffer(comercio.localizacao_utm, comercio.raio_acao_metros, 'quad_segs=32') AS area_raio,
+        ST_Buffer(comercio.localizacao_utm, 500, 'quad_segs=32') AS area500,
+        ST_Buffer(comercio.localizacao_utm, 1000, 'quad_segs=32') AS area1000,
+        ST_Buffer(comercio.localizacao_utm, 1500, 'quad_segs=32') AS area1500,
+        ST_Buffer(comercio.localizacao_utm, 2000, 'quad_segs=32') AS area2000,
+        ST_Buffer(comercio.localizacao_utm, 2500, 'quad_segs=32') AS area2500
+      FROM
+        public.localizacao_comercios AS comercio
+      %s
+    ),
+    recortes AS (
+      SELECT
+        c.id_comercio,
+        CASE
+          WHEN vias.fclass IN ('motorway', 'trunk', 'primary', 'primary_link') THEN 4
+          WHEN vias.fclass IN ('secondary', 'secondary_link') THEN 3
+          WHEN vias.fclass IN ('tertiary', 'tertiary_link') THEN 2
+          ELSE 1
+        END AS peso,
+        recorte.geom,
+        ST_Length(recorte.geom) AS comprimento,
+        ST_Distance(recorte.geom, c.origem) AS distancia_minima,
+        ST_MaxDistance(recorte.geom, c.origem) AS distancia_maxima
+      FROM
+        comercios AS c
+      JOIN
+        public.camada_vias AS vias
+      ON
+        vias.cd_mun = c.cd_mun  -- Apenas a partição do município do comércio
+        AND ST_DWithin(vias.geom_utm, c.origem, c.maior_anel)
+      CROSS JOIN LATERAL
+        -- Recorte único pelo maior anel
+        (SELECT ST_CollectionExtract(ST_Intersection(vias.geom_utm, c.area_maior_anel), 2) AS geom) AS recorte
+      WHERE
+        vias.fclass IN ('motorway', 'trunk', 'primary', 'primary_link', 'secondary', 'secondary_link', 'tertiary', 'tertiary_link', 'residential', 'living_street', 'unclassified')
+    ),
+    trechos AS (
+      -- Comprimento de cada recorte em cada anel: interseção apenas quando o recorte cruza a borda do anel
+      SELECT
+        r.id_comercio,
+        r.peso,
+        CASE WHEN r.distancia_maxima <= c.raio_acao_metros THEN r.comprimento
+             WHEN r.distancia_minima > c.raio_acao_metros THEN 0
+             ELSE ST_Length(ST_Intersection(r.geom, c.area_raio)) END AS comprimento_raio,
+        CASE WHEN r.distancia_maxima <= 500 THEN r.comprimento
+             WHEN r.distancia_minima > 500 THEN 0
+             ELSE ST_Length(ST_Intersection(r.geom, c.area500)) END AS comprimento500,
+        CASE WHEN r.distancia_maxima <= 1000 THEN r.comprimento
+             WHEN r.distancia_minima > 1000 THEN 0
+             ELSE ST_Length(ST_Intersection(r.geom, c.area1000)) END AS comprimento1000,
+        CASE WHEN r.distancia_maxima <= 1500 THEN r.comprimento
+             WHEN r.distancia_minima > 1500 THEN 0
+             ELSE ST_Length(ST_Intersection(r.geom, c.area1500)) END AS comprimento1500,
+        CASE WHEN r.distancia_maxima <= 2000 THEN r.comprimento
+             WHEN r.distancia_minima > 2000 THEN 0
+             ELSE ST_Length(ST_Intersection(r.geom, c.area2000)) END AS comprimento2000,
+        CASE WHEN r.distancia_maxima <= 2500 THEN r.comprimento
+             WHEN r.distancia_minima > 2500 THEN 0
+             ELSE ST_Length(ST_Intersection(r.geom, c.area2500)) END AS comprimento2500
+      FROM
+        recortes AS r
+      JOIN
+        comercios AS c
+      ON
+        c.id_comercio = r.id_comercio
+      WHERE
+        NOT ST_IsEmpty(r.geom)
+    ),
+    vias_proximas AS (
+      SELECT
+        c.id_comercio,
+        c.nome,
+        c.descricao,
+        c.raio_acao_metros,
+        ST_X(c.localizacao::geometry) AS longitude,
+        ST_Y(c.localizacao::geometry) AS latitude,
+        COALESCE(SUM(t.comprimento_raio * t.peso / 10), 0) AS comprimento_total_ponderado,
+        COALESCE(SUM(t.comprimento500), 0) AS comprimento500,
+        COALESCE(SUM(t.comprimento1000), 0) AS comprimento1000,
+        COALESCE(SUM(t.comprimento1500), 0) AS comprimento1500,
+        COALESCE(SUM(t.comprimento2000), 0) AS comprimento2000,
+        COALESCE(SUM(t.comprimento2500), 0) AS comprimento2500
+      FROM
+        comercios AS c
+      LEFT JOIN
+        trechos AS t
+      ON
+        t.id_comercio = c.id_comercio
+      GROUP BY
+        c.id_comercio, c.nome, c.descricao, c.raio_acao_metros, c.localizacao
+    )
+    SELECT
+      id_comercio,
+      nome,
+      descricao,
+      raio_acao_metros,
+      longitude,
+      latitude,
+      comprimento_total_ponderado,
+      comprimento500,
+      comprimento1000,
+      comprimento1500,
+      comprimento2000,
+      comprimento2500,
+      CASE
+        WHEN comprimento_total_ponderado > 15000 THEN 'Excelente'
+        WHEN comprimento_total_ponderado BETWEEN 10000 AND 15000 THEN 'Boa'
+        WHEN comprimento_total_ponderado BETWEEN 5000 AND 10000 THEN 'Média'
+        WHEN comprimento_total_ponderado BETWEEN 1000 AND 5000 THEN 'Ruim'
+        ELSE 'Muito Ruim'
+      END AS acessibilidade
+    FROM
+      vias_proximas
+    """;
 
     /**
      *  Construtor da classe ComercioRaioViasRepository.
      *
-     * @param jdbcTemplate o JdbcTemplate utilizado para executar as consultas.
+     * @param analiseJdbcTemplate o JdbcTemplate do pool de análise, utilizado nos cálculos sobre as vias e no snapshot.
      */
-    public ComercioRaioViasRepository(JdbcTemplate jdbcTemplate) {
-        this.jdbcTemplate = jdbcTemplate;
+    public ComercioRaioViasRepository(@Qualifier("analiseJdbcTemplate") JdbcTemplate analiseJdbcTemplate) {
+        this.analiseJdbcTemplate = analiseJdbcTemplate;
     }
 
     /**
@@ -61,21 +256,23 @@ public class ComercioRaioViasRepository {
             comercio.nome,
             comercio.descricao,
             comercio.raio_acao_metros,
-            ST_AsText(comercio.localizacao) AS localizacao,  -- Converte a localização para string
+            ST_X(comercio.localizacao::geometry) AS longitude,  -- Coordenadas numéricas da localização
+            ST_Y(comercio.localizacao::geometry) AS latitude,
             SUM(
               CASE 
-                WHEN vias.fclass IN ('motorway', 'trunk', 'primary', 'primary_link') THEN ST_Length(ST_Intersection(vias.geom::geography, ST_Buffer(comercio.localizacao::geography, comercio.raio_acao_metros))) * 4 / 10
-                WHEN vias.fclass IN ('secondary', 'secondary_link') THEN ST_Length(ST_Intersection(vias.geom::geography, ST_Buffer(comercio.localizacao::geography, comercio.raio_acao_metros))) * 3 / 10
-                WHEN vias.fclass IN ('tertiary', 'tertiary_link') THEN ST_Length(ST_Intersection(vias.geom::geography, ST_Buffer(comercio.localizacao::geography, comercio.raio_acao_metros))) * 2 / 10
-                ELSE ST_Length(ST_Intersection(vias.geom::geography, ST_Buffer(comercio.localizacao::geography, comercio.raio_acao_metros))) * 1 / 10
+                WHEN vias.fclass IN ('motorway', 'trunk', 'primary', 'primary_link') THEN ST_Length(ST_Intersection(vias.geom_utm, ST_Buffer(comercio.localizacao_utm, comercio.raio_acao_metros))) * 4 / 10
+                WHEN vias.fclass IN ('secondary', 'secondary_link') THEN ST_Length(ST_Intersection(vias.geom_utm, ST_Buffer(comercio.localizacao_utm, comercio.raio_acao_metros))) * 3 / 10
+                WHEN vias.fclass IN ('tertiary', 'tertiary_link') THEN ST_Length(ST_Intersection(vias.geom_utm, ST_Buffer(comercio.localizacao_utm, comercio.raio_acao_metros))) * 2 / 10
+                ELSE ST_Length(ST_Intersection(vias.geom_utm, ST_Buffer(comercio.localizacao_utm, comercio.raio_acao_metros))) * 1 / 10
               END
             ) AS comprimento_total_ponderado
           FROM 
             public.localizacao_comercios AS comercio
           JOIN 
-            public."Vias_Limeira_OSM" AS vias
+            public.camada_vias AS vias
           ON 
-            ST_DWithin(vias.geom, comercio.localizacao::geometry, comercio.raio_acao_metros)
+            vias.cd_mun = comercio.cd_mun  -- Apenas a partição do município do comércio
+            AND ST_DWithin(vias.geom_utm, comercio.localizacao_utm, comercio.raio_acao_metros)
           WHERE 
             comercio.id_comercio = ?
             AND vias.fclass IN ('motorway', 'trunk', 'primary', 'primary_link', 'secondary', 'secondary_link', 'tertiary', 'tertiary_link', 'residential', 'living_street', 'unclassified')
@@ -87,7 +284,8 @@ public class ComercioRaioViasRepository {
           nome,
           descricao,
           raio_acao_metros,
-          localizacao,
+          longitude,
+          latitude,
           comprimento_total_ponderado,
           CASE 
             WHEN comprimento_total_ponderado > 15000 THEN 'Excelente'
@@ -100,13 +298,13 @@ public class ComercioRaioViasRepository {
           vias_proximas;
     """;
 
-        return jdbcTemplate.query(sql, (rs, rowNum) -> {
+        return analiseJdbcTemplate.query(sql, (rs, rowNum) -> {
             ComercioRaioVias entity = new ComercioRaioVias();
             entity.setIdComercio(rs.getLong("id_comercio"));
             entity.setNome(rs.getString("nome"));
             entity.setDescricao(rs.getString("descricao"));
             entity.setRaioAcaoMetros(rs.getLong("raio_acao_metros"));
-            entity.setLocalizacao(rs.getString("localizacao"));  // Mapeia a localização como string
+            entity.setLocalizacao(PontoColunas.ler(rs));  // Mapeia a localização a partir de longitude e latitude
             entity.setComprimentoTotalPonderado(rs.getBigDecimal("comprimento_total_ponderado"));
             entity.setAcessibilidade(rs.getString("acessibilidade"));
             return entity;
@@ -132,21 +330,23 @@ public class ComercioRaioViasRepository {
                 comercio.nome,
                 comercio.descricao,
                 comercio.raio_acao_metros,
-                ST_AsText(comercio.localizacao) AS localizacao,  -- Convertendo a localização para texto
+                ST_X(comercio.localizacao::geometry) AS longitude,  -- Coordenadas numéricas da localização
+                ST_Y(comercio.localizacao::geometry) AS latitude,
                 SUM(
                   CASE 
-                    WHEN vias.fclass IN ('motorway', 'trunk', 'primary', 'primary_link') THEN ST_Length(ST_Intersection(vias.geom::geography, ST_Buffer(comercio.localizacao::geography, comercio.raio_acao_metros))) * 4 / 10
-                    WHEN vias.fclass IN ('secondary', 'secondary_link') THEN ST_Length(ST_Intersection(vias.geom::geography, ST_Buffer(comercio.localizacao::geography, comercio.raio_acao_metros))) * 3 / 10
-                    WHEN vias.fclass IN ('tertiary', 'tertiary_link') THEN ST_Length(ST_Intersection(vias.geom::geography, ST_Buffer(comercio.localizacao::geography, comercio.raio_acao_metros))) * 2 / 10
-                    ELSE ST_Length(ST_Intersection(vias.geom::geography, ST_Buffer(comercio.localizacao::geography, comercio.raio_acao_metros))) * 1 / 10
+                    WHEN vias.fclass IN ('motorway', 'trunk', 'primary', 'primary_link') THEN ST_Length(ST_Intersection(vias.geom_utm, ST_Buffer(comercio.localizacao_utm, comercio.raio_acao_metros))) * 4 / 10
+                    WHEN vias.fclass IN ('secondary', 'secondary_link') THEN ST_Length(ST_Intersection(vias.geom_utm, ST_Buffer(comercio.localizacao_utm, comercio.raio_acao_metros))) * 3 / 10
+                    WHEN vias.fclass IN ('tertiary', 'tertiary_link') THEN ST_Length(ST_Intersection(vias.geom_utm, ST_Buffer(comercio.localizacao_utm, comercio.raio_acao_metros))) * 2 / 10
+                    ELSE ST_Length(ST_Intersection(vias.geom_utm, ST_Buffer(comercio.localizacao_utm, comercio.raio_acao_metros))) * 1 / 10
                   END
                 ) AS comprimento_total_ponderado
               FROM 
                 public.localizacao_comercios AS comercio
               JOIN 
-                public."Vias_Limeira_OSM" AS vias
+                public.camada_vias AS vias
               ON 
-                ST_DWithin(vias.geom, comercio.localizacao::geometry, comercio.raio_acao_metros)  
+                vias.cd_mun = comercio.cd_mun  -- Apenas a partição do município do comércio
+                AND ST_DWithin(vias.geom_utm, comercio.localizacao_utm, comercio.raio_acao_metros)  
               WHERE 
                 vias.fclass IN ('motorway', 'trunk', 'primary', 'primary_link', 'secondary', 'secondary_link', 'tertiary', 'tertiary_link', 'residential', 'living_street', 'unclassified')
               GROUP BY 
@@ -157,7 +357,8 @@ public class ComercioRaioViasRepository {
               nome,
               descricao,
               raio_acao_metros,
-              localizacao,
+              longitude,
+              latitude,
               comprimento_total_ponderado,
               CASE 
                 WHEN comprimento_total_ponderado > 15000 THEN 'Excelente'
@@ -170,13 +371,13 @@ public class ComercioRaioViasRepository {
               vias_proximas;
             """;
 
-        return jdbcTemplate.query(sql, (rs, rowNum) -> {
+        return analiseJdbcTemplate.query(sql, (rs, rowNum) -> {
             ComercioRaioVias entity = new ComercioRaioVias();
             entity.setIdComercio(rs.getLong("id_comercio"));
             entity.setNome(rs.getString("nome"));
             entity.setDescricao(rs.getString("descricao"));
             entity.setRaioAcaoMetros(rs.getLong("raio_acao_metros"));
-            entity.setLocalizacao(rs.getString("localizacao"));
+            entity.setLocalizacao(PontoColunas.ler(rs));
             entity.setComprimentoTotalPonderado(rs.getBigDecimal("comprimento_total_ponderado"));
             entity.setAcessibilidade(rs.getString("acessibilidade"));
             return entity;
@@ -196,103 +397,8 @@ public class ComercioRaioViasRepository {
      *         das vias em várias distâncias. Se o comércio não for encontrado, a lista retornada estará vazia.
      */
     public List<ComercioRaioVias> findByComercioIdDistancia(Long idComercio) {
-        String sql = """
-    WITH vias_proximas AS (
-      SELECT 
-        comercio.id_comercio,
-        comercio.nome,
-        comercio.descricao,
-        comercio.raio_acao_metros,
-        ST_AsText(comercio.localizacao) AS localizacao,  
-        SUM(
-          CASE 
-            WHEN vias.fclass IN ('motorway', 'trunk', 'primary', 'primary_link') THEN ST_Length(ST_Intersection(vias.geom::geography, ST_Buffer(comercio.localizacao::geography, comercio.raio_acao_metros))) * 4 / 10
-            WHEN vias.fclass IN ('secondary', 'secondary_link') THEN ST_Length(ST_Intersection(vias.geom::geography, ST_Buffer(comercio.localizacao::geography, comercio.raio_acao_metros))) * 3 / 10
-            WHEN vias.fclass IN ('tertiary', 'tertiary_link') THEN ST_Length(ST_Intersection(vias.geom::geography, ST_Buffer(comercio.localizacao::geography, comercio.raio_acao_metros))) * 2 / 10
-            ELSE ST_Length(ST_Intersection(vias.geom::geography, ST_Buffer(comercio.localizacao::geography, comercio.raio_acao_metros))) * 1 / 10
-          END
-        ) AS comprimento_total_ponderado,
-        SUM(
-          CASE 
-            WHEN ST_DWithin(vias.geom, comercio.localizacao::geometry, 500) THEN ST_Length(ST_Intersection(vias.geom::geography, ST_Buffer(comercio.localizacao::geography, 500)))
-            ELSE 0
-          END
-        ) AS comprimento500,
-        SUM(
-          CASE 
-            WHEN ST_DWithin(vias.geom, comercio.localizacao::geometry, 1000) THEN ST_Length(ST_Intersection(vias.geom::geography, ST_Buffer(comercio.localizacao::geography, 1000)))
-            ELSE 0
-          END
-        ) AS comprimento1000,
-        SUM(
-          CASE 
-            WHEN ST_DWithin(vias.geom, comercio.localizacao::geometry, 1500) THEN ST_Length(ST_Intersection(vias.geom::geography, ST_Buffer(comercio.localizacao::geography, 1500)))
-            ELSE 0
-          END
-        ) AS comprimento1500,
-        SUM(
-          CASE 
-            WHEN ST_DWithin(vias.geom, comercio.localizacao::geometry, 2000) THEN ST_Length(ST_Intersection(vias.geom::geography, ST_Buffer(comercio.localizacao::geography, 2000)))
-            ELSE 0
-          END
-        ) AS comprimento2000,
-        SUM(
-          CASE 
-            WHEN ST_DWithin(vias.geom, comercio.localizacao::geometry, 2500) THEN ST_Length(ST_Intersection(vias.geom::geography, ST_Buffer(comercio.localizacao::geography, 2500)))
-            ELSE 0
-          END
-        ) AS comprimento2500
-      FROM 
-        public.localizacao_comercios AS comercio
-      JOIN 
-        public."Vias_Limeira_OSM" AS vias
-      ON 
-        ST_DWithin(vias.geom, comercio.localizacao::geometry, comercio.raio_acao_metros)  
-      WHERE 
-        comercio.id_comercio = ?
-        AND vias.fclass IN ('motorway', 'trunk', 'primary', 'primary_link', 'secondary', 'secondary_link', 'tertiary', 'tertiary_link', 'residential', 'living_street', 'unclassified')
-      GROUP BY 
-        comercio.id_comercio, comercio.nome, comercio.descricao, comercio.raio_acao_metros, comercio.localizacao  
-    )
-    SELECT 
-      id_comercio,
-      nome,
-      descricao,
-      raio_acao_metros,
-      localizacao,  
-      comprimento_total_ponderado,
-      comprimento500,
-      comprimento1000,
-      comprimento1500,
-      comprimento2000,
-      comprimento2500,
-      CASE 
-        WHEN comprimento_total_ponderado > 15000 THEN 'Excelente'
-        WHEN comprimento_total_ponderado BETWEEN 10000 AND 15000 THEN 'Boa'
-        WHEN comprimento_total_ponderado BETWEEN 5000 AND 10000 THEN 'Média'
-        WHEN comprimento_total_ponderado BETWEEN 1000 AND 5000 THEN 'Ruim'
-        ELSE 'Muito Ruim'
-      END AS acessibilidade
-    FROM 
-      vias_proximas;
-    """;
-
-        return jdbcTemplate.query(sql, (rs, rowNum) -> {
-            ComercioRaioVias entity = new ComercioRaioVias();
-            entity.setIdComercio(rs.getLong("id_comercio"));
-            entity.setNome(rs.getString("nome"));
-            entity.setDescricao(rs.getString("descricao"));
-            entity.setRaioAcaoMetros(rs.getLong("raio_acao_metros"));
-            entity.setLocalizacao(rs.getString("localizacao"));
-            entity.setComprimentoTotalPonderado(rs.getBigDecimal("comprimento_total_ponderado"));
-            entity.setComprimento500(rs.getBigDecimal("comprimento500"));
-            entity.setComprimento1000(rs.getBigDecimal("comprimento1000"));
-            entity.setComprimento1500(rs.getBigDecimal("comprimento1500"));
-            entity.setComprimento2000(rs.getBigDecimal("comprimento2000"));
-            entity.setComprimento2500(rs.getBigDecimal("comprimento2500"));
-            entity.setAcessibilidade(rs.getString("acessibilidade"));
-            return entity;
-        }, idComercio);
+        String sql = CONSULTA_DISTANCIAS.formatted("WHERE comercio.id_comercio = ?");
+        return analiseJdbcTemplate.query(sql, new ComercioRaioViasDistanciaRowMapper(), idComercio);
     }
 
     /**
@@ -313,93 +419,192 @@ public class ComercioRaioViasRepository {
      *         e a acessibilidade das vias em várias distâncias. Se não houver comércios, a lista retornada estará vazia.
      */
     public List<ComercioRaioVias> findAllViasDistancia() {
+        String sql = CONSULTA_DISTANCIAS.formatted("");
+        return analiseJdbcTemplate.query(sql, new ComercioRaioViasDistanciaRowMapper());
+    }
+
+    /**
+     * Percorre a acessibilidade das vias em diferentes distâncias de todos os comércios, com a mesma consulta de
+     * {@link #findAllViasDistancia()}, entregando cada registro ao consumidor assim que é lido, sem montar uma
+     * lista intermediária.
+     *
+     * O ResultSet é somente leitura, apenas para frente e buscado em lotes; para que o driver do
+     * PostgreSQL utilize um cursor, o método deve ser chamado dentro de uma transação do pool de análise.
+     *
+     * @param consumidor Função que recebe cada ComercioRaioVias.
+     */
+    public void forEachViasDistancia(Consumer<ComercioRaioVias> consumidor) {
+        String sql = CONSULTA_DISTANCIAS.formatted("");
+        ComercioRaioViasDistanciaRowMapper rowMapper = new ComercioRaioViasDistanciaRowMapper();
+        analiseJdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(TAMANHO_LOTE_STREAMING);
+            return ps;
+        }, (RowCallbackHandler) rs -> consumidor.accept(rowMapper.mapRow(rs, rs.getRow())));
+    }
+
+    /**
+     * Calcula a acessibilidade das vias em diferentes distâncias para os comércios de uma faixa de IDs,
+     * com a mesma consulta de {@link #findAllViasDistancia()}. Utilizado nos relatórios executados em blocos.
+     *
+     * @param idInicial Menor ID de comércio da faixa.
+     * @param idFinal   Maior ID de comércio da faixa.
+     * @return Lista de {@link ComercioRaioVias} da faixa, ordenada pelo ID do comércio.
+     */
+    public List<ComercioRaioVias> findViasDistanciaEntre(long idInicial, long idFinal) {
+        String sql = CONSULTA_DISTANCIAS.formatted("WHERE comercio.id_comercio BETWEEN ? AND ?")
+                + " ORDER BY id_comercio";
+        return analiseJdbcTemplate.query(sql, new ComercioRaioViasDistanciaRowMapper(), idInicial, idFinal);
+    }
+
+    /**
+     * Busca a acessibilidade de todos os comércios a partir da tabela de snapshot.
+     *
+     * Os valores são lidos de `comercio_raio_vias_snapshot`, mantida pelos métodos de atualização
+     * deste repositório, e os dados cadastrais são obtidos da tabela `localizacao_comercios`.
+     *
+     * @return Uma lista de {@link ComercioRaioVias} com os comprimentos por anel e a acessibilidade
+     *         de cada comércio já calculada. Comércios ainda sem snapshot não são retornados.
+     */
+    public List<ComercioRaioVias> findAllSnapshot() {
+        return analiseJdbcTemplate.query(CONSULTA_SNAPSHOT, new ComercioRaioViasDistanciaRowMapper());
+    }
+
+    /**
+     * Percorre o snapshot de acessibilidade de todos os comércios, entregando cada registro ao
+     * consumidor assim que é lido, sem montar uma lista intermediária.
+     *
+     * O ResultSet é somente leitura, apenas para frente e buscado em lotes; para que o driver do
+     * PostgreSQL utilize um cursor, o método deve ser chamado dentro de uma transação.
+     *
+     * @param consumidor Função que recebe cada ComercioRaioVias.
+     */
+    public void forEachSnapshot(Consumer<ComercioRaioVias> consumidor) {
+        ComercioRaioViasDistanciaRowMapper rowMapper = new ComercioRaioViasDistanciaRowMapper();
+        analiseJdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(CONSULTA_SNAPSHOT,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(TAMANHO_LOTE_STREAMING);
+            return ps;
+        }, (RowCallbackHandler) rs -> consumidor.accept(rowMapper.mapRow(rs, rs.getRow())));
+    }
+
+    /**
+     * Recalcula o snapshot de acessibilidade de um único comércio.
+     *
+     * @param idComercio O ID do comércio cujo snapshot deve ser recalculado.
+     * @return O número de linhas inseridas ou atualizadas no snapshot.
+     */
+    public int refreshSnapshot(Long idComercio) {
+        return analiseJdbcTemplate.update(atualizarSnapshotSql("WHERE comercio.id_comercio = ?"), idComercio);
+    }
+
+    /**
+     * Calcula o snapshot dos comércios que ainda não possuem registro na tabela de snapshot.
+     *
+     * @return O número de linhas inseridas no snapshot.
+     */
+    public int refreshMissingSnapshots() {
+        return atualizarSnapshotEmBlocos(analiseJdbcTemplate.queryForList("""
+                SELECT comercio.id_comercio
+                FROM public.localizacao_comercios AS comercio
+                WHERE NOT EXISTS (SELECT 1 FROM public.comercio_raio_vias_snapshot AS s WHERE s.id_comercio = comercio.id_comercio)
+                ORDER BY comercio.id_comercio
+                """, Long.class));
+    }
+
+    /**
+     * Recalcula o snapshot de todos os comércios, por exemplo após a recarga da base de vias.
+     *
+     * @return O número de linhas inseridas ou atualizadas no snapshot.
+     */
+    public int refreshAllSnapshots() {
+        return atualizarSnapshotEmBlocos(analiseJdbcTemplate.queryForList(
+                "SELECT id_comercio FROM public.localizacao_comercios ORDER BY id_comercio", Long.class));
+    }
+
+    /**
+     * Recalcula o snapshot dos comércios informados em blocos de {@value #TAMANHO_BLOCO_SNAPSHOT}, um comando
+     * por bloco, sem ultrapassar o statement_timeout do pool de análise. Cada bloco é gravado ao terminar.
+     *
+     * @param idsComercio IDs dos comércios a recalcular.
+     * @return O número de linhas inseridas ou atualizadas no snapshot.
+     */
+    private int atualizarSnapshotEmBlocos(List<Long> idsComercio) {
+        String sql = atualizarSnapshotSql("WHERE comercio.id_comercio = ANY (?)");
+        int total = 0;
+        for (int inicio = 0; inicio < idsComercio.size(); inicio += TAMANHO_BLOCO_SNAPSHOT) {
+            Object[] bloco = idsComercio.subList(inicio, Math.min(inicio + TAMANHO_BLOCO_SNAPSHOT, idsComercio.size())).toArray();
+            total += analiseJdbcTemplate.update(sql, ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", bloco)));
+        }
+        return total;
+    }
+
+    /**
+     * Monta o comando que grava na tabela de snapshot o resultado da consulta por distâncias.
+     *
+     * @param filtro A cláusula WHERE aplicada aos comércios recalculados.
+     * @return O comando SQL de inserção/atualização do snapshot.
+     */
+    private String atualizarSnapshotSql(String filtro) {
+        return """
+        INSERT INTO public.comercio_raio_vias_snapshot (
+          id_comercio, comprimento_total_ponderado, comprimento500, comprimento1000,
+          comprimento1500, comprimento2000, comprimento2500, acessibilidade, atualizado_em
+        )
+        SELECT
+          calculo.id_comercio, calculo.comprimento_total_ponderado, calculo.comprimento500, calculo.comprimento1000,
+          calculo.comprimento1500, calculo.comprimento2000, calculo.comprimento2500, calculo.acessibilidade, now()
+        FROM (
+        %s
+        ) AS calculo
+        ON CONFLICT (id_comercio) DO UPDATE SET
+          comprimento_total_ponderado = EXCLUDED.comprimento_total_ponderado,
+          comprimento500 = EXCLUDED.comprimento500,
+          comprimento1000 = EXCLUDED.comprimento1000,
+          comprimento1500 = EXCLUDED.comprimento1500,
+          comprimento2000 = EXCLUDED.comprimento2000,
+          comprimento2500 = EXCLUDED.comprimento2500,
+          acessibilidade = EXCLUDED.acessibilidade,
+          atualizado_em = EXCLUDED.atualizado_em
+        """.formatted(CONSULTA_DISTANCIAS.formatted(filtro));
+    }
+
+    /**
+     * Percorre as vias OSM de um município consideradas no cálculo de acessibilidade.
+     *
+     * Cada via é entregue ao consumidor com sua classe (fclass) e a geometria 2D em WKB,
+     * sem montar uma lista intermediária. Utilizado para carregar o índice espacial em memória.
+     *
+     * @param cdMun      Código IBGE do município, que seleciona a partição de `camada_vias`.
+     * @param consumidor Função que recebe a classe da via e a geometria em WKB.
+     */
+    public void forEachVia(String cdMun, BiConsumer<String, byte[]> consumidor) {
         String sql = """
-    WITH vias_proximas AS (
-      SELECT 
-        comercio.id_comercio,
-        comercio.nome,
-        comercio.descricao,
-        comercio.raio_acao_metros,
-        ST_AsText(comercio.localizacao) AS localizacao,  -- Convertendo a localização para texto
-        SUM(
-          CASE 
-            WHEN vias.fclass IN ('motorway', 'trunk', 'primary', 'primary_link') THEN ST_Length(ST_Intersection(vias.geom::geography, ST_Buffer(comercio.localizacao::geography, comercio.raio_acao_metros))) * 4 / 10
-            WHEN vias.fclass IN ('secondary', 'secondary_link') THEN ST_Length(ST_Intersection(vias.geom::geography, ST_Buffer(comercio.localizacao::geography, comercio.raio_acao_metros))) * 3 / 10
-            WHEN vias.fclass IN ('tertiary', 'tertiary_link') THEN ST_Length(ST_Intersection(vias.geom::geography, ST_Buffer(comercio.localizacao::geography, comercio.raio_acao_metros))) * 2 / 10
-            ELSE ST_Length(ST_Intersection(vias.geom::geography, ST_Buffer(comercio.localizacao::geography, comercio.raio_acao_metros))) * 1 / 10
-          END
-        ) AS comprimento_total_ponderado,
-        SUM(
-          CASE 
-            WHEN ST_DWithin(vias.geom, comercio.localizacao::geometry, 500) THEN ST_Length(ST_Intersection(vias.geom::geography, ST_Buffer(comercio.localizacao::geography, 500)))
-            ELSE 0
-          END
-        ) AS comprimento500,
-        SUM(
-          CASE 
-            WHEN ST_DWithin(vias.geom, comercio.localizacao::geometry, 1000) THEN ST_Length(ST_Intersection(vias.geom::geography, ST_Buffer(comercio.localizacao::geography, 1000)))
-            ELSE 0
-          END
-        ) AS comprimento1000,
-        SUM(
-          CASE 
-            WHEN ST_DWithin(vias.geom, comercio.localizacao::geometry, 1500) THEN ST_Length(ST_Intersection(vias.geom::geography, ST_Buffer(comercio.localizacao::geography, 1500)))
-            ELSE 0
-          END
-        ) AS comprimento1500,
-        SUM(
-          CASE 
-            WHEN ST_DWithin(vias.geom, comercio.localizacao::geometry, 2000) THEN ST_Length(ST_Intersection(vias.geom::geography, ST_Buffer(comercio.localizacao::geography, 2000)))
-            ELSE 0
-          END
-        ) AS comprimento2000,
-        SUM(
-          CASE 
-            WHEN ST_DWithin(vias.geom, comercio.localizacao::geometry, 2500) THEN ST_Length(ST_Intersection(vias.geom::geography, ST_Buffer(comercio.localizacao::geography, 2500)))
-            ELSE 0
-          END
-        ) AS comprimento2500
-      FROM 
-        public.localizacao_comercios AS comercio
-      JOIN 
-        public."Vias_Limeira_OSM" AS vias
-      ON 
-        ST_DWithin(vias.geom, comercio.localizacao::geometry, comercio.raio_acao_metros)  
-      WHERE 
-        vias.fclass IN ('motorway', 'trunk', 'primary', 'primary_link', 'secondary', 'secondary_link', 'tertiary', 'tertiary_link', 'residential', 'living_street', 'unclassified')
-      GROUP BY 
-        comercio.id_comercio, comercio.nome, comercio.descricao, comercio.raio_acao_metros, comercio.localizacao  
-    )
-    SELECT 
-      id_comercio,
-      nome,
-      descricao,
-      raio_acao_metros,
-      localizacao,  
-      comprimento_total_ponderado,
-      comprimento500,
-      comprimento1000,
-      comprimento1500,
-      comprimento2000,
-      comprimento2500,
-      CASE 
-        WHEN comprimento_total_ponderado > 15000 THEN 'Excelente'
-        WHEN comprimento_total_ponderado BETWEEN 10000 AND 15000 THEN 'Boa'
-        WHEN comprimento_total_ponderado BETWEEN 5000 AND 10000 THEN 'Média'
-        WHEN comprimento_total_ponderado BETWEEN 1000 AND 5000 THEN 'Ruim'
-        ELSE 'Muito Ruim'
-      END AS acessibilidade
-    FROM 
-      vias_proximas;
-    """;
+        SELECT
+          vias.fclass,
+          ST_AsBinary(ST_Force2D(vias.geom)) AS geom
+        FROM
+          public.camada_vias AS vias
+        WHERE
+          vias.cd_mun = ?
+          AND vias.fclass IN ('motorway', 'trunk', 'primary', 'primary_link', 'secondary', 'secondary_link', 'tertiary', 'tertiary_link', 'residential', 'living_street', 'unclassified')
+        """;
+        analiseJdbcTemplate.query(sql, (RowCallbackHandler) rs -> consumidor.accept(rs.getString("fclass"), rs.getBytes("geom")), cdMun);
+    }
 
-        return jdbcTemplate.query(sql, (rs, rowNum) -> {
+    /**
+     * Classe interna para mapear os resultados das consultas por distância para o objeto ComercioRaioVias.
+     */
+    static class ComercioRaioViasDistanciaRowMapper implements RowMapper<ComercioRaioVias> {
+        @Override
+        public ComercioRaioVias mapRow(ResultSet rs, int rowNum) throws SQLException {
             ComercioRaioVias entity = new ComercioRaioVias();
             entity.setIdComercio(rs.getLong("id_comercio"));
             entity.setNome(rs.getString("nome"));
             entity.setDescricao(rs.getString("descricao"));
             entity.setRaioAcaoMetros(rs.getLong("raio_acao_metros"));
-            entity.setLocalizacao(rs.getString("localizacao"));
+            entity.setLocalizacao(PontoColunas.ler(rs));
             entity.setComprimentoTotalPonderado(rs.getBigDecimal("comprimento_total_ponderado"));
             entity.setComprimento500(rs.getBigDecimal("comprimento500"));
             entity.setComprimento1000(rs.getBigDecimal("comprimento1000"));
@@ -408,8 +613,7 @@ public class ComercioRaioViasRepository {
             entity.setComprimento2500(rs.getBigDecimal("comprimento2500"));
             entity.setAcessibilidade(rs.getString("acessibilidade"));
             return entity;
-        });
+        }
     }
 
-
 }
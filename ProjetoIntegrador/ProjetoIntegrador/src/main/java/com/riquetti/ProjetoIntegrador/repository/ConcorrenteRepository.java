@@ -1,9 +1,12 @@
 package com.riquetti.ProjetoIntegrador.repository;
 
 import com.riquetti.ProjetoIntegrador.entity.Concorrente;
+import com.riquetti.ProjetoIntegrador.entity.ConcorrenteProximo;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Repository;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -14,6 +17,45 @@ import java.util.List;
 @Repository
 public class ConcorrenteRepository {
 
+    /**
+     * Busca dos K mais próximos: o operador {@code <->} no ORDER BY, comparado a um valor constante
+     * na consulta (a origem), permite que o PostgreSQL percorra o índice GiST em ordem de distância
+     * (localizacao_comercios_localizacao_utm_idx) e pare após K linhas, sem calcular a distância de todos os comércios.
+     * A distância retornada é a plana em SIRGAS 2000 / UTM 23S (coluna localizacao_utm), em metros.
+     *
+     * %1$s é a expressão SQL da origem (SRID 31983), %2$s o filtro adicional e %3$s as colunas da localização.
+     */
+    private static final String CONSULTA_MAIS_PROXIMOS = """
+            SELECT lc.id_comercio, lc.nome, lc.descricao, lc.id_tipo_comercio,
+                   %3$s,
+                   ST_Distance(lc.localizacao_utm, %1$s) AS distancia_metros
+            FROM public.localizacao_comercios lc
+            WHERE %1$s IS NOT NULL%2$s
+            ORDER BY lc.localizacao_utm <-> %1$s
+            LIMIT ?
+            """;
+
+    private static final RowMapper<Concorrente> CONCORRENTE_ROW_MAPPER = (rs, rowNum) -> {
+        Concorrente concorrente = new Concorrente();
+        concorrente.setIdComercio(rs.getLong("id_comercio"));
+        concorrente.setNome(rs.getString("nome"));
+        concorrente.setDescricao(rs.getString("descricao"));
+        concorrente.setIdTipoComercio(rs.getLong("id_tipo_comercio"));
+        concorrente.setLocalizacao(PontoColunas.ler(rs));
+        return concorrente;
+    };
+
+    private static final RowMapper<ConcorrenteProximo> CONCORRENTE_PROXIMO_ROW_MAPPER = (rs, rowNum) -> {
+        ConcorrenteProximo concorrente = new ConcorrenteProximo();
+        concorrente.setIdComercio(rs.getLong("id_comercio"));
+        concorrente.setNome(rs.getString("nome"));
+        concorrente.setDescricao(rs.getString("descricao"));
+        concorrente.setIdTipoComercio(rs.getLong("id_tipo_comercio"));
+        concorrente.setLocalizacao(PontoColunas.ler(rs));
+        concorrente.setDistanciaMetros(rs.getDouble("distancia_metros"));
+        return concorrente;
+    };
+
     private final JdbcTemplate jdbcTemplate;
 
     /**
@@ -43,24 +85,16 @@ public class ConcorrenteRepository {
     public List<Concorrente> findByRaio(Long idComercio, Long raioMetros) {
         String sql =
                 "WITH origem AS (\n" +
-                        "  SELECT localizacao \n" +
+                        "  SELECT localizacao_utm \n" +
                         "  FROM localizacao_comercios \n" +
                         "  WHERE id_comercio = ?\n" +
                         ")\n" +
-                        "SELECT lc.id_comercio, ST_AsText(lc.localizacao) as localizacao, lc.nome, lc.descricao, lc.id_tipo_comercio\n" +  // Conversão para texto
+                        "SELECT lc.id_comercio, " + PontoColunas.selecionar("lc.localizacao") + ", lc.nome, lc.descricao, lc.id_tipo_comercio\n" +
                         "FROM localizacao_comercios lc, origem o\n" +
-                        "WHERE ST_DWithin(lc.localizacao, o.localizacao, ?)\n" +
+                        "WHERE ST_DWithin(lc.localizacao_utm, o.localizacao_utm, ?)\n" +
                         "  AND lc.id_comercio != ?;";
 
-        return jdbcTemplate.query(sql, new Object[]{idComercio, raioMetros, idComercio}, (rs, rowNum) -> {
-            Concorrente concorrente = new Concorrente();
-            concorrente.setIdComercio(rs.getLong("id_comercio"));
-            concorrente.setNome(rs.getString("nome"));
-            concorrente.setDescricao(rs.getString("descricao"));
-            concorrente.setIdTipoComercio(rs.getLong("id_tipo_comercio"));
-            concorrente.setLocalizacao(rs.getString("localizacao"));  // Agora será texto WKT
-            return concorrente;
-        });
+        return jdbcTemplate.query(sql, new Object[]{idComercio, raioMetros, idComercio}, CONCORRENTE_ROW_MAPPER);
     }
 
     /**
@@ -75,21 +109,60 @@ public class ConcorrenteRepository {
      */
     public List<Concorrente> findByRaioFromComercio(Long idComercio) {
         String sql =
-                "SELECT lc.id_comercio, ST_AsText(lc.localizacao) as localizacao, lc.nome, lc.descricao, lc.id_tipo_comercio \n" +
+                "SELECT lc.id_comercio, " + PontoColunas.selecionar("lc.localizacao") + ", lc.nome, lc.descricao, lc.id_tipo_comercio \n" +
                         "FROM localizacao_comercios lc \n" +
                         "WHERE lc.raio_acao_metros IS NOT NULL \n" +
-                        "  AND ST_DWithin(lc.localizacao, (SELECT localizacao FROM localizacao_comercios WHERE id_comercio = ?), lc.raio_acao_metros) \n" +
+                        "  AND ST_DWithin(lc.localizacao_utm, (SELECT localizacao_utm FROM localizacao_comercios WHERE id_comercio = ?), lc.raio_acao_metros) \n" +
                         "  AND lc.id_comercio != ?;";
 
-        return jdbcTemplate.query(sql, new Object[]{idComercio, idComercio}, (rs, rowNum) -> {
-            Concorrente concorrente = new Concorrente();
-            concorrente.setIdComercio(rs.getLong("id_comercio"));
-            concorrente.setNome(rs.getString("nome"));
-            concorrente.setDescricao(rs.getString("descricao"));
-            concorrente.setIdTipoComercio(rs.getLong("id_tipo_comercio"));
-            concorrente.setLocalizacao(rs.getString("localizacao"));  // Agora será texto WKT
-            return concorrente;
-        });
+        return jdbcTemplate.query(sql, new Object[]{idComercio, idComercio}, CONCORRENTE_ROW_MAPPER);
+    }
+
+    /**
+     * Encontra os K comércios mais próximos de um comércio, ordenados pela distância.
+     *
+     * @param idComercio     O ID do comércio de origem, que não é incluído no resultado.
+     * @param idTipoComercio O tipo de comércio dos concorrentes, ou null para todos os tipos.
+     * @param limite         A quantidade máxima de comércios retornados (K).
+     * @return Os comércios mais próximos com a distância em metros, ou lista vazia se o comércio de origem não existir.
+     */
+    public List<ConcorrenteProximo> findMaisProximosDeComercio(Long idComercio, Long idTipoComercio, int limite) {
+        String origem = "(SELECT o.localizacao_utm FROM public.localizacao_comercios o WHERE o.id_comercio = ?)";
+        String filtro = "\n  AND lc.id_comercio <> ?";
+        return findMaisProximos(origem, new Object[]{idComercio}, filtro, new Object[]{idComercio}, idTipoComercio, limite);
+    }
+
+    /**
+     * Encontra os K comércios mais próximos de um ponto, ordenados pela distância.
+     *
+     * @param longitude      Longitude da origem (SRID 4326).
+     * @param latitude       Latitude da origem (SRID 4326).
+     * @param idTipoComercio O tipo de comércio, ou null para todos os tipos.
+     * @param limite         A quantidade máxima de comércios retornados (K).
+     * @return Os comércios mais próximos com a distância em metros.
+     */
+    public List<ConcorrenteProximo> findMaisProximosDePonto(double longitude, double latitude, Long idTipoComercio, int limite) {
+        String origem = "ST_Transform(ST_SetSRID(ST_MakePoint(?, ?), 4326), " + GradeRepository.SRID_UTM + ")";
+        return findMaisProximos(origem, new Object[]{longitude, latitude}, "", new Object[0], idTipoComercio, limite);
     }
-}
 
+    /**
+     * Monta e executa a consulta dos K mais próximos. A expressão da origem aparece três vezes
+     * (distância, filtro de origem existente e ordenação), e os seus parâmetros são repetidos na mesma ordem.
+     */
+    private List<ConcorrenteProximo> findMaisProximos(String origem, Object[] parametrosOrigem, String filtro,
+                                                      Object[] parametrosFiltro, Long idTipoComercio, int limite) {
+        List<Object> parametros = new ArrayList<>(List.of(parametrosOrigem));
+        parametros.addAll(List.of(parametrosOrigem));
+        parametros.addAll(List.of(parametrosFiltro));
+        if (idTipoComercio != null) {
+            filtro += "\n  AND lc.id_tipo_comercio = ?";
+            parametros.add(idTipoComercio);
+        }
+        parametros.addAll(List.of(parametrosOrigem));
+        parametros.add(limite);
+
+        String sql = CONSULTA_MAIS_PROXIMOS.formatted(origem, filtro, PontoColunas.selecionar("lc.localizacao"));
+        return jdbcTemplate.query(sql, CONCORRENTE_PROXIMO_ROW_MAPPER, parametros.toArray());
+    }
+}
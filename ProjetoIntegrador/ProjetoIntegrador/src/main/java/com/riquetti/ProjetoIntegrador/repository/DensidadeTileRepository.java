@@ -0,0 +1,96 @@
+package com.riquetti.ProjetoIntegrador.repository;
+
+import com.riquetti.ProjetoIntegrador.entity.CelulaDensidade;
+import com.riquetti.ProjetoIntegrador.entity.Ponto;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Repositório que agrega os comércios de um tile do mapa em uma grade de densidade.
+ *
+ * A agregação é feita no banco de dados: apenas as células ocupadas do tile são retornadas,
+ * independentemente da quantidade de comércios, para que o mapa não precise receber um marcador
+ * por comércio.
+ */
+@Repository
+public class DensidadeTileRepository {
+
+    /**
+     * Os comércios são filtrados pelo retângulo do tile em WGS 84 (que em Web Mercator é exatamente
+     * o tile) e posicionados na grade em metros Web Mercator, em que as células têm o mesmo tamanho
+     * na tela. Parâmetros: xMin, tamanho da célula, yMax, tamanho da célula, envelope do tile.
+     * %1$d é a quantidade de células por lado e %2$s o filtro adicional.
+     */
+    private static final String CONSULTA_DENSIDADE = """
+            SELECT s.coluna, s.linha, COUNT(*) AS quantidade,
+                   AVG(s.longitude) AS longitude, AVG(s.latitude) AS latitude,
+                   MIN(s.id_comercio) AS id_comercio, MIN(s.nome) AS nome
+            FROM (
+              SELECT lc.id_comercio, lc.nome,
+                     ST_X(lc.localizacao::geometry) AS longitude, ST_Y(lc.localizacao::geometry) AS latitude,
+                     LEAST(GREATEST(floor((ST_X(m.geom) - ?) / ?)::int, 0), %1$d - 1) AS coluna,
+                     LEAST(GREATEST(floor((? - ST_Y(m.geom)) / ?)::int, 0), %1$d - 1) AS linha
+              FROM public.localizacao_comercios lc
+              CROSS JOIN LATERAL (SELECT ST_Transform(lc.localizacao::geometry, 3857) AS geom) m
+              WHERE lc.localizacao::geometry && ST_MakeEnvelope(?, ?, ?, ?, 4326)%2$s
+            ) s
+            GROUP BY s.coluna, s.linha
+            """;
+
+    private static final RowMapper<CelulaDensidade> CELULA_ROW_MAPPER = (rs, rowNum) -> {
+        CelulaDensidade celula = new CelulaDensidade();
+        celula.setColuna(rs.getInt("coluna"));
+        celula.setLinha(rs.getInt("linha"));
+        celula.setQuantidade(rs.getLong("quantidade"));
+        celula.setCentro(new Ponto(rs.getDouble("longitude"), rs.getDouble("latitude")));
+        celula.setIdComercio(rs.getLong("id_comercio"));
+        celula.setNome(rs.getString("nome"));
+        return celula;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Construtor para injeção de dependência do JdbcTemplate.
+     *
+     * @param jdbcTemplate O JdbcTemplate do pool de análise, utilizado para interagir com o banco de dados.
+     */
+    public DensidadeTileRepository(@Qualifier("analiseJdbcTemplate") JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Agrega os comércios de um tile em uma grade de células.
+     *
+     * @param xMinimoMercator  Coordenada X da borda oeste do tile, em metros Web Mercator.
+     * @param yMaximoMercator  Coordenada Y da borda norte do tile, em metros Web Mercator.
+     * @param tamanhoMercator  Largura do tile, em metros Web Mercator.
+     * @param longitudeMinima  Longitude da borda oeste do tile.
+     * @param latitudeMinima   Latitude da borda sul do tile.
+     * @param longitudeMaxima  Longitude da borda leste do tile.
+     * @param latitudeMaxima   Latitude da borda norte do tile.
+     * @param celulasPorLado   Quantidade de células em cada lado da grade.
+     * @param idTipoComercio   Tipo de comércio, ou null para todos os tipos.
+     * @return As células ocupadas do tile.
+     */
+    public List<CelulaDensidade> agregar(double xMinimoMercator, double yMaximoMercator, double tamanhoMercator,
+                                         double longitudeMinima, double latitudeMinima,
+                                         double longitudeMaxima, double latitudeMaxima,
+                                         int celulasPorLado, Long idTipoComercio) {
+        double tamanhoCelula = tamanhoMercator / celulasPorLado;
+        List<Object> parametros = new ArrayList<>(List.of(xMinimoMercator, tamanhoCelula, yMaximoMercator, tamanhoCelula,
+                longitudeMinima, latitudeMinima, longitudeMaxima, latitudeMaxima));
+        String filtro = "";
+        if (idTipoComercio != null) {
+            filtro = "\n                AND lc.id_tipo_comercio = ?";
+            parametros.add(idTipoComercio);
+        }
+        String sql = CONSULTA_DENSIDADE.formatted(celulasPorLado, filtro);
+        return jdbcTemplate.query(sql, CELULA_ROW_MAPPER, parametros.toArray());
+    }
+}
@@ -0,0 +1,172 @@
+package com.riquetti.ProjetoIntegrador.repository;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repositório responsável pela grade regular de células sobre os municípios carregados, utilizada para responder
+ * às consultas de pontos arbitrários (ponto + raio) sem refazer a junção espacial completa.
+ * Cada célula pertence a um município (cd_mun) e é construída apenas com as partições daquele município.
+ *
+ * As células são quadradas e construídas em SIRGAS 2000 / UTM 23S (EPSG:31983), em metros.
+ * Para cada célula são armazenados:
+ * `grade_setor` - os pedaços da célula em cada setor censitário, com a fração da área do setor;
+ * `grade_rua` - as avenidas e vias de `camada_ruas` (identificadas por gid) que cruzam a célula.
+ */
+@Repository
+public class GradeRepository {
+
+    /**
+     * SRID métrico utilizado na construção da grade (SIRGAS 2000 / UTM zona 23S). É também o SRID das
+     * colunas projetadas dos comércios (localizacao_utm, migração V2__indices_espaciais.sql) e das camadas
+     * (geom_utm, migração V3__camadas_por_municipio.sql).
+     */
+    public static final int SRID_UTM = 31983;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Construtor para injeção de dependência do JdbcTemplate.
+     *
+     * @param jdbcTemplate o JdbcTemplate do pool de análise, utilizado na construção da grade.
+     */
+    public GradeRepository(@Qualifier("analiseJdbcTemplate") JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Retorna a quantidade de células da grade.
+     *
+     * @return O número de células cadastradas.
+     */
+    public int contarCelulas() {
+        Integer total = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM grade", Integer.class);
+        return total == null ? 0 : total;
+    }
+
+    /**
+     * Lista os municípios carregados (tabela `municipio`) que ainda não possuem células na grade.
+     * Municípios sem limite (carregados sem setores censitários) são ignorados, pois não teriam células.
+     *
+     * @return Os códigos (cd_mun) dos municípios, em ordem crescente.
+     */
+    public List<String> findMunicipiosSemGrade() {
+        return jdbcTemplate.queryForList("""
+        SELECT m.cd_mun
+        FROM public.municipio AS m
+        WHERE m.geom IS NOT NULL
+          AND NOT EXISTS (SELECT 1 FROM grade AS celula WHERE celula.cd_mun = m.cd_mun)
+        ORDER BY m.cd_mun
+        """, String.class);
+    }
+
+    /**
+     * Remove as células de municípios que não estão mais carregados, inclusive as construídas antes
+     * da divisão da grade por município (sem cd_mun). Os pedaços de setores e as ruas são removidos em cascata.
+     *
+     * @return O número de células removidas.
+     */
+    public int removerCelulasSemMunicipio() {
+        return jdbcTemplate.update("""
+        DELETE FROM grade AS celula
+        WHERE celula.cd_mun IS NULL
+           OR NOT EXISTS (SELECT 1 FROM public.municipio AS m WHERE m.cd_mun = celula.cd_mun)
+        """);
+    }
+
+    /**
+     * Reconstrói a grade e os dados pré-agregados de todos os municípios carregados.
+     * Deve ser executado dentro de uma transação.
+     *
+     * @param tamanhoCelulaMetros Lado de cada célula em metros.
+     * @return O número de células criadas.
+     */
+    public int reconstruir(double tamanhoCelulaMetros) {
+        jdbcTemplate.execute("TRUNCATE grade_rua, grade_setor, grade");
+
+        int celulas = 0;
+        for (String cdMun : jdbcTemplate.queryForList("SELECT cd_mun FROM public.municipio ORDER BY cd_mun", String.class)) {
+            celulas += construir(cdMun, tamanhoCelulaMetros);
+        }
+        analisar();
+        return celulas;
+    }
+
+    /**
+     * Reconstrói a grade e os dados pré-agregados de um município, a partir das partições do município
+     * nas camadas do IBGE e de ruas. Deve ser executado dentro de uma transação.
+     *
+     * @param cdMun               O código IBGE do município.
+     * @param tamanhoCelulaMetros Lado de cada célula em metros.
+     * @return O número de células criadas.
+     */
+    public int reconstruirMunicipio(String cdMun, double tamanhoCelulaMetros) {
+        jdbcTemplate.update("DELETE FROM grade WHERE cd_mun = ?", cdMun);
+        int celulas = construir(cdMun, tamanhoCelulaMetros);
+        analisar();
+        return celulas;
+    }
+
+    private int construir(String cdMun, double tamanhoCelulaMetros) {
+        // Identificadores das células continuam a partir das células dos outros municípios
+        int celulas = jdbcTemplate.update("""
+        WITH extensao AS (
+          SELECT ST_SetSRID(ST_Extent(base.geom)::geometry, %1$d) AS geom
+          FROM (
+            SELECT ibge.geom_utm AS geom FROM %2$s AS ibge WHERE ibge.cd_mun = ?
+            UNION ALL
+            SELECT r.geom_utm FROM %3$s AS r WHERE r.cd_mun = ? AND r.nm_tip_log IN ('AVENIDA', 'VIA')
+          ) AS base
+        ),
+        inicio AS (
+          SELECT COALESCE(MAX(id_celula), 0) AS id_celula FROM grade
+        )
+        INSERT INTO grade (id_celula, cd_mun, geom_utm)
+        SELECT inicio.id_celula + row_number() OVER (ORDER BY celula.i, celula.j), ?, celula.geom
+        FROM extensao
+        CROSS JOIN inicio
+        CROSS JOIN LATERAL ST_SquareGrid(?, extensao.geom) AS celula
+        """.formatted(SRID_UTM, CamadasMunicipio.SETORES, CamadasMunicipio.RUAS), cdMun, cdMun, cdMun, tamanhoCelulaMetros);
+
+        // Pedaços de cada setor censitário por célula, com a fração da área do setor em cada pedaço
+        jdbcTemplate.update("""
+        INSERT INTO grade_setor (id_celula, cd_geocodi, geom, fracao)
+        SELECT
+          celula.id_celula,
+          ibge.cd_geocodi,
+          ST_Transform(pedaco.geom_utm, 4326),
+          ST_Area(pedaco.geom_utm) / NULLIF(ST_Area(ibge.geom_utm), 0)
+        FROM %1$s AS ibge
+        JOIN grade AS celula
+          ON celula.cd_mun = ibge.cd_mun
+          AND ST_Intersects(celula.geom_utm, ibge.geom_utm)
+        CROSS JOIN LATERAL (
+          SELECT ST_Multi(ST_CollectionExtract(ST_Intersection(celula.geom_utm, ibge.geom_utm), 3)) AS geom_utm
+        ) AS pedaco
+        WHERE ibge.cd_mun = ?
+          AND NOT ST_IsEmpty(pedaco.geom_utm)
+        """.formatted(CamadasMunicipio.SETORES), cdMun);
+
+        // Avenidas e vias que cruzam cada célula (gid é único dentro do município da célula)
+        jdbcTemplate.update("""
+        INSERT INTO grade_rua (id_celula, gid)
+        SELECT celula.id_celula, r.gid
+        FROM %1$s AS r
+        JOIN grade AS celula
+          ON celula.cd_mun = r.cd_mun
+          AND ST_Intersects(celula.geom_utm, r.geom_utm)
+        WHERE r.cd_mun = ?
+          AND r.nm_tip_log IN ('AVENIDA', 'VIA')
+        """.formatted(CamadasMunicipio.RUAS), cdMun);
+        return celulas;
+    }
+
+    private void analisar() {
+        jdbcTemplate.execute("ANALYZE grade");
+        jdbcTemplate.execute("ANALYZE grade_setor");
+        jdbcTemplate.execute("ANALYZE grade_rua");
+    }
+}
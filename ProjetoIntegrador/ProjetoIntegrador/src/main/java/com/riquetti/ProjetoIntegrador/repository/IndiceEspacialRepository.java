@@ -0,0 +1,59 @@
+package com.riquetti.ProjetoIntegrador.repository;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repositório que consulta os índices das camadas analíticas e os planos de execução das consultas espaciais,
+ * utilizado na verificação de que o planejador consegue utilizar os índices criados pelas migrações.
+ */
+@Repository
+public class IndiceEspacialRepository {
+
+    private final JdbcTemplate analiseJdbcTemplate;
+
+    /**
+     * @param analiseJdbcTemplate o JdbcTemplate do pool de análise.
+     */
+    public IndiceEspacialRepository(@Qualifier("analiseJdbcTemplate") JdbcTemplate analiseJdbcTemplate) {
+        this.analiseJdbcTemplate = analiseJdbcTemplate;
+    }
+
+    /**
+     * Retorna os nomes dos índices de uma tabela do esquema public e, se ela for particionada,
+     * os índices das suas partições, que são os percorridos nos planos.
+     *
+     * @param tabela Nome da tabela, sem aspas.
+     * @return Os nomes dos índices; vazio se a tabela não existir.
+     */
+    public List<String> findIndices(String tabela) {
+        return analiseJdbcTemplate.queryForList("""
+                SELECT i.indexname
+                FROM pg_indexes AS i
+                WHERE i.schemaname = 'public'
+                  AND (i.tablename = ?
+                       OR i.tablename IN (SELECT particao.relname
+                                          FROM pg_inherits AS h
+                                          JOIN pg_class AS particao ON particao.oid = h.inhrelid
+                                          WHERE h.inhparent = to_regclass(format('public.%I', ?::text))))
+                ORDER BY i.indexname
+                """, String.class, tabela, tabela);
+    }
+
+    /**
+     * Retorna o plano de execução (EXPLAIN em JSON, sem executar a consulta) com a varredura sequencial
+     * desabilitada, para verificar se existe um índice utilizável pela consulta.
+     *
+     * Deve ser chamado dentro de uma transação: o SET LOCAL vale apenas até o final dela.
+     *
+     * @param sql A consulta, sem parâmetros.
+     * @return O plano em JSON.
+     */
+    public String explicarSemVarreduraSequencial(String sql) {
+        analiseJdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+        return analiseJdbcTemplate.queryForObject("EXPLAIN (FORMAT JSON) " + sql, String.class);
+    }
+}
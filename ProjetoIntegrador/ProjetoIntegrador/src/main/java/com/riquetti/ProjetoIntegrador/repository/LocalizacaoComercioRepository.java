@@ -1,10 +1,14 @@
 package com.riquetti.ProjetoIntegrador.repository;
 
 import com.riquetti.ProjetoIntegrador.entity.LocalizacaoComercio;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
 
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.List;
@@ -13,11 +17,24 @@ import java.util.List;
  * Repositório para gerenciar operações relacionadas a LocalizacaoComercio.
  * Esta classe fornece métodos para buscar, inserir, atualizar e excluir
  * registros da tabela localizacao_comercios.
+ *
+ * O município (cd_mun) de cada comércio é resolvido pela localização a cada inclusão ou alteração, com o
+ * município mais próximo quando o ponto fica fora dos limites carregados, e seleciona a partição das camadas
+ * analíticas utilizada nas consultas do comércio.
  */
 
 @Repository
 public class LocalizacaoComercioRepository {
 
+    /**
+     * Inclusão de um comércio com o município resolvido pela localização
+     * (parâmetros: nome, descrição, tipo, raio, longitude, latitude).
+     */
+    private static final String INSERCAO =
+            "INSERT INTO public.localizacao_comercios (nome, descricao, id_tipo_comercio, raio_acao_metros, localizacao, cd_mun) " +
+            "SELECT ?, ?, ?, ?, entrada.geom, " + CamadasMunicipio.municipio("entrada.geom") + " " +
+            "FROM (SELECT ST_SetSRID(ST_MakePoint(?, ?), 4326) AS geom) AS entrada";
+
     private final JdbcTemplate jdbcTemplate;
 
     /**
@@ -37,8 +54,8 @@ public class LocalizacaoComercioRepository {
      */
     public LocalizacaoComercio findById(Long idComercio) {
         String sql =
-                "SELECT id_comercio, nome, descricao, id_tipo_comercio, raio_acao_metros, " +
-                "ST_AsText(localizacao) AS localizacao_texto " +
+                "SELECT id_comercio, nome, descricao, id_tipo_comercio, raio_acao_metros, cd_mun, " +
+                PontoColunas.selecionar("localizacao") + " " +
                 "FROM public.localizacao_comercios WHERE id_comercio = ?";
 
         return jdbcTemplate.queryForObject(sql, new Object[]{idComercio}, new LocalizacaoComercioRowMapper());
@@ -51,24 +68,62 @@ public class LocalizacaoComercioRepository {
      */
     public List<LocalizacaoComercio> findAll() {
         String sql =
-                "SELECT id_comercio, nome, descricao, id_tipo_comercio, raio_acao_metros, " +
-                "ST_AsText(localizacao) AS localizacao_texto " +
+                "SELECT id_comercio, nome, descricao, id_tipo_comercio, raio_acao_metros, cd_mun, " +
+                PontoColunas.selecionar("localizacao") + " " +
                 "FROM public.localizacao_comercios";
         return jdbcTemplate.query(sql, new LocalizacaoComercioRowMapper());
     }
 
     /**
      * Salva um novo comércio.
+     * O ID gerado pelo banco de dados é atribuído ao objeto informado.
      *
      * @param comercio O objeto LocalizacaoComercio a ser salvo.
      * @return O número de linhas afetadas pela operação.
      */
     public int save(LocalizacaoComercio comercio) {
-        String sql =
-                "INSERT INTO public.localizacao_comercios (nome, descricao, id_tipo_comercio, raio_acao_metros, localizacao) " +
-                "VALUES (?, ?, ?, ?, ST_GeomFromText(?, 4326))";
-        return jdbcTemplate.update(sql, comercio.getNome(), comercio.getDescricao(),
-                comercio.getIdTipoComercio(), comercio.getRaioAcaoMetros(), comercio.getLocalizacao().toString());
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        int linhas = jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(INSERCAO, new String[]{"id_comercio"});
+            ps.setString(1, comercio.getNome());
+            ps.setString(2, comercio.getDescricao());
+            ps.setLong(3, comercio.getIdTipoComercio());
+            ps.setBigDecimal(4, comercio.getRaioAcaoMetros());
+            ps.setDouble(5, comercio.getLocalizacao().longitude());
+            ps.setDouble(6, comercio.getLocalizacao().latitude());
+            return ps;
+        }, keyHolder);
+        if (keyHolder.getKey() != null) {
+            comercio.setIdComercio(keyHolder.getKey().longValue());
+        }
+        return linhas;
+    }
+
+    /**
+     * Salva vários comércios em um único lote de comandos preparados (JDBC batch).
+     * Os IDs gerados não são atribuídos aos objetos informados.
+     *
+     * @param comercios Os comércios a serem salvos.
+     * @return O número de linhas afetadas por comércio, na ordem da lista.
+     */
+    public int[] saveAll(List<LocalizacaoComercio> comercios) {
+        return jdbcTemplate.batchUpdate(INSERCAO, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                LocalizacaoComercio comercio = comercios.get(i);
+                ps.setString(1, comercio.getNome());
+                ps.setString(2, comercio.getDescricao());
+                ps.setLong(3, comercio.getIdTipoComercio());
+                ps.setBigDecimal(4, comercio.getRaioAcaoMetros());
+                ps.setDouble(5, comercio.getLocalizacao().longitude());
+                ps.setDouble(6, comercio.getLocalizacao().latitude());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return comercios.size();
+            }
+        });
     }
 
     /**
@@ -79,10 +134,21 @@ public class LocalizacaoComercioRepository {
      */
     public int update(LocalizacaoComercio comercio) {
         String sql = "UPDATE public.localizacao_comercios SET nome = ?, descricao = ?, id_tipo_comercio = ?, " +
-                "raio_acao_metros = ?, localizacao = ST_GeomFromText(?, 4326) " +
+                "raio_acao_metros = ?, localizacao = entrada.geom, cd_mun = " + CamadasMunicipio.municipio("entrada.geom") + " " +
+                "FROM (SELECT ST_SetSRID(ST_MakePoint(?, ?), 4326) AS geom) AS entrada " +
                 "WHERE id_comercio = ?";
         return jdbcTemplate.update(sql, comercio.getNome(), comercio.getDescricao(), comercio.getIdTipoComercio(),
-                comercio.getRaioAcaoMetros(), comercio.getLocalizacao().toString(), comercio.getIdComercio());
+                comercio.getRaioAcaoMetros(), comercio.getLocalizacao().longitude(), comercio.getLocalizacao().latitude(),
+                comercio.getIdComercio());
+    }
+
+    /**
+     * Lista os IDs de todos os comércios, em ordem crescente.
+     *
+     * @return Lista com os IDs dos comércios.
+     */
+    public List<Long> findAllIds() {
+        return jdbcTemplate.queryForList("SELECT id_comercio FROM public.localizacao_comercios ORDER BY id_comercio", Long.class);
     }
 
     /**
@@ -108,7 +174,8 @@ public class LocalizacaoComercioRepository {
             comercio.setDescricao(rs.getString("descricao"));
             comercio.setIdTipoComercio(rs.getLong("id_tipo_comercio"));
             comercio.setRaioAcaoMetros(rs.getBigDecimal("raio_acao_metros"));
-            comercio.setLocalizacao(rs.getString("localizacao_texto"));
+            comercio.setLocalizacao(PontoColunas.ler(rs));
+            comercio.setCdMun(rs.getString("cd_mun"));
 
             return comercio;
         }
@@ -0,0 +1,40 @@
+package com.riquetti.ProjetoIntegrador.repository;
+
+import com.riquetti.ProjetoIntegrador.entity.Ponto;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Leitura de pontos como colunas numéricas (longitude e latitude), sem conversão para texto (WKT).
+ */
+final class PontoColunas {
+
+    private PontoColunas() {
+    }
+
+    /**
+     * Trecho SQL que seleciona as coordenadas de uma geometria de ponto.
+     *
+     * @param geometria Expressão SQL do ponto (SRID 4326), geometry ou geography.
+     * @return "ST_X(geometria::geometry) AS longitude, ST_Y(geometria::geometry) AS latitude".
+     */
+    static String selecionar(String geometria) {
+        return "ST_X(" + geometria + "::geometry) AS longitude, ST_Y(" + geometria + "::geometry) AS latitude";
+    }
+
+    /**
+     * Lê o ponto das colunas "longitude" e "latitude" da linha atual.
+     *
+     * @param rs O ResultSet posicionado na linha.
+     * @return O ponto, ou null se a localização for nula.
+     * @throws SQLException Em caso de erro de leitura.
+     */
+    static Ponto ler(ResultSet rs) throws SQLException {
+        double longitude = rs.getDouble("longitude");
+        if (rs.wasNull()) {
+            return null;
+        }
+        return new Ponto(longitude, rs.getDouble("latitude"));
+    }
+}
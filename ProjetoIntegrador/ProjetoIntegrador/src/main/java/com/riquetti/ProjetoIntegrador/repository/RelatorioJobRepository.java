@@ -0,0 +1,188 @@
+package com.riquetti.ProjetoIntegrador.repository;
+
+import com.riquetti.ProjetoIntegrador.entity.BlocoRelatorio;
+import com.riquetti.ProjetoIntegrador.entity.RelatorioJob;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Repositório dos relatórios executados em segundo plano e dos seus blocos de comércios.
+ */
+@Repository
+public class RelatorioJobRepository {
+
+    private static final RowMapper<RelatorioJob> RELATORIO_ROW_MAPPER = (rs, rowNum) -> new RelatorioJob(
+            rs.getObject("id_job", UUID.class),
+            rs.getString("tipo"),
+            rs.getBigDecimal("raio_acao_metros"),
+            rs.getString("status"),
+            rs.getInt("processados"),
+            rs.getInt("total"),
+            rs.getString("erro"),
+            instante(rs.getTimestamp("criado_em")),
+            instante(rs.getTimestamp("iniciado_em")),
+            instante(rs.getTimestamp("concluido_em"))
+    );
+
+    private static final RowMapper<BlocoRelatorio> BLOCO_ROW_MAPPER = (rs, rowNum) -> new BlocoRelatorio(
+            rs.getInt("bloco"),
+            rs.getLong("id_inicial"),
+            rs.getLong("id_final"),
+            rs.getInt("quantidade")
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Construtor para injeção de dependência do JdbcTemplate.
+     *
+     * @param jdbcTemplate O JdbcTemplate utilizado para interagir com o banco de dados.
+     */
+    public RelatorioJobRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Grava um novo relatório e os seus blocos. Deve ser chamado dentro de uma transação.
+     *
+     * @param relatorio O relatório, com ID, tipo, raio, status e total preenchidos.
+     * @param blocos    Os blocos de comércios do relatório.
+     */
+    public void save(RelatorioJob relatorio, List<BlocoRelatorio> blocos) {
+        jdbcTemplate.update("INSERT INTO public.relatorio_job (id_job, tipo, raio_acao_metros, status, total) VALUES (?, ?, ?, ?, ?)",
+                relatorio.getIdJob(), relatorio.getTipo(), relatorio.getRaioAcaoMetros(), relatorio.getStatus(),
+                relatorio.getTotal());
+        jdbcTemplate.batchUpdate("INSERT INTO public.relatorio_job_bloco (id_job, bloco, id_inicial, id_final, quantidade) VALUES (?, ?, ?, ?, ?)",
+                blocos, blocos.size(), (ps, bloco) -> {
+                    ps.setObject(1, relatorio.getIdJob());
+                    ps.setInt(2, bloco.bloco());
+                    ps.setLong(3, bloco.idInicial());
+                    ps.setLong(4, bloco.idFinal());
+                    ps.setInt(5, bloco.quantidade());
+                });
+    }
+
+    /**
+     * Busca um relatório pelo ID, com a quantidade de comércios dos blocos já concluídos.
+     *
+     * @param idJob O ID do relatório.
+     * @return O relatório.
+     * @throws org.springframework.dao.EmptyResultDataAccessException Se o relatório não existir.
+     */
+    public RelatorioJob findById(UUID idJob) {
+        String sql = "SELECT job.*, " +
+                "COALESCE((SELECT SUM(bloco.quantidade) FROM public.relatorio_job_bloco AS bloco " +
+                "WHERE bloco.id_job = job.id_job AND bloco.concluido), 0) AS processados " +
+                "FROM public.relatorio_job AS job WHERE job.id_job = ?";
+        return jdbcTemplate.queryForObject(sql, RELATORIO_ROW_MAPPER, idJob);
+    }
+
+    /**
+     * Lista os relatórios ainda não concluídos, na ordem de criação, para retomada após um reinício.
+     *
+     * @return Lista com os IDs dos relatórios pendentes ou em execução.
+     */
+    public List<UUID> findIdsEmAndamento() {
+        return jdbcTemplate.queryForList("SELECT id_job FROM public.relatorio_job " +
+                "WHERE status IN ('PENDENTE', 'EXECUTANDO') ORDER BY criado_em", UUID.class);
+    }
+
+    /**
+     * Lista os blocos de um relatório, na ordem dos IDs de comércio.
+     *
+     * @param idJob     O ID do relatório.
+     * @param pendentes True para listar apenas os blocos ainda não concluídos.
+     * @return Lista de blocos.
+     */
+    public List<BlocoRelatorio> findBlocos(UUID idJob, boolean pendentes) {
+        String sql = "SELECT bloco, id_inicial, id_final, quantidade FROM public.relatorio_job_bloco " +
+                "WHERE id_job = ? " + (pendentes ? "AND NOT concluido " : "") + "ORDER BY bloco";
+        return jdbcTemplate.query(sql, BLOCO_ROW_MAPPER, idJob);
+    }
+
+    /**
+     * Retorna a situação de um relatório.
+     *
+     * @param idJob O ID do relatório.
+     * @return PENDENTE, EXECUTANDO, CONCLUIDO ou FALHOU.
+     */
+    public String findStatus(UUID idJob) {
+        return jdbcTemplate.queryForObject("SELECT status FROM public.relatorio_job WHERE id_job = ?", String.class, idJob);
+    }
+
+    /**
+     * Marca o relatório como em execução, registrando o início apenas no primeiro bloco.
+     *
+     * @param idJob O ID do relatório.
+     * @return O número de linhas atualizadas.
+     */
+    public int iniciar(UUID idJob) {
+        return jdbcTemplate.update("UPDATE public.relatorio_job SET status = 'EXECUTANDO', " +
+                "iniciado_em = COALESCE(iniciado_em, now()) WHERE id_job = ? AND status IN ('PENDENTE', 'EXECUTANDO')", idJob);
+    }
+
+    /**
+     * Marca um bloco como concluído, após a gravação do seu resultado.
+     *
+     * @param idJob O ID do relatório.
+     * @param bloco O número do bloco.
+     * @return O número de linhas atualizadas.
+     */
+    public int concluirBloco(UUID idJob, int bloco) {
+        return jdbcTemplate.update("UPDATE public.relatorio_job_bloco SET concluido = TRUE WHERE id_job = ? AND bloco = ?",
+                idJob, bloco);
+    }
+
+    /**
+     * Reabre blocos concluídos cujo resultado foi perdido, para que sejam executados novamente.
+     * Um relatório já concluído volta a ficar pendente. Deve ser chamado dentro de uma transação.
+     *
+     * @param idJob  O ID do relatório.
+     * @param blocos Os blocos reabertos.
+     */
+    public void reabrir(UUID idJob, List<BlocoRelatorio> blocos) {
+        jdbcTemplate.batchUpdate("UPDATE public.relatorio_job_bloco SET concluido = FALSE WHERE id_job = ? AND bloco = ?",
+                blocos, blocos.size(), (ps, bloco) -> {
+                    ps.setObject(1, idJob);
+                    ps.setInt(2, bloco.bloco());
+                });
+        jdbcTemplate.update("UPDATE public.relatorio_job SET status = 'PENDENTE', concluido_em = NULL " +
+                "WHERE id_job = ? AND status = 'CONCLUIDO'", idJob);
+    }
+
+    /**
+     * Marca o relatório como concluído se todos os blocos estiverem concluídos.
+     * Apenas uma das chamadas concorrentes atualiza o relatório.
+     *
+     * @param idJob O ID do relatório.
+     * @return 1 se o relatório foi concluído nesta chamada, 0 caso contrário.
+     */
+    public int concluirSeCompleto(UUID idJob) {
+        return jdbcTemplate.update("UPDATE public.relatorio_job SET status = 'CONCLUIDO', concluido_em = now() " +
+                "WHERE id_job = ? AND status IN ('PENDENTE', 'EXECUTANDO') AND NOT EXISTS (" +
+                "SELECT 1 FROM public.relatorio_job_bloco AS bloco WHERE bloco.id_job = ? AND NOT bloco.concluido)",
+                idJob, idJob);
+    }
+
+    /**
+     * Marca o relatório como falho; os blocos ainda não executados são descartados.
+     *
+     * @param idJob O ID do relatório.
+     * @param erro  A mensagem de erro.
+     * @return O número de linhas atualizadas.
+     */
+    public int falhar(UUID idJob, String erro) {
+        return jdbcTemplate.update("UPDATE public.relatorio_job SET status = 'FALHOU', erro = ?, concluido_em = now() " +
+                "WHERE id_job = ? AND status IN ('PENDENTE', 'EXECUTANDO')", erro, idJob);
+    }
+
+    private static Instant instante(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toInstant();
+    }
+}
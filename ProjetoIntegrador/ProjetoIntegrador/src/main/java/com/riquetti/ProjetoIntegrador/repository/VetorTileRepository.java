@@ -0,0 +1,139 @@
+package com.riquetti.ProjetoIntegrador.repository;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repositório que gera os tiles vetoriais (Mapbox Vector Tile) das camadas de referência.
+ *
+ * O recorte, a simplificação e a codificação são feitos no PostGIS (ST_AsMVTGeom e ST_AsMVT): o
+ * banco de dados retorna o tile já codificado, apenas com as feições que o cruzam e com as coordenadas
+ * quantizadas na grade do tile.
+ *
+ * As camadas são particionadas por município (cd_mun); o filtro pelo envelope do tile utiliza o índice
+ * espacial de cada partição, e os tiles cobrem todos os municípios carregados.
+ */
+@Repository
+public class VetorTileRepository {
+
+    /**
+     * Resolução da grade interna do tile vetorial.
+     */
+    public static final int EXTENT = 4096;
+
+    /**
+     * Margem, em unidades da grade do tile, mantida além da borda para que as linhas não sejam cortadas no limite.
+     */
+    public static final int BUFFER = 64;
+
+    /**
+     * As feições são filtradas pelo envelope do tile (com a margem) em WGS 84, para utilizar o índice
+     * espacial das tabelas, e simplificadas em metros Web Mercator antes do recorte.
+     * Parâmetros: z, x, y, z, x, y, margem, tolerância da simplificação.
+     * %1$s é a tabela, %2$s os atributos, %3$s as junções, %4$s o filtro adicional, %5$s o nome da camada,
+     * %6$d a resolução e %7$d a margem da grade do tile.
+     */
+    private static final String CONSULTA_TILE = """
+            WITH limites AS (
+              SELECT ST_TileEnvelope(?, ?, ?) AS envelope,
+                     ST_Transform(ST_TileEnvelope(?, ?, ?, margin => ?), 4326) AS filtro
+            ),
+            feicoes AS (
+              SELECT %2$s,
+                     ST_AsMVTGeom(ST_SimplifyPreserveTopology(ST_Transform(t.geom::geometry, 3857), ?),
+                                  limites.envelope, %6$d, %7$d, true) AS geom
+              FROM %1$s AS t%3$s
+              CROSS JOIN limites
+              WHERE t.geom::geometry && limites.filtro%4$s
+            )
+            SELECT ST_AsMVT(feicoes, '%5$s', %6$d, 'geom')
+            FROM feicoes
+            WHERE feicoes.geom IS NOT NULL
+            """;
+
+    private static final String CLASSES_PRINCIPAIS = "('motorway', 'motorway_link', 'trunk', 'trunk_link', 'primary', "
+            + "'primary_link', 'secondary', 'secondary_link', 'tertiary', 'tertiary_link')";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Construtor para injeção de dependência do JdbcTemplate.
+     *
+     * @param jdbcTemplate O JdbcTemplate do pool de análise, utilizado para interagir com o banco de dados.
+     */
+    public VetorTileRepository(@Qualifier("analiseJdbcTemplate") JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Gera o tile vetorial das vias do OpenStreetMap (`camada_vias`), com a classe (fclass) e o peso
+     * utilizado na acessibilidade. Abaixo do zoom 13 são incluídas apenas as vias principais.
+     *
+     * @param z          O nível de zoom.
+     * @param x          A coluna do tile.
+     * @param y          A linha do tile.
+     * @param tolerancia Tolerância da simplificação das geometrias, em metros Web Mercator.
+     * @return O tile codificado em Mapbox Vector Tile; vazio se nenhuma via cruzar o tile.
+     */
+    public byte[] gerarVias(int z, int x, int y, double tolerancia) {
+        String sql = CONSULTA_TILE.formatted(CamadasMunicipio.VIAS,
+                """
+                t.fclass,
+                       CASE
+                         WHEN t.fclass IN ('motorway', 'trunk', 'primary', 'primary_link') THEN 4
+                         WHEN t.fclass IN ('secondary', 'secondary_link') THEN 3
+                         WHEN t.fclass IN ('tertiary', 'tertiary_link') THEN 2
+                         ELSE 1
+                       END AS peso""",
+                "",
+                z < 13 ? "\n                AND t.fclass IN " + CLASSES_PRINCIPAIS : "",
+                "vias", EXTENT, BUFFER);
+        return gerar(sql, z, x, y, tolerancia);
+    }
+
+    /**
+     * Gera o tile vetorial dos logradouros (`camada_ruas`), com o gid e o tipo de logradouro (nm_tip_log).
+     * Abaixo do zoom 14 são incluídas apenas as avenidas e vias, as mesmas da distância à avenida.
+     *
+     * @param z          O nível de zoom.
+     * @param x          A coluna do tile.
+     * @param y          A linha do tile.
+     * @param tolerancia Tolerância da simplificação das geometrias, em metros Web Mercator.
+     * @return O tile codificado em Mapbox Vector Tile; vazio se nenhum logradouro cruzar o tile.
+     */
+    public byte[] gerarRuas(int z, int x, int y, double tolerancia) {
+        String sql = CONSULTA_TILE.formatted(CamadasMunicipio.RUAS,
+                "t.gid, t.nm_tip_log",
+                "",
+                z < 14 ? "\n                AND t.nm_tip_log IN ('AVENIDA', 'VIA')" : "",
+                "ruas", EXTENT, BUFFER);
+        return gerar(sql, z, x, y, tolerancia);
+    }
+
+    /**
+     * Gera o tile vetorial dos setores censitários (`camada_setores`), com o código do setor e a
+     * renda média dos responsáveis (V005 da tabela básica).
+     *
+     * @param z          O nível de zoom.
+     * @param x          A coluna do tile.
+     * @param y          A linha do tile.
+     * @param tolerancia Tolerância da simplificação das geometrias, em metros Web Mercator.
+     * @return O tile codificado em Mapbox Vector Tile; vazio se nenhum setor cruzar o tile.
+     */
+    public byte[] gerarSetores(int z, int x, int y, double tolerancia) {
+        String sql = CONSULTA_TILE.formatted(CamadasMunicipio.SETORES,
+                "t.cd_geocodi, basico.\"V005\" AS renda_media",
+                "\n              LEFT JOIN " + CamadasMunicipio.BASICO + " AS basico"
+                        + " ON basico.cd_mun = t.cd_mun AND basico.\"Cod_setor\" = t.cd_geocodi",
+                "",
+                "setores", EXTENT, BUFFER);
+        return gerar(sql, z, x, y, tolerancia);
+    }
+
+    private byte[] gerar(String sql, int z, int x, int y, double tolerancia) {
+        double margem = (double) BUFFER / EXTENT;
+        byte[] tile = jdbcTemplate.queryForObject(sql, byte[].class, z, x, y, z, x, y, margem, tolerancia);
+        return tile == null ? new byte[0] : tile;
+    }
+}
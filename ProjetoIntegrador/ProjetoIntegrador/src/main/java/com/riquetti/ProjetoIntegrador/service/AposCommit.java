@@ -0,0 +1,30 @@
+package com.riquetti.ProjetoIntegrador.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Ações executadas após o commit da transação corrente.
+ *
+ * Caches e dados derivados de uma alteração só são atualizados depois do commit: antes dele, uma consulta
+ * concorrente ainda lê os dados anteriores e poderia gravá-los de novo no cache. Se a transação for desfeita,
+ * a ação não é executada; fora de uma transação, é executada imediatamente.
+ */
+final class AposCommit {
+
+    private AposCommit() {
+    }
+
+    static void executar(Runnable acao) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    acao.run();
+                }
+            });
+        } else {
+            acao.run();
+        }
+    }
+}
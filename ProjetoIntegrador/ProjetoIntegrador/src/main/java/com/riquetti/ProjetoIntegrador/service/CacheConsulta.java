@@ -0,0 +1,199 @@
+package com.riquetti.ProjetoIntegrador.service;
+
+import com.riquetti.ProjetoIntegrador.dto.EstatisticasCacheDTO;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Cache limitado por tamanho (LRU) e por tempo de vida (TTL) para resultados de consultas.
+ *
+ * Mantém contadores de acertos, falhas e remoções (por tamanho ou expiração) e permite a
+ * invalidação completa, por exemplo após a recarga das bases do IBGE ou de ruas, ou apenas das
+ * chaves afetadas por uma alteração. Valores calculados durante uma invalidação não são armazenados,
+ * pois podem ter sido lidos antes da alteração.
+ *
+ * Consultas simultâneas da mesma chave ausente são agrupadas: apenas a primeira executa o fornecedor e as
+ * demais aguardam o seu resultado (ou a sua exceção), em vez de repetirem a mesma consulta.
+ *
+ * @param <K> Tipo da chave.
+ * @param <V> Tipo do valor armazenado; deve ser imutável.
+ */
+public final class CacheConsulta<K, V> {
+
+    private final String nome;
+    private final int tamanhoMaximo;
+    private final long ttlNanos;
+    private final LongSupplier relogio;
+    private final LinkedHashMap<K, Entrada<V>> entradas = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<K, CompletableFuture<V>> emAndamento = new HashMap<>();
+
+    private final AtomicLong acertos = new AtomicLong();
+    private final AtomicLong falhas = new AtomicLong();
+    private final AtomicLong agrupadas = new AtomicLong();
+    private final AtomicLong remocoes = new AtomicLong();
+    private long geracao;
+
+    private record Entrada<V>(V valor, long expiraEm) {
+    }
+
+    /**
+     * Cria um cache com o relógio do sistema.
+     *
+     * @param nome          Nome do cache, utilizado nas estatísticas.
+     * @param tamanhoMaximo Quantidade máxima de entradas.
+     * @param ttl           Tempo de vida de cada entrada.
+     */
+    public CacheConsulta(String nome, int tamanhoMaximo, Duration ttl) {
+        this(nome, tamanhoMaximo, ttl, System::nanoTime);
+    }
+
+    CacheConsulta(String nome, int tamanhoMaximo, Duration ttl, LongSupplier relogio) {
+        if (tamanhoMaximo <= 0) {
+            throw new IllegalArgumentException("O tamanho máximo do cache deve ser maior que 0.");
+        }
+        this.nome = nome;
+        this.tamanhoMaximo = tamanhoMaximo;
+        this.ttlNanos = ttl.toNanos();
+        this.relogio = relogio;
+    }
+
+    /**
+     * Retorna o valor da chave, calculando-o com o fornecedor quando ausente ou expirado.
+     * O cálculo é feito fora do bloqueio para não serializar consultas de chaves diferentes; se a mesma
+     * chave já estiver sendo calculada, aguarda esse cálculo.
+     *
+     * @param chave      A chave da consulta.
+     * @param fornecedor Função que executa a consulta.
+     * @return O valor em cache ou recém-calculado.
+     */
+    public V obter(K chave, Supplier<V> fornecedor) {
+        long agora = relogio.getAsLong();
+        long geracaoInicial;
+        CompletableFuture<V> calculo;
+        boolean calculoExistente = false;
+        synchronized (entradas) {
+            geracaoInicial = geracao;
+            Entrada<V> entrada = entradas.get(chave);
+            if (entrada != null) {
+                if (entrada.expiraEm() - agora > 0) {
+                    acertos.incrementAndGet();
+                    return entrada.valor();
+                }
+                entradas.remove(chave);
+                remocoes.incrementAndGet();
+            }
+            calculo = emAndamento.get(chave);
+            if (calculo == null) {
+                calculo = new CompletableFuture<>();
+                emAndamento.put(chave, calculo);
+            } else {
+                agrupadas.incrementAndGet();
+                calculoExistente = true;
+            }
+        }
+        if (calculoExistente) {
+            return aguardar(calculo);
+        }
+        falhas.incrementAndGet();
+        V valor;
+        try {
+            valor = fornecedor.get();
+        } catch (RuntimeException | Error e) {
+            synchronized (entradas) {
+                emAndamento.remove(chave, calculo);
+            }
+            calculo.completeExceptionally(e);
+            throw e;
+        }
+        synchronized (entradas) {
+            emAndamento.remove(chave, calculo);
+            if (geracao == geracaoInicial) {
+                entradas.put(chave, new Entrada<>(valor, relogio.getAsLong() + ttlNanos));
+                removerExcedentes();
+            }
+        }
+        calculo.complete(valor);
+        return valor;
+    }
+
+    /**
+     * Remove todas as entradas do cache.
+     *
+     * @return A quantidade de entradas removidas.
+     */
+    public int invalidar() {
+        synchronized (entradas) {
+            int total = entradas.size();
+            entradas.clear();
+            emAndamento.clear();
+            geracao++;
+            return total;
+        }
+    }
+
+    /**
+     * Remove as entradas cujas chaves atendem ao critério.
+     *
+     * @param criterio Critério de seleção das chaves a remover.
+     * @return A quantidade de entradas removidas.
+     */
+    public int invalidar(Predicate<K> criterio) {
+        synchronized (entradas) {
+            int total = entradas.size();
+            entradas.keySet().removeIf(criterio);
+            emAndamento.keySet().removeIf(criterio);
+            geracao++;
+            return total - entradas.size();
+        }
+    }
+
+    /**
+     * Retorna as estatísticas do cache.
+     *
+     * @return DTO com acertos, falhas, consultas agrupadas, remoções e tamanho atual.
+     */
+    public EstatisticasCacheDTO estatisticas() {
+        int tamanho;
+        synchronized (entradas) {
+            tamanho = entradas.size();
+        }
+        return new EstatisticasCacheDTO(nome, acertos.get(), falhas.get(), agrupadas.get(), remocoes.get(),
+                tamanho, tamanhoMaximo);
+    }
+
+    /**
+     * Aguarda o cálculo iniciado por outra consulta da mesma chave, relançando a sua exceção.
+     */
+    private V aguardar(CompletableFuture<V> calculo) {
+        try {
+            return calculo.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException erro) {
+                throw erro;
+            }
+            if (e.getCause() instanceof Error erro) {
+                throw erro;
+            }
+            throw e;
+        }
+    }
+
+    private void removerExcedentes() {
+        Iterator<Map.Entry<K, Entrada<V>>> iterador = entradas.entrySet().iterator();
+        while (entradas.size() > tamanhoMaximo && iterador.hasNext()) {
+            iterador.next();
+            iterador.remove();
+            remocoes.incrementAndGet();
+        }
+    }
+}
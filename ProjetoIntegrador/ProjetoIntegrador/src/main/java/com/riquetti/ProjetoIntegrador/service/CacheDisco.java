@@ -0,0 +1,174 @@
+package com.riquetti.ProjetoIntegrador.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.function.Supplier;
+
+/**
+ * Cache de conteúdos binários em arquivos, que sobrevive à reinicialização da aplicação.
+ *
+ * Cada conteúdo é gravado em um arquivo temporário e movido atomicamente para o destino, para que
+ * leituras concorrentes nunca vejam um arquivo incompleto. O ETag é o resumo SHA-256 do conteúdo, de
+ * modo que um conteúdo regerado idêntico mantém o mesmo ETag e continua válido nos navegadores.
+ */
+public final class CacheDisco {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheDisco.class);
+
+    /**
+     * Conteúdo armazenado e o seu ETag (entre aspas, no formato do cabeçalho HTTP).
+     */
+    public record Arquivo(byte[] conteudo, String etag) {
+    }
+
+    private final Path diretorio;
+    private final Duration ttl;
+    private final Clock relogio;
+
+    /**
+     * Cria um cache com o relógio do sistema.
+     *
+     * @param diretorio Diretório raiz dos arquivos; é criado se não existir.
+     * @param ttl       Tempo de vida de cada arquivo, a partir da gravação.
+     */
+    public CacheDisco(Path diretorio, Duration ttl) {
+        this(diretorio, ttl, Clock.systemUTC());
+    }
+
+    CacheDisco(Path diretorio, Duration ttl, Clock relogio) {
+        this.diretorio = diretorio.toAbsolutePath().normalize();
+        this.ttl = ttl;
+        this.relogio = relogio;
+    }
+
+    /**
+     * Retorna o conteúdo em cache ou, se não existir ou estiver expirado, o calcula e grava.
+     * Falhas de gravação são apenas registradas: o conteúdo calculado é retornado mesmo assim.
+     *
+     * @param caminho  Caminho relativo do arquivo, por exemplo "vias/14/6068/9245.pbf".
+     * @param consulta Função que calcula o conteúdo.
+     * @return O conteúdo e o seu ETag.
+     */
+    public Arquivo obter(String caminho, Supplier<byte[]> consulta) {
+        Path arquivo = resolver(caminho);
+        byte[] conteudo = ler(arquivo);
+        if (conteudo == null) {
+            conteudo = consulta.get();
+            gravar(arquivo, conteudo);
+        }
+        return new Arquivo(conteudo, etag(conteudo));
+    }
+
+    /**
+     * Remove os arquivos de um subdiretório, ou de todo o cache quando o caminho for vazio.
+     *
+     * @param caminho Caminho relativo do subdiretório.
+     * @return Quantidade de arquivos removidos.
+     */
+    public int invalidar(String caminho) {
+        Path raiz = resolver(caminho);
+        if (!Files.exists(raiz)) {
+            return 0;
+        }
+        int[] removidos = {0};
+        try {
+            Files.walkFileTree(raiz, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult visitFile(Path arquivo, BasicFileAttributes atributos) throws IOException {
+                    if (Files.deleteIfExists(arquivo)) {
+                        removidos[0]++;
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(Path pasta, IOException erro) throws IOException {
+                    if (!pasta.equals(diretorio)) {
+                        try {
+                            Files.deleteIfExists(pasta);
+                        } catch (DirectoryNotEmptyException e) {
+                            // Um arquivo foi gravado durante a remoção; a pasta é mantida.
+                        }
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Erro ao remover o cache em " + raiz, e);
+        }
+        return removidos[0];
+    }
+
+    /**
+     * Calcula o ETag de um conteúdo: os primeiros 16 bytes do SHA-256, em hexadecimal e entre aspas.
+     */
+    static String etag(byte[] conteudo) {
+        try {
+            byte[] resumo = MessageDigest.getInstance("SHA-256").digest(conteudo);
+            return "\"" + HexFormat.of().formatHex(resumo, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Path resolver(String caminho) {
+        Path arquivo = diretorio.resolve(caminho).normalize();
+        if (!arquivo.startsWith(diretorio)) {
+            throw new IllegalArgumentException("Caminho fora do diretório do cache: " + caminho);
+        }
+        return arquivo;
+    }
+
+    private byte[] ler(Path arquivo) {
+        try {
+            if (Files.getLastModifiedTime(arquivo).toInstant().plus(ttl).isBefore(relogio.instant())) {
+                return null;
+            }
+            return Files.readAllBytes(arquivo);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            log.warn("Erro ao ler o arquivo de cache {}; o conteúdo será recalculado.", arquivo, e);
+            return null;
+        }
+    }
+
+    private void gravar(Path arquivo, byte[] conteudo) {
+        try {
+            gravarAtomicamente(arquivo, conteudo);
+        } catch (IOException e) {
+            log.warn("Erro ao gravar o arquivo de cache {}.", arquivo, e);
+        }
+    }
+
+    /**
+     * Grava o conteúdo em um arquivo temporário na mesma pasta e o move para o destino, de modo que
+     * leitores concorrentes vejam o arquivo anterior ou o novo, nunca um arquivo incompleto.
+     */
+    static void gravarAtomicamente(Path arquivo, byte[] conteudo) throws IOException {
+        Files.createDirectories(arquivo.getParent());
+        Path temporario = Files.createTempFile(arquivo.getParent(), arquivo.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temporario, conteudo);
+            Files.move(temporario, arquivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporario);
+        }
+    }
+}
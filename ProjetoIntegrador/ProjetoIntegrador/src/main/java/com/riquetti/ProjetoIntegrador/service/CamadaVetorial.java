@@ -0,0 +1,63 @@
+package com.riquetti.ProjetoIntegrador.service;
+
+import java.util.Locale;
+
+/**
+ * Camadas de referência servidas como tiles vetoriais (Mapbox Vector Tile) no mapa.
+ */
+public enum CamadaVetorial {
+
+    /**
+     * Vias do OpenStreetMap (camada_vias).
+     */
+    VIAS("vias", 10),
+
+    /**
+     * Logradouros (camada_ruas).
+     */
+    RUAS("ruas", 11),
+
+    /**
+     * Setores censitários (camada_setores).
+     */
+    SETORES("setores", 8);
+
+    private final String nome;
+    private final int zoomMinimo;
+
+    CamadaVetorial(String nome, int zoomMinimo) {
+        this.nome = nome;
+        this.zoomMinimo = zoomMinimo;
+    }
+
+    /**
+     * Nome da camada na URL e no tile vetorial.
+     */
+    public String nome() {
+        return nome;
+    }
+
+    /**
+     * Menor zoom em que a camada tem feições; nos zooms menores o tile é vazio.
+     */
+    public int zoomMinimo() {
+        return zoomMinimo;
+    }
+
+    /**
+     * Identifica a camada pelo nome informado na URL.
+     *
+     * @param nome O nome da camada ("vias", "ruas" ou "setores").
+     * @return A camada.
+     * @throws IllegalArgumentException Se a camada não existir.
+     */
+    public static CamadaVetorial de(String nome) {
+        String procurado = nome == null ? "" : nome.trim().toLowerCase(Locale.ROOT);
+        for (CamadaVetorial camada : values()) {
+            if (camada.nome.equals(procurado)) {
+                return camada;
+            }
+        }
+        throw new IllegalArgumentException("A camada deve ser 'vias', 'ruas' ou 'setores'.");
+    }
+}
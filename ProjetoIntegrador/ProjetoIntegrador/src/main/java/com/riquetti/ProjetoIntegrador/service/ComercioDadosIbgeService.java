@@ -5,9 +5,18 @@ import com.riquetti.ProjetoIntegrador.entity.ComercioDadosIbge;
 import com.riquetti.ProjetoIntegrador.exception.ResourceNotFoundException;
 import com.riquetti.ProjetoIntegrador.mapper.ComercioDadosIbgeMapper;
 import com.riquetti.ProjetoIntegrador.repository.ComercioDadosIbgeRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -16,12 +25,19 @@ import java.util.stream.Collectors;
  *
  * Este serviço utiliza o repositório para realizar operações de consulta
  * e mapeia os resultados para DTOs usando um mapper específico.
+ *
+ * As consultas apenas leem a sobreposição pré-calculada com os setores censitários: ela é gravada após o commit
+ * da inclusão ou alteração de cada comércio e, para os comércios que ainda não a possuem (por exemplo, após uma
+ * importação), em segundo plano.
  */
 @Service
 public class ComercioDadosIbgeService {
 
+    private static final Logger log = LoggerFactory.getLogger(ComercioDadosIbgeService.class);
+
     private final ComercioDadosIbgeRepository repository; // Repositório para acessar os dados dos comércios
     private final ComercioDadosIbgeMapper mapper = ComercioDadosIbgeMapper.INSTANCE; // Mapper para conversão entre entidades e DTOs
+    private final ExecutorService executor;
 
     /**
      * Construtor para injeção de dependência do repositório.
@@ -30,6 +46,11 @@ public class ComercioDadosIbgeService {
      */
     public ComercioDadosIbgeService(ComercioDadosIbgeRepository repository) {
         this.repository = repository;
+        this.executor = Executors.newSingleThreadExecutor(tarefa -> {
+            Thread thread = new Thread(tarefa, "sobreposicao-setores");
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
     /**
@@ -106,6 +127,39 @@ public class ComercioDadosIbgeService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Método para buscar as localizações de uma faixa de IDs com raio de ação personalizado (raio em metros),
+     * utilizado nos relatórios executados em blocos.
+     *
+     * @param raioAcaoMetros Raio de ação em metros.
+     * @param idInicial      Menor ID de comércio da faixa.
+     * @param idFinal        Maior ID de comércio da faixa.
+     * @return Lista de DTOs de localização da faixa, ordenada pelo ID do comércio.
+     */
+    public List<ComercioDadosIbgeDTO> getLocalizacaoComercioWithRaioEntre(double raioAcaoMetros, long idInicial, long idFinal) {
+        return repository.findWithRaioEntre(raioAcaoMetros, idInicial, idFinal)
+                .stream()
+                .map(mapper::toDTO)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Método para percorrer todas as localizações com raio de ação personalizado (raio em metros),
+     * entregando cada DTO ao consumidor assim que é lido do banco de dados.
+     * A transação, no pool de análise, mantém o cursor aberto enquanto os registros são consumidos.
+     *
+     * @param raioAcaoMetros Raio de ação em metros.
+     * @param consumidor Função que recebe cada DTO de localização.
+     */
+    @Transactional(transactionManager = "analiseTransactionManager")
+    public void streamAllLocalizacaoComercioWithRaio(Double raioAcaoMetros, Consumer<ComercioDadosIbgeDTO> consumidor) {
+        if (raioAcaoMetros == null || raioAcaoMetros <= 0) {
+            throw new IllegalArgumentException("O raio de ação deve ser um número positivo e não nulo.");
+        }
+
+        repository.forEachWithRaio(raioAcaoMetros, comercio -> consumidor.accept(mapper.toDTO(comercio)));
+    }
+
     /**
      * Método para buscar localizações com base em um ponto e raio.
      *
@@ -118,9 +172,7 @@ public class ComercioDadosIbgeService {
             throw new IllegalArgumentException("O ponto de localização não pode ser nulo ou vazio.");
         }
 
-        // Validação do formato do ponto
-        String regex = "^POINT\\s*\\((-?\\d+\\.\\d+)\\s+(-?\\d+\\.\\d+)\\)$";
-        if (!pontoTexto.trim().matches(regex)) {
+        if (!isValidPontoTexto(pontoTexto)) {
             throw new IllegalArgumentException("O ponto de localização deve estar no formato POINT(longitude latitude), por exemplo, POINT(-47.4148445 -22.5936527).");
         }
 
@@ -134,4 +186,61 @@ public class ComercioDadosIbgeService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Verifica se o ponto está no formato POINT(longitude latitude).
+     *
+     * @param pontoTexto Ponto de localização em formato texto (WKT), não nulo.
+     * @return true se o formato for válido, false caso contrário.
+     */
+    static boolean isValidPontoTexto(String pontoTexto) {
+        return pontoTexto.trim().matches("^POINT\\s*\\((-?\\d+\\.\\d+)\\s+(-?\\d+\\.\\d+)\\)$");
+    }
+
+    /**
+     * Descarta a sobreposição pré-calculada entre o raio do comércio e os setores censitários.
+     * Deve ser chamado quando a localização do comércio for alterada, seguido de {@link #calcularSobreposicao(Long)}.
+     *
+     * @param idComercio ID do comércio.
+     */
+    public void invalidarSobreposicao(Long idComercio) {
+        repository.invalidarSobreposicao(idComercio);
+    }
+
+    /**
+     * Calcula a sobreposição entre o raio do comércio e os setores censitários após o commit da transação corrente.
+     * Uma falha é registrada no log; o comércio é calculado novamente por {@link #calcularSobreposicoesPendentes()}.
+     *
+     * @param idComercio ID do comércio incluído ou alterado.
+     */
+    public void calcularSobreposicao(Long idComercio) {
+        AposCommit.executar(() -> {
+            try {
+                repository.calcularSobreposicao(idComercio);
+            } catch (RuntimeException e) {
+                log.error("Falha ao calcular a sobreposição do comércio {} com os setores censitários.", idComercio, e);
+            }
+        });
+    }
+
+    /**
+     * Calcula, em segundo plano, a sobreposição dos comércios que ainda não a possuem.
+     * Executado após a inicialização da aplicação e após cada importação de comércios.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void calcularSobreposicoesPendentes() {
+        executor.execute(() -> {
+            try {
+                int total = repository.calcularSobreposicoesPendentes();
+                log.info("Sobreposição com os setores censitários calculada para {} comércios.", total);
+            } catch (RuntimeException e) {
+                log.error("Falha ao calcular a sobreposição dos comércios com os setores censitários.", e);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        executor.shutdownNow();
+    }
+
 }
@@ -2,6 +2,7 @@ package com.riquetti.ProjetoIntegrador.service;
 
 import com.riquetti.ProjetoIntegrador.dto.ComercioRaioAvenidaDTO;
 import com.riquetti.ProjetoIntegrador.entity.ComercioRaioAvenida;
+import com.riquetti.ProjetoIntegrador.entity.Ponto;
 import com.riquetti.ProjetoIntegrador.exception.InvalidInputException;
 import com.riquetti.ProjetoIntegrador.mapper.ComercioRaioAvenidaMapper;
 import com.riquetti.ProjetoIntegrador.repository.ComercioRaioAvenidaRepository;
@@ -40,6 +41,20 @@ public class ComercioRaioAvenidaService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Recupera os comércios de uma faixa de IDs, utilizado nos relatórios executados em blocos.
+     *
+     * @param idInicial Menor ID de comércio da faixa.
+     * @param idFinal   Maior ID de comércio da faixa.
+     * @return Lista de DTOs dos comércios da faixa, ordenada pelo ID do comércio.
+     */
+    public List<ComercioRaioAvenidaDTO> findEntre(long idInicial, long idFinal) {
+        return repository.findComerciosEntre(idInicial, idFinal)
+                .stream()
+                .map(mapper::toDTO)
+                .collect(Collectors.toList());
+    }
+
     /**
      * Recupera comércios pelo ID.
      *
@@ -77,15 +92,15 @@ public class ComercioRaioAvenidaService {
     }
 
     /**
-     * Recupera comércios baseados em uma localização textual.
+     * Recupera a contagem de avenidas a partir de um ponto.
      *
-     * @param localizacaoTexto Texto representando a localização em formato POINT.
+     * @param ponto O ponto de consulta.
      * @return Lista de DTOs de comércios correspondentes à localização.
-     * @throws InvalidInputException se a localização não estiver no formato esperado.
+     * @throws InvalidInputException se o ponto for nulo.
      */
-    public List<ComercioRaioAvenidaDTO> getPontoRaioAvenida(String localizacaoTexto) {
-        validateLocalizacaoTexto(localizacaoTexto);
-        List<ComercioRaioAvenida> entities = repository.findPontoRaioAvenida(localizacaoTexto);
+    public List<ComercioRaioAvenidaDTO> getPontoRaioAvenida(Ponto ponto) {
+        validatePonto(ponto);
+        List<ComercioRaioAvenida> entities = repository.findPontoRaioAvenida(ponto.longitude(), ponto.latitude());
         return entities.stream()
                 .map(mapper::toDTO)
                 .collect(Collectors.toList());
@@ -94,15 +109,15 @@ public class ComercioRaioAvenidaService {
     /**
      * Recupera comércios dentro de um raio a partir de uma localização.
      *
-     * @param localizacaoTexto Texto representando a localização em formato POINT.
+     * @param ponto O ponto de consulta.
      * @param raioAcaopersolizado Raio de ação em metros.
      * @return Lista de DTOs de comércios correspondentes à localização e raio.
-     * @throws InvalidInputException se a localização ou raio forem inválidos.
+     * @throws InvalidInputException se o ponto ou o raio forem inválidos.
      */
-    public List<ComercioRaioAvenidaDTO> getLocalizacaoRaioAvenida(String localizacaoTexto, double raioAcaopersolizado) {
-        validateLocalizacaoTexto(localizacaoTexto);
+    public List<ComercioRaioAvenidaDTO> getLocalizacaoRaioAvenida(Ponto ponto, double raioAcaopersolizado) {
+        validatePonto(ponto);
         validateRaioAcaoMetros(raioAcaopersolizado);
-        List<ComercioRaioAvenida> entities = repository.findLocalizacaoRaioAvenida(localizacaoTexto, raioAcaopersolizado);
+        List<ComercioRaioAvenida> entities = repository.findLocalizacaoRaioAvenida(ponto.longitude(), ponto.latitude(), raioAcaopersolizado);
         return entities.stream()
                 .map(mapper::toDTO)
                 .collect(Collectors.toList());
@@ -121,9 +136,9 @@ public class ComercioRaioAvenidaService {
         }
     }
 
-    private void validateLocalizacaoTexto(String localizacaoTexto) {
-        if (localizacaoTexto == null || !localizacaoTexto.startsWith("POINT(") || !localizacaoTexto.endsWith(")")) {
-            throw new InvalidInputException("localizacaoTexto deve estar no formato POINT(longitude latitude).");
+    private void validatePonto(Ponto ponto) {
+        if (ponto == null) {
+            throw new InvalidInputException("O ponto de consulta não pode ser nulo.");
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,225 @@
+package com.riquetti.ProjetoIntegrador.service;
+
+import com.riquetti.ProjetoIntegrador.entity.ComercioRaioVias;
+import com.riquetti.ProjetoIntegrador.entity.LocalizacaoComercio;
+import com.riquetti.ProjetoIntegrador.repository.ComercioRaioViasRepository;
+import com.riquetti.ProjetoIntegrador.repository.LocalizacaoComercioRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Serviço que calcula a acessibilidade das vias OSM na JVM, a partir de um índice espacial em memória.
+ *
+ * Ativado com a propriedade {@code comercio.vias.engine=memoria}. As vias de cada município de `camada_vias` são
+ * carregadas uma única vez em um {@link ViasRTree} próprio, e cada comércio é medido apenas com as vias do seu
+ * município (cd_mun), como nas consultas do banco de dados. O comprimento ponderado e os comprimentos por
+ * anel (500 a 2500 metros) são calculados em paralelo, sem consultas espaciais no banco de dados.
+ * Comércios sem município não têm vias, também como no banco de dados.
+ *
+ * Na inicialização uma amostra de comércios é comparada com o cálculo do banco de dados e
+ * diferenças acima da tolerância configurada são registradas no log.
+ */
+@Service
+@ConditionalOnProperty(name = "comercio.vias.engine", havingValue = "memoria")
+public class ComercioRaioViasMemoriaService {
+
+    private static final Logger log = LoggerFactory.getLogger(ComercioRaioViasMemoriaService.class);
+
+    /**
+     * Índice vazio dos comércios sem município.
+     */
+    private static final ViasRTree SEM_VIAS = ViasRTree.builder().build();
+
+    private final ComercioRaioViasRepository viasRepository;
+    private final LocalizacaoComercioRepository comercioRepository;
+    private final double tolerancia;
+    private final int amostraVerificacao;
+    private final Map<String, ViasRTree> indices = new ConcurrentHashMap<>();
+
+    // ReentrantLock em vez de synchronized: a carga consulta o banco e, em threads virtuais, um bloco
+    // synchronized prenderia a thread de plataforma durante toda a consulta
+    private final ReentrantLock carga = new ReentrantLock();
+
+    /**
+     * Construtor para injeção de dependências.
+     *
+     * @param viasRepository      Repositório utilizado para carregar as vias e para a verificação com o banco.
+     * @param comercioRepository  Repositório dos comércios cadastrados.
+     * @param tolerancia          Diferença relativa máxima aceita em relação ao cálculo do banco de dados.
+     * @param amostraVerificacao  Quantidade de comércios comparados com o banco de dados na inicialização.
+     */
+    public ComercioRaioViasMemoriaService(ComercioRaioViasRepository viasRepository,
+                                          LocalizacaoComercioRepository comercioRepository,
+                                          @Value("${comercio.vias.memoria.tolerancia:0.02}") double tolerancia,
+                                          @Value("${comercio.vias.memoria.amostra-verificacao:5}") int amostraVerificacao) {
+        this.viasRepository = viasRepository;
+        this.comercioRepository = comercioRepository;
+        this.tolerancia = tolerancia;
+        this.amostraVerificacao = amostraVerificacao;
+    }
+
+    /**
+     * Carrega os índices dos municípios dos comércios na inicialização da aplicação e compara uma amostra
+     * com o banco de dados.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void inicializar() {
+        List<LocalizacaoComercio> comercios = comercioRepository.findAll();
+        comercios.stream()
+                .map(LocalizacaoComercio::getCdMun)
+                .filter(Objects::nonNull)
+                .distinct()
+                .forEach(this::indice);
+        verificarContraBanco(comercios);
+    }
+
+    /**
+     * Descarta os índices espaciais carregados, por exemplo após a atualização da base de vias.
+     * Cada município é carregado novamente do banco de dados no próximo cálculo.
+     */
+    public void recarregar() {
+        carga.lock();
+        try {
+            indices.clear();
+        } finally {
+            carga.unlock();
+        }
+    }
+
+    /**
+     * Calcula a acessibilidade e os comprimentos por anel de todos os comércios, em paralelo.
+     *
+     * @return Lista de ComercioRaioVias com os valores calculados em memória.
+     */
+    public List<ComercioRaioVias> findAllViasDistancia() {
+        return comercioRepository.findAll()
+                .parallelStream()
+                .map(this::medir)
+                .toList();
+    }
+
+    /**
+     * Calcula a acessibilidade e os comprimentos por anel de um comércio.
+     *
+     * @param idComercio ID do comércio.
+     * @return Lista com o comércio calculado, ou vazia se o comércio não existir.
+     */
+    public List<ComercioRaioVias> findByComercioIdDistancia(Long idComercio) {
+        try {
+            return List.of(medir(comercioRepository.findById(idComercio)));
+        } catch (EmptyResultDataAccessException e) {
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Classifica o comprimento total ponderado, com as mesmas faixas das consultas do banco de dados.
+     *
+     * @param comprimentoTotalPonderado O comprimento total ponderado.
+     * @return A classificação da acessibilidade.
+     */
+    static String classificarAcessibilidade(double comprimentoTotalPonderado) {
+        if (comprimentoTotalPonderado > 15000) {
+            return "Excelente";
+        } else if (comprimentoTotalPonderado >= 10000) {
+            return "Boa";
+        } else if (comprimentoTotalPonderado >= 5000) {
+            return "Média";
+        } else if (comprimentoTotalPonderado >= 1000) {
+            return "Ruim";
+        }
+        return "Muito Ruim";
+    }
+
+    private ViasRTree indice(String cdMun) {
+        if (cdMun == null) {
+            return SEM_VIAS;
+        }
+        ViasRTree atual = indices.get(cdMun);
+        if (atual == null) {
+            carga.lock();
+            try {
+                atual = indices.get(cdMun);
+                if (atual == null) {
+                    ViasRTree.Builder builder = ViasRTree.builder();
+                    viasRepository.forEachVia(cdMun, (fclass, wkb) -> builder.adicionarWkb(wkb, fclass));
+                    atual = builder.build();
+                    indices.put(cdMun, atual);
+                    log.info("Índice de vias em memória do município {} carregado com {} segmentos.", cdMun, atual.tamanho());
+                }
+            } finally {
+                carga.unlock();
+            }
+        }
+        return atual;
+    }
+
+    private ComercioRaioVias medir(LocalizacaoComercio comercio) {
+        ViasRTree vias = indice(comercio.getCdMun());
+        double longitude = comercio.getLocalizacao().longitude();
+        double latitude = comercio.getLocalizacao().latitude();
+        double raio = comercio.getRaioAcaoMetros() == null ? 0 : comercio.getRaioAcaoMetros().doubleValue();
+
+        ViasRTree.Medicao medicao = vias.medir(longitude, latitude, raio);
+        double[] aneis = medicao.comprimentosAneis();
+
+        ComercioRaioVias entity = new ComercioRaioVias();
+        entity.setIdComercio(comercio.getIdComercio());
+        entity.setNome(comercio.getNome());
+        entity.setDescricao(comercio.getDescricao());
+        entity.setRaioAcaoMetros((long) raio);
+        entity.setLocalizacao(comercio.getLocalizacao());
+        entity.setComprimentoTotalPonderado(arredondar(medicao.comprimentoTotalPonderado()));
+        entity.setComprimento500(arredondar(aneis[0]));
+        entity.setComprimento1000(arredondar(aneis[1]));
+        entity.setComprimento1500(arredondar(aneis[2]));
+        entity.setComprimento2000(arredondar(aneis[3]));
+        entity.setComprimento2500(arredondar(aneis[4]));
+        entity.setAcessibilidade(classificarAcessibilidade(medicao.comprimentoTotalPonderado()));
+        return entity;
+    }
+
+    private void verificarContraBanco(List<LocalizacaoComercio> comercios) {
+        for (LocalizacaoComercio comercio : comercios.subList(0, Math.min(amostraVerificacao, comercios.size()))) {
+            List<ComercioRaioVias> banco = viasRepository.findByComercioIdDistancia(comercio.getIdComercio());
+            if (banco.isEmpty()) {
+                continue;
+            }
+            ComercioRaioVias esperado = banco.get(0);
+            ComercioRaioVias calculado = medir(comercio);
+            double diferenca = Math.max(
+                    diferencaRelativa(esperado.getComprimentoTotalPonderado(), calculado.getComprimentoTotalPonderado()),
+                    diferencaRelativa(esperado.getComprimento2500(), calculado.getComprimento2500()));
+            if (diferenca > tolerancia) {
+                log.warn("Cálculo em memória difere do banco de dados em {}% para o comércio {}.",
+                        String.format("%.2f", diferenca * 100), comercio.getIdComercio());
+            }
+        }
+    }
+
+    private static double diferencaRelativa(BigDecimal esperado, BigDecimal calculado) {
+        double a = esperado == null ? 0 : esperado.doubleValue();
+        double b = calculado == null ? 0 : calculado.doubleValue();
+        double base = Math.max(Math.abs(a), 1.0);
+        return Math.abs(a - b) / base;
+    }
+
+    private static BigDecimal arredondar(double valor) {
+        return BigDecimal.valueOf(valor).setScale(6, RoundingMode.HALF_UP);
+    }
+}
@@ -1,31 +1,69 @@
 package com.riquetti.ProjetoIntegrador.service;
 
 import com.riquetti.ProjetoIntegrador.dto.ComercioRaioViasDTO;
+import com.riquetti.ProjetoIntegrador.entity.ComercioRaioVias;
 import com.riquetti.ProjetoIntegrador.mapper.ComercioRaioViasMapper;
 import com.riquetti.ProjetoIntegrador.repository.ComercioRaioViasRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
  * Serviço responsável pela lógica de negócios relacionada a comércios, raios de ação e dados OSM.
+ *
+ * Com a propriedade {@code comercio.vias.engine=memoria} os cálculos são feitos na JVM pelo
+ * {@link ComercioRaioViasMemoriaService}; caso contrário são feitos no banco de dados (padrão).
+ *
+ * Com a propriedade {@code comercio.vias.snapshot.listagens=true} as listagens de todos os comércios do banco de
+ * dados são lidas do snapshot de acessibilidade (comercio_raio_vias_snapshot), sem recalcular a agregação espacial.
+ * O snapshot é atualizado em segundo plano, após o commit de cada inclusão ou alteração de comércio, mas não quando
+ * as camadas de vias são recarregadas (POST /api/comercio-raio-vias/snapshot/atualizar), e os comércios ainda sem
+ * snapshot não aparecem nas listagens até o cálculo terminar. Por padrão as listagens são calculadas a cada consulta
+ * e o snapshot não é gravado.
  */
 @Service
 public class ComercioRaioViasService {
 
+    private static final Logger log = LoggerFactory.getLogger(ComercioRaioViasService.class);
+
     private final ComercioRaioViasRepository repository;
     private final ComercioRaioViasMapper mapper;
+    private final Optional<ComercioRaioViasMemoriaService> memoria;
+    private final boolean listagensDoSnapshot;
+    private final ExecutorService executor;
 
     /**
      * Construtor da classe que injeta as dependências do repositório e do mapper.
      *
      * @param repository O repositório ComercioRaioViasRepository responsável por acessar os dados de comércios em um raio de vias.
      * @param mapper O mapeador ComercioRaioViasMapper responsável por converter as entidades de domínio em DTOs e vice-versa.
+     * @param memoria O serviço de cálculo em memória, presente apenas quando {@code comercio.vias.engine=memoria}.
+     * @param listagensDoSnapshot Se as listagens de todos os comércios são lidas do snapshot de acessibilidade.
      */
-    public ComercioRaioViasService(ComercioRaioViasRepository repository, ComercioRaioViasMapper mapper) {
+    public ComercioRaioViasService(ComercioRaioViasRepository repository, ComercioRaioViasMapper mapper,
+                                   Optional<ComercioRaioViasMemoriaService> memoria,
+                                   @Value("${comercio.vias.snapshot.listagens:false}") boolean listagensDoSnapshot) {
         this.repository = repository;
         this.mapper = mapper;
+        this.memoria = memoria;
+        this.listagensDoSnapshot = listagensDoSnapshot;
+        this.executor = Executors.newSingleThreadExecutor(tarefa -> {
+            Thread thread = new Thread(tarefa, "snapshot-vias");
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
     /**
@@ -37,7 +75,10 @@ public class ComercioRaioViasService {
      */
     public List<ComercioRaioViasDTO> getIdVias(Long idComercio) {
         validateIdComercio(idComercio);
-        return repository.findByComercioId(idComercio)
+        List<ComercioRaioVias> entities = memoria.isPresent()
+                ? memoria.get().findByComercioIdDistancia(idComercio)
+                : repository.findByComercioId(idComercio);
+        return entities
                 .stream()
                 .map(mapper::toDTO)
                 .collect(Collectors.toList());
@@ -45,11 +86,15 @@ public class ComercioRaioViasService {
 
     /**
      * Recupera todas as vias.
+     * Com {@code comercio.vias.snapshot.listagens=true} os valores são lidos do snapshot de acessibilidade.
      *
      * @return Lista de DTOs de todas as vias.
      */
     public List<ComercioRaioViasDTO> getAllVias() {
-        return repository.findAll()
+        List<ComercioRaioVias> entities = memoria.isPresent() || listagensDoSnapshot
+                ? findAllDistancias()
+                : repository.findAll();
+        return entities
                 .stream()
                 .map(mapper::toDTO)
                 .collect(Collectors.toList());
@@ -64,50 +109,161 @@ public class ComercioRaioViasService {
      */
     public List<ComercioRaioViasDTO> findByComercioIdDistancia(Long idComercio) {
         validateIdComercio(idComercio);
-        return repository.findByComercioIdDistancia(idComercio)
+        List<ComercioRaioVias> entities = memoria.isPresent()
+                ? memoria.get().findByComercioIdDistancia(idComercio)
+                : repository.findByComercioIdDistancia(idComercio);
+        return entities
+                .stream()
+                .map(this::toDistanciaDTO)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Calcula as vias e suas respectivas distâncias dos comércios de uma faixa de IDs.
+     * Utilizado nos relatórios executados em blocos; o cálculo é sempre feito no banco de dados.
+     *
+     * @param idInicial Menor ID de comércio da faixa.
+     * @param idFinal   Maior ID de comércio da faixa.
+     * @return Lista de DTOs das vias e distâncias da faixa, ordenada pelo ID do comércio.
+     */
+    public List<ComercioRaioViasDTO> findViasDistanciaEntre(long idInicial, long idFinal) {
+        return repository.findViasDistanciaEntre(idInicial, idFinal)
                 .stream()
-                .map(entity -> new ComercioRaioViasDTO(
-                        entity.getIdComercio(),
-                        entity.getNome(),
-                        entity.getDescricao(),
-                        entity.getRaioAcaoMetros(),
-                        entity.getComprimentoTotalPonderado(),
-                        entity.getComprimento500(),
-                        entity.getComprimento1000(),
-                        entity.getComprimento1500(),
-                        entity.getComprimento2000(),
-                        entity.getComprimento2500(),
-                        entity.getAcessibilidade(),
-                        entity.getLocalizacao()
-                ))
+                .map(this::toDistanciaDTO)
                 .collect(Collectors.toList());
     }
 
     /**
      * Recupera todas as vias e suas respectivas distâncias.
+     * Com {@code comercio.vias.snapshot.listagens=true} os valores são lidos do snapshot de acessibilidade.
      *
      * @return Lista de DTOs de todas as vias e suas distâncias.
      */
     public List<ComercioRaioViasDTO> findAllViasDistancia() {
-        return repository.findAllViasDistancia()
+        return findAllDistancias()
                 .stream()
-                .map(entity -> new ComercioRaioViasDTO(
-                        entity.getIdComercio(),
-                        entity.getNome(),
-                        entity.getDescricao(),
-                        entity.getRaioAcaoMetros(),
-                        entity.getComprimentoTotalPonderado(),
-                        entity.getComprimento500(),
-                        entity.getComprimento1000(),
-                        entity.getComprimento1500(),
-                        entity.getComprimento2000(),
-                        entity.getComprimento2500(),
-                        entity.getAcessibilidade(),
-                        entity.getLocalizacao()
-                ))
+                .map(this::toDistanciaDTO)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Percorre todas as vias e suas respectivas distâncias, entregando cada DTO ao consumidor.
+     * Calculados ou lidos do snapshot no banco de dados, os registros são entregues assim que lidos, sem montar a
+     * lista completa em memória; a transação, no pool de análise, mantém o cursor aberto enquanto os registros são
+     * consumidos. No cálculo em memória os comércios são medidos em paralelo antes da entrega.
+     *
+     * @param consumidor Função que recebe cada DTO de vias e distâncias.
+     */
+    @Transactional(transactionManager = "analiseTransactionManager", readOnly = true)
+    public void streamAllViasDistancia(Consumer<ComercioRaioViasDTO> consumidor) {
+        Consumer<ComercioRaioVias> conversor = entity -> consumidor.accept(toDistanciaDTO(entity));
+        if (memoria.isPresent()) {
+            memoria.get().findAllViasDistancia().forEach(conversor);
+        } else if (listagensDoSnapshot) {
+            repository.forEachSnapshot(conversor);
+        } else {
+            repository.forEachViasDistancia(conversor);
+        }
+    }
+
+    /**
+     * Recalcula o snapshot de acessibilidade de um comércio após alteração da localização ou do raio de ação.
+     * O cálculo é feito em segundo plano após o commit da transação corrente, e apenas quando as listagens são
+     * lidas do snapshot.
+     *
+     * @param idComercio ID do comércio a ser recalculado. Deve ser um número inteiro maior que 0.
+     * @throws IllegalArgumentException se o ID do comércio for nulo ou menor ou igual a 0.
+     */
+    public void refreshSnapshot(Long idComercio) {
+        validateIdComercio(idComercio);
+        if (!listagensDoSnapshot) {
+            return;
+        }
+        AposCommit.executar(() -> executor.execute(() -> {
+            try {
+                repository.refreshSnapshot(idComercio);
+            } catch (RuntimeException e) {
+                log.error("Falha ao recalcular o snapshot de acessibilidade do comércio {}.", idComercio, e);
+            }
+        }));
+    }
+
+    /**
+     * Recalcula o snapshot de acessibilidade de todos os comércios.
+     * Deve ser utilizado quando a base de vias for recarregada.
+     *
+     * @return O número de comércios recalculados.
+     * @throws IllegalStateException se as listagens não forem lidas do snapshot.
+     */
+    public int refreshAllSnapshots() {
+        if (!listagensDoSnapshot) {
+            throw new IllegalStateException("O snapshot de acessibilidade está desativado (comercio.vias.snapshot.listagens=false).");
+        }
+        return repository.refreshAllSnapshots();
+    }
+
+    /**
+     * Calcula, após a inicialização da aplicação e após cada importação, o snapshot dos comércios que ainda não o
+     * possuem. O cálculo é feito em segundo plano, sem atrasar a inicialização, e apenas quando as listagens são
+     * lidas do snapshot.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void refreshMissingSnapshots() {
+        if (!listagensDoSnapshot) {
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                int total = repository.refreshMissingSnapshots();
+                log.info("Snapshot de acessibilidade calculado para {} comércios sem snapshot.", total);
+            } catch (RuntimeException e) {
+                log.error("Falha ao calcular o snapshot de acessibilidade dos comércios sem snapshot.", e);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Seleciona a origem dos dados de todos os comércios: cálculo em memória, snapshot ou cálculo no banco de dados.
+     *
+     * @return Lista de entidades com a acessibilidade e os comprimentos por anel.
+     */
+    private List<ComercioRaioVias> findAllDistancias() {
+        if (memoria.isPresent()) {
+            return memoria.get().findAllViasDistancia();
+        }
+        return listagensDoSnapshot
+                ? repository.findAllSnapshot()
+                : repository.findAllViasDistancia();
+    }
+
+    /**
+     * Converte a entidade com as distâncias por anel para o DTO.
+     *
+     * @param entity A entidade a ser convertida.
+     * @return O DTO correspondente.
+     */
+    private ComercioRaioViasDTO toDistanciaDTO(ComercioRaioVias entity) {
+        return new ComercioRaioViasDTO(
+                entity.getIdComercio(),
+                entity.getNome(),
+                entity.getDescricao(),
+                entity.getRaioAcaoMetros(),
+                entity.getComprimentoTotalPonderado(),
+                entity.getComprimento500(),
+                entity.getComprimento1000(),
+                entity.getComprimento1500(),
+                entity.getComprimento2000(),
+                entity.getComprimento2500(),
+                entity.getAcessibilidade(),
+                entity.getLocalizacao()
+        );
+    }
+
     /**
      * Valida o ID do comércio.
      *
@@ -1,6 +1,9 @@
 package com.riquetti.ProjetoIntegrador.service;
 
 import com.riquetti.ProjetoIntegrador.dto.ConcorrenteDTO;
+import com.riquetti.ProjetoIntegrador.dto.ConcorrenteProximoDTO;
+import com.riquetti.ProjetoIntegrador.entity.ConcorrenteProximo;
+import com.riquetti.ProjetoIntegrador.entity.Ponto;
 import com.riquetti.ProjetoIntegrador.mapper.ConcorrenteMapper;
 import com.riquetti.ProjetoIntegrador.repository.ConcorrenteRepository;
 import org.springframework.stereotype.Service;
@@ -19,6 +22,16 @@ import java.util.stream.Collectors;
 @Service
 public class ConcorrenteService {
 
+    /**
+     * Quantidade de concorrentes retornada quando K não é informado.
+     */
+    public static final int K_PADRAO = 10;
+
+    /**
+     * Quantidade máxima de concorrentes por busca dos mais próximos.
+     */
+    public static final int K_MAXIMO = 100;
+
     private final ConcorrenteRepository repository;
     private final ConcorrenteMapper mapper = ConcorrenteMapper.INSTANCE;
 
@@ -72,6 +85,50 @@ public class ConcorrenteService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Busca os K comércios mais próximos de um comércio ou de um ponto, ordenados pela distância.
+     *
+     * A origem deve ser informada pelo ID do comércio (excluído do resultado) ou pela longitude e latitude.
+     *
+     * @param idComercio     o ID do comércio de origem, ou null se a origem for um ponto.
+     * @param longitude      a longitude da origem, ou null se a origem for um comércio.
+     * @param latitude       a latitude da origem, ou null se a origem for um comércio.
+     * @param idTipoComercio o tipo de comércio dos concorrentes, ou null para todos os tipos.
+     * @param k              a quantidade de concorrentes, entre 1 e {@value #K_MAXIMO}; null para {@value #K_PADRAO}.
+     * @return uma lista de {@link ConcorrenteProximoDTO} com a distância em metros, do mais próximo ao mais distante.
+     * @throws IllegalArgumentException se a origem, o tipo de comércio ou K forem inválidos.
+     */
+    public List<ConcorrenteProximoDTO> getConcorrentesMaisProximos(Long idComercio, Double longitude, Double latitude,
+                                                                   Long idTipoComercio, Integer k) {
+        int limite = k == null ? K_PADRAO : k;
+        if (limite <= 0 || limite > K_MAXIMO) {
+            throw new IllegalArgumentException("O k deve ser um número inteiro entre 1 e " + K_MAXIMO + ".");
+        }
+        if (idTipoComercio != null && idTipoComercio <= 0) {
+            throw new IllegalArgumentException("O idTipoComercio deve ser um número inteiro positivo.");
+        }
+
+        List<ConcorrenteProximo> concorrentes;
+        if (idComercio != null) {
+            if (longitude != null || latitude != null) {
+                throw new IllegalArgumentException("Informe o idComercio ou a longitude e latitude, não ambos.");
+            }
+            validateIdComercio(idComercio);
+            concorrentes = repository.findMaisProximosDeComercio(idComercio, idTipoComercio, limite);
+        } else {
+            if (longitude == null || latitude == null) {
+                throw new IllegalArgumentException("Informe o idComercio ou a longitude e latitude da origem.");
+            }
+            Ponto origem = new Ponto(longitude, latitude);
+            concorrentes = repository.findMaisProximosDePonto(origem.longitude(), origem.latitude(), idTipoComercio, limite);
+        }
+
+        return concorrentes
+                .stream()
+                .map(mapper::toDTO)
+                .collect(Collectors.toList());
+    }
+
     /**
      * Valida o ID do comércio.
      *
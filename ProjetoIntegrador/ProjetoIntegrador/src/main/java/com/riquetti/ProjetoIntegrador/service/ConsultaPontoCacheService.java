@@ -0,0 +1,177 @@
+package com.riquetti.ProjetoIntegrador.service;
+
+import com.riquetti.ProjetoIntegrador.dto.ComercioDadosIbgeDTO;
+import com.riquetti.ProjetoIntegrador.dto.ComercioRaioAvenidaDTO;
+import com.riquetti.ProjetoIntegrador.dto.EstatisticasCacheDTO;
+import com.riquetti.ProjetoIntegrador.entity.Ponto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Cache das consultas de ponto + raio, na frente do {@link ComercioDadosIbgeService} e do
+ * {@link ComercioRaioAvenidaService}.
+ *
+ * As consultas dependem apenas do ponto e do raio sobre bases estáticas (IBGE e ruas). As coordenadas
+ * são arredondadas para a precisão configurada e a consulta é executada com o ponto arredondado, de forma
+ * que cliques repetidos no mapa não cheguem ao banco de dados duas vezes. O cache deve ser invalidado
+ * quando as bases do IBGE ou de ruas forem recarregadas.
+ *
+ * A precisão padrão de 4 casas decimais (~11 metros) troca exatidão por acertos: o ponto consultado é deslocado em
+ * até ~5,5 metros, menos que a célula da grade e desprezível diante de raios de centenas de metros, e cliques
+ * próximos passam a compartilhar a mesma consulta. Com 6 casas (~0,1 metro) dois cliques quase nunca coincidem.
+ */
+@Service
+public class ConsultaPontoCacheService {
+
+    private static final Pattern PONTO = Pattern.compile("^POINT\\s*\\(\\s*(-?\\d+(?:\\.\\d+)?)\\s+(-?\\d+(?:\\.\\d+)?)\\s*\\)$");
+
+    private record Chave(String consulta, BigDecimal longitude, BigDecimal latitude, double raio) {
+    }
+
+    private final ComercioDadosIbgeService comercioDadosIbgeService;
+    private final ComercioRaioAvenidaService comercioRaioAvenidaService;
+    private final int precisaoCasas;
+    private final CacheConsulta<Chave, List<?>> cache;
+
+    /**
+     * Construtor para injeção de dependências.
+     *
+     * @param comercioDadosIbgeService   Serviço das consultas de dados do IBGE.
+     * @param comercioRaioAvenidaService Serviço das consultas de avenidas.
+     * @param tamanhoMaximo              Quantidade máxima de consultas em cache.
+     * @param ttl                        Tempo de vida de cada consulta em cache.
+     * @param precisaoCasas              Casas decimais mantidas nas coordenadas (4 casas = ~11 metros).
+     */
+    public ConsultaPontoCacheService(ComercioDadosIbgeService comercioDadosIbgeService,
+                                     ComercioRaioAvenidaService comercioRaioAvenidaService,
+                                     @Value("${cache.ponto-raio.tamanho-maximo:1000}") int tamanhoMaximo,
+                                     @Value("${cache.ponto-raio.ttl:6h}") Duration ttl,
+                                     @Value("${cache.ponto-raio.precisao-casas:4}") int precisaoCasas) {
+        if (precisaoCasas < 1) {
+            throw new IllegalArgumentException("A precisão do cache deve ter pelo menos uma casa decimal.");
+        }
+        this.comercioDadosIbgeService = comercioDadosIbgeService;
+        this.comercioRaioAvenidaService = comercioRaioAvenidaService;
+        this.precisaoCasas = precisaoCasas;
+        this.cache = new CacheConsulta<>("ponto-raio", tamanhoMaximo, ttl);
+    }
+
+    /**
+     * Dados do IBGE de um ponto com raio de ação.
+     *
+     * @param pontoTexto     Ponto em formato POINT(longitude latitude).
+     * @param raioAcaoMetros Raio de ação em metros.
+     * @return Lista de DTOs de localização.
+     */
+    @SuppressWarnings("unchecked")
+    public List<ComercioDadosIbgeDTO> getLocalizacaoComercioByPontoAndRaio(String pontoTexto, Long raioAcaoMetros) {
+        Chave chave = criarChave("dados-ibge", pontoTexto, raioAcaoMetros == null ? 0 : raioAcaoMetros);
+        if (chave == null) {
+            return comercioDadosIbgeService.getLocalizacaoComercioByPontoAndRaio(pontoTexto, raioAcaoMetros);
+        }
+        return (List<ComercioDadosIbgeDTO>) cache.obter(chave, () -> List.copyOf(
+                comercioDadosIbgeService.getLocalizacaoComercioByPontoAndRaio(pontoTexto(chave), raioAcaoMetros)));
+    }
+
+    /**
+     * Contagem de avenidas nos anéis fixos a partir de um ponto.
+     *
+     * @param ponto O ponto de consulta.
+     * @return Lista de DTOs com a contagem de avenidas.
+     */
+    @SuppressWarnings("unchecked")
+    public List<ComercioRaioAvenidaDTO> getPontoRaioAvenida(Ponto ponto) {
+        Chave chave = criarChave("ponto-avenida", ponto, 0);
+        if (chave == null) {
+            return comercioRaioAvenidaService.getPontoRaioAvenida(ponto);
+        }
+        return (List<ComercioRaioAvenidaDTO>) cache.obter(chave, () -> List.copyOf(
+                comercioRaioAvenidaService.getPontoRaioAvenida(ponto(chave))));
+    }
+
+    /**
+     * Contagem de avenidas nos anéis fixos e no raio de ação a partir de um ponto.
+     *
+     * @param ponto               O ponto de consulta.
+     * @param raioAcaopersolizado Raio de ação em metros.
+     * @return Lista de DTOs com a contagem de avenidas.
+     */
+    @SuppressWarnings("unchecked")
+    public List<ComercioRaioAvenidaDTO> getLocalizacaoRaioAvenida(Ponto ponto, double raioAcaopersolizado) {
+        Chave chave = criarChave("raio-avenida", ponto, raioAcaopersolizado);
+        if (chave == null) {
+            return comercioRaioAvenidaService.getLocalizacaoRaioAvenida(ponto, raioAcaopersolizado);
+        }
+        return (List<ComercioRaioAvenidaDTO>) cache.obter(chave, () -> List.copyOf(
+                comercioRaioAvenidaService.getLocalizacaoRaioAvenida(ponto(chave), raioAcaopersolizado)));
+    }
+
+    /**
+     * Remove todas as consultas em cache. Deve ser chamado após a recarga das bases do IBGE ou de ruas.
+     *
+     * @return A quantidade de consultas removidas.
+     */
+    public int invalidar() {
+        return cache.invalidar();
+    }
+
+    /**
+     * Retorna as estatísticas de acertos, falhas e remoções do cache.
+     *
+     * @return DTO com as estatísticas.
+     */
+    public EstatisticasCacheDTO estatisticas() {
+        return cache.estatisticas();
+    }
+
+    /**
+     * Cria a chave com as coordenadas arredondadas.
+     *
+     * @return A chave, ou null se o ponto não estiver no formato POINT(x y); nesse caso a consulta
+     * é repassada ao serviço sem cache, que aplica a validação.
+     */
+    private Chave criarChave(String consulta, String pontoTexto, double raio) {
+        if (pontoTexto == null) {
+            return null;
+        }
+        Matcher matcher = PONTO.matcher(pontoTexto.trim());
+        if (!matcher.matches()) {
+            return null;
+        }
+        return new Chave(consulta,
+                new BigDecimal(matcher.group(1)).setScale(precisaoCasas, RoundingMode.HALF_UP),
+                new BigDecimal(matcher.group(2)).setScale(precisaoCasas, RoundingMode.HALF_UP),
+                raio);
+    }
+
+    /**
+     * Cria a chave com as coordenadas do ponto arredondadas.
+     *
+     * @return A chave, ou null se o ponto for nulo; nesse caso a consulta é repassada ao serviço sem cache,
+     * que aplica a validação.
+     */
+    private Chave criarChave(String consulta, Ponto ponto, double raio) {
+        if (ponto == null) {
+            return null;
+        }
+        return new Chave(consulta,
+                BigDecimal.valueOf(ponto.longitude()).setScale(precisaoCasas, RoundingMode.HALF_UP),
+                BigDecimal.valueOf(ponto.latitude()).setScale(precisaoCasas, RoundingMode.HALF_UP),
+                raio);
+    }
+
+    private static Ponto ponto(Chave chave) {
+        return new Ponto(chave.longitude().doubleValue(), chave.latitude().doubleValue());
+    }
+
+    private static String pontoTexto(Chave chave) {
+        return "POINT(" + chave.longitude().toPlainString() + " " + chave.latitude().toPlainString() + ")";
+    }
+}
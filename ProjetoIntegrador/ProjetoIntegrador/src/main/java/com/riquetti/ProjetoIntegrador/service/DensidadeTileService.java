@@ -0,0 +1,138 @@
+package com.riquetti.ProjetoIntegrador.service;
+
+import com.riquetti.ProjetoIntegrador.dto.CelulaDensidadeDTO;
+import com.riquetti.ProjetoIntegrador.dto.EstatisticasCacheDTO;
+import com.riquetti.ProjetoIntegrador.dto.TileDensidadeDTO;
+import com.riquetti.ProjetoIntegrador.entity.CelulaDensidade;
+import com.riquetti.ProjetoIntegrador.entity.Ponto;
+import com.riquetti.ProjetoIntegrador.repository.DensidadeTileRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Serviço dos tiles de densidade de comércios exibidos no mapa.
+ *
+ * Cada tile agrega os comércios em uma grade de células, com a quantidade e a posição média de cada
+ * célula; o mapa baixa apenas os tiles visíveis, em vez de um marcador por comércio. Os tiles ficam
+ * em um cache por nível de zoom, para que os muitos tiles dos zooms altos não removam os poucos (e mais
+ * caros) tiles dos zooms baixos. Quando um comércio é criado, alterado ou excluído, são removidos apenas
+ * os tiles que contêm a localização anterior ou a nova, após o commit da transação.
+ */
+@Service
+public class DensidadeTileService {
+
+    private record ChaveTile(Tile tile, Long idTipoComercio) {
+    }
+
+    private final DensidadeTileRepository repository;
+    private final int celulasPorLado;
+    private final List<CacheConsulta<ChaveTile, TileDensidadeDTO>> cachePorZoom = new ArrayList<>();
+
+    /**
+     * Construtor para injeção de dependências.
+     *
+     * @param repository      O repositório de agregação dos tiles.
+     * @param celulasPorLado  Quantidade de células em cada lado da grade de um tile.
+     * @param tamanhoPorZoom  Quantidade máxima de tiles em cache em cada nível de zoom.
+     * @param ttl             Tempo de vida de cada tile em cache.
+     */
+    public DensidadeTileService(DensidadeTileRepository repository,
+                                @Value("${tiles.densidade.celulas-por-lado:16}") int celulasPorLado,
+                                @Value("${tiles.densidade.cache.tamanho-por-zoom:2000}") int tamanhoPorZoom,
+                                @Value("${tiles.densidade.cache.ttl:24h}") Duration ttl) {
+        if (celulasPorLado < 1 || celulasPorLado > 256) {
+            throw new IllegalArgumentException("A quantidade de células por lado do tile deve estar entre 1 e 256.");
+        }
+        this.repository = repository;
+        this.celulasPorLado = celulasPorLado;
+        for (int z = 0; z <= Tile.ZOOM_MAXIMO; z++) {
+            cachePorZoom.add(new CacheConsulta<>("tiles-densidade-z" + z, tamanhoPorZoom, ttl));
+        }
+    }
+
+    /**
+     * Retorna a grade de densidade de um tile.
+     *
+     * @param tile           O tile solicitado.
+     * @param idTipoComercio Tipo de comércio, ou null para todos os tipos.
+     * @return O tile com as células ocupadas.
+     * @throws IllegalArgumentException se o tipo de comércio não for positivo.
+     */
+    public TileDensidadeDTO getTile(Tile tile, Long idTipoComercio) {
+        if (idTipoComercio != null && idTipoComercio <= 0) {
+            throw new IllegalArgumentException("O idTipoComercio deve ser um número inteiro positivo.");
+        }
+        return cachePorZoom.get(tile.z()).obter(new ChaveTile(tile, idTipoComercio), () -> agregar(tile, idTipoComercio));
+    }
+
+    /**
+     * Remove do cache, em todos os níveis de zoom, os tiles que contêm as localizações informadas.
+     * Dentro de uma transação, a remoção é feita após o commit, para que os tiles não sejam
+     * recalculados com os dados anteriores à alteração.
+     *
+     * @param localizacoes Localizações anteriores e novas dos comércios alterados; valores nulos são ignorados.
+     */
+    public void invalidar(Ponto... localizacoes) {
+        AposCommit.executar(() -> {
+            for (int z = 0; z <= Tile.ZOOM_MAXIMO; z++) {
+                int zoom = z;
+                Set<Tile> tiles = Arrays.stream(localizacoes)
+                        .filter(Objects::nonNull)
+                        .map(localizacao -> Tile.contendo(localizacao, zoom))
+                        .collect(Collectors.toSet());
+                if (!tiles.isEmpty()) {
+                    cachePorZoom.get(z).invalidar(chave -> tiles.contains(chave.tile()));
+                }
+            }
+        });
+    }
+
+    /**
+     * Remove todos os tiles do cache, por exemplo após uma importação em lote.
+     */
+    public void invalidarTodos() {
+        AposCommit.executar(() -> cachePorZoom.forEach(CacheConsulta::invalidar));
+    }
+
+    /**
+     * Retorna as estatísticas do cache de cada nível de zoom.
+     *
+     * @return Lista de DTOs com as estatísticas, do zoom 0 ao máximo.
+     */
+    public List<EstatisticasCacheDTO> estatisticas() {
+        return cachePorZoom.stream().map(CacheConsulta::estatisticas).collect(Collectors.toList());
+    }
+
+    private TileDensidadeDTO agregar(Tile tile, Long idTipoComercio) {
+        List<CelulaDensidadeDTO> celulas = repository.agregar(tile.xMinimoMercator(), tile.yMaximoMercator(),
+                        tile.tamanhoMercator(), tile.longitudeMinima(), tile.latitudeMinima(),
+                        tile.longitudeMaxima(), tile.latitudeMaxima(), celulasPorLado, idTipoComercio)
+                .stream()
+                .map(this::toDTO)
+                .collect(Collectors.toList());
+        long total = celulas.stream().mapToLong(CelulaDensidadeDTO::quantidade).sum();
+        return new TileDensidadeDTO(tile.z(), tile.x(), tile.y(), celulasPorLado, total, List.copyOf(celulas));
+    }
+
+    /**
+     * Converte a célula para o DTO; o ID e o nome só são mantidos quando a célula contém um único comércio.
+     */
+    private CelulaDensidadeDTO toDTO(CelulaDensidade celula) {
+        boolean unico = celula.getQuantidade() == 1;
+        return new CelulaDensidadeDTO(
+                celula.getColuna(),
+                celula.getLinha(),
+                celula.getQuantidade(),
+                celula.getCentro(),
+                unico ? celula.getIdComercio() : null,
+                unico ? celula.getNome() : null);
+    }
+}
@@ -0,0 +1,138 @@
+package com.riquetti.ProjetoIntegrador.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Monta o arquivo de resultado de um relatório a partir dos arquivos NDJSON dos seus blocos,
+ * lendo uma linha por vez, sem carregar o relatório inteiro em memória.
+ */
+class EscritorRelatorio {
+
+    private final ObjectMapper objectMapper;
+
+    EscritorRelatorio(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Escreve o resultado no formato solicitado.
+     *
+     * @param formato  JSON (array) ou CSV.
+     * @param arquivos Os arquivos NDJSON dos blocos, na ordem dos IDs de comércio.
+     * @param saida    Destino do resultado; não é fechado.
+     * @throws IOException Se algum arquivo não puder ser lido ou a saída não puder ser escrita.
+     */
+    void escrever(FormatoRelatorio formato, List<Path> arquivos, OutputStream saida) throws IOException {
+        Writer escritor = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8));
+        if (formato == FormatoRelatorio.JSON) {
+            escreverJson(arquivos, escritor);
+        } else {
+            escreverCsv(arquivos, escritor);
+        }
+        escritor.flush();
+    }
+
+    private void escreverJson(List<Path> arquivos, Writer escritor) throws IOException {
+        escritor.write('[');
+        boolean primeiro = true;
+        for (Path arquivo : arquivos) {
+            try (BufferedReader leitor = Files.newBufferedReader(arquivo, StandardCharsets.UTF_8)) {
+                String linha;
+                while ((linha = leitor.readLine()) != null) {
+                    if (linha.isBlank()) {
+                        continue;
+                    }
+                    if (!primeiro) {
+                        escritor.write(',');
+                    }
+                    escritor.write(linha);
+                    primeiro = false;
+                }
+            }
+        }
+        escritor.write(']');
+    }
+
+    private void escreverCsv(List<Path> arquivos, Writer escritor) throws IOException {
+        List<String> colunas = null;
+        for (Path arquivo : arquivos) {
+            try (BufferedReader leitor = Files.newBufferedReader(arquivo, StandardCharsets.UTF_8)) {
+                String linha;
+                while ((linha = leitor.readLine()) != null) {
+                    if (linha.isBlank()) {
+                        continue;
+                    }
+                    Map<String, String> valores = new LinkedHashMap<>();
+                    achatar("", objectMapper.readTree(linha), valores);
+                    if (colunas == null) {
+                        // As colunas vêm do primeiro registro: todos os registros de um relatório têm o mesmo DTO
+                        colunas = new ArrayList<>(valores.keySet());
+                        escreverLinha(escritor, colunas);
+                    }
+                    List<String> campos = new ArrayList<>(colunas.size());
+                    for (String coluna : colunas) {
+                        campos.add(valores.getOrDefault(coluna, ""));
+                    }
+                    escreverLinha(escritor, campos);
+                }
+            }
+        }
+    }
+
+    /**
+     * Converte o objeto JSON em colunas; objetos aninhados, como a localização, viram "objeto.campo".
+     */
+    private static void achatar(String prefixo, JsonNode no, Map<String, String> valores) {
+        Iterator<Map.Entry<String, JsonNode>> campos = no.fields();
+        while (campos.hasNext()) {
+            Map.Entry<String, JsonNode> campo = campos.next();
+            String nome = prefixo + campo.getKey();
+            JsonNode valor = campo.getValue();
+            if (valor.isObject()) {
+                achatar(nome + ".", valor, valores);
+            } else if (valor.isNull()) {
+                valores.put(nome, "");
+            } else if (valor.isIntegralNumber()) {
+                valores.put(nome, valor.asText());
+            } else if (valor.isNumber()) {
+                // Sem notação científica, que algumas planilhas não reconhecem
+                valores.put(nome, valor.decimalValue().stripTrailingZeros().toPlainString());
+            } else {
+                valores.put(nome, valor.asText());
+            }
+        }
+    }
+
+    private static void escreverLinha(Writer escritor, List<String> campos) throws IOException {
+        for (int i = 0; i < campos.size(); i++) {
+            if (i > 0) {
+                escritor.write(',');
+            }
+            escritor.write(escapar(campos.get(i)));
+        }
+        escritor.write('\n');
+    }
+
+    private static String escapar(String valor) {
+        if (valor.indexOf(',') < 0 && valor.indexOf('"') < 0 && valor.indexOf('\n') < 0 && valor.indexOf('\r') < 0) {
+            return valor;
+        }
+        return '"' + valor.replace("\"", "\"\"") + '"';
+    }
+}
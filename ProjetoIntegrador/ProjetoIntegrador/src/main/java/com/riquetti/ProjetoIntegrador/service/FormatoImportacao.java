@@ -0,0 +1,55 @@
+package com.riquetti.ProjetoIntegrador.service;
+
+import java.util.Locale;
+
+/**
+ * Formatos aceitos na importação de comércios em lote.
+ */
+public enum FormatoImportacao {
+
+    /**
+     * CSV com cabeçalho: nome, descricao, id_tipo_comercio, raio_acao_metros, longitude, latitude.
+     * O separador pode ser vírgula ou ponto e vírgula.
+     */
+    CSV,
+
+    /**
+     * Um LocalizacaoComercioDTO em JSON por linha, no mesmo formato do cadastro individual.
+     */
+    NDJSON,
+
+    /**
+     * FeatureCollection com geometrias Point e as propriedades nome, descricao, idTipoComercio e raioAcaoMetros.
+     */
+    GEOJSON;
+
+    /**
+     * Identifica o formato pelo parâmetro da requisição ou, na ausência dele, pelo Content-Type.
+     *
+     * @param formato     O formato informado ("csv", "ndjson" ou "geojson"), ou null.
+     * @param contentType O Content-Type da requisição, ou null.
+     * @return O formato da importação.
+     * @throws IllegalArgumentException Se o formato não for suportado.
+     */
+    public static FormatoImportacao de(String formato, String contentType) {
+        if (formato != null && !formato.isBlank()) {
+            try {
+                return valueOf(formato.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("O formato deve ser 'csv', 'ndjson' ou 'geojson'.");
+            }
+        }
+        String tipo = contentType == null ? "" : contentType.toLowerCase(Locale.ROOT);
+        if (tipo.startsWith("text/csv")) {
+            return CSV;
+        }
+        if (tipo.startsWith("application/x-ndjson")) {
+            return NDJSON;
+        }
+        if (tipo.startsWith("application/geo+json") || tipo.startsWith("application/json")) {
+            return GEOJSON;
+        }
+        throw new IllegalArgumentException("Informe o formato ('csv', 'ndjson' ou 'geojson') ou um Content-Type "
+                + "text/csv, application/x-ndjson ou application/geo+json.");
+    }
+}
@@ -0,0 +1,34 @@
+package com.riquetti.ProjetoIntegrador.service;
+
+import java.util.Locale;
+
+/**
+ * Formatos de download do resultado de um relatório executado em segundo plano.
+ */
+public enum FormatoRelatorio {
+
+    /**
+     * Array JSON com um objeto por comércio, no mesmo formato do endpoint síncrono.
+     */
+    JSON,
+
+    /**
+     * CSV com cabeçalho, separado por vírgula; objetos aninhados viram colunas "objeto.campo".
+     */
+    CSV;
+
+    /**
+     * Identifica o formato pelo parâmetro da requisição.
+     *
+     * @param formato O formato informado ("json" ou "csv").
+     * @return O formato do resultado.
+     * @throws IllegalArgumentException Se o formato não for suportado.
+     */
+    public static FormatoRelatorio de(String formato) {
+        try {
+            return valueOf(formato == null ? "" : formato.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("O formato deve ser 'json' ou 'csv'.");
+        }
+    }
+}
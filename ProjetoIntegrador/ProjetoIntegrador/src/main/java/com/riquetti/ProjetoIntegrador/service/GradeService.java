@@ -0,0 +1,102 @@
+package com.riquetti.ProjetoIntegrador.service;
+
+import com.riquetti.ProjetoIntegrador.repository.GradeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Serviço que mantém a grade pré-agregada dos municípios carregados utilizada pelas consultas de ponto + raio
+ * (dados do IBGE e contagem de avenidas).
+ *
+ * A grade de cada município é construída em segundo plano na inicialização da aplicação quando ainda não existe
+ * (por exemplo, após a carga de um novo município) e pode ser reconstruída após a atualização das bases do IBGE
+ * ou de ruas. A construção é executada no pool de análise, sem ocupar as conexões das operações de cadastro, e o
+ * cache das consultas de ponto + raio só é invalidado após o commit.
+ */
+@Service
+public class GradeService {
+
+    private static final Logger log = LoggerFactory.getLogger(GradeService.class);
+
+    private final GradeRepository repository;
+    private final ConsultaPontoCacheService cacheService;
+    private final TransactionTemplate transactionTemplate;
+    private final double tamanhoCelulaMetros;
+
+    /**
+     * Construtor para injeção de dependências.
+     *
+     * @param repository          O repositório da grade.
+     * @param cacheService        O cache das consultas de ponto + raio, invalidado a cada reconstrução.
+     * @param transactionManager  O gerenciador de transações do pool de análise, utilizado em uma transação por município.
+     * @param tamanhoCelulaMetros Lado de cada célula em metros.
+     */
+    public GradeService(GradeRepository repository,
+                        ConsultaPontoCacheService cacheService,
+                        @Qualifier("analiseTransactionManager") PlatformTransactionManager transactionManager,
+                        @Value("${grade.tamanho-celula-metros:100}") double tamanhoCelulaMetros) {
+        this.repository = repository;
+        this.cacheService = cacheService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.tamanhoCelulaMetros = tamanhoCelulaMetros;
+    }
+
+    /**
+     * Constrói, após a inicialização da aplicação, a grade dos municípios que ainda não a possuem e remove
+     * as células de municípios que não estão mais carregados. O cálculo é feito em segundo plano, sem atrasar
+     * a inicialização; até lá, as consultas de ponto + raio do município não encontram células.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void construirSeVazia() {
+        Thread thread = new Thread(() -> {
+            try {
+                construirPendentes();
+            } catch (RuntimeException e) {
+                log.error("Falha ao construir a grade dos municípios sem grade.", e);
+            }
+        }, "grade-municipios");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Remove as células de municípios que não estão mais carregados e constrói a grade de cada município
+     * pendente em sua própria transação, invalidando o cache após cada commit.
+     */
+    void construirPendentes() {
+        Integer removidas = transactionTemplate.execute(status -> repository.removerCelulasSemMunicipio());
+        if (removidas != null && removidas > 0) {
+            cacheService.invalidar();
+        }
+        List<String> pendentes = repository.findMunicipiosSemGrade();
+        for (String cdMun : pendentes) {
+            Integer celulas = transactionTemplate.execute(status -> repository.reconstruirMunicipio(cdMun, tamanhoCelulaMetros));
+            cacheService.invalidar();
+            log.info("Grade do município {} construída com {} células de {} metros.", cdMun, celulas, tamanhoCelulaMetros);
+        }
+    }
+
+    /**
+     * Reconstrói a grade e os dados pré-agregados de todas as células.
+     * O cache das consultas de ponto + raio é invalidado após o commit, pois as bases podem ter sido recarregadas.
+     *
+     * @return O número de células criadas.
+     */
+    @Transactional(transactionManager = "analiseTransactionManager")
+    public int reconstruir() {
+        int celulas = repository.reconstruir(tamanhoCelulaMetros);
+        AposCommit.executar(cacheService::invalidar);
+        log.info("Grade reconstruída com {} células de {} metros.", celulas, tamanhoCelulaMetros);
+        return celulas;
+    }
+}
@@ -1,5 +1,12 @@
 package com.riquetti.ProjetoIntegrador.service;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
@@ -10,11 +17,41 @@ import org.springframework.web.client.RestTemplate;
 @Service
 public class IBGEService {
 
+    /**
+     * Endereço da API de serviços de dados do IBGE.
+     */
+    public static final String URL_PADRAO = "https://servicodados.ibge.gov.br";
+
+    /**
+     * Resposta da API do IBGE a uma requisição condicional da malha.
+     *
+     * @param naoModificada     Indica que a malha não mudou desde o ETag ou a data informados (HTTP 304).
+     * @param conteudo          O GeoJSON, comprimido em gzip se {@code gzip} for verdadeiro; null quando não modificada.
+     * @param gzip              Indica que o conteúdo veio comprimido em gzip (Content-Encoding: gzip).
+     * @param etag              O ETag informado pelo IBGE, ou null.
+     * @param ultimaModificacao O Last-Modified informado pelo IBGE, ou null.
+     */
+    public record RespostaMalha(boolean naoModificada, byte[] conteudo, boolean gzip, String etag, String ultimaModificacao) {
+    }
+
     private final RestTemplate restTemplate;
+    private final String urlBase;
 
     // Injeção do RestTemplate via construtor
     public IBGEService(RestTemplate restTemplate) {
+        this(restTemplate, URL_PADRAO);
+    }
+
+    /**
+     * Construtor com o endereço da API configurável, por exemplo para um servidor local nos testes.
+     *
+     * @param restTemplate O RestTemplate utilizado nas requisições.
+     * @param urlBase      O endereço da API do IBGE; se nulo, é utilizado o endereço oficial.
+     */
+    @Autowired
+    public IBGEService(RestTemplate restTemplate, @Value("${ibge.api.url-base:" + URL_PADRAO + "}") String urlBase) {
         this.restTemplate = restTemplate;
+        this.urlBase = urlBase == null || urlBase.isBlank() ? URL_PADRAO : urlBase.replaceAll("/+$", "");
     }
 
     /**
@@ -26,7 +63,7 @@ public class IBGEService {
      */
     public String getMalhaMunicipio(String municipioId) {
         // URL da API IBGE para obter a malha do município em GeoJSON
-        String url = "https://servicodados.ibge.gov.br/api/v3/malhas/municipios/" + municipioId + "?formato=application/vnd.geo+json";
+        String url = urlMalha(municipioId);
 
         try {
             // Fazer a requisição e obter o GeoJSON como String
@@ -37,4 +74,39 @@ public class IBGEService {
             return "Erro ao buscar malha do município";
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Obtém a malha de um município com uma requisição condicional, aceitando a resposta em gzip.
+     * Quando o ETag ou a data da cópia local são informados, o IBGE responde 304 se a malha não mudou,
+     * sem retransmitir o GeoJSON.
+     *
+     * @param municipioId       O ID do município.
+     * @param etag              O ETag da cópia local, ou null.
+     * @param ultimaModificacao O Last-Modified da cópia local, ou null.
+     * @return A resposta do IBGE.
+     * @throws org.springframework.web.client.RestClientException Em caso de erro na requisição ou resposta 4xx/5xx.
+     */
+    public RespostaMalha buscarMalha(String municipioId, String etag, String ultimaModificacao) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.ACCEPT_ENCODING, "gzip");
+        if (etag != null) {
+            headers.setIfNoneMatch(etag);
+        }
+        if (ultimaModificacao != null) {
+            headers.set(HttpHeaders.IF_MODIFIED_SINCE, ultimaModificacao);
+        }
+        ResponseEntity<byte[]> resposta = restTemplate.exchange(urlMalha(municipioId), HttpMethod.GET,
+                new HttpEntity<>(headers), byte[].class);
+        HttpHeaders recebidos = resposta.getHeaders();
+        if (resposta.getStatusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED)) {
+            return new RespostaMalha(true, null, false, etag, ultimaModificacao);
+        }
+        boolean gzip = "gzip".equalsIgnoreCase(recebidos.getFirst(HttpHeaders.CONTENT_ENCODING));
+        return new RespostaMalha(false, resposta.getBody(), gzip, recebidos.getETag(),
+                recebidos.getFirst(HttpHeaders.LAST_MODIFIED));
+    }
+
+    private String urlMalha(String municipioId) {
+        return urlBase + "/api/v3/malhas/municipios/" + municipioId + "?formato=application/vnd.geo+json";
+    }
+}
@@ -0,0 +1,203 @@
+package com.riquetti.ProjetoIntegrador.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.riquetti.ProjetoIntegrador.dto.ErroImportacaoDTO;
+import com.riquetti.ProjetoIntegrador.dto.ImportacaoComercioDTO;
+import com.riquetti.ProjetoIntegrador.dto.LocalizacaoComercioDTO;
+import com.riquetti.ProjetoIntegrador.entity.LocalizacaoComercio;
+import com.riquetti.ProjetoIntegrador.entity.TipoComercio;
+import com.riquetti.ProjetoIntegrador.mapper.LocalizacaoComercioMapper;
+import com.riquetti.ProjetoIntegrador.repository.LocalizacaoComercioRepository;
+import com.riquetti.ProjetoIntegrador.repository.TipoComercioRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Serviço de importação de comércios em lote (CSV, NDJSON ou GeoJSON).
+ *
+ * Os registros são lidos e validados à medida que chegam e gravados em lotes de comandos preparados,
+ * cada lote em sua própria transação. Registros inválidos são rejeitados individualmente, com o número
+ * da linha e o motivo, sem interromper a importação. Se um lote falhar no banco de dados, os seus
+ * registros são gravados um a um para identificar apenas os que causaram o erro.
+ */
+@Service
+public class ImportacaoComercioService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImportacaoComercioService.class);
+
+    /**
+     * Quantidade máxima de erros detalhados na resposta; os demais são apenas contados.
+     */
+    static final int MAXIMO_ERROS = 1000;
+
+    private final LocalizacaoComercioRepository repository;
+    private final TipoComercioRepository tipoComercioRepository;
+    private final LocalizacaoComercioService localizacaoComercioService;
+    private final ComercioRaioViasService comercioRaioViasService;
+    private final ComercioDadosIbgeService comercioDadosIbgeService;
+    private final DensidadeTileService densidadeTileService;
+    private final TransactionTemplate transactionTemplate;
+    private final LeitorImportacaoComercio leitor;
+    private final int tamanhoLote;
+    private final LocalizacaoComercioMapper mapper = LocalizacaoComercioMapper.INSTANCE;
+
+    /**
+     * Construtor para injeção de dependências.
+     *
+     * @param repository                 O repositório de comércios.
+     * @param tipoComercioRepository     O repositório de tipos de comércio, para validar o id_tipo_comercio.
+     * @param localizacaoComercioService O serviço de comércios, que aplica as mesmas validações do cadastro individual.
+     * @param comercioRaioViasService    O serviço que mantém o snapshot de acessibilidade dos comércios.
+     * @param comercioDadosIbgeService   O serviço que mantém a sobreposição dos comércios com os setores censitários.
+     * @param densidadeTileService       O serviço dos tiles de densidade, cujo cache é esvaziado após a importação.
+     * @param transactionManager         O gerenciador de transações, utilizado em uma transação por lote.
+     * @param objectMapper               O ObjectMapper da aplicação, utilizado na leitura de NDJSON e GeoJSON.
+     * @param tamanhoLote                Quantidade de comércios por lote de inserção.
+     */
+    public ImportacaoComercioService(LocalizacaoComercioRepository repository,
+                                     TipoComercioRepository tipoComercioRepository,
+                                     LocalizacaoComercioService localizacaoComercioService,
+                                     ComercioRaioViasService comercioRaioViasService,
+                                     ComercioDadosIbgeService comercioDadosIbgeService,
+                                     DensidadeTileService densidadeTileService,
+                                     PlatformTransactionManager transactionManager,
+                                     ObjectMapper objectMapper,
+                                     @Value("${importacao.tamanho-lote:1000}") int tamanhoLote) {
+        this.repository = repository;
+        this.tipoComercioRepository = tipoComercioRepository;
+        this.localizacaoComercioService = localizacaoComercioService;
+        this.comercioRaioViasService = comercioRaioViasService;
+        this.comercioDadosIbgeService = comercioDadosIbgeService;
+        this.densidadeTileService = densidadeTileService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.leitor = new LeitorImportacaoComercio(objectMapper);
+        this.tamanhoLote = tamanhoLote;
+    }
+
+    /**
+     * Importa os comércios do arquivo.
+     * Ao final, agenda em segundo plano o cálculo da sobreposição com os setores censitários dos comércios
+     * importados e, quando ativado, do snapshot de acessibilidade, como no cadastro individual, e esvazia o
+     * cache dos tiles de densidade.
+     *
+     * @param entrada O conteúdo do arquivo, em UTF-8.
+     * @param formato O formato do arquivo.
+     * @return O resultado da importação, com os erros por linha.
+     * @throws IOException              Em caso de erro de leitura da entrada.
+     * @throws IllegalArgumentException Se o arquivo não tiver a estrutura esperada para o formato.
+     */
+    public ImportacaoComercioDTO importar(InputStream entrada, FormatoImportacao formato) throws IOException {
+        Set<Long> tiposComercio = tipoComercioRepository.findAll()
+                .stream()
+                .map(TipoComercio::getIdTipoComercio)
+                .collect(Collectors.toSet());
+        Importacao importacao = new Importacao(tiposComercio);
+        try {
+            leitor.ler(entrada, formato, importacao::registrar);
+        } finally {
+            importacao.gravarLote();
+            if (importacao.importados > 0) {
+                comercioDadosIbgeService.calcularSobreposicoesPendentes();
+                comercioRaioViasService.refreshMissingSnapshots();
+                densidadeTileService.invalidarTodos();
+            }
+        }
+        log.info("Importação {}: {} registros lidos, {} importados, {} rejeitados.",
+                formato, importacao.registrosLidos, importacao.importados, importacao.rejeitados);
+        return new ImportacaoComercioDTO(importacao.registrosLidos, importacao.importados,
+                importacao.rejeitados, importacao.erros);
+    }
+
+    /**
+     * Estado de uma importação: contadores, erros e o lote ainda não gravado.
+     */
+    private class Importacao {
+
+        private final Set<Long> tiposComercio;
+        private final List<Long> linhasLote = new ArrayList<>(tamanhoLote);
+        private final List<LocalizacaoComercio> lote = new ArrayList<>(tamanhoLote);
+        private final List<ErroImportacaoDTO> erros = new ArrayList<>();
+        private long registrosLidos;
+        private long importados;
+        private long rejeitados;
+
+        Importacao(Set<Long> tiposComercio) {
+            this.tiposComercio = tiposComercio;
+        }
+
+        void registrar(LeitorImportacaoComercio.Registro registro) {
+            registrosLidos++;
+            if (registro.erro() != null) {
+                rejeitar(registro.linha(), registro.erro());
+                return;
+            }
+            String erro = validar(registro.dto());
+            if (erro != null) {
+                rejeitar(registro.linha(), erro);
+                return;
+            }
+            linhasLote.add(registro.linha());
+            lote.add(mapper.toEntity(registro.dto()));
+            if (lote.size() >= tamanhoLote) {
+                gravarLote();
+            }
+        }
+
+        private String validar(LocalizacaoComercioDTO dto) {
+            try {
+                localizacaoComercioService.validateLocalizacaoComercioDTO(dto);
+            } catch (IllegalArgumentException e) {
+                return e.getMessage();
+            }
+            if (dto.nome().length() > 255) {
+                return "O nome não pode exceder 255 caracteres.";
+            }
+            if (!tiposComercio.contains(dto.idTipoComercio())) {
+                return "O tipo de comércio " + dto.idTipoComercio() + " não existe.";
+            }
+            return null;
+        }
+
+        void gravarLote() {
+            if (lote.isEmpty()) {
+                return;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> repository.saveAll(lote));
+                importados += lote.size();
+            } catch (DataAccessException e) {
+                log.warn("Falha ao gravar lote de {} comércios; gravando individualmente.", lote.size(), e);
+                for (int i = 0; i < lote.size(); i++) {
+                    LocalizacaoComercio comercio = lote.get(i);
+                    try {
+                        transactionTemplate.executeWithoutResult(status -> repository.save(comercio));
+                        importados++;
+                    } catch (DataAccessException erro) {
+                        rejeitar(linhasLote.get(i), erro.getMostSpecificCause().getMessage());
+                    }
+                }
+            }
+            lote.clear();
+            linhasLote.clear();
+        }
+
+        private void rejeitar(long linha, String mensagem) {
+            rejeitados++;
+            if (erros.size() < MAXIMO_ERROS) {
+                erros.add(new ErroImportacaoDTO(linha, mensagem));
+            }
+        }
+    }
+}
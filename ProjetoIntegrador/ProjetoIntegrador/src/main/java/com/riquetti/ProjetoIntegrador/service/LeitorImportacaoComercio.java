@@ -0,0 +1,250 @@
+package com.riquetti.ProjetoIntegrador.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.riquetti.ProjetoIntegrador.dto.LocalizacaoComercioDTO;
+import com.riquetti.ProjetoIntegrador.entity.Ponto;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Lê os registros de uma importação de comércios à medida que chegam, sem carregar o arquivo em memória.
+ *
+ * Cada registro é entregue já convertido para DTO ou com a mensagem do erro de leitura, para que um
+ * registro inválido não interrompa a importação dos demais.
+ */
+final class LeitorImportacaoComercio {
+
+    private static final List<String> COLUNAS_CSV =
+            List.of("nome", "descricao", "id_tipo_comercio", "raio_acao_metros", "longitude", "latitude");
+
+    /**
+     * Registro lido do arquivo.
+     *
+     * @param linha Número da linha (CSV/NDJSON) ou posição da feature (GeoJSON), a partir de 1.
+     * @param dto   O comércio lido, ou null em caso de erro.
+     * @param erro  A mensagem de erro, ou null se o registro foi lido.
+     */
+    record Registro(long linha, LocalizacaoComercioDTO dto, String erro) {
+    }
+
+    private final ObjectMapper objectMapper;
+
+    LeitorImportacaoComercio(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Lê todos os registros do arquivo.
+     *
+     * @param entrada    O conteúdo do arquivo, em UTF-8.
+     * @param formato    O formato do arquivo.
+     * @param consumidor Função que recebe cada registro lido.
+     * @throws IOException              Em caso de erro de leitura da entrada.
+     * @throws IllegalArgumentException Se o arquivo não tiver a estrutura esperada (cabeçalho do CSV ou FeatureCollection).
+     */
+    void ler(InputStream entrada, FormatoImportacao formato, Consumer<Registro> consumidor) throws IOException {
+        switch (formato) {
+            case CSV -> lerCsv(entrada, consumidor);
+            case NDJSON -> lerNdjson(entrada, consumidor);
+            case GEOJSON -> lerGeoJson(entrada, consumidor);
+        }
+    }
+
+    private void lerCsv(InputStream entrada, Consumer<Registro> consumidor) throws IOException {
+        BufferedReader leitor = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8));
+        String cabecalho = leitor.readLine();
+        if (cabecalho == null) {
+            return;
+        }
+        if (cabecalho.startsWith("\uFEFF")) {
+            cabecalho = cabecalho.substring(1);
+        }
+        char separador = cabecalho.indexOf(';') >= 0 ? ';' : ',';
+        List<String> nomes = dividirCsv(cabecalho, separador);
+        Map<String, Integer> posicoes = new HashMap<>();
+        for (int i = 0; i < nomes.size(); i++) {
+            posicoes.put(nomes.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String coluna : COLUNAS_CSV) {
+            if (!posicoes.containsKey(coluna)) {
+                throw new IllegalArgumentException("O cabeçalho do CSV deve conter as colunas " + String.join(", ", COLUNAS_CSV) + ".");
+            }
+        }
+
+        long linha = 1;
+        String texto;
+        while ((texto = leitor.readLine()) != null) {
+            linha++;
+            if (texto.isBlank()) {
+                continue;
+            }
+            consumidor.accept(lerLinhaCsv(linha, texto, separador, nomes.size(), posicoes));
+        }
+    }
+
+    private static Registro lerLinhaCsv(long linha, String texto, char separador, int colunas, Map<String, Integer> posicoes) {
+        try {
+            List<String> campos = dividirCsv(texto, separador);
+            if (campos.size() < colunas) {
+                throw new IllegalArgumentException("A linha possui " + campos.size() + " colunas; esperadas " + colunas + ".");
+            }
+            return new Registro(linha, new LocalizacaoComercioDTO(
+                    null,
+                    campos.get(posicoes.get("nome")).trim(),
+                    campos.get(posicoes.get("descricao")).trim(),
+                    Long.valueOf(campos.get(posicoes.get("id_tipo_comercio")).trim()),
+                    new BigDecimal(campos.get(posicoes.get("raio_acao_metros")).trim()),
+                    new Ponto(Double.parseDouble(campos.get(posicoes.get("longitude")).trim()),
+                            Double.parseDouble(campos.get(posicoes.get("latitude")).trim()))), null);
+        } catch (NumberFormatException e) {
+            return new Registro(linha, null,
+                    "Valor numérico inválido em id_tipo_comercio, raio_acao_metros, longitude ou latitude.");
+        } catch (IllegalArgumentException e) {
+            return new Registro(linha, null, e.getMessage());
+        }
+    }
+
+    /**
+     * Divide uma linha de CSV, aceitando campos entre aspas duplas (com "" para aspas literais).
+     * Campos com quebra de linha não são suportados.
+     */
+    private static List<String> dividirCsv(String linha, char separador) {
+        List<String> campos = new ArrayList<>();
+        StringBuilder campo = new StringBuilder();
+        boolean entreAspas = false;
+        for (int i = 0; i < linha.length(); i++) {
+            char c = linha.charAt(i);
+            if (entreAspas) {
+                if (c == '"' && i + 1 < linha.length() && linha.charAt(i + 1) == '"') {
+                    campo.append('"');
+                    i++;
+                } else if (c == '"') {
+                    entreAspas = false;
+                } else {
+                    campo.append(c);
+                }
+            } else if (c == '"') {
+                entreAspas = true;
+            } else if (c == separador) {
+                campos.add(campo.toString());
+                campo.setLength(0);
+            } else {
+                campo.append(c);
+            }
+        }
+        if (entreAspas) {
+            throw new IllegalArgumentException("Aspas não fechadas na linha.");
+        }
+        campos.add(campo.toString());
+        return campos;
+    }
+
+    private void lerNdjson(InputStream entrada, Consumer<Registro> consumidor) throws IOException {
+        BufferedReader leitor = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8));
+        long linha = 0;
+        String texto;
+        while ((texto = leitor.readLine()) != null) {
+            linha++;
+            if (texto.isBlank()) {
+                continue;
+            }
+            Registro registro;
+            try {
+                registro = new Registro(linha, objectMapper.readValue(texto, LocalizacaoComercioDTO.class), null);
+            } catch (JsonProcessingException e) {
+                registro = new Registro(linha, null, mensagemJson(e));
+            }
+            consumidor.accept(registro);
+        }
+    }
+
+    private void lerGeoJson(InputStream entrada, Consumer<Registro> consumidor) throws IOException {
+        long posicao = 0;
+        boolean encontrouFeatures = false;
+        try (JsonParser parser = objectMapper.getFactory().createParser(entrada)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("O GeoJSON deve ser um objeto FeatureCollection.");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String campo = parser.currentName();
+                JsonToken valor = parser.nextToken();
+                if (!"features".equals(campo) || valor != JsonToken.START_ARRAY) {
+                    parser.skipChildren();
+                    continue;
+                }
+                encontrouFeatures = true;
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    posicao++;
+                    JsonNode feature = parser.readValueAsTree();
+                    Registro registro;
+                    try {
+                        registro = new Registro(posicao, converterFeature(feature), null);
+                    } catch (IllegalArgumentException e) {
+                        registro = new Registro(posicao, null, e.getMessage());
+                    }
+                    consumidor.accept(registro);
+                }
+            }
+        } catch (JsonProcessingException e) {
+            // Um JSON malformado não permite localizar as features seguintes: a leitura é encerrada.
+            consumidor.accept(new Registro(posicao + 1, null, mensagemJson(e) + " A leitura do arquivo foi interrompida."));
+            return;
+        }
+        if (!encontrouFeatures) {
+            throw new IllegalArgumentException("O GeoJSON deve ser um FeatureCollection com a lista \"features\".");
+        }
+    }
+
+    private static LocalizacaoComercioDTO converterFeature(JsonNode feature) {
+        JsonNode geometria = feature.path("geometry");
+        JsonNode coordenadas = geometria.path("coordinates");
+        if (!"Point".equals(geometria.path("type").asText()) || coordenadas.size() < 2
+                || !coordenadas.get(0).isNumber() || !coordenadas.get(1).isNumber()) {
+            throw new IllegalArgumentException("A geometria deve ser do tipo Point com coordenadas [longitude, latitude].");
+        }
+        JsonNode propriedades = feature.path("properties");
+        JsonNode idTipoComercio = propriedade(propriedades, "idTipoComercio", "id_tipo_comercio");
+        JsonNode raioAcaoMetros = propriedade(propriedades, "raioAcaoMetros", "raio_acao_metros");
+        if ((!idTipoComercio.isMissingNode() && !idTipoComercio.canConvertToLong())
+                || (!raioAcaoMetros.isMissingNode() && !raioAcaoMetros.isNumber())) {
+            throw new IllegalArgumentException("As propriedades idTipoComercio e raioAcaoMetros devem ser numéricas.");
+        }
+        return new LocalizacaoComercioDTO(
+                null,
+                propriedades.path("nome").isTextual() ? propriedades.path("nome").asText() : null,
+                propriedades.path("descricao").isTextual() ? propriedades.path("descricao").asText() : null,
+                idTipoComercio.isMissingNode() ? null : idTipoComercio.asLong(),
+                raioAcaoMetros.isMissingNode() ? null : raioAcaoMetros.decimalValue(),
+                new Ponto(coordenadas.get(0).asDouble(), coordenadas.get(1).asDouble()));
+    }
+
+    private static JsonNode propriedade(JsonNode propriedades, String nome, String alternativo) {
+        JsonNode valor = propriedades.path(nome);
+        return valor.isMissingNode() || valor.isNull() ? propriedades.path(alternativo) : valor;
+    }
+
+    /**
+     * Mensagem do erro de JSON; para erros de validação do Ponto, a mensagem original da validação.
+     */
+    private static String mensagemJson(JsonProcessingException e) {
+        if (e.getCause() instanceof IllegalArgumentException causa) {
+            return causa.getMessage();
+        }
+        return "JSON inválido: " + e.getOriginalMessage();
+    }
+}
@@ -2,12 +2,16 @@ package com.riquetti.ProjetoIntegrador.service;
 
 import com.riquetti.ProjetoIntegrador.dto.LocalizacaoComercioDTO;
 import com.riquetti.ProjetoIntegrador.entity.LocalizacaoComercio;
+import com.riquetti.ProjetoIntegrador.exception.ResourceNotFoundException;
 import com.riquetti.ProjetoIntegrador.mapper.LocalizacaoComercioMapper;
 import com.riquetti.ProjetoIntegrador.repository.LocalizacaoComercioRepository;
+import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 /**
@@ -19,15 +23,27 @@ import java.util.stream.Collectors;
 public class LocalizacaoComercioService {
 
     private final LocalizacaoComercioRepository repository;
+    private final ComercioRaioViasService comercioRaioViasService;
+    private final ComercioDadosIbgeService comercioDadosIbgeService;
+    private final DensidadeTileService densidadeTileService;
     private final LocalizacaoComercioMapper mapper = LocalizacaoComercioMapper.INSTANCE;
 
     /**
      * Construtor para injeção de dependência do repositório.
      *
      * @param repository O repositório que gerencia as operações no banco de dados.
+     * @param comercioRaioViasService O serviço que mantém o snapshot de acessibilidade dos comércios.
+     * @param comercioDadosIbgeService O serviço que mantém a sobreposição dos comércios com os setores censitários.
+     * @param densidadeTileService O serviço dos tiles de densidade, cujo cache é invalidado a cada alteração.
      */
-    public LocalizacaoComercioService(LocalizacaoComercioRepository repository) {
+    public LocalizacaoComercioService(LocalizacaoComercioRepository repository,
+                                      ComercioRaioViasService comercioRaioViasService,
+                                      ComercioDadosIbgeService comercioDadosIbgeService,
+                                      DensidadeTileService densidadeTileService) {
         this.repository = repository;
+        this.comercioRaioViasService = comercioRaioViasService;
+        this.comercioDadosIbgeService = comercioDadosIbgeService;
+        this.densidadeTileService = densidadeTileService;
     }
 
     /**
@@ -57,37 +73,84 @@ public class LocalizacaoComercioService {
 
     /**
      * Criar um novo registro de comércio no banco de dados.
+     * Após o commit, a sobreposição com os setores censitários é calculada e o snapshot de acessibilidade, quando
+     * ativado, é calculado em segundo plano. Os tiles de densidade que contêm a localização são removidos do cache.
      *
      * @param dto O DTO contendo as informações do novo comércio.
      * @throws IllegalArgumentException Se qualquer campo obrigatório do DTO for inválido.
      */
+    @Transactional
     public void createLocalizacaoComercio(LocalizacaoComercioDTO dto) {
         validateLocalizacaoComercioDTO(dto);
         LocalizacaoComercio comercio = mapper.toEntity(dto);
         repository.save(comercio);
+        comercioRaioViasService.refreshSnapshot(comercio.getIdComercio());
+        comercioDadosIbgeService.calcularSobreposicao(comercio.getIdComercio());
+        densidadeTileService.invalidar(comercio.getLocalizacao());
     }
 
     /**
      * Atualizar as informações de um comércio existente.
+     * A sobreposição com os setores censitários e o snapshot de acessibilidade, quando ativado, são recalculados
+     * após o commit, apenas quando a localização ou o raio de ação mudam.
+     * Os tiles de densidade das localizações anterior e nova são removidos do cache.
      *
      * @param dto O DTO contendo as informações atualizadas do comércio.
-     * @throws IllegalArgumentException Se qualquer campo obrigatório do DTO for inválido.
+     * @throws IllegalArgumentException  Se qualquer campo obrigatório do DTO for inválido.
+     * @throws ResourceNotFoundException Se o comércio não existir.
      */
+    @Transactional
     public void updateLocalizacaoComercio(LocalizacaoComercioDTO dto) {
         validateLocalizacaoComercioDTO(dto);
         LocalizacaoComercio comercio = mapper.toEntity(dto);
+        LocalizacaoComercio atual;
+        try {
+            atual = repository.findById(comercio.getIdComercio());
+        } catch (EmptyResultDataAccessException e) {
+            throw new ResourceNotFoundException("Comércio com ID " + comercio.getIdComercio() + " não encontrado.", e);
+        }
         repository.update(comercio);
+        if (alterouAreaDeAnalise(atual, comercio)) {
+            comercioRaioViasService.refreshSnapshot(comercio.getIdComercio());
+            comercioDadosIbgeService.invalidarSobreposicao(comercio.getIdComercio());
+            comercioDadosIbgeService.calcularSobreposicao(comercio.getIdComercio());
+        }
+        densidadeTileService.invalidar(atual.getLocalizacao(), comercio.getLocalizacao());
     }
 
     /**
      * Excluir um comércio com base em seu ID.
+     * O snapshot de acessibilidade é removido pela chave estrangeira com ON DELETE CASCADE
+     * e os tiles de densidade que continham a localização são removidos do cache.
+     * Um comércio inexistente não é alterado.
      *
      * @param idComercio O ID do comércio a ser excluído.
      * @throws IllegalArgumentException Se o ID for nulo ou inválido.
      */
+    @Transactional
     public void deleteLocalizacaoComercio(Long idComercio) {
         validateIdComercio(idComercio);
+        LocalizacaoComercio atual;
+        try {
+            atual = repository.findById(idComercio);
+        } catch (EmptyResultDataAccessException e) {
+            return;
+        }
         repository.delete(idComercio);
+        densidadeTileService.invalidar(atual.getLocalizacao());
+    }
+
+    /**
+     * Verifica se a alteração muda a área utilizada nas análises espaciais (localização ou raio de ação).
+     *
+     * @param atual O registro antes da alteração.
+     * @param novo  O registro com os dados atualizados.
+     * @return True se a localização ou o raio de ação foram alterados, caso contrário, False.
+     */
+    private boolean alterouAreaDeAnalise(LocalizacaoComercio atual, LocalizacaoComercio novo) {
+        return !Objects.equals(atual.getLocalizacao(), novo.getLocalizacao())
+                || atual.getRaioAcaoMetros() == null
+                || atual.getRaioAcaoMetros().compareTo(novo.getRaioAcaoMetros()) != 0;
     }
 
     /**
@@ -108,7 +171,7 @@ public class LocalizacaoComercioService {
      * @param dto O DTO a ser validado.
      * @throws IllegalArgumentException Se qualquer campo obrigatório for inválido.
      */
-    private void validateLocalizacaoComercioDTO(LocalizacaoComercioDTO dto) {
+    void validateLocalizacaoComercioDTO(LocalizacaoComercioDTO dto) {
         if (dto.nome() == null || dto.nome().isEmpty()) {
             throw new IllegalArgumentException("O nome do comércio não pode ser nulo ou vazio.");
         }
@@ -121,20 +184,9 @@ public class LocalizacaoComercioService {
         if (dto.idTipoComercio() == null || dto.idTipoComercio() <= 0) {
             throw new IllegalArgumentException("O tipo de comércio deve ser um número inteiro positivo.");
         }
-        if (dto.localizacao() == null || !isValidPointFormat(dto.localizacao())) {
-            throw new IllegalArgumentException("A localização deve estar no formato 'POINT(lon lat)' e não pode ser nula.");
+        if (dto.localizacao() == null) {
+            throw new IllegalArgumentException("A localização (longitude e latitude) não pode ser nula.");
         }
     }
-
-    /**
-     * Validar a string de localização está no formato 'POINT(lon lat)'.
-     *
-     * @param localizacao A string de localização a ser validada.
-     * @return True se a string estiver no formato correto, caso contrário, False.
-     */
-    private boolean isValidPointFormat(String localizacao) {
-        String regex = "^POINT\\(-?\\d+\\.\\d+ -?\\d+\\.\\d+\\)$";
-        return localizacao.matches(regex);
-    }
 }
 
@@ -0,0 +1,61 @@
+package com.riquetti.ProjetoIntegrador.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Malha de um município em GeoJSON, mantida comprimida em gzip na memória e em disco.
+ *
+ * @param geoJsonGzip       O GeoJSON comprimido em gzip, enviado sem recompressão aos clientes que aceitam gzip.
+ * @param etag              O ETag servido aos clientes, calculado a partir do conteúdo.
+ * @param etagOrigem        O ETag informado pelo IBGE, utilizado na revalidação; pode ser null.
+ * @param ultimaModificacao O Last-Modified informado pelo IBGE, utilizado na revalidação; pode ser null.
+ * @param validadaEm        Momento em que a malha foi obtida ou confirmada pelo IBGE pela última vez.
+ */
+public record MalhaMunicipio(byte[] geoJsonGzip, String etag, String etagOrigem, String ultimaModificacao,
+                             Instant validadaEm) {
+
+    /**
+     * Retorna a mesma malha, confirmada pelo IBGE no momento informado.
+     */
+    public MalhaMunicipio revalidada(Instant momento) {
+        return new MalhaMunicipio(geoJsonGzip, etag, etagOrigem, ultimaModificacao, momento);
+    }
+
+    /**
+     * Retorna o GeoJSON descomprimido, para os clientes que não aceitam gzip.
+     */
+    public byte[] geoJson() {
+        try (GZIPInputStream entrada = new GZIPInputStream(new ByteArrayInputStream(geoJsonGzip))) {
+            return entrada.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Malha em cache corrompida.", e);
+        }
+    }
+
+    /**
+     * Retorna o GeoJSON descomprimido como texto.
+     */
+    public String geoJsonTexto() {
+        return new String(geoJson(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Comprime um conteúdo em gzip.
+     */
+    static byte[] comprimir(byte[] conteudo) {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream(Math.max(32, conteudo.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(saida)) {
+            gzip.write(conteudo);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return saida.toByteArray();
+    }
+}
@@ -0,0 +1,265 @@
+package com.riquetti.ProjetoIntegrador.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.riquetti.ProjetoIntegrador.dto.EstatisticasCacheDTO;
+import com.riquetti.ProjetoIntegrador.exception.ResourceNotFoundException;
+import com.riquetti.ProjetoIntegrador.exception.ServiceUnavailableException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientException;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Properties;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Cache de leitura das malhas municipais do IBGE.
+ *
+ * As malhas mudam raramente, por isso cada uma é obtida do IBGE uma única vez e mantida comprimida em
+ * gzip em disco (sobrevivendo à reinicialização) e em um cache LRU em memória. O GeoJSON comprimido é
+ * enviado aos clientes sem recompressão. Após o prazo de revalidação, a malha é confirmada com uma
+ * requisição condicional (If-None-Match / If-Modified-Since), que normalmente retorna 304 sem conteúdo;
+ * se o IBGE estiver indisponível, a cópia local continua sendo servida.
+ *
+ * Requisições simultâneas do mesmo município compartilham uma única chamada ao IBGE, e a quantidade de
+ * chamadas simultâneas ao IBGE é limitada: quando o limite é atingido, a requisição aguarda uma vaga
+ * por pouco tempo e, sem vaga, é servida a cópia local ou recusada com 503, em vez de ocupar mais threads.
+ *
+ * A malha também pode ser simplificada, recortada e ter as coordenadas arredondadas para o mapa; cada
+ * combinação de malha e opções é calculada uma única vez e mantida em um segundo cache em memória.
+ */
+@Service
+public class MalhaMunicipioService {
+
+    private static final Logger log = LoggerFactory.getLogger(MalhaMunicipioService.class);
+
+    private static final Pattern ID_MUNICIPIO = Pattern.compile("\\d{6,7}");
+
+    /**
+     * A malha reduzida é identificada pelo ETag da malha original, para que uma malha alterada no IBGE
+     * não seja servida com a redução da versão anterior.
+     */
+    private record ChaveMalhaReduzida(String etagOriginal, OpcoesMalha opcoes) {
+    }
+
+    private final IBGEService ibgeService;
+    private final Path diretorio;
+    private final Duration revalidarApos;
+    private final Clock relogio;
+    private final CacheConsulta<String, MalhaMunicipio> memoria;
+    private final CacheConsulta<ChaveMalhaReduzida, MalhaMunicipio> reduzidas;
+    private final SimplificadorMalha simplificador;
+    private final Semaphore requisicoesIbge;
+    private final Duration esperaRequisicao;
+
+    /**
+     * Construtor para injeção de dependências.
+     *
+     * @param ibgeService   O serviço de acesso à API do IBGE.
+     * @param diretorio     Diretório das malhas em disco.
+     * @param tamanhoMaximo Quantidade máxima de malhas em memória.
+     * @param ttlMemoria    Tempo de vida de cada malha em memória, após o qual é relida do disco.
+     * @param revalidarApos Prazo após o qual a malha é confirmada novamente com o IBGE.
+     * @param requisicoesSimultaneas Quantidade máxima de requisições simultâneas ao IBGE.
+     * @param esperaRequisicao       Tempo máximo de espera por uma vaga quando o limite é atingido.
+     * @param tamanhoReduzidas       Quantidade máxima de malhas reduzidas (simplificadas ou recortadas) em memória.
+     * @param objectMapper           O ObjectMapper da aplicação, utilizado na redução das malhas.
+     */
+    @Autowired
+    public MalhaMunicipioService(IBGEService ibgeService,
+                                 @Value("${ibge.malha.cache.diretorio:${java.io.tmpdir}/projeto-integrador/malhas}") Path diretorio,
+                                 @Value("${ibge.malha.cache.tamanho-maximo:100}") int tamanhoMaximo,
+                                 @Value("${ibge.malha.cache.ttl:1h}") Duration ttlMemoria,
+                                 @Value("${ibge.malha.revalidar-apos:30d}") Duration revalidarApos,
+                                 @Value("${ibge.requisicoes-simultaneas:4}") int requisicoesSimultaneas,
+                                 @Value("${ibge.espera-requisicao:500ms}") Duration esperaRequisicao,
+                                 @Value("${ibge.malha.cache.tamanho-reduzidas:500}") int tamanhoReduzidas,
+                                 ObjectMapper objectMapper) {
+        this(ibgeService, diretorio, tamanhoMaximo, ttlMemoria, revalidarApos, requisicoesSimultaneas,
+                esperaRequisicao, tamanhoReduzidas, objectMapper, Clock.systemUTC());
+    }
+
+    MalhaMunicipioService(IBGEService ibgeService, Path diretorio, int tamanhoMaximo, Duration ttlMemoria,
+                          Duration revalidarApos, int requisicoesSimultaneas, Duration esperaRequisicao,
+                          int tamanhoReduzidas, ObjectMapper objectMapper, Clock relogio) {
+        if (requisicoesSimultaneas < 1) {
+            throw new IllegalArgumentException("O limite de requisições simultâneas ao IBGE deve ser maior que 0.");
+        }
+        this.ibgeService = ibgeService;
+        this.diretorio = diretorio.toAbsolutePath().normalize();
+        this.revalidarApos = revalidarApos;
+        this.relogio = relogio;
+        this.memoria = new CacheConsulta<>("malhas-ibge", tamanhoMaximo, ttlMemoria);
+        this.reduzidas = new CacheConsulta<>("malhas-ibge-reduzidas", tamanhoReduzidas, ttlMemoria);
+        this.simplificador = new SimplificadorMalha(objectMapper);
+        this.requisicoesIbge = new Semaphore(requisicoesSimultaneas);
+        this.esperaRequisicao = esperaRequisicao;
+    }
+
+    /**
+     * Obtém a malha de um município: da memória, do disco ou, na ausência ou vencimento da cópia local, do IBGE.
+     *
+     * @param municipioId O código IBGE do município, com 6 ou 7 dígitos.
+     * @return A malha do município.
+     * @throws IllegalArgumentException  Se o código do município for inválido.
+     * @throws ResourceNotFoundException Se o IBGE não tiver a malha do município.
+     * @throws RestClientException       Se o IBGE estiver indisponível e não houver cópia local.
+     * @throws ServiceUnavailableException Se o limite de requisições ao IBGE for atingido e não houver cópia local.
+     */
+    public MalhaMunicipio getMalha(String municipioId) {
+        if (municipioId == null || !ID_MUNICIPIO.matcher(municipioId).matches()) {
+            throw new IllegalArgumentException("O ID do município deve ter 6 ou 7 dígitos.");
+        }
+        return memoria.obter(municipioId, () -> carregar(municipioId));
+    }
+
+    /**
+     * Obtém a malha de um município reduzida para o mapa: simplificada, recortada e com as coordenadas
+     * arredondadas conforme as opções. Sem opções, retorna a malha original.
+     *
+     * @param municipioId O código IBGE do município, com 6 ou 7 dígitos.
+     * @param opcoes      As opções de redução.
+     * @return A malha reduzida, com o seu próprio ETag.
+     * @throws IllegalArgumentException Se o código do município for inválido.
+     */
+    public MalhaMunicipio getMalha(String municipioId, OpcoesMalha opcoes) {
+        MalhaMunicipio original = getMalha(municipioId);
+        if (opcoes == null || opcoes.vazias()) {
+            return original;
+        }
+        return reduzidas.obter(new ChaveMalhaReduzida(original.etag(), opcoes), () -> reduzir(original, opcoes));
+    }
+
+    /**
+     * Retorna as estatísticas do cache em memória.
+     */
+    public EstatisticasCacheDTO estatisticas() {
+        return memoria.estatisticas();
+    }
+
+    /**
+     * Retorna as estatísticas do cache de malhas reduzidas.
+     */
+    public EstatisticasCacheDTO estatisticasReduzidas() {
+        return reduzidas.estatisticas();
+    }
+
+    private MalhaMunicipio reduzir(MalhaMunicipio original, OpcoesMalha opcoes) {
+        byte[] gzip = MalhaMunicipio.comprimir(simplificador.processar(original.geoJson(), opcoes));
+        return new MalhaMunicipio(gzip, CacheDisco.etag(gzip), original.etagOrigem(), original.ultimaModificacao(),
+                original.validadaEm());
+    }
+
+    private MalhaMunicipio carregar(String municipioId) {
+        MalhaMunicipio local = lerDisco(municipioId);
+        if (local != null && !local.validadaEm().plus(revalidarApos).isBefore(relogio.instant())) {
+            return local;
+        }
+        if (!reservarRequisicao()) {
+            if (local == null) {
+                throw new ServiceUnavailableException("Limite de requisições ao IBGE atingido; tente novamente em instantes.");
+            }
+            return local;
+        }
+        IBGEService.RespostaMalha resposta;
+        try {
+            resposta = local == null
+                    ? ibgeService.buscarMalha(municipioId, null, null)
+                    : ibgeService.buscarMalha(municipioId, local.etagOrigem(), local.ultimaModificacao());
+        } catch (HttpClientErrorException.NotFound e) {
+            throw new ResourceNotFoundException("Município não encontrado para o ID especificado: " + municipioId, e);
+        } catch (RestClientException e) {
+            if (local == null) {
+                throw e;
+            }
+            log.warn("Erro ao revalidar a malha do município {}; servindo a cópia local de {}.",
+                    municipioId, local.validadaEm(), e);
+            return local;
+        } finally {
+            requisicoesIbge.release();
+        }
+
+        MalhaMunicipio malha;
+        if (resposta.naoModificada() && local != null) {
+            malha = local.revalidada(relogio.instant());
+        } else if (resposta.conteudo() == null || resposta.conteudo().length == 0) {
+            throw new ResourceNotFoundException("Município não encontrado para o ID especificado: " + municipioId);
+        } else {
+            byte[] gzip = resposta.gzip() ? resposta.conteudo() : MalhaMunicipio.comprimir(resposta.conteudo());
+            malha = new MalhaMunicipio(gzip, CacheDisco.etag(gzip), resposta.etag(), resposta.ultimaModificacao(),
+                    relogio.instant());
+        }
+        gravarDisco(municipioId, malha, local == null || malha.geoJsonGzip() != local.geoJsonGzip());
+        return malha;
+    }
+
+    private boolean reservarRequisicao() {
+        try {
+            return requisicoesIbge.tryAcquire(esperaRequisicao.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private MalhaMunicipio lerDisco(String municipioId) {
+        try {
+            byte[] gzip = Files.readAllBytes(diretorio.resolve(municipioId + ".geojson.gz"));
+            Properties metadados = new Properties();
+            metadados.load(new StringReader(Files.readString(diretorio.resolve(municipioId + ".properties"),
+                    StandardCharsets.UTF_8)));
+            String validadaEm = metadados.getProperty("validada-em");
+            if (validadaEm == null) {
+                return null;
+            }
+            return new MalhaMunicipio(gzip, CacheDisco.etag(gzip), metadados.getProperty("etag"),
+                    metadados.getProperty("ultima-modificacao"), Instant.parse(validadaEm));
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | DateTimeParseException e) {
+            log.warn("Cópia local da malha do município {} inválida; será obtida novamente.", municipioId, e);
+            return null;
+        }
+    }
+
+    /**
+     * Grava a malha (se o conteúdo mudou) e depois os metadados, que só passam a existir com a malha completa.
+     */
+    private void gravarDisco(String municipioId, MalhaMunicipio malha, boolean conteudoAlterado) {
+        Properties metadados = new Properties();
+        if (malha.etagOrigem() != null) {
+            metadados.setProperty("etag", malha.etagOrigem());
+        }
+        if (malha.ultimaModificacao() != null) {
+            metadados.setProperty("ultima-modificacao", malha.ultimaModificacao());
+        }
+        metadados.setProperty("validada-em", malha.validadaEm().toString());
+        try {
+            if (conteudoAlterado) {
+                CacheDisco.gravarAtomicamente(diretorio.resolve(municipioId + ".geojson.gz"), malha.geoJsonGzip());
+            }
+            StringWriter texto = new StringWriter();
+            metadados.store(texto, "Malha IBGE do município " + municipioId);
+            CacheDisco.gravarAtomicamente(diretorio.resolve(municipioId + ".properties"),
+                    texto.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            log.warn("Erro ao gravar a cópia local da malha do município {}.", municipioId, e);
+        }
+    }
+}
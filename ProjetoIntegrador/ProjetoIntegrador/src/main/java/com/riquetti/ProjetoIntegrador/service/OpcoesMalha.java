@@ -0,0 +1,80 @@
+package com.riquetti.ProjetoIntegrador.service;
+
+/**
+ * Opções de redução da malha de um município antes do envio ao mapa.
+ *
+ * @param toleranciaMetros Tolerância da simplificação Douglas-Peucker, em metros; null para não simplificar.
+ * @param casasDecimais    Casas decimais mantidas nas coordenadas; null para manter a precisão original.
+ * @param oeste            Longitude mínima do retângulo de recorte; null para não recortar.
+ * @param sul              Latitude mínima do retângulo de recorte.
+ * @param leste            Longitude máxima do retângulo de recorte.
+ * @param norte            Latitude máxima do retângulo de recorte.
+ */
+public record OpcoesMalha(Double toleranciaMetros, Integer casasDecimais,
+                          Double oeste, Double sul, Double leste, Double norte) {
+
+    /**
+     * Maior tolerância aceita, em metros.
+     */
+    public static final double TOLERANCIA_MAXIMA = 10_000;
+
+    private static final String MENSAGEM_BBOX =
+            "O bbox deve ser 'oeste,sul,leste,norte' em graus, com oeste < leste e sul < norte.";
+
+    public OpcoesMalha {
+        if (toleranciaMetros != null && !(toleranciaMetros >= 0 && toleranciaMetros <= TOLERANCIA_MAXIMA)) {
+            throw new IllegalArgumentException("A tolerância deve estar entre 0 e " + (int) TOLERANCIA_MAXIMA + " metros.");
+        }
+        if (casasDecimais != null && (casasDecimais < 0 || casasDecimais > 10)) {
+            throw new IllegalArgumentException("A precisão deve estar entre 0 e 10 casas decimais.");
+        }
+        if (oeste != null || sul != null || leste != null || norte != null) {
+            if (oeste == null || sul == null || leste == null || norte == null
+                    || !(oeste >= -180 && leste <= 180 && sul >= -90 && norte <= 90 && oeste < leste && sul < norte)) {
+                throw new IllegalArgumentException(MENSAGEM_BBOX);
+            }
+        }
+    }
+
+    /**
+     * Cria as opções a partir dos parâmetros da requisição.
+     *
+     * @param toleranciaMetros Tolerância da simplificação em metros, ou null.
+     * @param casasDecimais    Casas decimais das coordenadas, ou null.
+     * @param bbox             Retângulo de recorte no formato "oeste,sul,leste,norte", ou null.
+     * @return As opções validadas.
+     * @throws IllegalArgumentException Se algum parâmetro for inválido.
+     */
+    public static OpcoesMalha de(Double toleranciaMetros, Integer casasDecimais, String bbox) {
+        if (bbox == null || bbox.isBlank()) {
+            return new OpcoesMalha(toleranciaMetros, casasDecimais, null, null, null, null);
+        }
+        String[] partes = bbox.split(",");
+        if (partes.length != 4) {
+            throw new IllegalArgumentException(MENSAGEM_BBOX);
+        }
+        double[] valores = new double[4];
+        try {
+            for (int i = 0; i < 4; i++) {
+                valores[i] = Double.parseDouble(partes[i].trim());
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(MENSAGEM_BBOX);
+        }
+        return new OpcoesMalha(toleranciaMetros, casasDecimais, valores[0], valores[1], valores[2], valores[3]);
+    }
+
+    /**
+     * Indica que nenhuma redução foi solicitada, e a malha original pode ser enviada.
+     */
+    public boolean vazias() {
+        return (toleranciaMetros == null || toleranciaMetros == 0) && casasDecimais == null && oeste == null;
+    }
+
+    /**
+     * Indica que a malha deve ser recortada por um retângulo.
+     */
+    public boolean recortar() {
+        return oeste != null;
+    }
+}
@@ -0,0 +1,320 @@
+package com.riquetti.ProjetoIntegrador.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.riquetti.ProjetoIntegrador.dto.RelatorioJobDTO;
+import com.riquetti.ProjetoIntegrador.entity.BlocoRelatorio;
+import com.riquetti.ProjetoIntegrador.entity.RelatorioJob;
+import com.riquetti.ProjetoIntegrador.exception.ResourceNotFoundException;
+import com.riquetti.ProjetoIntegrador.mapper.RelatorioJobMapper;
+import com.riquetti.ProjetoIntegrador.repository.LocalizacaoComercioRepository;
+import com.riquetti.ProjetoIntegrador.repository.RelatorioJobRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serviço dos relatórios de todos os comércios executados em segundo plano.
+ *
+ * O relatório é dividido em blocos de comércios consecutivos (por id_comercio), executados em paralelo
+ * por um conjunto limitado de threads, cada bloco com a sua própria conexão do pool de análise. O resultado
+ * de cada bloco é gravado em disco (NDJSON) e o bloco é marcado como concluído no banco de dados; assim o
+ * progresso pode ser consultado durante a execução e, se a aplicação reiniciar, apenas os blocos pendentes
+ * são executados novamente. Concluídos todos os blocos, o resultado pode ser baixado em JSON ou CSV.
+ *
+ * Os arquivos dos blocos ficam em `relatorios.diretorio`, que deve ser um diretório persistente: o padrão, no
+ * diretório temporário do sistema, pode ser esvaziado pelo sistema operacional ou por um novo contêiner. Blocos
+ * concluídos cujo arquivo não existe mais são reabertos e executados novamente, na retomada e no download.
+ */
+@Service
+public class RelatorioJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(RelatorioJobService.class);
+
+    static final String PENDENTE = "PENDENTE";
+    static final String EXECUTANDO = "EXECUTANDO";
+    static final String CONCLUIDO = "CONCLUIDO";
+    static final String FALHOU = "FALHOU";
+
+    private final RelatorioJobRepository repository;
+    private final LocalizacaoComercioRepository localizacaoRepository;
+    private final ComercioRaioViasService viasService;
+    private final ComercioRaioAvenidaService avenidaService;
+    private final ComercioDadosIbgeService dadosIbgeService;
+    private final ObjectMapper objectMapper;
+    private final EscritorRelatorio escritor;
+    private final TransactionTemplate transacao;
+    private final Path diretorio;
+    private final int tamanhoBloco;
+    private final ExecutorService executor;
+    private final RelatorioJobMapper mapper = RelatorioJobMapper.INSTANCE;
+
+    /**
+     * @param repository            Repositório dos relatórios e blocos.
+     * @param localizacaoRepository Repositório dos comércios, utilizado para dividir o relatório em blocos.
+     * @param viasService           Serviço da acessibilidade das vias.
+     * @param avenidaService        Serviço da contagem de avenidas.
+     * @param dadosIbgeService      Serviço dos dados do IBGE.
+     * @param objectMapper          O ObjectMapper da aplicação, utilizado para gravar os resultados.
+     * @param transactionManager    O gerenciador de transações padrão, utilizado na criação do relatório.
+     * @param diretorio             Diretório dos resultados dos blocos.
+     * @param tamanhoBloco          Quantidade de comércios por bloco.
+     * @param execucoesSimultaneas  Quantidade de blocos executados ao mesmo tempo.
+     */
+    public RelatorioJobService(RelatorioJobRepository repository,
+                               LocalizacaoComercioRepository localizacaoRepository,
+                               ComercioRaioViasService viasService,
+                               ComercioRaioAvenidaService avenidaService,
+                               ComercioDadosIbgeService dadosIbgeService,
+                               ObjectMapper objectMapper,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${relatorios.diretorio:${java.io.tmpdir}/projeto-integrador/relatorios}") Path diretorio,
+                               @Value("${relatorios.tamanho-bloco:100}") int tamanhoBloco,
+                               @Value("${relatorios.execucoes-simultaneas:3}") int execucoesSimultaneas) {
+        if (tamanhoBloco < 1 || execucoesSimultaneas < 1) {
+            throw new IllegalArgumentException("O tamanho do bloco e as execuções simultâneas dos relatórios devem ser maiores que 0.");
+        }
+        this.repository = repository;
+        this.localizacaoRepository = localizacaoRepository;
+        this.viasService = viasService;
+        this.avenidaService = avenidaService;
+        this.dadosIbgeService = dadosIbgeService;
+        this.objectMapper = objectMapper;
+        this.escritor = new EscritorRelatorio(objectMapper);
+        this.transacao = new TransactionTemplate(transactionManager);
+        this.diretorio = diretorio;
+        this.tamanhoBloco = tamanhoBloco;
+        AtomicInteger contador = new AtomicInteger();
+        ThreadFactory fabrica = tarefa -> {
+            Thread thread = new Thread(tarefa, "relatorio-" + contador.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        this.executor = Executors.newFixedThreadPool(execucoesSimultaneas, fabrica);
+    }
+
+    /**
+     * Cria um relatório e agenda a execução dos seus blocos.
+     *
+     * @param tipo           O tipo do relatório ("vias", "avenidas" ou "dados-ibge").
+     * @param raioAcaoMetros O raio de ação em metros, obrigatório no relatório "dados-ibge".
+     * @return A situação inicial do relatório, com o ID para acompanhamento.
+     * @throws IllegalArgumentException Se o tipo ou o raio forem inválidos.
+     */
+    public RelatorioJobDTO submeter(String tipo, Double raioAcaoMetros) {
+        TipoRelatorio tipoRelatorio = TipoRelatorio.de(tipo);
+        BigDecimal raio = null;
+        if (tipoRelatorio == TipoRelatorio.DADOS_IBGE) {
+            if (raioAcaoMetros == null || !(raioAcaoMetros > 0)) {
+                throw new IllegalArgumentException("O raio de ação deve ser um número positivo e não nulo.");
+            }
+            raio = BigDecimal.valueOf(raioAcaoMetros);
+        }
+
+        List<BlocoRelatorio> blocos = dividir(localizacaoRepository.findAllIds(), tamanhoBloco);
+        RelatorioJob relatorio = new RelatorioJob();
+        relatorio.setIdJob(UUID.randomUUID());
+        relatorio.setTipo(tipoRelatorio.nome());
+        relatorio.setRaioAcaoMetros(raio);
+        relatorio.setStatus(PENDENTE);
+        relatorio.setTotal(blocos.stream().mapToInt(BlocoRelatorio::quantidade).sum());
+        transacao.executeWithoutResult(status -> repository.save(relatorio, blocos));
+
+        // Agendado após o commit, para que os blocos encontrem o relatório gravado
+        agendar(relatorio.getIdJob(), tipoRelatorio, raio, blocos);
+        return consultar(relatorio.getIdJob());
+    }
+
+    /**
+     * Consulta a situação e o progresso de um relatório.
+     *
+     * @param idJob O ID do relatório.
+     * @return A situação do relatório.
+     * @throws ResourceNotFoundException Se o relatório não existir.
+     */
+    public RelatorioJobDTO consultar(UUID idJob) {
+        return mapper.toDTO(buscar(idJob));
+    }
+
+    /**
+     * Escreve o resultado de um relatório concluído a partir dos arquivos dos seus blocos.
+     *
+     * @param formato  JSON ou CSV.
+     * @param arquivos Os arquivos retornados por {@link #arquivosResultado(UUID)}.
+     * @param saida    Destino do resultado.
+     */
+    public void escreverResultado(FormatoRelatorio formato, List<Path> arquivos, OutputStream saida) {
+        try {
+            escritor.escrever(formato, arquivos, saida);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Retorna os arquivos dos blocos de um relatório concluído, na ordem dos IDs de comércio.
+     *
+     * @param idJob O ID do relatório.
+     * @return Os arquivos NDJSON dos blocos.
+     * @throws ResourceNotFoundException Se o relatório não existir.
+     * @throws IllegalStateException     Se o relatório ainda não estiver concluído, ou se arquivos de blocos
+     *                                   foram perdidos e os blocos estão sendo executados novamente.
+     */
+    public List<Path> arquivosResultado(UUID idJob) {
+        RelatorioJob relatorio = buscar(idJob);
+        if (!CONCLUIDO.equals(relatorio.getStatus())) {
+            throw new IllegalStateException("O relatório não está concluído (situação: " + relatorio.getStatus() + ").");
+        }
+        List<BlocoRelatorio> perdidos = reabrirPerdidos(idJob);
+        if (!perdidos.isEmpty()) {
+            agendar(idJob, TipoRelatorio.de(relatorio.getTipo()), relatorio.getRaioAcaoMetros(), perdidos);
+            throw new IllegalStateException("Os resultados de " + perdidos.size()
+                    + " blocos do relatório não foram encontrados e estão sendo calculados novamente.");
+        }
+        List<Path> arquivos = new ArrayList<>();
+        for (BlocoRelatorio bloco : repository.findBlocos(idJob, false)) {
+            arquivos.add(arquivoBloco(idJob, bloco.bloco()));
+        }
+        return arquivos;
+    }
+
+    /**
+     * Retoma, na inicialização da aplicação, os blocos pendentes dos relatórios interrompidos.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void retomar() {
+        for (UUID idJob : repository.findIdsEmAndamento()) {
+            RelatorioJob relatorio = repository.findById(idJob);
+            reabrirPerdidos(idJob);
+            List<BlocoRelatorio> pendentes = repository.findBlocos(idJob, true);
+            BigDecimal raio = relatorio.getRaioAcaoMetros();
+            log.info("Retomando o relatório {} ({}) com {} blocos pendentes.", idJob, relatorio.getTipo(), pendentes.size());
+            if (pendentes.isEmpty()) {
+                repository.concluirSeCompleto(idJob);
+            } else {
+                agendar(idJob, TipoRelatorio.de(relatorio.getTipo()), raio, pendentes);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Divide os IDs de comércio, em ordem crescente, em faixas com até "tamanho" comércios.
+     *
+     * @param ids     Os IDs dos comércios, em ordem crescente.
+     * @param tamanho Quantidade máxima de comércios por bloco.
+     * @return Os blocos, numerados a partir de 0.
+     */
+    static List<BlocoRelatorio> dividir(List<Long> ids, int tamanho) {
+        List<BlocoRelatorio> blocos = new ArrayList<>();
+        for (int inicio = 0; inicio < ids.size(); inicio += tamanho) {
+            int fim = Math.min(inicio + tamanho, ids.size());
+            blocos.add(new BlocoRelatorio(blocos.size(), ids.get(inicio), ids.get(fim - 1), fim - inicio));
+        }
+        return blocos;
+    }
+
+    /**
+     * Reabre os blocos concluídos de um relatório cujo arquivo de resultado não existe mais.
+     *
+     * @param idJob O ID do relatório.
+     * @return Os blocos reabertos.
+     */
+    private List<BlocoRelatorio> reabrirPerdidos(UUID idJob) {
+        List<Integer> pendentes = repository.findBlocos(idJob, true).stream().map(BlocoRelatorio::bloco).toList();
+        List<BlocoRelatorio> perdidos = repository.findBlocos(idJob, false).stream()
+                .filter(bloco -> !pendentes.contains(bloco.bloco()))
+                .filter(bloco -> !Files.exists(arquivoBloco(idJob, bloco.bloco())))
+                .toList();
+        if (!perdidos.isEmpty()) {
+            log.warn("{} blocos concluídos do relatório {} sem arquivo de resultado em {}; serão executados novamente.",
+                    perdidos.size(), idJob, diretorio);
+            transacao.executeWithoutResult(status -> repository.reabrir(idJob, perdidos));
+        }
+        return perdidos;
+    }
+
+    private void agendar(UUID idJob, TipoRelatorio tipo, BigDecimal raio, List<BlocoRelatorio> blocos) {
+        if (blocos.isEmpty()) {
+            repository.concluirSeCompleto(idJob);
+            return;
+        }
+        for (BlocoRelatorio bloco : blocos) {
+            executor.execute(() -> executar(idJob, tipo, raio, bloco));
+        }
+    }
+
+    private void executar(UUID idJob, TipoRelatorio tipo, BigDecimal raio, BlocoRelatorio bloco) {
+        try {
+            String status = repository.findStatus(idJob);
+            if (!PENDENTE.equals(status) && !EXECUTANDO.equals(status)) {
+                return;
+            }
+            repository.iniciar(idJob);
+            List<?> linhas = switch (tipo) {
+                case VIAS -> viasService.findViasDistanciaEntre(bloco.idInicial(), bloco.idFinal());
+                case AVENIDAS -> avenidaService.findEntre(bloco.idInicial(), bloco.idFinal());
+                case DADOS_IBGE -> dadosIbgeService.getLocalizacaoComercioWithRaioEntre(
+                        raio.doubleValue(), bloco.idInicial(), bloco.idFinal());
+            };
+            gravar(arquivoBloco(idJob, bloco.bloco()), linhas);
+            repository.concluirBloco(idJob, bloco.bloco());
+            if (repository.concluirSeCompleto(idJob) > 0) {
+                log.info("Relatório {} ({}) concluído.", idJob, tipo.nome());
+            }
+        } catch (RuntimeException | IOException e) {
+            log.error("Falha no bloco {} do relatório {}.", bloco.bloco(), idJob, e);
+            try {
+                repository.falhar(idJob, "Falha no bloco " + bloco.bloco() + ": " + e.getMessage());
+            } catch (RuntimeException falha) {
+                log.error("Não foi possível registrar a falha do relatório {}.", idJob, falha);
+            }
+        }
+    }
+
+    private void gravar(Path arquivo, List<?> linhas) throws IOException {
+        ByteArrayOutputStream conteudo = new ByteArrayOutputStream();
+        for (Object linha : linhas) {
+            objectMapper.writeValue(conteudo, linha);
+            conteudo.write('\n');
+        }
+        CacheDisco.gravarAtomicamente(arquivo, conteudo.toByteArray());
+    }
+
+    private Path arquivoBloco(UUID idJob, int bloco) {
+        return diretorio.resolve(idJob.toString()).resolve("bloco-" + bloco + ".ndjson");
+    }
+
+    private RelatorioJob buscar(UUID idJob) {
+        try {
+            return repository.findById(idJob);
+        } catch (EmptyResultDataAccessException e) {
+            throw new ResourceNotFoundException("Relatório não encontrado: " + idJob);
+        }
+    }
+}
@@ -0,0 +1,454 @@
+package com.riquetti.ProjetoIntegrador.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Reduz um GeoJSON para exibição no mapa: simplificação Douglas-Peucker com tolerância em metros,
+ * recorte por um retângulo e arredondamento das coordenadas.
+ *
+ * A simplificação é feita em uma projeção local equirretangular (metros a partir da latitude do anel),
+ * suficiente para a escala de um município. Anéis de polígonos que ficariam com menos de 4 vértices
+ * são descartados (o anel externo descarta o polígono), assim como as feições que ficam fora do recorte.
+ * Os polígonos são recortados com Sutherland-Hodgman e as linhas com Liang-Barsky.
+ */
+final class SimplificadorMalha {
+
+    private static final double METROS_POR_GRAU_LATITUDE = 110_574;
+    private static final double METROS_POR_GRAU_LONGITUDE = 111_320;
+
+    private final ObjectMapper objectMapper;
+
+    SimplificadorMalha(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Aplica as opções a um GeoJSON (FeatureCollection, Feature ou geometria).
+     *
+     * @param geoJson O GeoJSON em UTF-8.
+     * @param opcoes  As opções de redução.
+     * @return O GeoJSON reduzido, em UTF-8.
+     * @throws IllegalArgumentException Se o conteúdo não for um GeoJSON válido.
+     */
+    byte[] processar(byte[] geoJson, OpcoesMalha opcoes) {
+        JsonNode raiz;
+        try {
+            raiz = objectMapper.readTree(geoJson);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("GeoJSON inválido: " + e.getMessage(), e);
+        }
+        if (!(raiz instanceof ObjectNode objeto)) {
+            throw new IllegalArgumentException("GeoJSON inválido: o conteúdo deve ser um objeto.");
+        }
+        processarObjeto(objeto, opcoes);
+        try {
+            return objectMapper.writeValueAsBytes(objeto);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Processa o objeto no lugar; retorna false quando ele ficou vazio e deve ser descartado.
+     */
+    private boolean processarObjeto(ObjectNode objeto, OpcoesMalha opcoes) {
+        objeto.remove("bbox");
+        String tipo = objeto.path("type").asText();
+        switch (tipo) {
+            case "FeatureCollection" -> {
+                Iterator<JsonNode> feicoes = objeto.withArray("features").elements();
+                while (feicoes.hasNext()) {
+                    JsonNode feicao = feicoes.next();
+                    if (feicao instanceof ObjectNode feicaoObjeto && !processarObjeto(feicaoObjeto, opcoes)) {
+                        feicoes.remove();
+                    }
+                }
+                return true;
+            }
+            case "Feature" -> {
+                return objeto.get("geometry") instanceof ObjectNode geometria && processarObjeto(geometria, opcoes);
+            }
+            case "GeometryCollection" -> {
+                Iterator<JsonNode> geometrias = objeto.withArray("geometries").elements();
+                while (geometrias.hasNext()) {
+                    JsonNode geometria = geometrias.next();
+                    if (geometria instanceof ObjectNode geometriaObjeto && !processarObjeto(geometriaObjeto, opcoes)) {
+                        geometrias.remove();
+                    }
+                }
+                return !objeto.withArray("geometries").isEmpty();
+            }
+            default -> {
+                return processarGeometria(objeto, tipo, opcoes);
+            }
+        }
+    }
+
+    private boolean processarGeometria(ObjectNode geometria, String tipo, OpcoesMalha opcoes) {
+        JsonNode coordenadas = geometria.path("coordinates");
+        switch (tipo) {
+            case "Point" -> {
+                double[] ponto = ponto(coordenadas);
+                if (!dentro(ponto, opcoes)) {
+                    return false;
+                }
+                geometria.set("coordinates", escrever(arredondar(List.of(ponto), opcoes).get(0)));
+                return true;
+            }
+            case "MultiPoint" -> {
+                ArrayNode pontos = objectMapper.createArrayNode();
+                for (JsonNode coordenada : coordenadas) {
+                    double[] ponto = ponto(coordenada);
+                    if (dentro(ponto, opcoes)) {
+                        pontos.add(escrever(arredondar(List.of(ponto), opcoes).get(0)));
+                    }
+                }
+                geometria.set("coordinates", pontos);
+                return !pontos.isEmpty();
+            }
+            case "LineString", "MultiLineString" -> {
+                List<List<double[]>> linhas = new ArrayList<>();
+                if (tipo.equals("LineString")) {
+                    linhas.addAll(processarLinha(linha(coordenadas), opcoes));
+                } else {
+                    for (JsonNode coordenada : coordenadas) {
+                        linhas.addAll(processarLinha(linha(coordenada), opcoes));
+                    }
+                }
+                if (linhas.isEmpty()) {
+                    return false;
+                }
+                if (linhas.size() == 1) {
+                    geometria.put("type", "LineString");
+                    geometria.set("coordinates", escrever(linhas.get(0)));
+                } else {
+                    ArrayNode multi = objectMapper.createArrayNode();
+                    linhas.forEach(parte -> multi.add(escrever(parte)));
+                    geometria.put("type", "MultiLineString");
+                    geometria.set("coordinates", multi);
+                }
+                return true;
+            }
+            case "Polygon" -> {
+                ArrayNode poligono = processarPoligono(coordenadas, opcoes);
+                if (poligono == null) {
+                    return false;
+                }
+                geometria.set("coordinates", poligono);
+                return true;
+            }
+            case "MultiPolygon" -> {
+                ArrayNode poligonos = objectMapper.createArrayNode();
+                for (JsonNode coordenada : coordenadas) {
+                    ArrayNode poligono = processarPoligono(coordenada, opcoes);
+                    if (poligono != null) {
+                        poligonos.add(poligono);
+                    }
+                }
+                geometria.set("coordinates", poligonos);
+                return !poligonos.isEmpty();
+            }
+            default -> throw new IllegalArgumentException("GeoJSON inválido: tipo de geometria desconhecido '" + tipo + "'.");
+        }
+    }
+
+    private ArrayNode processarPoligono(JsonNode aneis, OpcoesMalha opcoes) {
+        ArrayNode poligono = objectMapper.createArrayNode();
+        boolean externo = true;
+        for (JsonNode coordenadas : aneis) {
+            List<double[]> anel = linha(coordenadas);
+            anel = simplificar(anel, opcoes, true);
+            if (opcoes.recortar()) {
+                anel = recortarAnel(anel, opcoes);
+            }
+            anel = arredondar(anel, opcoes);
+            if (anel.size() > 0 && !igual(anel.get(0), anel.get(anel.size() - 1))) {
+                anel.add(anel.get(0));
+            }
+            if (anel.size() < 4) {
+                if (externo) {
+                    return null;
+                }
+            } else {
+                poligono.add(escrever(anel));
+            }
+            externo = false;
+        }
+        return poligono.isEmpty() ? null : poligono;
+    }
+
+    private List<List<double[]>> processarLinha(List<double[]> linha, OpcoesMalha opcoes) {
+        List<double[]> simplificada = simplificar(linha, opcoes, false);
+        List<List<double[]>> partes = opcoes.recortar() ? recortarLinha(simplificada, opcoes) : List.of(simplificada);
+        List<List<double[]>> resultado = new ArrayList<>();
+        for (List<double[]> parte : partes) {
+            List<double[]> arredondada = arredondar(parte, opcoes);
+            if (arredondada.size() >= 2) {
+                resultado.add(arredondada);
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * Douglas-Peucker iterativo. Em anéis fechados, o anel é dividido no vértice mais distante do
+     * primeiro, para que os dois trechos tenham extremidades distintas.
+     */
+    static List<double[]> simplificar(List<double[]> pontos, OpcoesMalha opcoes, boolean anel) {
+        Double tolerancia = opcoes.toleranciaMetros();
+        if (tolerancia == null || tolerancia == 0 || pontos.size() < 3) {
+            return pontos;
+        }
+        double escalaX = METROS_POR_GRAU_LONGITUDE * Math.cos(Math.toRadians(pontos.get(0)[1]));
+        int n = pontos.size();
+        boolean[] manter = new boolean[n];
+        manter[0] = true;
+        manter[n - 1] = true;
+        if (anel && igual(pontos.get(0), pontos.get(n - 1))) {
+            int maisDistante = 0;
+            double maiorDistancia = -1;
+            for (int i = 1; i < n - 1; i++) {
+                double dx = (pontos.get(i)[0] - pontos.get(0)[0]) * escalaX;
+                double dy = (pontos.get(i)[1] - pontos.get(0)[1]) * METROS_POR_GRAU_LATITUDE;
+                double distancia = dx * dx + dy * dy;
+                if (distancia > maiorDistancia) {
+                    maiorDistancia = distancia;
+                    maisDistante = i;
+                }
+            }
+            manter[maisDistante] = true;
+            douglasPeucker(pontos, manter, 0, maisDistante, tolerancia, escalaX);
+            douglasPeucker(pontos, manter, maisDistante, n - 1, tolerancia, escalaX);
+        } else {
+            douglasPeucker(pontos, manter, 0, n - 1, tolerancia, escalaX);
+        }
+        List<double[]> resultado = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            if (manter[i]) {
+                resultado.add(pontos.get(i));
+            }
+        }
+        return resultado;
+    }
+
+    private static void douglasPeucker(List<double[]> pontos, boolean[] manter, int inicio, int fim,
+                                       double tolerancia, double escalaX) {
+        Deque<int[]> trechos = new ArrayDeque<>();
+        trechos.push(new int[]{inicio, fim});
+        while (!trechos.isEmpty()) {
+            int[] trecho = trechos.pop();
+            int a = trecho[0];
+            int b = trecho[1];
+            if (b - a < 2) {
+                continue;
+            }
+            double ax = pontos.get(a)[0] * escalaX;
+            double ay = pontos.get(a)[1] * METROS_POR_GRAU_LATITUDE;
+            double bx = pontos.get(b)[0] * escalaX;
+            double by = pontos.get(b)[1] * METROS_POR_GRAU_LATITUDE;
+            int maisDistante = -1;
+            double maiorDistancia = tolerancia;
+            for (int i = a + 1; i < b; i++) {
+                double distancia = distanciaSegmento(pontos.get(i)[0] * escalaX,
+                        pontos.get(i)[1] * METROS_POR_GRAU_LATITUDE, ax, ay, bx, by);
+                if (distancia > maiorDistancia) {
+                    maiorDistancia = distancia;
+                    maisDistante = i;
+                }
+            }
+            if (maisDistante >= 0) {
+                manter[maisDistante] = true;
+                trechos.push(new int[]{a, maisDistante});
+                trechos.push(new int[]{maisDistante, b});
+            }
+        }
+    }
+
+    private static double distanciaSegmento(double px, double py, double ax, double ay, double bx, double by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double comprimento = dx * dx + dy * dy;
+        double t = comprimento == 0 ? 0 : Math.max(0, Math.min(1, ((px - ax) * dx + (py - ay) * dy) / comprimento));
+        return Math.hypot(px - (ax + t * dx), py - (ay + t * dy));
+    }
+
+    /**
+     * Recorta um anel pelo retângulo (Sutherland-Hodgman), uma borda de cada vez.
+     */
+    static List<double[]> recortarAnel(List<double[]> anel, OpcoesMalha opcoes) {
+        List<double[]> resultado = aberto(anel);
+        for (int borda = 0; borda < 4 && !resultado.isEmpty(); borda++) {
+            List<double[]> entrada = resultado;
+            resultado = new ArrayList<>();
+            double[] anterior = entrada.get(entrada.size() - 1);
+            for (double[] atual : entrada) {
+                boolean atualDentro = dentroDaBorda(atual, borda, opcoes);
+                boolean anteriorDentro = dentroDaBorda(anterior, borda, opcoes);
+                if (atualDentro) {
+                    if (!anteriorDentro) {
+                        resultado.add(intersecao(anterior, atual, borda, opcoes));
+                    }
+                    resultado.add(atual);
+                } else if (anteriorDentro) {
+                    resultado.add(intersecao(anterior, atual, borda, opcoes));
+                }
+                anterior = atual;
+            }
+        }
+        if (!resultado.isEmpty()) {
+            resultado.add(resultado.get(0));
+        }
+        return resultado;
+    }
+
+    /**
+     * Recorta uma linha pelo retângulo (Liang-Barsky), dividindo-a nas partes que ficam dentro dele.
+     */
+    static List<List<double[]>> recortarLinha(List<double[]> linha, OpcoesMalha opcoes) {
+        List<List<double[]>> partes = new ArrayList<>();
+        List<double[]> atual = new ArrayList<>();
+        for (int i = 0; i + 1 < linha.size(); i++) {
+            double[] segmento = liangBarsky(linha.get(i), linha.get(i + 1), opcoes);
+            if (segmento == null) {
+                if (atual.size() >= 2) {
+                    partes.add(atual);
+                }
+                atual = new ArrayList<>();
+                continue;
+            }
+            double[] inicio = {segmento[0], segmento[1]};
+            double[] fim = {segmento[2], segmento[3]};
+            if (atual.isEmpty() || !igual(atual.get(atual.size() - 1), inicio)) {
+                if (atual.size() >= 2) {
+                    partes.add(atual);
+                }
+                atual = new ArrayList<>();
+                atual.add(inicio);
+            }
+            atual.add(fim);
+        }
+        if (atual.size() >= 2) {
+            partes.add(atual);
+        }
+        return partes;
+    }
+
+    private static double[] liangBarsky(double[] a, double[] b, OpcoesMalha opcoes) {
+        double dx = b[0] - a[0];
+        double dy = b[1] - a[1];
+        double[] p = {-dx, dx, -dy, dy};
+        double[] q = {a[0] - opcoes.oeste(), opcoes.leste() - a[0], a[1] - opcoes.sul(), opcoes.norte() - a[1]};
+        double t0 = 0;
+        double t1 = 1;
+        for (int i = 0; i < 4; i++) {
+            if (p[i] == 0) {
+                if (q[i] < 0) {
+                    return null;
+                }
+            } else {
+                double t = q[i] / p[i];
+                if (p[i] < 0) {
+                    t0 = Math.max(t0, t);
+                } else {
+                    t1 = Math.min(t1, t);
+                }
+            }
+        }
+        if (t0 > t1) {
+            return null;
+        }
+        return new double[]{a[0] + t0 * dx, a[1] + t0 * dy, a[0] + t1 * dx, a[1] + t1 * dy};
+    }
+
+    private static boolean dentroDaBorda(double[] ponto, int borda, OpcoesMalha opcoes) {
+        return switch (borda) {
+            case 0 -> ponto[0] >= opcoes.oeste();
+            case 1 -> ponto[0] <= opcoes.leste();
+            case 2 -> ponto[1] >= opcoes.sul();
+            default -> ponto[1] <= opcoes.norte();
+        };
+    }
+
+    private static double[] intersecao(double[] a, double[] b, int borda, OpcoesMalha opcoes) {
+        if (borda < 2) {
+            double x = borda == 0 ? opcoes.oeste() : opcoes.leste();
+            double t = (x - a[0]) / (b[0] - a[0]);
+            return new double[]{x, a[1] + t * (b[1] - a[1])};
+        }
+        double y = borda == 2 ? opcoes.sul() : opcoes.norte();
+        double t = (y - a[1]) / (b[1] - a[1]);
+        return new double[]{a[0] + t * (b[0] - a[0]), y};
+    }
+
+    /**
+     * Arredonda as coordenadas e remove os vértices consecutivos que ficaram iguais.
+     */
+    static List<double[]> arredondar(List<double[]> pontos, OpcoesMalha opcoes) {
+        List<double[]> resultado = new ArrayList<>(pontos.size());
+        for (double[] ponto : pontos) {
+            double[] arredondado = opcoes.casasDecimais() == null ? ponto
+                    : new double[]{arredondar(ponto[0], opcoes.casasDecimais()), arredondar(ponto[1], opcoes.casasDecimais())};
+            if (resultado.isEmpty() || !igual(resultado.get(resultado.size() - 1), arredondado)) {
+                resultado.add(arredondado);
+            }
+        }
+        return resultado;
+    }
+
+    private static double arredondar(double valor, int casas) {
+        double fator = Math.pow(10, casas);
+        return Math.round(valor * fator) / fator;
+    }
+
+    private static boolean dentro(double[] ponto, OpcoesMalha opcoes) {
+        return !opcoes.recortar() || (ponto[0] >= opcoes.oeste() && ponto[0] <= opcoes.leste()
+                && ponto[1] >= opcoes.sul() && ponto[1] <= opcoes.norte());
+    }
+
+    private static List<double[]> aberto(List<double[]> anel) {
+        List<double[]> resultado = new ArrayList<>(anel);
+        if (resultado.size() > 1 && igual(resultado.get(0), resultado.get(resultado.size() - 1))) {
+            resultado.remove(resultado.size() - 1);
+        }
+        return resultado;
+    }
+
+    private static boolean igual(double[] a, double[] b) {
+        return a[0] == b[0] && a[1] == b[1];
+    }
+
+    private static double[] ponto(JsonNode coordenada) {
+        if (!coordenada.isArray() || coordenada.size() < 2) {
+            throw new IllegalArgumentException("GeoJSON inválido: coordenada sem longitude e latitude.");
+        }
+        return new double[]{coordenada.get(0).asDouble(), coordenada.get(1).asDouble()};
+    }
+
+    private static List<double[]> linha(JsonNode coordenadas) {
+        List<double[]> pontos = new ArrayList<>(coordenadas.size());
+        for (JsonNode coordenada : coordenadas) {
+            pontos.add(ponto(coordenada));
+        }
+        return pontos;
+    }
+
+    private ArrayNode escrever(double[] ponto) {
+        return objectMapper.createArrayNode().add(ponto[0]).add(ponto[1]);
+    }
+
+    private ArrayNode escrever(List<double[]> pontos) {
+        ArrayNode array = objectMapper.createArrayNode();
+        pontos.forEach(ponto -> array.add(escrever(ponto)));
+        return array;
+    }
+}
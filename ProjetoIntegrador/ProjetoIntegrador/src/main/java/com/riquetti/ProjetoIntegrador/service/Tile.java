@@ -0,0 +1,105 @@
+package com.riquetti.ProjetoIntegrador.service;
+
+import com.riquetti.ProjetoIntegrador.entity.Ponto;
+
+/**
+ * Endereço de um tile no esquema XYZ (Web Mercator, EPSG:3857) utilizado pelo Leaflet e pelo OpenStreetMap.
+ *
+ * @param z Nível de zoom.
+ * @param x Coluna do tile, de 0 a 2^z - 1, a partir da longitude -180.
+ * @param y Linha do tile, de 0 a 2^z - 1, a partir do norte.
+ */
+public record Tile(int z, int x, int y) {
+
+    /**
+     * Maior nível de zoom aceito.
+     */
+    public static final int ZOOM_MAXIMO = 22;
+
+    /**
+     * Metade da largura do mundo em Web Mercator, em metros.
+     */
+    static final double LIMITE_MERCATOR = 20037508.342789244;
+
+    public Tile {
+        if (z < 0 || z > ZOOM_MAXIMO) {
+            throw new IllegalArgumentException("O zoom deve estar entre 0 e " + ZOOM_MAXIMO + ".");
+        }
+        int quantidade = 1 << z;
+        if (x < 0 || x >= quantidade || y < 0 || y >= quantidade) {
+            throw new IllegalArgumentException("As coordenadas x e y do tile devem estar entre 0 e " + (quantidade - 1) + ".");
+        }
+    }
+
+    /**
+     * Tile do nível de zoom que contém o ponto.
+     *
+     * @param ponto O ponto em WGS 84.
+     * @param z     O nível de zoom.
+     * @return O tile que contém o ponto; pontos além da latitude de ±85,05° ficam no tile da borda.
+     */
+    public static Tile contendo(Ponto ponto, int z) {
+        int quantidade = 1 << z;
+        double latitude = Math.toRadians(ponto.latitude());
+        double coluna = (ponto.longitude() + 180) / 360 * quantidade;
+        double linha = (1 - Math.log(Math.tan(latitude) + 1 / Math.cos(latitude)) / Math.PI) / 2 * quantidade;
+        return new Tile(z, limitar(coluna, quantidade), limitar(linha, quantidade));
+    }
+
+    /**
+     * Largura (e altura) do tile em metros Web Mercator.
+     */
+    public double tamanhoMercator() {
+        return 2 * LIMITE_MERCATOR / (1 << z);
+    }
+
+    /**
+     * Menor coordenada X (oeste) do tile em metros Web Mercator.
+     */
+    public double xMinimoMercator() {
+        return -LIMITE_MERCATOR + x * tamanhoMercator();
+    }
+
+    /**
+     * Maior coordenada Y (norte) do tile em metros Web Mercator.
+     */
+    public double yMaximoMercator() {
+        return LIMITE_MERCATOR - y * tamanhoMercator();
+    }
+
+    /**
+     * Longitude da borda oeste do tile.
+     */
+    public double longitudeMinima() {
+        return (double) x / (1 << z) * 360 - 180;
+    }
+
+    /**
+     * Longitude da borda leste do tile.
+     */
+    public double longitudeMaxima() {
+        return (double) (x + 1) / (1 << z) * 360 - 180;
+    }
+
+    /**
+     * Latitude da borda sul do tile.
+     */
+    public double latitudeMinima() {
+        return latitude(y + 1);
+    }
+
+    /**
+     * Latitude da borda norte do tile.
+     */
+    public double latitudeMaxima() {
+        return latitude(y);
+    }
+
+    private double latitude(int linha) {
+        return Math.toDegrees(Math.atan(Math.sinh(Math.PI * (1 - 2.0 * linha / (1 << z)))));
+    }
+
+    private static int limitar(double valor, int quantidade) {
+        return (int) Math.max(0, Math.min(quantidade - 1, Math.floor(valor)));
+    }
+}
@@ -0,0 +1,54 @@
+package com.riquetti.ProjetoIntegrador.service;
+
+import java.util.Locale;
+
+/**
+ * Relatórios de todos os comércios que podem ser executados em segundo plano.
+ */
+public enum TipoRelatorio {
+
+    /**
+     * Acessibilidade das vias por anéis de distância, como em /api/comercio-raio-vias/distancias.
+     */
+    VIAS("vias"),
+
+    /**
+     * Contagem de avenidas por anéis de distância, como em /api0/comercio-raio-avenida.
+     */
+    AVENIDAS("avenidas"),
+
+    /**
+     * Renda e moradores do IBGE em um raio informado, como em /api/comercios-dados/raio.
+     */
+    DADOS_IBGE("dados-ibge");
+
+    private final String nome;
+
+    TipoRelatorio(String nome) {
+        this.nome = nome;
+    }
+
+    /**
+     * Nome do relatório na requisição e no arquivo de resultado.
+     */
+    public String nome() {
+        return nome;
+    }
+
+    /**
+     * Identifica o relatório pelo nome informado na requisição.
+     *
+     * @param nome O nome do relatório ("vias", "avenidas" ou "dados-ibge").
+     * @return O tipo do relatório.
+     * @throws IllegalArgumentException Se o relatório não existir.
+     */
+    public static TipoRelatorio de(String nome) {
+        String procurado = nome == null ? "" : nome.trim().toLowerCase(Locale.ROOT);
+        for (TipoRelatorio tipo : values()) {
+            if (tipo.nome.equals(procurado)) {
+                return tipo;
+            }
+        }
+        throw new IllegalArgumentException("O tipo do relatório deve ser 'vias', 'avenidas' ou 'dados-ibge'.");
+    }
+}
@@ -136,7 +136,7 @@ public class UsuarioService {
      * @param email O email a ser validado.
      * @return {@code true} se o email for válido; {@code false} caso contrário.
      */
-    private boolean isValidEmail(String email) {
+    static boolean isValidEmail(String email) {
         String emailRegex = "^[\\w-\\.]+@[\\w-\\.]+\\.[a-zA-Z]{2,}$"; // Regex simples para validação de email
         return email.matches(emailRegex);
     }
@@ -0,0 +1,183 @@
+package com.riquetti.ProjetoIntegrador.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.riquetti.ProjetoIntegrador.dto.VerificacaoIndiceDTO;
+import com.riquetti.ProjetoIntegrador.repository.GradeRepository;
+import com.riquetti.ProjetoIntegrador.repository.IndiceEspacialRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Serviço que verifica se o planejador do PostgreSQL consegue utilizar os índices espaciais nas consultas
+ * das camadas analíticas.
+ *
+ * Cada consulta representativa é planejada (EXPLAIN, sem executar) com a varredura sequencial desabilitada:
+ * se ainda assim o plano percorrer a tabela sequencialmente, não existe índice utilizável para aquela
+ * expressão (índice ausente, sobre outra expressão ou com outro predicado). A verificação é executada na
+ * inicialização da aplicação, registrando um aviso para cada consulta sem índice, e sob demanda em
+ * /api/banco/indices.
+ */
+@Service
+public class VerificacaoIndicesService {
+
+    private static final Logger log = LoggerFactory.getLogger(VerificacaoIndicesService.class);
+
+    /**
+     * Ponto de referência em Limeira (SRID 4326) utilizado nas consultas verificadas.
+     */
+    private static final String PONTO = "ST_SetSRID(ST_MakePoint(-47.40, -22.56), 4326)";
+
+    /**
+     * O mesmo ponto projetado em SIRGAS 2000 / UTM 23S, comparado às colunas localizacao_utm e geom_utm.
+     */
+    private static final String PONTO_UTM = "ST_Transform(" + PONTO + ", " + GradeRepository.SRID_UTM + ")";
+
+    /**
+     * Município de Limeira, cuja partição é percorrida nas consultas das camadas particionadas.
+     */
+    private static final String MUNICIPIO = "'3526902'";
+
+    /**
+     * Consultas representativas: a descrição, a tabela percorrida e a consulta, com as mesmas expressões
+     * e predicados utilizados pelos repositórios.
+     */
+    private static final List<ConsultaVerificada> CONSULTAS = List.of(
+            new ConsultaVerificada("Concorrentes mais próximos (ConcorrenteRepository)", "localizacao_comercios",
+                    "SELECT lc.id_comercio FROM public.localizacao_comercios AS lc "
+                            + "ORDER BY lc.localizacao_utm <-> " + PONTO_UTM + " LIMIT 5"),
+            new ConsultaVerificada("Tiles de densidade (DensidadeTileRepository)", "localizacao_comercios",
+                    "SELECT COUNT(*) FROM public.localizacao_comercios AS lc "
+                            + "WHERE lc.localizacao::geometry && ST_MakeEnvelope(-47.45, -22.60, -47.35, -22.50, 4326)"),
+            new ConsultaVerificada("Acessibilidade das vias (ComercioRaioViasRepository)", "camada_vias",
+                    "SELECT COUNT(*) FROM public.camada_vias AS vias "
+                            + "WHERE vias.cd_mun = " + MUNICIPIO + " AND ST_DWithin(vias.geom_utm, " + PONTO_UTM + ", 2500) "
+                            + "AND vias.fclass IN ('motorway', 'trunk', 'primary', 'primary_link', 'secondary', 'secondary_link', "
+                            + "'tertiary', 'tertiary_link', 'residential', 'living_street', 'unclassified')"),
+            new ConsultaVerificada("Avenidas no raio (ComercioRaioAvenidaRepository)", "camada_ruas",
+                    "SELECT COUNT(*) FROM public.camada_ruas AS r "
+                            + "WHERE r.cd_mun = " + MUNICIPIO + " AND r.nm_tip_log IN ('AVENIDA', 'VIA') "
+                            + "AND ST_DWithin(r.geom_utm, " + PONTO_UTM + ", 500)"),
+            new ConsultaVerificada("Setores no raio (ComercioDadosIbgeRepository)", "camada_setores",
+                    "SELECT COUNT(*) FROM public.camada_setores AS ibge "
+                            + "WHERE ibge.cd_mun = " + MUNICIPIO + " AND ST_Intersects(ST_Buffer(" + PONTO_UTM + ", 500), ibge.geom_utm)")
+    );
+
+    private final IndiceEspacialRepository repository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transacao;
+    private final boolean verificarNaInicializacao;
+
+    /**
+     * @param repository               Repositório dos índices e planos.
+     * @param objectMapper             O ObjectMapper da aplicação, utilizado para ler os planos em JSON.
+     * @param analiseTransactionManager O gerenciador de transações do pool de análise.
+     * @param verificarNaInicializacao True para verificar os índices na inicialização da aplicação.
+     */
+    public VerificacaoIndicesService(IndiceEspacialRepository repository,
+                                     ObjectMapper objectMapper,
+                                     @Qualifier("analiseTransactionManager") PlatformTransactionManager analiseTransactionManager,
+                                     @Value("${banco.indices.verificar-na-inicializacao:true}") boolean verificarNaInicializacao) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.transacao = new TransactionTemplate(analiseTransactionManager);
+        this.transacao.setReadOnly(true);
+        this.verificarNaInicializacao = verificarNaInicializacao;
+    }
+
+    /**
+     * Verifica todas as consultas representativas.
+     *
+     * @return O resultado de cada consulta.
+     */
+    public List<VerificacaoIndiceDTO> verificar() {
+        List<VerificacaoIndiceDTO> resultados = new ArrayList<>(CONSULTAS.size());
+        for (ConsultaVerificada consulta : CONSULTAS) {
+            resultados.add(verificar(consulta));
+        }
+        return resultados;
+    }
+
+    /**
+     * Verifica os índices na inicialização e registra um aviso para cada consulta que não consegue utilizá-los.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void verificarNaInicializacao() {
+        if (!verificarNaInicializacao) {
+            return;
+        }
+        for (VerificacaoIndiceDTO resultado : verificar()) {
+            if (resultado.erro() != null) {
+                log.warn("Não foi possível verificar os índices de {} ({}): {}", resultado.tabela(), resultado.consulta(), resultado.erro());
+            } else if (!resultado.usaIndice()) {
+                log.warn("A consulta \"{}\" percorre {} sequencialmente: nenhum índice utilizável. "
+                        + "Execute SELECT public.garantir_indices_espaciais(); no banco de dados.", resultado.consulta(), resultado.tabela());
+            } else {
+                log.info("A consulta \"{}\" utiliza os índices {}.", resultado.consulta(), resultado.indices());
+            }
+        }
+    }
+
+    private VerificacaoIndiceDTO verificar(ConsultaVerificada consulta) {
+        try {
+            List<String> indicesTabela = repository.findIndices(consulta.tabela());
+            String plano = transacao.execute(status -> repository.explicarSemVarreduraSequencial(consulta.sql()));
+            List<String> utilizados = indicesUtilizados(objectMapper.readTree(plano)).stream()
+                    .filter(indicesTabela::contains)
+                    .toList();
+            return new VerificacaoIndiceDTO(consulta.descricao(), consulta.tabela(), !utilizados.isEmpty(), utilizados, null);
+        } catch (DataAccessException | JsonProcessingException e) {
+            String mensagem = e instanceof DataAccessException acesso && acesso.getMostSpecificCause() != null
+                    ? acesso.getMostSpecificCause().getMessage() : e.getMessage();
+            return new VerificacaoIndiceDTO(consulta.descricao(), consulta.tabela(), false, List.of(), mensagem);
+        }
+    }
+
+    /**
+     * Retorna os nomes dos índices percorridos em um plano EXPLAIN (FORMAT JSON), em qualquer nível do plano.
+     *
+     * @param plano O plano em JSON.
+     * @return Os nomes dos índices, sem repetição, na ordem em que aparecem.
+     */
+    static List<String> indicesUtilizados(JsonNode plano) {
+        Set<String> indices = new LinkedHashSet<>();
+        coletarIndices(plano, indices);
+        return new ArrayList<>(indices);
+    }
+
+    private static void coletarIndices(JsonNode no, Set<String> indices) {
+        if (no.isArray()) {
+            for (JsonNode item : no) {
+                coletarIndices(item, indices);
+            }
+        } else if (no.isObject()) {
+            JsonNode indice = no.get("Index Name");
+            if (indice != null && indice.isTextual()) {
+                indices.add(indice.asText());
+            }
+            if (no.has("Plan")) {
+                coletarIndices(no.get("Plan"), indices);
+            }
+            if (no.has("Plans")) {
+                coletarIndices(no.get("Plans"), indices);
+            }
+        }
+    }
+
+    private record ConsultaVerificada(String descricao, String tabela, String sql) {
+    }
+}
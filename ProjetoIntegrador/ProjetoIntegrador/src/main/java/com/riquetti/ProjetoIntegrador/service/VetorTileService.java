@@ -0,0 +1,79 @@
+package com.riquetti.ProjetoIntegrador.service;
+
+import com.riquetti.ProjetoIntegrador.repository.VetorTileRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Serviço dos tiles vetoriais (Mapbox Vector Tile) das vias, ruas e setores censitários exibidos no mapa.
+ *
+ * As camadas de referência só mudam quando as bases são recarregadas, por isso cada tile é gerado uma
+ * única vez e mantido em disco, com o ETag para que o navegador revalide sem baixar o tile novamente.
+ * Nos zooms menores que o mínimo da camada o tile é vazio, sem consulta ao banco de dados.
+ */
+@Service
+public class VetorTileService {
+
+    private static final byte[] TILE_VAZIO = new byte[0];
+
+    private final VetorTileRepository repository;
+    private final CacheDisco cache;
+    private final double toleranciaPixels;
+
+    /**
+     * Construtor para injeção de dependências.
+     *
+     * @param repository       O repositório que gera os tiles no PostGIS.
+     * @param diretorio        Diretório do cache de tiles em disco.
+     * @param ttl              Tempo de vida de cada tile em disco.
+     * @param toleranciaPixels Tolerância da simplificação das geometrias, em pixels de um tile de 256 pixels.
+     */
+    public VetorTileService(VetorTileRepository repository,
+                            @Value("${tiles.vetor.cache.diretorio:${java.io.tmpdir}/projeto-integrador/tiles-vetor}") Path diretorio,
+                            @Value("${tiles.vetor.cache.ttl:30d}") Duration ttl,
+                            @Value("${tiles.vetor.tolerancia-pixels:0.5}") double toleranciaPixels) {
+        if (toleranciaPixels < 0) {
+            throw new IllegalArgumentException("A tolerância da simplificação não pode ser negativa.");
+        }
+        this.repository = repository;
+        this.cache = new CacheDisco(diretorio, ttl);
+        this.toleranciaPixels = toleranciaPixels;
+    }
+
+    /**
+     * Retorna o tile vetorial de uma camada.
+     *
+     * @param camada A camada de referência.
+     * @param tile   O tile solicitado.
+     * @return O tile codificado e o seu ETag.
+     */
+    public CacheDisco.Arquivo getTile(CamadaVetorial camada, Tile tile) {
+        String caminho = camada.nome() + "/" + tile.z() + "/" + tile.x() + "/" + tile.y() + ".pbf";
+        return cache.obter(caminho, () -> gerar(camada, tile));
+    }
+
+    /**
+     * Remove do disco os tiles de uma camada, por exemplo após a recarga da base correspondente.
+     *
+     * @param camada A camada de referência.
+     * @return Quantidade de tiles removidos.
+     */
+    public int invalidar(CamadaVetorial camada) {
+        return cache.invalidar(camada.nome());
+    }
+
+    private byte[] gerar(CamadaVetorial camada, Tile tile) {
+        if (tile.z() < camada.zoomMinimo()) {
+            return TILE_VAZIO;
+        }
+        double tolerancia = tile.tamanhoMercator() / 256 * toleranciaPixels;
+        return switch (camada) {
+            case VIAS -> repository.gerarVias(tile.z(), tile.x(), tile.y(), tolerancia);
+            case RUAS -> repository.gerarRuas(tile.z(), tile.x(), tile.y(), tolerancia);
+            case SETORES -> repository.gerarSetores(tile.z(), tile.x(), tile.y(), tolerancia);
+        };
+    }
+}
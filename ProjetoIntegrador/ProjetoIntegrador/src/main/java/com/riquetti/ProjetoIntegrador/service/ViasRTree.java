@@ -0,0 +1,447 @@
+package com.riquetti.ProjetoIntegrador.service;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Índice espacial em memória dos segmentos das vias OSM, organizado como uma R-tree
+ * empacotada pelo método STR (Sort-Tile-Recursive).
+ *
+ * As coordenadas são projetadas uma única vez para um plano local em metros, centrado
+ * na área carregada, e armazenadas em vetores de tipos primitivos. O comprimento de cada
+ * segmento dentro de um raio é calculado de forma exata pela interseção segmento-círculo.
+ *
+ * Os pesos por classe de via seguem o cálculo ponderado de {@link com.riquetti.ProjetoIntegrador.repository.ComercioRaioViasRepository}:
+ * 'motorway', 'trunk', 'primary', 'primary_link' - peso 4
+ * 'secondary', 'secondary_link' - peso 3
+ * 'tertiary', 'tertiary_link' - peso 2
+ * outras tipos - peso 1
+ *
+ * Instâncias são imutáveis e podem ser consultadas por várias threads ao mesmo tempo.
+ */
+public final class ViasRTree {
+
+    /**
+     * Número máximo de filhos por nó da árvore.
+     */
+    static final int CAPACIDADE_NO = 16;
+
+    /**
+     * Raios dos anéis de comprimento, em metros.
+     */
+    public static final double[] ANEIS_METROS = {500, 1000, 1500, 2000, 2500};
+
+    // Segmentos (coordenadas projetadas em metros) e peso da classe da via
+    private final double[] x1;
+    private final double[] y1;
+    private final double[] x2;
+    private final double[] y2;
+    private final byte[] peso;
+
+    // Nós da árvore: limites, primeiro filho, quantidade de filhos e tipo (folha aponta para segmentos)
+    private final double[] noMinX;
+    private final double[] noMinY;
+    private final double[] noMaxX;
+    private final double[] noMaxY;
+    private final int[] noPrimeiroFilho;
+    private final int[] noQuantidade;
+    private final boolean[] noFolha;
+    private final int raiz;
+
+    // Projeção local (graus para metros)
+    private final double lon0;
+    private final double lat0;
+    private final double metrosPorGrauLon;
+    private final double metrosPorGrauLat;
+
+    /**
+     * Resultado da medição das vias ao redor de um ponto.
+     *
+     * @param comprimentoTotalPonderado Comprimento ponderado (pesos 4/3/2/1 divididos por 10) dentro do raio de ação.
+     * @param comprimentosAneis         Comprimento das vias dentro de cada raio de {@link #ANEIS_METROS}.
+     */
+    public record Medicao(double comprimentoTotalPonderado, double[] comprimentosAneis) {
+    }
+
+    private ViasRTree(Builder builder) {
+        int n = builder.tamanho;
+        lat0 = (builder.minLat + builder.maxLat) / 2;
+        lon0 = (builder.minLon + builder.maxLon) / 2;
+        double phi = Math.toRadians(lat0);
+        metrosPorGrauLat = 111132.954 - 559.822 * Math.cos(2 * phi) + 1.175 * Math.cos(4 * phi);
+        metrosPorGrauLon = 111412.84 * Math.cos(phi) - 93.5 * Math.cos(3 * phi) + 0.118 * Math.cos(5 * phi);
+
+        // Projeção e ordenação STR dos segmentos
+        double[] px1 = new double[n];
+        double[] py1 = new double[n];
+        double[] px2 = new double[n];
+        double[] py2 = new double[n];
+        double[] cx = new double[n];
+        double[] cy = new double[n];
+        for (int i = 0; i < n; i++) {
+            px1[i] = (builder.lon1[i] - lon0) * metrosPorGrauLon;
+            py1[i] = (builder.lat1[i] - lat0) * metrosPorGrauLat;
+            px2[i] = (builder.lon2[i] - lon0) * metrosPorGrauLon;
+            py2[i] = (builder.lat2[i] - lat0) * metrosPorGrauLat;
+            cx[i] = (px1[i] + px2[i]) / 2;
+            cy[i] = (py1[i] + py2[i]) / 2;
+        }
+        int[] ordem = ordemStr(cx, cy, n);
+        x1 = new double[n];
+        y1 = new double[n];
+        x2 = new double[n];
+        y2 = new double[n];
+        peso = new byte[n];
+        for (int i = 0; i < n; i++) {
+            int j = ordem[i];
+            x1[i] = px1[j];
+            y1[i] = py1[j];
+            x2[i] = px2[j];
+            y2[i] = py2[j];
+            peso[i] = builder.peso[j];
+        }
+
+        // Folhas: grupos consecutivos de segmentos
+        int totalNos = 0;
+        for (int nivel = Math.max(n, 1); ; nivel = (nivel + CAPACIDADE_NO - 1) / CAPACIDADE_NO) {
+            int nosNivel = (nivel + CAPACIDADE_NO - 1) / CAPACIDADE_NO;
+            totalNos += nosNivel;
+            if (nosNivel <= 1) {
+                break;
+            }
+        }
+        noMinX = new double[totalNos];
+        noMinY = new double[totalNos];
+        noMaxX = new double[totalNos];
+        noMaxY = new double[totalNos];
+        noPrimeiroFilho = new int[totalNos];
+        noQuantidade = new int[totalNos];
+        noFolha = new boolean[totalNos];
+
+        int nivelInicio = 0;
+        int nivelTamanho = (n + CAPACIDADE_NO - 1) / CAPACIDADE_NO;
+        if (nivelTamanho == 0) {
+            nivelTamanho = 1;
+        }
+        for (int i = 0; i < nivelTamanho; i++) {
+            int inicio = i * CAPACIDADE_NO;
+            int fim = Math.min(inicio + CAPACIDADE_NO, n);
+            double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+            double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+            for (int s = inicio; s < fim; s++) {
+                minX = Math.min(minX, Math.min(x1[s], x2[s]));
+                minY = Math.min(minY, Math.min(y1[s], y2[s]));
+                maxX = Math.max(maxX, Math.max(x1[s], x2[s]));
+                maxY = Math.max(maxY, Math.max(y1[s], y2[s]));
+            }
+            definirNo(i, minX, minY, maxX, maxY, inicio, fim - inicio, true);
+        }
+
+        // Níveis superiores: ordena os nós do nível pelo STR e agrupa em pais
+        while (nivelTamanho > 1) {
+            reordenarNivel(nivelInicio, nivelTamanho);
+            int paisInicio = nivelInicio + nivelTamanho;
+            int pais = (nivelTamanho + CAPACIDADE_NO - 1) / CAPACIDADE_NO;
+            for (int p = 0; p < pais; p++) {
+                int inicio = nivelInicio + p * CAPACIDADE_NO;
+                int fim = Math.min(inicio + CAPACIDADE_NO, nivelInicio + nivelTamanho);
+                double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+                double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+                for (int f = inicio; f < fim; f++) {
+                    minX = Math.min(minX, noMinX[f]);
+                    minY = Math.min(minY, noMinY[f]);
+                    maxX = Math.max(maxX, noMaxX[f]);
+                    maxY = Math.max(maxY, noMaxY[f]);
+                }
+                definirNo(paisInicio + p, minX, minY, maxX, maxY, inicio, fim - inicio, false);
+            }
+            nivelInicio = paisInicio;
+            nivelTamanho = pais;
+        }
+        raiz = nivelInicio;
+    }
+
+    /**
+     * Cria um construtor vazio do índice.
+     *
+     * @return um novo {@link Builder}.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Quantidade de segmentos indexados.
+     *
+     * @return o número de segmentos.
+     */
+    public int tamanho() {
+        return peso.length;
+    }
+
+    /**
+     * Mede o comprimento das vias ao redor de um ponto.
+     *
+     * @param longitude       Longitude do ponto (graus, WGS84).
+     * @param latitude        Latitude do ponto (graus, WGS84).
+     * @param raioAcaoMetros  Raio de ação utilizado no comprimento ponderado.
+     * @return a {@link Medicao} com o comprimento ponderado e os comprimentos por anel.
+     */
+    public Medicao medir(double longitude, double latitude, double raioAcaoMetros) {
+        double cx = (longitude - lon0) * metrosPorGrauLon;
+        double cy = (latitude - lat0) * metrosPorGrauLat;
+        double raioMaximo = Math.max(raioAcaoMetros, ANEIS_METROS[ANEIS_METROS.length - 1]);
+        double raioMaximo2 = raioMaximo * raioMaximo;
+
+        double ponderado = 0;
+        double[] aneis = new double[ANEIS_METROS.length];
+        if (peso.length == 0) {
+            return new Medicao(0, aneis);
+        }
+
+        int[] pilha = new int[64];
+        int topo = 0;
+        pilha[topo++] = raiz;
+        while (topo > 0) {
+            int no = pilha[--topo];
+            if (distancia2AoRetangulo(cx, cy, no) > raioMaximo2) {
+                continue;
+            }
+            int inicio = noPrimeiroFilho[no];
+            int fim = inicio + noQuantidade[no];
+            if (!noFolha[no]) {
+                for (int f = inicio; f < fim; f++) {
+                    if (topo == pilha.length) {
+                        pilha = Arrays.copyOf(pilha, pilha.length * 2);
+                    }
+                    pilha[topo++] = f;
+                }
+                continue;
+            }
+            for (int s = inicio; s < fim; s++) {
+                if (comprimentoNoCirculo(s, cx, cy, raioMaximo) == 0) {
+                    continue;
+                }
+                ponderado += comprimentoNoCirculo(s, cx, cy, raioAcaoMetros) * peso[s];
+                for (int a = 0; a < ANEIS_METROS.length; a++) {
+                    aneis[a] += comprimentoNoCirculo(s, cx, cy, ANEIS_METROS[a]);
+                }
+            }
+        }
+        return new Medicao(ponderado / 10, aneis);
+    }
+
+    /**
+     * Peso de uma classe de via OSM no comprimento ponderado.
+     *
+     * @param fclass A classe da via (coluna fclass da base OSM).
+     * @return o peso da classe (4, 3, 2 ou 1).
+     */
+    public static byte pesoDaClasse(String fclass) {
+        if (fclass == null) {
+            return 1;
+        }
+        return switch (fclass) {
+            case "motorway", "trunk", "primary", "primary_link" -> 4;
+            case "secondary", "secondary_link" -> 3;
+            case "tertiary", "tertiary_link" -> 2;
+            default -> 1;
+        };
+    }
+
+    /**
+     * Comprimento do segmento dentro do círculo, pela interseção exata segmento-círculo.
+     */
+    private double comprimentoNoCirculo(int s, double cx, double cy, double raio) {
+        double dx = x2[s] - x1[s];
+        double dy = y2[s] - y1[s];
+        double fx = x1[s] - cx;
+        double fy = y1[s] - cy;
+        double a = dx * dx + dy * dy;
+        if (a == 0) {
+            return 0;
+        }
+        double b = 2 * (fx * dx + fy * dy);
+        double c = fx * fx + fy * fy - raio * raio;
+        double discriminante = b * b - 4 * a * c;
+        if (discriminante <= 0) {
+            return 0;
+        }
+        double raiz = Math.sqrt(discriminante);
+        double t0 = Math.max(0, (-b - raiz) / (2 * a));
+        double t1 = Math.min(1, (-b + raiz) / (2 * a));
+        return t1 > t0 ? (t1 - t0) * Math.sqrt(a) : 0;
+    }
+
+    private double distancia2AoRetangulo(double x, double y, int no) {
+        double dx = Math.max(0, Math.max(noMinX[no] - x, x - noMaxX[no]));
+        double dy = Math.max(0, Math.max(noMinY[no] - y, y - noMaxY[no]));
+        return dx * dx + dy * dy;
+    }
+
+    private void definirNo(int i, double minX, double minY, double maxX, double maxY,
+                           int primeiroFilho, int quantidade, boolean folha) {
+        noMinX[i] = minX;
+        noMinY[i] = minY;
+        noMaxX[i] = maxX;
+        noMaxY[i] = maxY;
+        noPrimeiroFilho[i] = primeiroFilho;
+        noQuantidade[i] = quantidade;
+        noFolha[i] = folha;
+    }
+
+    /**
+     * Reordena, pelo STR, os nós de um nível que ainda não possuem pai.
+     */
+    private void reordenarNivel(int inicio, int tamanho) {
+        double[] cx = new double[tamanho];
+        double[] cy = new double[tamanho];
+        for (int i = 0; i < tamanho; i++) {
+            cx[i] = (noMinX[inicio + i] + noMaxX[inicio + i]) / 2;
+            cy[i] = (noMinY[inicio + i] + noMaxY[inicio + i]) / 2;
+        }
+        int[] ordem = ordemStr(cx, cy, tamanho);
+        double[] minX = new double[tamanho], minY = new double[tamanho];
+        double[] maxX = new double[tamanho], maxY = new double[tamanho];
+        int[] primeiro = new int[tamanho], quantidade = new int[tamanho];
+        boolean[] folha = new boolean[tamanho];
+        for (int i = 0; i < tamanho; i++) {
+            int j = inicio + ordem[i];
+            minX[i] = noMinX[j];
+            minY[i] = noMinY[j];
+            maxX[i] = noMaxX[j];
+            maxY[i] = noMaxY[j];
+            primeiro[i] = noPrimeiroFilho[j];
+            quantidade[i] = noQuantidade[j];
+            folha[i] = noFolha[j];
+        }
+        for (int i = 0; i < tamanho; i++) {
+            definirNo(inicio + i, minX[i], minY[i], maxX[i], maxY[i], primeiro[i], quantidade[i], folha[i]);
+        }
+    }
+
+    /**
+     * Ordem Sort-Tile-Recursive: ordena pelo X, divide em fatias verticais e ordena cada fatia pelo Y.
+     */
+    private static int[] ordemStr(double[] cx, double[] cy, int n) {
+        Integer[] indices = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            indices[i] = i;
+        }
+        Arrays.sort(indices, Comparator.comparingDouble(i -> cx[i]));
+        int folhas = (n + CAPACIDADE_NO - 1) / CAPACIDADE_NO;
+        int fatias = (int) Math.ceil(Math.sqrt(folhas));
+        int porFatia = Math.max(1, fatias * CAPACIDADE_NO);
+        for (int inicio = 0; inicio < n; inicio += porFatia) {
+            Arrays.sort(indices, inicio, Math.min(inicio + porFatia, n), Comparator.comparingDouble(i -> cy[i]));
+        }
+        int[] ordem = new int[n];
+        for (int i = 0; i < n; i++) {
+            ordem[i] = indices[i];
+        }
+        return ordem;
+    }
+
+    /**
+     * Construtor incremental do índice. Acumula os segmentos em coordenadas geográficas
+     * (graus) e projeta tudo ao final, no centro da área carregada.
+     */
+    public static final class Builder {
+
+        private double[] lon1 = new double[1024];
+        private double[] lat1 = new double[1024];
+        private double[] lon2 = new double[1024];
+        private double[] lat2 = new double[1024];
+        private byte[] peso = new byte[1024];
+        private int tamanho;
+        private double minLon = Double.POSITIVE_INFINITY, minLat = Double.POSITIVE_INFINITY;
+        private double maxLon = Double.NEGATIVE_INFINITY, maxLat = Double.NEGATIVE_INFINITY;
+
+        private Builder() {
+        }
+
+        /**
+         * Adiciona uma linha (sequência de pontos lon/lat) ao índice.
+         *
+         * @param coordenadas Coordenadas intercaladas: lon0, lat0, lon1, lat1, ...
+         * @param fclass      Classe da via OSM.
+         * @return este construtor.
+         */
+        public Builder adicionarLinha(double[] coordenadas, String fclass) {
+            byte pesoClasse = pesoDaClasse(fclass);
+            for (int i = 0; i + 3 < coordenadas.length; i += 2) {
+                adicionarSegmento(coordenadas[i], coordenadas[i + 1], coordenadas[i + 2], coordenadas[i + 3], pesoClasse);
+            }
+            return this;
+        }
+
+        /**
+         * Adiciona uma geometria em WKB 2D (LineString ou MultiLineString) ao índice.
+         *
+         * @param wkb    A geometria em Well-Known Binary, como retornada por ST_AsBinary(ST_Force2D(geom)).
+         * @param fclass Classe da via OSM.
+         * @return este construtor.
+         * @throws IllegalArgumentException se a geometria não for uma linha.
+         */
+        public Builder adicionarWkb(byte[] wkb, String fclass) {
+            ByteBuffer buffer = ByteBuffer.wrap(wkb);
+            lerGeometria(buffer, fclass);
+            return this;
+        }
+
+        /**
+         * Constrói o índice imutável.
+         *
+         * @return o {@link ViasRTree} com os segmentos adicionados.
+         */
+        public ViasRTree build() {
+            if (tamanho == 0) {
+                minLon = maxLon = minLat = maxLat = 0;
+            }
+            return new ViasRTree(this);
+        }
+
+        private void lerGeometria(ByteBuffer buffer, String fclass) {
+            buffer.order(buffer.get() == 0 ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+            int tipo = buffer.getInt();
+            if (tipo == 2) {
+                int pontos = buffer.getInt();
+                double[] coordenadas = new double[pontos * 2];
+                for (int i = 0; i < coordenadas.length; i++) {
+                    coordenadas[i] = buffer.getDouble();
+                }
+                adicionarLinha(coordenadas, fclass);
+            } else if (tipo == 5) {
+                int linhas = buffer.getInt();
+                for (int i = 0; i < linhas; i++) {
+                    lerGeometria(buffer, fclass);
+                }
+            } else {
+                throw new IllegalArgumentException("Tipo de geometria WKB não suportado para vias: " + tipo);
+            }
+        }
+
+        private void adicionarSegmento(double lonA, double latA, double lonB, double latB, byte pesoClasse) {
+            if (tamanho == peso.length) {
+                int novo = tamanho * 2;
+                lon1 = Arrays.copyOf(lon1, novo);
+                lat1 = Arrays.copyOf(lat1, novo);
+                lon2 = Arrays.copyOf(lon2, novo);
+                lat2 = Arrays.copyOf(lat2, novo);
+                peso = Arrays.copyOf(peso, novo);
+            }
+            lon1[tamanho] = lonA;
+            lat1[tamanho] = latA;
+            lon2[tamanho] = lonB;
+            lat2[tamanho] = latB;
+            peso[tamanho] = pesoClasse;
+            tamanho++;
+            minLon = Math.min(minLon, Math.min(lonA, lonB));
+            maxLon = Math.max(maxLon, Math.max(lonA, lonB));
+            minLat = Math.min(minLat, Math.min(latA, latB));
+            maxLat = Math.max(maxLat, Math.max(latA, latB));
+        }
+    }
+}
@@ -0,0 +1,92 @@
+-- Tabelas mantidas pela própria aplicação (snapshots, sobreposições, grade e relatórios).
+--
+-- São criadas apenas pelo Flyway (spring.sql.init.mode=never), antes das migrações das camadas, que as atualizam
+-- na carga de um município (V3).
+
+-- Snapshot da acessibilidade das vias OSM por comércio (ComercioRaioViasRepository).
+-- Recalculado por comércio quando a localização ou o raio de ação são alterados.
+CREATE TABLE IF NOT EXISTS public.comercio_raio_vias_snapshot (
+    id_comercio                 BIGINT PRIMARY KEY
+                                REFERENCES public.localizacao_comercios (id_comercio) ON DELETE CASCADE,
+    comprimento_total_ponderado NUMERIC,
+    comprimento500              NUMERIC,
+    comprimento1000             NUMERIC,
+    comprimento1500             NUMERIC,
+    comprimento2000             NUMERIC,
+    comprimento2500             NUMERIC,
+    acessibilidade              VARCHAR(20),
+    atualizado_em               TIMESTAMP NOT NULL DEFAULT now()
+);
+
+-- Sobreposição pré-calculada entre o raio de cada comércio e os setores censitários (ComercioDadosIbgeRepository).
+-- comercio_setor_raio registra os comércios já calculados no seu raio de ação, mesmo sem setores interceptados.
+CREATE TABLE IF NOT EXISTS public.comercio_setor_raio (
+    id_comercio      BIGINT  NOT NULL
+                     REFERENCES public.localizacao_comercios (id_comercio) ON DELETE CASCADE,
+    raio_acao_metros NUMERIC NOT NULL,
+    calculado_em     TIMESTAMP NOT NULL DEFAULT now(),
+    PRIMARY KEY (id_comercio, raio_acao_metros)
+);
+
+CREATE TABLE IF NOT EXISTS public.comercio_setor_sobreposicao (
+    id_comercio      BIGINT  NOT NULL
+                     REFERENCES public.localizacao_comercios (id_comercio) ON DELETE CASCADE,
+    raio_acao_metros NUMERIC NOT NULL,
+    cd_geocodi       VARCHAR(20) NOT NULL,
+    fracao_area      DOUBLE PRECISION NOT NULL,
+    PRIMARY KEY (id_comercio, raio_acao_metros, cd_geocodi)
+);
+
+-- Grade regular sobre os municípios carregados (GradeRepository), em SIRGAS 2000 / UTM 23S, utilizada nas
+-- consultas de ponto + raio. A grade é construída separadamente para cada município (cd_mun).
+CREATE TABLE IF NOT EXISTS public.grade (
+    id_celula BIGINT PRIMARY KEY,
+    geom_utm  geometry(Polygon, 31983) NOT NULL,
+    cd_mun    VARCHAR(7)
+);
+
+CREATE INDEX IF NOT EXISTS grade_geom_utm_idx ON public.grade USING GIST (geom_utm);
+CREATE INDEX IF NOT EXISTS grade_cd_mun_idx ON public.grade (cd_mun);
+
+-- Pedaço de cada setor censitário dentro da célula e a fração da área do setor que ele representa, também
+-- projetado em UTM para o recorte exato da borda do raio (ComercioDadosIbgeRepository).
+CREATE TABLE IF NOT EXISTS public.grade_setor (
+    id_celula  BIGINT NOT NULL REFERENCES public.grade (id_celula) ON DELETE CASCADE,
+    cd_geocodi VARCHAR(20) NOT NULL,
+    geom       geometry(MultiPolygon, 4326) NOT NULL,
+    fracao     DOUBLE PRECISION NOT NULL,
+    geom_utm   geometry(MultiPolygon, 31983) GENERATED ALWAYS AS (ST_Transform(geom, 31983)) STORED,
+    PRIMARY KEY (id_celula, cd_geocodi)
+);
+
+-- Avenidas e vias de `camada_ruas` que cruzam cada célula.
+CREATE TABLE IF NOT EXISTS public.grade_rua (
+    id_celula BIGINT  NOT NULL REFERENCES public.grade (id_celula) ON DELETE CASCADE,
+    gid       INTEGER NOT NULL,
+    PRIMARY KEY (id_celula, gid)
+);
+
+-- Relatórios de todos os comércios executados em segundo plano (RelatorioJobService).
+-- Cada relatório é dividido em blocos de id_comercio; o resultado de cada bloco concluído fica em disco,
+-- e os blocos pendentes são retomados quando a aplicação reinicia.
+CREATE TABLE IF NOT EXISTS public.relatorio_job (
+    id_job           UUID PRIMARY KEY,
+    tipo             VARCHAR(20) NOT NULL,
+    raio_acao_metros NUMERIC,
+    status           VARCHAR(20) NOT NULL,
+    total            INTEGER     NOT NULL,
+    erro             TEXT,
+    criado_em        TIMESTAMP   NOT NULL DEFAULT now(),
+    iniciado_em      TIMESTAMP,
+    concluido_em     TIMESTAMP
+);
+
+CREATE TABLE IF NOT EXISTS public.relatorio_job_bloco (
+    id_job     UUID    NOT NULL REFERENCES public.relatorio_job (id_job) ON DELETE CASCADE,
+    bloco      INTEGER NOT NULL,
+    id_inicial BIGINT  NOT NULL,
+    id_final   BIGINT  NOT NULL,
+    quantidade INTEGER NOT NULL,
+    concluido  BOOLEAN NOT NULL DEFAULT FALSE,
+    PRIMARY KEY (id_job, bloco)
+);
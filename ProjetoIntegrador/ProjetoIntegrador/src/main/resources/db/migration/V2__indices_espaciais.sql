@@ -0,0 +1,106 @@
+-- Índices espaciais e coluna projetada da localização dos comércios (localizacao_comercios).
+--
+-- A tabela não é criada pelo Flyway, por isso a coluna e os índices são criados por funções idempotentes, executadas
+-- por esta migração e novamente a cada inicialização (afterMigrate.sql): uma tabela criada ou recriada depois desta
+-- migração os recebe na próxima inicialização. Tabelas inexistentes são ignoradas. As camadas analíticas (vias, ruas
+-- e setores censitários) são tabelas particionadas por município, com as colunas e os índices declarados na V3.
+--
+-- As consultas de raio, distância e K mais próximos utilizam a coluna localizacao_utm, gerada e armazenada com o
+-- ponto já projetado em SIRGAS 2000 / UTM 23S (SRID 31983, em metros), em vez de converter cada linha para
+-- geography. Em Limeira, a diferença entre as medidas planas em UTM e as geodésicas é inferior a 0,1%.
+--
+-- Um índice criado apenas atualiza as estatísticas (ANALYZE). A reordenação da tabela pela geometria (CLUSTER), que
+-- mantém os pontos próximos nas mesmas páginas mas bloqueia a tabela (ACCESS EXCLUSIVE) até terminar, é feita
+-- somente sob demanda, fora do horário de uso: SELECT public.garantir_indices_espaciais(true);
+
+CREATE OR REPLACE FUNCTION public.garantir_indice_espacial(tabela text, nome text, definicao text,
+                                                           coluna_simples text, agrupar boolean, reordenar boolean)
+    RETURNS boolean
+    LANGUAGE plpgsql
+AS $$
+DECLARE
+    relacao regclass := to_regclass(format('public.%I', tabela));
+    indice  regclass;
+    criado  boolean  := false;
+BEGIN
+    IF relacao IS NULL THEN
+        RAISE NOTICE 'Tabela % inexistente; índice % não criado.', tabela, nome;
+        RETURN false;
+    END IF;
+
+    indice := to_regclass(format('public.%I', nome));
+    IF indice IS NULL AND coluna_simples IS NOT NULL THEN
+        -- Reaproveita um índice GiST simples sobre a mesma coluna, como o criado pelo shp2pgsql -I
+        SELECT i.indexrelid::regclass INTO indice
+        FROM pg_index AS i
+        JOIN pg_class AS ic ON ic.oid = i.indexrelid
+        JOIN pg_am AS am ON am.oid = ic.relam
+        JOIN pg_attribute AS a ON a.attrelid = i.indrelid AND a.attnum = i.indkey[0]
+        WHERE i.indrelid = relacao
+          AND am.amname = 'gist'
+          AND i.indnatts = 1
+          AND i.indexprs IS NULL
+          AND i.indpred IS NULL
+          AND a.attname = coluna_simples
+        LIMIT 1;
+    END IF;
+
+    IF indice IS NULL THEN
+        EXECUTE format('CREATE INDEX %I ON %s %s', nome, relacao, definicao);
+        indice := to_regclass(format('public.%I', nome));
+        criado := true;
+    END IF;
+
+    IF agrupar AND reordenar THEN
+        EXECUTE format('CLUSTER %s USING %s', relacao, indice);
+    END IF;
+    IF criado OR reordenar THEN
+        EXECUTE format('ANALYZE %s', relacao);
+    END IF;
+    RETURN criado;
+END;
+$$;
+
+CREATE OR REPLACE FUNCTION public.garantir_coluna_utm(tabela text, origem text, destino text, tipo text)
+    RETURNS boolean
+    LANGUAGE plpgsql
+AS $$
+DECLARE
+    relacao regclass := to_regclass(format('public.%I', tabela));
+BEGIN
+    IF relacao IS NULL THEN
+        RAISE NOTICE 'Tabela % inexistente; coluna % não criada.', tabela, destino;
+        RETURN false;
+    END IF;
+
+    IF EXISTS (SELECT 1 FROM pg_attribute
+               WHERE attrelid = relacao AND attname = destino AND attnum > 0 AND NOT attisdropped) THEN
+        RETURN false;
+    END IF;
+
+    EXECUTE format('ALTER TABLE %s ADD COLUMN %I geometry(%s, 31983) GENERATED ALWAYS AS (ST_Transform(%I::geometry, 31983)) STORED',
+        relacao, destino, tipo, origem);
+    RETURN true;
+END;
+$$;
+
+CREATE OR REPLACE FUNCTION public.garantir_indices_espaciais(reordenar boolean DEFAULT false)
+    RETURNS integer
+    LANGUAGE plpgsql
+AS $$
+DECLARE
+    criados integer := 0;
+BEGIN
+    PERFORM public.garantir_coluna_utm('localizacao_comercios', 'localizacao', 'localizacao_utm', 'Point');
+
+    -- Filtro por envelope dos tiles (&&) em geometry; raio e K mais próximos (<->) em UTM
+    criados := criados + public.garantir_indice_espacial('localizacao_comercios', 'localizacao_comercios_localizacao_idx',
+        'USING GIST (localizacao)', 'localizacao', true, reordenar)::integer;
+    criados := criados + public.garantir_indice_espacial('localizacao_comercios', 'localizacao_comercios_localizacao_utm_idx',
+        'USING GIST (localizacao_utm)', 'localizacao_utm', false, reordenar)::integer;
+
+    RETURN criados;
+END;
+$$;
+
+SELECT public.garantir_indices_espaciais();
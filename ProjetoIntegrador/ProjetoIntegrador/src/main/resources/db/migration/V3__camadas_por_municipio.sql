@@ -0,0 +1,201 @@
+-- Camadas analíticas particionadas por município (cd_mun, código IBGE de 7 dígitos).
+--
+-- As camadas de Limeira ("Vias_Limeira_OSM", "SHP_Ruas", "IBGE_Limeira_2010" e "Basico_Limeira_IBGE2010") passam a
+-- ser partições de tabelas particionadas por lista em cd_mun, uma partição por município. Os comércios guardam o
+-- cd_mun do município em que estão, e as junções espaciais filtram a camada por ele: o PostgreSQL percorre apenas a
+-- partição do município, e não as camadas de todos os municípios carregados.
+--
+-- Um novo município é incluído carregando as suas camadas em tabelas de trabalho (shp2pgsql / ogr2ogr, com as mesmas
+-- colunas das camadas de Limeira) e executando:
+--   SELECT public.carregar_municipio('3526902', 'Limeira', 'IBGE_Limeira_2010', 'Basico_Limeira_IBGE2010',
+--                                    'Vias_Limeira_OSM', 'SHP_Ruas');
+-- A função recria as partições do município, atualiza o limite em `municipio` e o cd_mun dos comércios dentro dele.
+-- Sem setores censitários o município não é gravado: um limite nulo não resolveria nenhum comércio.
+--
+-- O município de um comércio é o mais próximo da sua localização (CamadasMunicipio.municipio): o próprio município
+-- quando o ponto está dentro dele e, nas frestas da união dos setores ou antes da carga do seu município, o vizinho
+-- mais próximo, em vez de nenhum (sem partição, o comércio teria zero vias, zero avenidas e renda nula).
+--
+-- As tabelas de trabalho de Limeira têm colunas do shapefile que não são copiadas e não podem ser anexadas como
+-- partições (ATTACH PARTITION); a aplicação não as lê. Depois de conferir as partições, podem ser removidas com:
+--   DROP TABLE public."IBGE_Limeira_2010", public."Basico_Limeira_IBGE2010", public."Vias_Limeira_OSM", public."SHP_Ruas";
+-- A grade do município é construída na próxima inicialização.
+
+CREATE TABLE IF NOT EXISTS public.municipio (
+    cd_mun   VARCHAR(7) PRIMARY KEY,
+    nome     TEXT NOT NULL,
+    geom     geometry(MultiPolygon, 4326),
+    geom_utm geometry(MultiPolygon, 31983) GENERATED ALWAYS AS (ST_Transform(geom, 31983)) STORED
+);
+
+CREATE INDEX IF NOT EXISTS municipio_geom_idx ON public.municipio USING GIST (geom);
+
+CREATE TABLE IF NOT EXISTS public.camada_setores (
+    cd_mun     VARCHAR(7) NOT NULL,
+    cd_geocodi VARCHAR(20) NOT NULL,
+    geom       geometry(MultiPolygon, 4326) NOT NULL,
+    geom_utm   geometry(MultiPolygon, 31983) GENERATED ALWAYS AS (ST_Transform(geom, 31983)) STORED,
+    PRIMARY KEY (cd_mun, cd_geocodi)
+) PARTITION BY LIST (cd_mun);
+
+CREATE TABLE IF NOT EXISTS public.camada_basico (
+    cd_mun      VARCHAR(7) NOT NULL,
+    "Cod_setor" VARCHAR(20) NOT NULL,
+    "V002"      NUMERIC,
+    "V005"      NUMERIC,
+    PRIMARY KEY (cd_mun, "Cod_setor")
+) PARTITION BY LIST (cd_mun);
+
+CREATE TABLE IF NOT EXISTS public.camada_vias (
+    cd_mun   VARCHAR(7) NOT NULL,
+    gid      INTEGER NOT NULL,
+    fclass   VARCHAR(28),
+    geom     geometry(Geometry, 4326) NOT NULL,
+    geom_utm geometry(Geometry, 31983) GENERATED ALWAYS AS (ST_Transform(geom, 31983)) STORED,
+    PRIMARY KEY (cd_mun, gid)
+) PARTITION BY LIST (cd_mun);
+
+CREATE TABLE IF NOT EXISTS public.camada_ruas (
+    cd_mun     VARCHAR(7) NOT NULL,
+    gid        INTEGER NOT NULL,
+    nm_tip_log VARCHAR(30),
+    geom       geometry(Geometry, 4326) NOT NULL,
+    geom_utm   geometry(Geometry, 31983) GENERATED ALWAYS AS (ST_Transform(geom, 31983)) STORED,
+    PRIMARY KEY (cd_mun, gid)
+) PARTITION BY LIST (cd_mun);
+
+-- Índices declarados nas tabelas particionadas e criados em cada partição: geometria original (tiles) e UTM
+-- (predicados de raio e distância), este restrito às classes de vias e aos tipos de logradouro percorridos
+CREATE INDEX IF NOT EXISTS camada_setores_geom_idx ON public.camada_setores USING GIST (geom);
+CREATE INDEX IF NOT EXISTS camada_setores_geom_utm_idx ON public.camada_setores USING GIST (geom_utm);
+CREATE INDEX IF NOT EXISTS camada_vias_geom_idx ON public.camada_vias USING GIST (geom);
+CREATE INDEX IF NOT EXISTS camada_vias_principais_utm_idx ON public.camada_vias USING GIST (geom_utm)
+    WHERE fclass IN ('motorway', 'trunk', 'primary', 'primary_link', 'secondary', 'secondary_link',
+                     'tertiary', 'tertiary_link', 'residential', 'living_street', 'unclassified');
+CREATE INDEX IF NOT EXISTS camada_ruas_geom_idx ON public.camada_ruas USING GIST (geom);
+CREATE INDEX IF NOT EXISTS camada_ruas_avenidas_utm_idx ON public.camada_ruas USING GIST (geom_utm)
+    WHERE nm_tip_log IN ('AVENIDA', 'VIA');
+
+-- Município de cada comércio, resolvido pela localização no cadastro (LocalizacaoComercioRepository) e na carga
+ALTER TABLE public.localizacao_comercios ADD COLUMN IF NOT EXISTS cd_mun VARCHAR(7);
+CREATE INDEX IF NOT EXISTS localizacao_comercios_cd_mun_idx ON public.localizacao_comercios (cd_mun);
+
+-- Cria a partição do município na camada, ou esvazia a partição existente para uma nova carga.
+CREATE OR REPLACE FUNCTION public.preparar_particao(camada text, codigo text)
+    RETURNS regclass
+    LANGUAGE plpgsql
+AS $$
+DECLARE
+    nome    text     := camada || '_' || codigo;
+    relacao regclass := to_regclass(format('public.%I', nome));
+BEGIN
+    IF relacao IS NULL THEN
+        EXECUTE format('CREATE TABLE public.%I PARTITION OF public.%I FOR VALUES IN (%L)', nome, camada, codigo);
+        relacao := to_regclass(format('public.%I', nome));
+    ELSE
+        EXECUTE format('TRUNCATE %s', relacao);
+    END IF;
+    RETURN relacao;
+END;
+$$;
+
+-- Carrega as camadas de um município a partir das tabelas de trabalho; camadas com tabela nula ou inexistente
+-- são mantidas como estão. Descarta as sobreposições pré-calculadas dos comércios afetados e a grade do município.
+-- Retorna o número de setores censitários do município.
+CREATE OR REPLACE FUNCTION public.carregar_municipio(codigo text, nome text, setores text, basico text,
+                                                     vias text, ruas text)
+    RETURNS integer
+    LANGUAGE plpgsql
+AS $$
+DECLARE
+    particao  regclass;
+    total     integer;
+    recortado boolean := false;
+    alterados bigint[];
+BEGIN
+    IF setores IS NOT NULL AND to_regclass(format('public.%I', setores)) IS NOT NULL THEN
+        particao := public.preparar_particao('camada_setores', codigo);
+        EXECUTE format('INSERT INTO %s (cd_mun, cd_geocodi, geom) '
+                       'SELECT %L, t.cd_geocodi, ST_Multi(ST_CollectionExtract(t.geom::geometry, 3)) FROM public.%I AS t',
+                       particao, codigo, setores);
+        EXECUTE format('ANALYZE %s', particao);
+        recortado := true;
+    ELSE
+        RAISE NOTICE 'Tabela de setores % inexistente; setores de % mantidos.', setores, nome;
+    END IF;
+
+    IF basico IS NOT NULL AND to_regclass(format('public.%I', basico)) IS NOT NULL THEN
+        particao := public.preparar_particao('camada_basico', codigo);
+        EXECUTE format('INSERT INTO %s (cd_mun, "Cod_setor", "V002", "V005") '
+                       'SELECT %L, t."Cod_setor"::varchar, t."V002"::numeric, t."V005"::numeric FROM public.%I AS t',
+                       particao, codigo, basico);
+        EXECUTE format('ANALYZE %s', particao);
+    ELSE
+        RAISE NOTICE 'Tabela básica % inexistente; dados básicos de % mantidos.', basico, nome;
+    END IF;
+
+    IF vias IS NOT NULL AND to_regclass(format('public.%I', vias)) IS NOT NULL THEN
+        particao := public.preparar_particao('camada_vias', codigo);
+        EXECUTE format('INSERT INTO %s (cd_mun, gid, fclass, geom) '
+                       'SELECT %L, t.gid, t.fclass, t.geom::geometry FROM public.%I AS t',
+                       particao, codigo, vias);
+        EXECUTE format('ANALYZE %s', particao);
+    ELSE
+        RAISE NOTICE 'Tabela de vias % inexistente; vias de % mantidas.', vias, nome;
+    END IF;
+
+    IF ruas IS NOT NULL AND to_regclass(format('public.%I', ruas)) IS NOT NULL THEN
+        particao := public.preparar_particao('camada_ruas', codigo);
+        EXECUTE format('INSERT INTO %s (cd_mun, gid, nm_tip_log, geom) '
+                       'SELECT %L, t.gid, t.nm_tip_log, t.geom::geometry FROM public.%I AS t',
+                       particao, codigo, ruas);
+        EXECUTE format('ANALYZE %s', particao);
+    ELSE
+        RAISE NOTICE 'Tabela de ruas % inexistente; ruas de % mantidas.', ruas, nome;
+    END IF;
+
+    SELECT COUNT(*) INTO total FROM public.camada_setores WHERE cd_mun = codigo;
+    IF total = 0 THEN
+        RAISE NOTICE 'Nenhum setor censitário de %; município não gravado.', nome;
+        RETURN total;
+    END IF;
+
+    -- Limite do município: união dos setores censitários
+    INSERT INTO public.municipio (cd_mun, nome, geom)
+    SELECT codigo, nome, ST_Multi(ST_Union(s.geom)) FROM public.camada_setores AS s WHERE s.cd_mun = codigo
+    ON CONFLICT (cd_mun) DO UPDATE SET nome = EXCLUDED.nome, geom = EXCLUDED.geom;
+
+    -- Comércios dentro do município, sem município ou fora do limite do município atual recebem o mais próximo
+    WITH atualizados AS (
+        UPDATE public.localizacao_comercios AS loc
+        SET cd_mun = (SELECT m.cd_mun FROM public.municipio AS m WHERE m.geom IS NOT NULL
+                      ORDER BY m.geom <-> loc.localizacao::geometry LIMIT 1)
+        WHERE loc.cd_mun IS NULL
+           OR EXISTS (SELECT 1 FROM public.municipio AS m
+                      WHERE m.cd_mun = codigo AND ST_Intersects(m.geom, loc.localizacao::geometry))
+           OR NOT EXISTS (SELECT 1 FROM public.municipio AS m
+                          WHERE m.cd_mun = loc.cd_mun AND ST_Intersects(m.geom, loc.localizacao::geometry))
+        RETURNING loc.id_comercio
+    )
+    SELECT array_agg(id_comercio) INTO alterados FROM atualizados;
+
+    -- Sobreposições calculadas com os setores anteriores do município ou com o município anterior do comércio
+    DELETE FROM public.comercio_setor_raio AS r
+    USING public.localizacao_comercios AS loc
+    WHERE r.id_comercio = loc.id_comercio
+      AND ((recortado AND loc.cd_mun = codigo) OR loc.id_comercio = ANY (alterados));
+    DELETE FROM public.comercio_setor_sobreposicao AS s
+    USING public.localizacao_comercios AS loc
+    WHERE s.id_comercio = loc.id_comercio
+      AND ((recortado AND loc.cd_mun = codigo) OR loc.id_comercio = ANY (alterados));
+
+    -- A grade do município é reconstruída na próxima inicialização
+    DELETE FROM public.grade WHERE cd_mun = codigo;
+
+    RETURN total;
+END;
+$$;
+
+-- As camadas de Limeira carregadas antes desta migração tornam-se a partição 3526902
+SELECT public.carregar_municipio('3526902', 'Limeira', 'IBGE_Limeira_2010', 'Basico_Limeira_IBGE2010',
+                                 'Vias_Limeira_OSM', 'SHP_Ruas');
@@ -0,0 +1,4 @@
+-- Executado pelo Flyway ao final de cada migração (a cada inicialização): garante a coluna em UTM e os índices
+-- espaciais da localização dos comércios (as camadas particionadas recebem os índices pela V3). Sem custo quando
+-- já existem.
+SELECT public.garantir_indices_espaciais();
@@ -0,0 +1,83 @@
+package com.riquetti.ProjetoIntegrador.Config;
+
+import com.riquetti.ProjetoIntegrador.exception.ServiceUnavailableException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class DataSourceLimitadoTest {
+
+    private DataSource pool;
+    private DataSourceLimitado dataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        pool = mock(DataSource.class);
+        when(pool.getConnection()).thenAnswer(invocacao -> mock(Connection.class));
+        dataSource = new DataSourceLimitado("crud", pool, 2, 0, Duration.ofMillis(20));
+    }
+
+    @Test
+    void whenLimitIsReached_thenThrowsServiceUnavailableException() throws SQLException {
+        dataSource.getConnection();
+        dataSource.getConnection();
+
+        assertThrows(ServiceUnavailableException.class, () -> dataSource.getConnection());
+        verify(pool, times(2)).getConnection();
+        assertEquals(1, dataSource.estatisticas().recusadas());
+    }
+
+    @Test
+    void whenConnectionIsClosedTwice_thenReleasesOnePermit() throws SQLException {
+        Connection conexao = dataSource.getConnection();
+
+        conexao.close();
+        conexao.close();
+
+        assertEquals(2, dataSource.vagasDisponiveis());
+    }
+
+    @Test
+    void whenPoolFails_thenPermitIsReleased() throws SQLException {
+        when(pool.getConnection()).thenThrow(new SQLException("pool esgotado"));
+
+        assertThrows(SQLException.class, () -> dataSource.getConnection());
+        assertEquals(2, dataSource.vagasDisponiveis());
+    }
+
+    @Test
+    void whenQueueIsFull_thenRejectsWithoutWaiting() throws Exception {
+        DataSourceLimitado analise = new DataSourceLimitado("analise", pool, 1, 1, Duration.ofSeconds(5));
+        Connection ocupada = analise.getConnection();
+        CompletableFuture<Connection> naFila = CompletableFuture.supplyAsync(() -> {
+            try {
+                return analise.getConnection();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (analise.fila() == 0) {
+            assertTrue(System.nanoTime() < limite, "A requisição não entrou na fila em 5 segundos.");
+            Thread.sleep(5);
+        }
+
+        long inicio = System.nanoTime();
+        assertThrows(ServiceUnavailableException.class, () -> analise.getConnection());
+        assertTrue(System.nanoTime() - inicio < TimeUnit.SECONDS.toNanos(1));
+
+        ocupada.close();
+        assertNotNull(naFila.get(5, TimeUnit.SECONDS));
+        assertEquals(0, analise.estatisticas().fila());
+        assertEquals(1, analise.estatisticas().emUso());
+    }
+}
@@ -0,0 +1,81 @@
+package com.riquetti.ProjetoIntegrador.Config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricasRepositorioInterceptorTest {
+
+    static class RepositorioExemplo {
+
+        public List<String> findAll() {
+            return List.of("a", "b", "c");
+        }
+
+        public void forEach(Consumer<String> consumidor) {
+            consumidor.accept("a");
+            consumidor.accept("b");
+        }
+
+        public int falhar() {
+            throw new IllegalStateException("falha");
+        }
+    }
+
+    private final MeterRegistry registro = new SimpleMeterRegistry();
+
+    private RepositorioExemplo proxy() {
+        ProxyFactory fabrica = new ProxyFactory(new RepositorioExemplo());
+        fabrica.setProxyTargetClass(true);
+        fabrica.addAdvice(new MetricasRepositorioInterceptor(() -> registro));
+        return (RepositorioExemplo) fabrica.getProxy();
+    }
+
+    @Test
+    void whenQuerySucceeds_thenTimeAndRowsAreRecorded() {
+        RepositorioExemplo repositorio = proxy();
+
+        repositorio.findAll();
+        repositorio.findAll();
+
+        Timer timer = registro.get("repositorio.consulta")
+                .tags("repositorio", "RepositorioExemplo", "metodo", "findAll", "resultado", "sucesso").timer();
+        assertEquals(2, timer.count());
+        assertEquals(6, registro.get("repositorio.linhas").tags("metodo", "findAll").summary().totalAmount());
+    }
+
+    @Test
+    void whenQueryStreamsToConsumer_thenDeliveredRowsAreCounted() {
+        List<String> recebidos = new ArrayList<>();
+
+        proxy().forEach(recebidos::add);
+
+        assertEquals(List.of("a", "b"), recebidos);
+        assertEquals(2, registro.get("repositorio.linhas").tags("metodo", "forEach").summary().totalAmount());
+    }
+
+    @Test
+    void whenQueryFails_thenErrorIsCountedAndRethrown() {
+        RepositorioExemplo repositorio = proxy();
+
+        assertThrows(IllegalStateException.class, repositorio::falhar);
+
+        assertEquals(1, registro.get("repositorio.erros")
+                .tags("metodo", "falhar", "excecao", "IllegalStateException").counter().count());
+        assertEquals(1, registro.get("repositorio.consulta").tags("metodo", "falhar", "resultado", "erro").timer().count());
+    }
+
+    @Test
+    void whenResultIsNotRows_thenRowsAreNotRecorded() {
+        assertEquals(-1, MetricasRepositorioInterceptor.linhas(null));
+        assertEquals(3, MetricasRepositorioInterceptor.linhas(new int[]{1, 2, -2}));
+    }
+}
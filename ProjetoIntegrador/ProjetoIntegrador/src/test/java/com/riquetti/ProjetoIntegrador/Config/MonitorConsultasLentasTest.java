@@ -0,0 +1,164 @@
+package com.riquetti.ProjetoIntegrador.Config;
+
+import com.riquetti.ProjetoIntegrador.dto.ConsultaLentaDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class MonitorConsultasLentasTest {
+
+    private DataSource pool;
+    private DataSource planos;
+    private Connection conexaoPlano;
+    private MonitorConsultasLentas monitor;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        pool = mock(DataSource.class);
+        when(pool.getConnection()).thenAnswer(invocacao -> {
+            Connection conexao = mock(Connection.class);
+            when(conexao.prepareStatement(anyString())).thenAnswer(preparo -> mock(PreparedStatement.class));
+            return conexao;
+        });
+
+        conexaoPlano = mock(Connection.class);
+        PreparedStatement explain = mock(PreparedStatement.class);
+        ResultSet plano = mock(ResultSet.class);
+        when(plano.next()).thenReturn(true, false);
+        when(plano.getString(1)).thenReturn("Index Scan using idx_localizacao_geom");
+        when(explain.executeQuery()).thenReturn(plano);
+        when(conexaoPlano.prepareStatement(startsWith("EXPLAIN (ANALYZE, BUFFERS) "))).thenReturn(explain);
+        planos = mock(DataSource.class);
+        when(planos.getConnection()).thenReturn(conexaoPlano);
+
+        monitor = new MonitorConsultasLentas(Duration.ZERO, 2, Duration.ofMinutes(10), true,
+                List.of("usuarios"), () -> planos);
+    }
+
+    @AfterEach
+    void tearDown() {
+        monitor.close();
+    }
+
+    private void executar(String sql, Object... parametros) throws SQLException {
+        try (Connection conexao = monitor.monitorar("analise", pool).getConnection();
+             PreparedStatement ps = conexao.prepareStatement(sql)) {
+            for (int i = 0; i < parametros.length; i++) {
+                if (parametros[i] == null) {
+                    ps.setNull(i + 1, Types.NUMERIC);
+                } else {
+                    ps.setObject(i + 1, parametros[i]);
+                }
+            }
+            ps.executeUpdate();
+        }
+    }
+
+    @Test
+    void whenStatementIsSlow_thenItIsRecordedWithParameters() throws SQLException {
+        executar("UPDATE localizacao_comercio SET raio = ? WHERE id_comercio = ?", null, 7L);
+
+        ConsultaLentaDTO consulta = monitor.recentes().get(0);
+        assertEquals("analise", consulta.pool());
+        assertEquals(List.of("NULL", "7"), consulta.parametros());
+        assertNull(consulta.plano());
+        verifyNoInteractions(planos);
+    }
+
+    @Test
+    void whenBufferIsFull_thenOldestIsDiscarded() throws SQLException {
+        executar("DELETE FROM a WHERE id = ?", 1);
+        executar("DELETE FROM b WHERE id = ?", 2);
+        executar("DELETE FROM c WHERE id = ?", 3);
+
+        List<ConsultaLentaDTO> recentes = monitor.recentes();
+        assertEquals(2, recentes.size());
+        assertTrue(recentes.get(0).sql().contains(" c "));
+        assertEquals(3, monitor.total());
+    }
+
+    @Test
+    void whenStatementTouchesSensitiveTable_thenParametersAreHidden() throws SQLException {
+        executar("UPDATE public.usuarios SET senha = ? WHERE id = ?", "segredo", 1);
+
+        assertEquals(List.of("***", "***"), monitor.recentes().get(0).parametros());
+    }
+
+    @Test
+    void whenResultSetIsStreamed_thenTimeUntilCloseIsMeasured() throws Exception {
+        PreparedStatement comando = mock(PreparedStatement.class);
+        when(comando.executeQuery()).thenReturn(mock(ResultSet.class));
+        Connection conexao = mock(Connection.class);
+        when(conexao.prepareStatement(anyString())).thenReturn(comando);
+        DataSource streaming = mock(DataSource.class);
+        when(streaming.getConnection()).thenReturn(conexao);
+        try (MonitorConsultasLentas lento = new MonitorConsultasLentas(Duration.ofMillis(50), 2, Duration.ofMinutes(10),
+                false, List.of(), () -> planos);
+             Connection monitorada = lento.monitorar("analise", streaming).getConnection();
+             PreparedStatement ps = monitorada.prepareStatement("UPDATE localizacao_comercio SET nome = nome")) {
+            ResultSet rs = ps.executeQuery();
+            Thread.sleep(80);
+            assertEquals(0, lento.total());
+
+            rs.close();
+
+            assertEquals(1, lento.total());
+            assertTrue(lento.recentes().get(0).duracaoMs() >= 50);
+        }
+    }
+
+    @Test
+    void whenStatementIsUnwrapped_thenDriverTypeIsReturned() throws SQLException {
+        ComandoDoDriver driver = mock(ComandoDoDriver.class);
+        when(driver.isWrapperFor(ComandoDoDriver.class)).thenReturn(true);
+        when(driver.unwrap(ComandoDoDriver.class)).thenReturn(driver);
+        Connection conexao = mock(Connection.class);
+        when(conexao.prepareStatement(anyString())).thenReturn(driver);
+        when(pool.getConnection()).thenReturn(conexao);
+
+        try (Connection monitorada = monitor.monitorar("analise", pool).getConnection();
+             PreparedStatement ps = monitorada.prepareStatement("SELECT 1")) {
+            assertTrue(ps.isWrapperFor(PreparedStatement.class));
+            assertSame(ps, ps.unwrap(PreparedStatement.class));
+            assertTrue(ps.isWrapperFor(ComandoDoDriver.class));
+            assertSame(driver, ps.unwrap(ComandoDoDriver.class));
+        }
+    }
+
+    /**
+     * Tipo do driver JDBC, como PGStatement, não implementado pelo proxy.
+     */
+    interface ComandoDoDriver extends PreparedStatement {
+    }
+
+    @Test
+    void whenQueryIsSlow_thenPlanIsSampledOncePerInterval() throws Exception {
+        executar("SELECT * FROM localizacao_comercio WHERE id_comercio = ?", 7L);
+        executar("SELECT * FROM localizacao_comercio WHERE id_comercio = ?", 8L);
+
+        long limite = System.currentTimeMillis() + 2000;
+        while (monitor.recentes().size() < 2 && System.currentTimeMillis() < limite) {
+            Thread.sleep(10);
+        }
+        List<ConsultaLentaDTO> recentes = monitor.recentes();
+        assertEquals(2, recentes.size());
+        assertEquals(1, recentes.stream().filter(consulta -> consulta.plano() != null).count());
+        assertTrue(recentes.stream().anyMatch(consulta -> consulta.plano() != null
+                && consulta.plano().contains("idx_localizacao_geom")));
+        verify(conexaoPlano).setReadOnly(true);
+        verify(conexaoPlano).rollback();
+    }
+}
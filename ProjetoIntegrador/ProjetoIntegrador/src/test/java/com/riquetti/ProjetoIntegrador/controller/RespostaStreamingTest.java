@@ -0,0 +1,38 @@
+package com.riquetti.ProjetoIntegrador.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RespostaStreamingTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private String escrever(String formato) throws Exception {
+        List<Map<String, Integer>> registros = List.of(Map.of("id", 1), Map.of("id", 2), Map.of("id", 3));
+        ResponseEntity<StreamingResponseBody> resposta = RespostaStreaming.criar(objectMapper, formato,
+                (Consumer<Map<String, Integer>> consumidor) -> registros.forEach(consumidor));
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        resposta.getBody().writeTo(saida);
+        return saida.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void whenNdjson_thenEachLineStartsWithTheObject() throws Exception {
+        assertEquals("{\"id\":1}\n{\"id\":2}\n{\"id\":3}\n", escrever("ndjson"));
+    }
+
+    @Test
+    void whenJson_thenRecordsAreWrittenAsArray() throws Exception {
+        assertEquals("[{\"id\":1},{\"id\":2},{\"id\":3}]", escrever("json"));
+    }
+}
@@ -0,0 +1,142 @@
+package com.riquetti.ProjetoIntegrador.service;
+
+import com.riquetti.ProjetoIntegrador.dto.EstatisticasCacheDTO;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheConsultaTest {
+
+    private final AtomicLong relogio = new AtomicLong();
+    private final AtomicInteger consultas = new AtomicInteger();
+
+    private String consultar(String chave) {
+        consultas.incrementAndGet();
+        return "resultado " + chave;
+    }
+
+    @Test
+    void whenSameKeyRequestedTwice_thenQueriesOnce() {
+        CacheConsulta<String, String> cache = new CacheConsulta<>("teste", 10, Duration.ofMinutes(1), relogio::get);
+
+        assertEquals("resultado a", cache.obter("a", () -> consultar("a")));
+        assertEquals("resultado a", cache.obter("a", () -> consultar("a")));
+
+        assertEquals(1, consultas.get());
+        EstatisticasCacheDTO estatisticas = cache.estatisticas();
+        assertEquals(1, estatisticas.acertos());
+        assertEquals(1, estatisticas.falhas());
+    }
+
+    @Test
+    void whenEntryExpires_thenQueriesAgain() {
+        CacheConsulta<String, String> cache = new CacheConsulta<>("teste", 10, Duration.ofSeconds(10), relogio::get);
+
+        cache.obter("a", () -> consultar("a"));
+        relogio.addAndGet(Duration.ofSeconds(11).toNanos());
+        cache.obter("a", () -> consultar("a"));
+
+        assertEquals(2, consultas.get());
+        assertEquals(1, cache.estatisticas().remocoes());
+    }
+
+    @Test
+    void whenSizeExceeded_thenLeastRecentlyUsedIsEvicted() {
+        CacheConsulta<String, String> cache = new CacheConsulta<>("teste", 2, Duration.ofMinutes(1), relogio::get);
+
+        cache.obter("a", () -> consultar("a"));
+        cache.obter("b", () -> consultar("b"));
+        cache.obter("a", () -> consultar("a"));
+        cache.obter("c", () -> consultar("c"));
+        cache.obter("a", () -> consultar("a"));
+        cache.obter("b", () -> consultar("b"));
+
+        assertEquals(4, consultas.get());
+        assertEquals(2, cache.estatisticas().tamanho());
+    }
+
+    @Test
+    void whenInvalidated_thenCacheIsEmpty() {
+        CacheConsulta<String, String> cache = new CacheConsulta<>("teste", 10, Duration.ofMinutes(1), relogio::get);
+        cache.obter("a", () -> consultar("a"));
+
+        assertEquals(1, cache.invalidar());
+        cache.obter("a", () -> consultar("a"));
+
+        assertEquals(2, consultas.get());
+    }
+
+    @Test
+    void whenInvalidatedByKey_thenOnlyMatchingEntriesAreRemoved() {
+        CacheConsulta<String, String> cache = new CacheConsulta<>("teste", 10, Duration.ofMinutes(1), relogio::get);
+        cache.obter("a1", () -> consultar("a1"));
+        cache.obter("b1", () -> consultar("b1"));
+
+        assertEquals(1, cache.invalidar(chave -> chave.startsWith("a")));
+        cache.obter("a1", () -> consultar("a1"));
+        cache.obter("b1", () -> consultar("b1"));
+
+        assertEquals(3, consultas.get());
+    }
+
+    @Test
+    void whenInvalidatedWhileQuerying_thenResultIsNotStored() {
+        CacheConsulta<String, String> cache = new CacheConsulta<>("teste", 10, Duration.ofMinutes(1), relogio::get);
+
+        cache.obter("a", () -> {
+            cache.invalidar();
+            return consultar("a");
+        });
+        cache.obter("a", () -> consultar("a"));
+
+        assertEquals(2, consultas.get());
+    }
+
+    @Test
+    void whenSameKeyRequestedConcurrently_thenQueriesOnce() throws Exception {
+        CacheConsulta<String, String> cache = new CacheConsulta<>("teste", 10, Duration.ofMinutes(1), relogio::get);
+        CountDownLatch iniciou = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+
+        CompletableFuture<String> primeira = CompletableFuture.supplyAsync(() -> cache.obter("a", () -> {
+            iniciou.countDown();
+            await(liberar);
+            return consultar("a");
+        }));
+        iniciou.await(5, TimeUnit.SECONDS);
+        CompletableFuture<String> segunda = CompletableFuture.supplyAsync(() -> cache.obter("a", () -> consultar("a")));
+        while (cache.estatisticas().agrupadas() == 0) {
+            Thread.sleep(5);
+        }
+        liberar.countDown();
+
+        assertEquals("resultado a", primeira.get(5, TimeUnit.SECONDS));
+        assertEquals("resultado a", segunda.get(5, TimeUnit.SECONDS));
+        assertEquals(1, consultas.get());
+    }
+
+    @Test
+    void whenQueryFails_thenExceptionIsPropagatedAndNotCached() {
+        CacheConsulta<String, String> cache = new CacheConsulta<>("teste", 10, Duration.ofMinutes(1), relogio::get);
+
+        assertThrows(IllegalStateException.class, () -> cache.obter("a", () -> {
+            throw new IllegalStateException("falha");
+        }));
+        assertEquals("resultado a", cache.obter("a", () -> consultar("a")));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
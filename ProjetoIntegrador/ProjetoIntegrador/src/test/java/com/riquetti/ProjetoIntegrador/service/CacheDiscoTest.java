@@ -0,0 +1,82 @@
+package com.riquetti.ProjetoIntegrador.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheDiscoTest {
+
+    @TempDir
+    Path diretorio;
+
+    @Test
+    void whenFileIsCached_thenQueryIsNotRepeated() {
+        CacheDisco cache = new CacheDisco(diretorio, Duration.ofDays(1));
+        AtomicInteger consultas = new AtomicInteger();
+
+        CacheDisco.Arquivo primeiro = cache.obter("vias/1/0/0.pbf", () -> conteudo("a", consultas));
+        CacheDisco.Arquivo segundo = cache.obter("vias/1/0/0.pbf", () -> conteudo("b", consultas));
+
+        assertEquals(1, consultas.get());
+        assertArrayEquals(primeiro.conteudo(), segundo.conteudo());
+        assertEquals(primeiro.etag(), segundo.etag());
+        assertTrue(Files.exists(diretorio.resolve("vias/1/0/0.pbf")));
+    }
+
+    @Test
+    void whenContentIsTheSame_thenEtagIsTheSame() {
+        byte[] conteudo = "tile".getBytes(StandardCharsets.UTF_8);
+
+        assertEquals(CacheDisco.etag(conteudo), CacheDisco.etag(conteudo.clone()));
+        assertNotEquals(CacheDisco.etag(conteudo), CacheDisco.etag(new byte[0]));
+        assertTrue(CacheDisco.etag(conteudo).matches("\"[0-9a-f]{32}\""));
+    }
+
+    @Test
+    void whenFileIsExpired_thenQueryIsRepeated() {
+        Clock futuro = Clock.fixed(Instant.now().plus(Duration.ofDays(2)), ZoneOffset.UTC);
+        CacheDisco cache = new CacheDisco(diretorio, Duration.ofDays(1), futuro);
+        AtomicInteger consultas = new AtomicInteger();
+
+        cache.obter("ruas/1/0/0.pbf", () -> conteudo("a", consultas));
+        CacheDisco.Arquivo segundo = cache.obter("ruas/1/0/0.pbf", () -> conteudo("b", consultas));
+
+        assertEquals(2, consultas.get());
+        assertArrayEquals("b".getBytes(StandardCharsets.UTF_8), segundo.conteudo());
+    }
+
+    @Test
+    void whenInvalidated_thenOnlyThatDirectoryIsRemoved() {
+        CacheDisco cache = new CacheDisco(diretorio, Duration.ofDays(1));
+        AtomicInteger consultas = new AtomicInteger();
+        cache.obter("vias/1/0/0.pbf", () -> conteudo("a", consultas));
+        cache.obter("vias/1/1/0.pbf", () -> conteudo("a", consultas));
+        cache.obter("setores/1/0/0.pbf", () -> conteudo("a", consultas));
+
+        assertEquals(2, cache.invalidar("vias"));
+        assertFalse(Files.exists(diretorio.resolve("vias")));
+        assertTrue(Files.exists(diretorio.resolve("setores/1/0/0.pbf")));
+    }
+
+    @Test
+    void whenPathLeavesDirectory_thenThrowsIllegalArgumentException() {
+        CacheDisco cache = new CacheDisco(diretorio, Duration.ofDays(1));
+
+        assertThrows(IllegalArgumentException.class, () -> cache.obter("../fora.pbf", () -> new byte[0]));
+    }
+
+    private static byte[] conteudo(String texto, AtomicInteger consultas) {
+        consultas.incrementAndGet();
+        return texto.getBytes(StandardCharsets.UTF_8);
+    }
+}
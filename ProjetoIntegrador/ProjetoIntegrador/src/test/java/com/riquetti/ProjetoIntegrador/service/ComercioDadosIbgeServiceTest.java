@@ -133,4 +133,21 @@ public class ComercioDadosIbgeServiceTest {
         verify(repository, times(1)).findByLocationAndRaio(pontoTexto, raio);
     }
 
+    @Test
+    public void testGetLocalizacaoComercioById_DoesNotWriteOverlap() {
+        when(repository.findByIdComercio(1L)).thenReturn(criarDadosSimulados());
+
+        service.getLocalizacaoComercioById(1L);
+
+        verify(repository, never()).calcularSobreposicao(any());
+        verify(repository, never()).calcularSobreposicoesPendentes();
+    }
+
+    @Test
+    public void testCalcularSobreposicao_OutsideTransaction_RunsImmediately() {
+        service.calcularSobreposicao(1L);
+
+        verify(repository, times(1)).calcularSobreposicao(1L);
+    }
+
 }
@@ -0,0 +1,40 @@
+package com.riquetti.ProjetoIntegrador.service;
+
+import com.riquetti.ProjetoIntegrador.mapper.ComercioRaioViasMapper;
+import com.riquetti.ProjetoIntegrador.repository.ComercioRaioViasRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ComercioRaioViasServiceTest {
+
+    private final ComercioRaioViasRepository repository = mock(ComercioRaioViasRepository.class);
+
+    private ComercioRaioViasService service(boolean listagensDoSnapshot) {
+        return new ComercioRaioViasService(repository, ComercioRaioViasMapper.INSTANCE, Optional.empty(), listagensDoSnapshot);
+    }
+
+    @Test
+    void whenSnapshotIsDisabled_thenNothingIsWritten() {
+        ComercioRaioViasService service = service(false);
+
+        service.refreshSnapshot(1L);
+
+        assertThrows(IllegalStateException.class, service::refreshAllSnapshots);
+        verifyNoInteractions(repository);
+        service.encerrar();
+    }
+
+    @Test
+    void whenSnapshotIsEnabled_thenItIsRefreshedInBackground() {
+        ComercioRaioViasService service = service(true);
+
+        service.refreshSnapshot(1L);
+
+        verify(repository, timeout(2000)).refreshSnapshot(1L);
+        service.encerrar();
+    }
+}
@@ -0,0 +1,67 @@
+package com.riquetti.ProjetoIntegrador.service;
+
+import com.riquetti.ProjetoIntegrador.dto.ConcorrenteProximoDTO;
+import com.riquetti.ProjetoIntegrador.entity.ConcorrenteProximo;
+import com.riquetti.ProjetoIntegrador.entity.Ponto;
+import com.riquetti.ProjetoIntegrador.repository.ConcorrenteRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class ConcorrenteServiceTest {
+
+    @Mock
+    private ConcorrenteRepository repository;
+
+    @InjectMocks
+    private ConcorrenteService service;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    public void testGetConcorrentesMaisProximos_FromComercio_UsesDefaultK() {
+        ConcorrenteProximo concorrente = new ConcorrenteProximo(2L, "Comércio B", "Descrição", 3L,
+                new Ponto(-47.40, -22.56), 125.5);
+        when(repository.findMaisProximosDeComercio(1L, 3L, ConcorrenteService.K_PADRAO)).thenReturn(List.of(concorrente));
+
+        List<ConcorrenteProximoDTO> result = service.getConcorrentesMaisProximos(1L, null, null, 3L, null);
+
+        assertEquals(1, result.size());
+        assertEquals(2L, result.get(0).idComercio());
+        assertEquals(125.5, result.get(0).distanciaMetros());
+        verify(repository, never()).findMaisProximosDePonto(anyDouble(), anyDouble(), any(), anyInt());
+    }
+
+    @Test
+    public void testGetConcorrentesMaisProximos_FromPonto() {
+        when(repository.findMaisProximosDePonto(-47.40, -22.56, null, 5)).thenReturn(List.of());
+
+        List<ConcorrenteProximoDTO> result = service.getConcorrentesMaisProximos(null, -47.40, -22.56, null, 5);
+
+        assertTrue(result.isEmpty());
+        verify(repository).findMaisProximosDePonto(-47.40, -22.56, null, 5);
+    }
+
+    @Test
+    public void testGetConcorrentesMaisProximos_InvalidArguments() {
+        assertThrows(IllegalArgumentException.class,
+                () -> service.getConcorrentesMaisProximos(1L, null, null, null, ConcorrenteService.K_MAXIMO + 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.getConcorrentesMaisProximos(1L, -47.40, -22.56, null, 10));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.getConcorrentesMaisProximos(null, -47.40, null, null, 10));
+        assertThrows(IllegalArgumentException.class,
+                () -> service.getConcorrentesMaisProximos(null, -47.40, -95.0, null, 10));
+        verifyNoInteractions(repository);
+    }
+}
@@ -0,0 +1,67 @@
+package com.riquetti.ProjetoIntegrador.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.riquetti.ProjetoIntegrador.entity.BlocoRelatorio;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EscritorRelatorioTest {
+
+    @TempDir
+    Path diretorio;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final EscritorRelatorio escritor = new EscritorRelatorio(objectMapper);
+
+    private List<Path> blocos() throws Exception {
+        Path primeiro = Files.writeString(diretorio.resolve("bloco-0.ndjson"),
+                "{\"id\":1,\"nome\":\"Padaria, Centro\",\"localizacao\":{\"latitude\":-22.56,\"longitude\":-47.4}}\n"
+                        + "{\"id\":2,\"nome\":\"Bar \\\"do Zé\\\"\",\"localizacao\":null}\n");
+        Path vazio = Files.writeString(diretorio.resolve("bloco-1.ndjson"), "");
+        Path ultimo = Files.writeString(diretorio.resolve("bloco-2.ndjson"),
+                "{\"id\":3,\"nome\":\"Mercado\",\"localizacao\":{\"latitude\":1E-7,\"longitude\":2}}\n");
+        return List.of(primeiro, vazio, ultimo);
+    }
+
+    private String escrever(FormatoRelatorio formato) throws Exception {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        escritor.escrever(formato, blocos(), saida);
+        return saida.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void whenJson_thenBlocksAreJoinedInOneArray() throws Exception {
+        String json = escrever(FormatoRelatorio.JSON);
+
+        assertEquals(3, objectMapper.readTree(json).size());
+        assertEquals(3, objectMapper.readTree(json).get(2).path("id").asInt());
+    }
+
+    @Test
+    void whenCsv_thenNestedObjectsAreFlattenedAndValuesEscaped() throws Exception {
+        String[] linhas = escrever(FormatoRelatorio.CSV).split("\n");
+
+        assertEquals(4, linhas.length);
+        assertEquals("id,nome,localizacao.latitude,localizacao.longitude", linhas[0]);
+        assertEquals("1,\"Padaria, Centro\",-22.56,-47.4", linhas[1]);
+        assertEquals("2,\"Bar \"\"do Zé\"\"\",,", linhas[2]);
+        assertEquals("3,Mercado,0.0000001,2", linhas[3]);
+    }
+
+    @Test
+    void whenIdsAreSplit_thenBlocksCoverAllIdsInOrder() {
+        List<BlocoRelatorio> blocos = RelatorioJobService.dividir(List.of(1L, 2L, 5L, 8L, 9L), 2);
+
+        assertEquals(List.of(new BlocoRelatorio(0, 1, 2, 2), new BlocoRelatorio(1, 5, 8, 2),
+                new BlocoRelatorio(2, 9, 9, 1)), blocos);
+        assertTrue(RelatorioJobService.dividir(List.of(), 2).isEmpty());
+    }
+}
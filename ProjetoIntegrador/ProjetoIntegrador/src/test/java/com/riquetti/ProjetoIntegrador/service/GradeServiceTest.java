@@ -0,0 +1,66 @@
+package com.riquetti.ProjetoIntegrador.service;
+
+import com.riquetti.ProjetoIntegrador.repository.GradeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class GradeServiceTest {
+
+    private GradeRepository repository;
+    private ConsultaPontoCacheService cacheService;
+    private GradeService service;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(GradeRepository.class);
+        cacheService = mock(ConsultaPontoCacheService.class);
+        service = new GradeService(repository, cacheService, mock(PlatformTransactionManager.class), 100);
+    }
+
+    @Test
+    void whenMunicipalityHasNoGrid_thenOnlyItIsBuilt() {
+        when(repository.findMunicipiosSemGrade()).thenReturn(List.of("3526902"));
+        when(repository.reconstruirMunicipio("3526902", 100)).thenReturn(1200);
+
+        service.construirPendentes();
+
+        verify(repository).reconstruirMunicipio("3526902", 100);
+        verify(repository, never()).reconstruir(anyDouble());
+        verify(cacheService).invalidar();
+    }
+
+    @Test
+    void whenEveryMunicipalityHasGrid_thenNothingIsBuiltAndCacheIsKept() {
+        when(repository.findMunicipiosSemGrade()).thenReturn(List.of());
+
+        service.construirPendentes();
+
+        verify(repository, never()).reconstruirMunicipio(anyString(), anyDouble());
+        verify(cacheService, never()).invalidar();
+    }
+
+    @Test
+    void whenStaleCellsAreRemoved_thenCacheIsInvalidated() {
+        when(repository.removerCelulasSemMunicipio()).thenReturn(30);
+        when(repository.findMunicipiosSemGrade()).thenReturn(List.of());
+
+        service.construirPendentes();
+
+        verify(cacheService).invalidar();
+    }
+
+    @Test
+    void whenGridIsRebuiltOutsideTransaction_thenCacheIsInvalidated() {
+        when(repository.reconstruir(100)).thenReturn(1200);
+
+        service.reconstruir();
+
+        verify(cacheService).invalidar();
+    }
+}
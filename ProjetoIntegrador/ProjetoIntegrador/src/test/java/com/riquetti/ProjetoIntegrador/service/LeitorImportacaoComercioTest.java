@@ -0,0 +1,94 @@
+package com.riquetti.ProjetoIntegrador.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.riquetti.ProjetoIntegrador.entity.Ponto;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeitorImportacaoComercioTest {
+
+    private final LeitorImportacaoComercio leitor = new LeitorImportacaoComercio(new ObjectMapper());
+
+    private List<LeitorImportacaoComercio.Registro> ler(String conteudo, FormatoImportacao formato) throws IOException {
+        List<LeitorImportacaoComercio.Registro> registros = new ArrayList<>();
+        leitor.ler(new ByteArrayInputStream(conteudo.getBytes(StandardCharsets.UTF_8)), formato, registros::add);
+        return registros;
+    }
+
+    @Test
+    void whenCsvHasInvalidRow_thenReportsLineAndKeepsReading() throws IOException {
+        String csv = """
+                nome;descricao;id_tipo_comercio;raio_acao_metros;longitude;latitude
+                "Padaria; Centro";Pães;1;500;-47.4;-22.56
+                Mercado;Bairro;abc;800;-47.41;-22.57
+                Farmácia;24h;2;300;-47.42;-22.58
+                """;
+
+        List<LeitorImportacaoComercio.Registro> registros = ler(csv, FormatoImportacao.CSV);
+
+        assertEquals(3, registros.size());
+        assertEquals("Padaria; Centro", registros.get(0).dto().nome());
+        assertEquals(new Ponto(-47.4, -22.56), registros.get(0).dto().localizacao());
+        assertEquals(3, registros.get(1).linha());
+        assertNull(registros.get(1).dto());
+        assertNotNull(registros.get(1).erro());
+        assertEquals(new BigDecimal("300"), registros.get(2).dto().raioAcaoMetros());
+    }
+
+    @Test
+    void whenCsvHeaderMissesColumn_thenThrowsIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class,
+                () -> ler("nome,descricao,longitude,latitude\nA,B,-47.4,-22.5\n", FormatoImportacao.CSV));
+    }
+
+    @Test
+    void whenNdjsonHasMalformedLine_thenOnlyThatLineIsRejected() throws IOException {
+        String ndjson = """
+                {"nome":"A","descricao":"a","idTipoComercio":1,"raioAcaoMetros":500,"localizacao":{"longitude":-47.4,"latitude":-22.5}}
+                {"nome":"B",
+                {"nome":"C","descricao":"c","idTipoComercio":1,"raioAcaoMetros":500,"localizacao":{"longitude":-47.4,"latitude":-95}}
+                """;
+
+        List<LeitorImportacaoComercio.Registro> registros = ler(ndjson, FormatoImportacao.NDJSON);
+
+        assertEquals(3, registros.size());
+        assertEquals("A", registros.get(0).dto().nome());
+        assertNotNull(registros.get(1).erro());
+        assertEquals("A latitude deve ser um número entre -90 e 90.", registros.get(2).erro());
+    }
+
+    @Test
+    void whenGeoJsonFeatureIsNotPoint_thenRejectsFeature() throws IOException {
+        String geojson = """
+                {"type":"FeatureCollection","name":"franquia","features":[
+                  {"type":"Feature","geometry":{"type":"Point","coordinates":[-47.4,-22.5]},
+                   "properties":{"nome":"A","descricao":"a","id_tipo_comercio":2,"raioAcaoMetros":700}},
+                  {"type":"Feature","geometry":{"type":"LineString","coordinates":[[-47.4,-22.5],[-47.5,-22.6]]},
+                   "properties":{"nome":"B","descricao":"b","idTipoComercio":1,"raioAcaoMetros":500}}
+                ]}
+                """;
+
+        List<LeitorImportacaoComercio.Registro> registros = ler(geojson, FormatoImportacao.GEOJSON);
+
+        assertEquals(2, registros.size());
+        assertEquals(2L, registros.get(0).dto().idTipoComercio());
+        assertEquals(new Ponto(-47.4, -22.5), registros.get(0).dto().localizacao());
+        assertEquals(2, registros.get(1).linha());
+        assertNull(registros.get(1).dto());
+    }
+
+    @Test
+    void whenFormatoAndContentTypeMissing_thenThrowsIllegalArgumentException() {
+        assertEquals(FormatoImportacao.CSV, FormatoImportacao.de(null, "text/csv; charset=UTF-8"));
+        assertEquals(FormatoImportacao.NDJSON, FormatoImportacao.de("ndjson", "text/csv"));
+        assertThrows(IllegalArgumentException.class, () -> FormatoImportacao.de(null, null));
+    }
+}
@@ -0,0 +1,210 @@
+package com.riquetti.ProjetoIntegrador.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.riquetti.ProjetoIntegrador.exception.ResourceNotFoundException;
+import com.riquetti.ProjetoIntegrador.exception.ServiceUnavailableException;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testes do cache de malhas contra um servidor HTTP local que simula a API do IBGE.
+ */
+class MalhaMunicipioServiceTest {
+
+    private static final String GEOJSON = "{\"type\": \"FeatureCollection\", \"features\": []}";
+    private static final String ETAG_IBGE = "\"v1\"";
+
+    @TempDir
+    Path diretorio;
+
+    private HttpServer servidor;
+    private final List<String> requisicoes = new CopyOnWriteArrayList<>();
+    private volatile boolean indisponivel;
+    private final CountDownLatch liberarRespostas = new CountDownLatch(1);
+    private volatile boolean reterRespostas;
+    private IBGEService ibgeService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        servidor = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        servidor.setExecutor(Executors.newCachedThreadPool());
+        servidor.createContext("/api/v3/malhas/municipios/", troca -> {
+            String ifNoneMatch = troca.getRequestHeaders().getFirst("If-None-Match");
+            requisicoes.add(troca.getRequestURI().getPath() + " If-None-Match=" + ifNoneMatch);
+            if (reterRespostas) {
+                try {
+                    liberarRespostas.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (indisponivel) {
+                troca.sendResponseHeaders(503, -1);
+            } else if (troca.getRequestURI().getPath().endsWith("/9999999")) {
+                troca.sendResponseHeaders(404, -1);
+            } else if (ETAG_IBGE.equals(ifNoneMatch)) {
+                troca.getResponseHeaders().set("ETag", ETAG_IBGE);
+                troca.sendResponseHeaders(304, -1);
+            } else {
+                byte[] corpo = MalhaMunicipio.comprimir(GEOJSON.getBytes(StandardCharsets.UTF_8));
+                troca.getResponseHeaders().set("Content-Type", "application/vnd.geo+json");
+                troca.getResponseHeaders().set("Content-Encoding", "gzip");
+                troca.getResponseHeaders().set("ETag", ETAG_IBGE);
+                troca.sendResponseHeaders(200, corpo.length);
+                try (OutputStream saida = troca.getResponseBody()) {
+                    saida.write(corpo);
+                }
+            }
+            troca.close();
+        });
+        servidor.start();
+        ibgeService = new IBGEService(new RestTemplate(), "http://localhost:" + servidor.getAddress().getPort());
+    }
+
+    @AfterEach
+    void tearDown() {
+        liberarRespostas.countDown();
+        servidor.stop(0);
+    }
+
+    @Test
+    void whenRequestedTwice_thenOnlyOneOutboundCall() {
+        MalhaMunicipioService service = novoServico(Clock.systemUTC());
+
+        MalhaMunicipio primeira = service.getMalha("3526902");
+        MalhaMunicipio segunda = service.getMalha("3526902");
+
+        assertEquals(1, requisicoes.size());
+        assertEquals(GEOJSON, segunda.geoJsonTexto());
+        assertEquals(primeira.etag(), segunda.etag());
+    }
+
+    @Test
+    void whenServiceRestarts_thenMalhaIsReadFromDisk() {
+        novoServico(Clock.systemUTC()).getMalha("3526902");
+
+        MalhaMunicipio malha = novoServico(Clock.systemUTC()).getMalha("3526902");
+
+        assertEquals(1, requisicoes.size());
+        assertEquals(GEOJSON, malha.geoJsonTexto());
+    }
+
+    @Test
+    void whenRevalidationIsDue_thenSendsConditionalRequest() {
+        MalhaMunicipio original = novoServico(Clock.systemUTC()).getMalha("3526902");
+        Clock futuro = Clock.fixed(Instant.now().plus(Duration.ofDays(31)), ZoneOffset.UTC);
+
+        MalhaMunicipio revalidada = novoServico(futuro).getMalha("3526902");
+
+        assertEquals(2, requisicoes.size());
+        assertTrue(requisicoes.get(1).endsWith("If-None-Match=" + ETAG_IBGE));
+        assertEquals(original.etag(), revalidada.etag());
+        assertEquals(futuro.instant(), revalidada.validadaEm());
+    }
+
+    @Test
+    void whenIbgeIsUnavailable_thenServesLocalCopy() {
+        novoServico(Clock.systemUTC()).getMalha("3526902");
+        indisponivel = true;
+        Clock futuro = Clock.fixed(Instant.now().plus(Duration.ofDays(31)), ZoneOffset.UTC);
+
+        MalhaMunicipio malha = novoServico(futuro).getMalha("3526902");
+
+        assertEquals(GEOJSON, malha.geoJsonTexto());
+    }
+
+    @Test
+    void whenMunicipioDoesNotExist_thenThrowsResourceNotFoundException() {
+        MalhaMunicipioService service = novoServico(Clock.systemUTC());
+
+        assertThrows(ResourceNotFoundException.class, () -> service.getMalha("9999999"));
+    }
+
+    @Test
+    void whenMunicipioIdIsInvalid_thenThrowsIllegalArgumentException() {
+        MalhaMunicipioService service = novoServico(Clock.systemUTC());
+
+        assertThrows(IllegalArgumentException.class, () -> service.getMalha("../etc"));
+        assertTrue(requisicoes.isEmpty());
+    }
+
+    @Test
+    void whenReducedMalhaRequestedTwice_thenReducesOnce() {
+        MalhaMunicipioService service = novoServico(Clock.systemUTC());
+        OpcoesMalha opcoes = OpcoesMalha.de(10.0, 5, null);
+
+        MalhaMunicipio primeira = service.getMalha("3526902", opcoes);
+        MalhaMunicipio segunda = service.getMalha("3526902", OpcoesMalha.de(10.0, 5, null));
+
+        assertEquals(primeira.etag(), segunda.etag());
+        assertEquals(1, service.estatisticasReduzidas().falhas());
+        assertEquals(1, service.estatisticasReduzidas().acertos());
+        assertSame(service.getMalha("3526902"), service.getMalha("3526902", OpcoesMalha.de(null, null, null)));
+    }
+
+    @Test
+    void whenSameMunicipioRequestedConcurrently_thenSharesOneOutboundCall() throws Exception {
+        MalhaMunicipioService service = novoServico(Clock.systemUTC());
+        reterRespostas = true;
+
+        CompletableFuture<MalhaMunicipio> primeira = CompletableFuture.supplyAsync(() -> service.getMalha("3526902"));
+        aguardar(() -> requisicoes.size() == 1);
+        CompletableFuture<MalhaMunicipio> segunda = CompletableFuture.supplyAsync(() -> service.getMalha("3526902"));
+        aguardar(() -> service.estatisticas().agrupadas() == 1);
+        liberarRespostas.countDown();
+
+        assertEquals(primeira.get(5, TimeUnit.SECONDS).etag(), segunda.get(5, TimeUnit.SECONDS).etag());
+        assertEquals(1, requisicoes.size());
+    }
+
+    @Test
+    void whenConcurrentRequestLimitIsReached_thenThrowsServiceUnavailableException() throws Exception {
+        MalhaMunicipioService service = new MalhaMunicipioService(ibgeService, diretorio, 10, Duration.ofHours(1),
+                Duration.ofDays(30), 1, Duration.ofMillis(50), 10, new ObjectMapper(), Clock.systemUTC());
+        reterRespostas = true;
+
+        CompletableFuture<MalhaMunicipio> primeira = CompletableFuture.supplyAsync(() -> service.getMalha("3526902"));
+        aguardar(() -> requisicoes.size() == 1);
+
+        assertThrows(ServiceUnavailableException.class, () -> service.getMalha("3550308"));
+        liberarRespostas.countDown();
+        assertEquals(GEOJSON, primeira.get(5, TimeUnit.SECONDS).geoJsonTexto());
+        assertEquals(1, requisicoes.size());
+    }
+
+    private MalhaMunicipioService novoServico(Clock relogio) {
+        return new MalhaMunicipioService(ibgeService, diretorio, 10, Duration.ofHours(1), Duration.ofDays(30),
+                4, Duration.ofMillis(500), 10, new ObjectMapper(), relogio);
+    }
+
+    private static void aguardar(BooleanSupplier condicao) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condicao.getAsBoolean()) {
+            assertTrue(System.nanoTime() < limite, "Condição não atingida em 5 segundos.");
+            Thread.sleep(5);
+        }
+    }
+}
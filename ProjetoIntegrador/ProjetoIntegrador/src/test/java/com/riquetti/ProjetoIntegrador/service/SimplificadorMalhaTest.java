@@ -0,0 +1,110 @@
+package com.riquetti.ProjetoIntegrador.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SimplificadorMalhaTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimplificadorMalha simplificador = new SimplificadorMalha(objectMapper);
+
+    /**
+     * Quadrado de cerca de 1 km de lado com um vértice a cada 0,001 grau (cerca de 100 m) nas bordas.
+     */
+    private static String quadradoDenso() {
+        StringBuilder anel = new StringBuilder();
+        for (int i = 0; i <= 10; i++) {
+            anel.append(String.format(Locale.ROOT, "[%.3f,-22.560],", -47.400 + i * 0.001));
+        }
+        for (int i = 1; i <= 10; i++) {
+            anel.append(String.format(Locale.ROOT, "[-47.390,%.3f],", -22.560 + i * 0.001));
+        }
+        for (int i = 1; i <= 10; i++) {
+            anel.append(String.format(Locale.ROOT, "[%.3f,-22.550],", -47.390 - i * 0.001));
+        }
+        for (int i = 1; i <= 10; i++) {
+            anel.append(String.format(Locale.ROOT, "[-47.400,%.3f],", -22.550 - i * 0.001));
+        }
+        anel.setLength(anel.length() - 1);
+        return "{\"type\":\"FeatureCollection\",\"features\":[{\"type\":\"Feature\",\"properties\":{\"codarea\":\"3526902\"},"
+                + "\"geometry\":{\"type\":\"Polygon\",\"coordinates\":[[" + anel + "]]}}]}";
+    }
+
+    private JsonNode processar(String geoJson, OpcoesMalha opcoes) throws Exception {
+        return objectMapper.readTree(simplificador.processar(geoJson.getBytes(StandardCharsets.UTF_8), opcoes));
+    }
+
+    @Test
+    void whenSimplified_thenCollinearVerticesAreRemoved() throws Exception {
+        JsonNode resultado = processar(quadradoDenso(), OpcoesMalha.de(10.0, null, null));
+
+        JsonNode feicao = resultado.path("features").get(0);
+        assertEquals(5, feicao.path("geometry").path("coordinates").get(0).size());
+        assertEquals("3526902", feicao.path("properties").path("codarea").asText());
+    }
+
+    @Test
+    void whenToleranceIsSmallerThanDeviation_thenVertexIsKept() throws Exception {
+        String linha = "{\"type\":\"LineString\",\"coordinates\":[[-47.40,-22.56],[-47.395,-22.5595],[-47.39,-22.56]]}";
+
+        assertEquals(3, processar(linha, OpcoesMalha.de(10.0, null, null)).path("coordinates").size());
+        assertEquals(2, processar(linha, OpcoesMalha.de(100.0, null, null)).path("coordinates").size());
+    }
+
+    @Test
+    void whenQuantized_thenCoordinatesAreRoundedAndDuplicatesRemoved() throws Exception {
+        String linha = "{\"type\":\"LineString\",\"coordinates\":[[-47.40012,-22.56061],[-47.40014,-22.56059],[-47.39,-22.56]]}";
+
+        JsonNode coordenadas = processar(linha, OpcoesMalha.de(null, 3, null)).path("coordinates");
+
+        assertEquals(2, coordenadas.size());
+        assertEquals(-47.4, coordenadas.get(0).get(0).asDouble());
+        assertEquals(-22.561, coordenadas.get(0).get(1).asDouble());
+    }
+
+    @Test
+    void whenClipped_thenPolygonStaysInsideBbox() throws Exception {
+        JsonNode resultado = processar(quadradoDenso(), OpcoesMalha.de(null, null, "-47.398,-22.558,-47.392,-22.552"));
+
+        JsonNode anel = resultado.path("features").get(0).path("geometry").path("coordinates").get(0);
+        assertTrue(anel.size() >= 4);
+        assertEquals(anel.get(0), anel.get(anel.size() - 1));
+        for (JsonNode ponto : anel) {
+            assertTrue(ponto.get(0).asDouble() >= -47.398 - 1e-9 && ponto.get(0).asDouble() <= -47.392 + 1e-9);
+            assertTrue(ponto.get(1).asDouble() >= -22.558 - 1e-9 && ponto.get(1).asDouble() <= -22.552 + 1e-9);
+        }
+    }
+
+    @Test
+    void whenFeatureIsOutsideBbox_thenItIsRemoved() throws Exception {
+        JsonNode resultado = processar(quadradoDenso(), OpcoesMalha.de(null, null, "-46.0,-22.0,-45.0,-21.0"));
+
+        assertEquals(0, resultado.path("features").size());
+    }
+
+    @Test
+    void whenLineLeavesAndReentersBbox_thenItIsSplit() throws Exception {
+        String linha = "{\"type\":\"LineString\",\"coordinates\":[[0.5,0.5],[0.5,3.0],[1.5,3.0],[1.5,0.5]]}";
+
+        JsonNode resultado = processar(linha, OpcoesMalha.de(null, null, "0,0,2,2"));
+
+        assertEquals("MultiLineString", resultado.path("type").asText());
+        assertEquals(2, resultado.path("coordinates").size());
+        assertEquals(2.0, resultado.path("coordinates").get(0).get(1).get(1).asDouble(), 1e-9);
+    }
+
+    @Test
+    void whenOptionsAreInvalid_thenThrowsIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> OpcoesMalha.de(-1.0, null, null));
+        assertThrows(IllegalArgumentException.class, () -> OpcoesMalha.de(null, 11, null));
+        assertThrows(IllegalArgumentException.class, () -> OpcoesMalha.de(null, null, "1,2,3"));
+        assertThrows(IllegalArgumentException.class, () -> OpcoesMalha.de(null, null, "2,0,1,1"));
+        assertTrue(OpcoesMalha.de(0.0, null, " ").vazias());
+    }
+}
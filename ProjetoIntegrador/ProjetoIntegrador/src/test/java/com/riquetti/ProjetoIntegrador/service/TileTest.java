@@ -0,0 +1,42 @@
+package com.riquetti.ProjetoIntegrador.service;
+
+import com.riquetti.ProjetoIntegrador.entity.Ponto;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TileTest {
+
+    private static final Ponto LIMEIRA = new Ponto(-47.4017, -22.5649);
+
+    @Test
+    void whenPointIsInTile_thenTileBoundsContainPoint() {
+        for (int z = 0; z <= Tile.ZOOM_MAXIMO; z++) {
+            Tile tile = Tile.contendo(LIMEIRA, z);
+
+            assertTrue(tile.longitudeMinima() <= LIMEIRA.longitude() && LIMEIRA.longitude() < tile.longitudeMaxima());
+            assertTrue(tile.latitudeMinima() <= LIMEIRA.latitude() && LIMEIRA.latitude() < tile.latitudeMaxima());
+        }
+    }
+
+    @Test
+    void whenZoomIsTwelve_thenMatchesOpenStreetMapTile() {
+        assertEquals(new Tile(12, 1508, 2311), Tile.contendo(LIMEIRA, 12));
+    }
+
+    @Test
+    void whenZoomZero_thenMercatorBoundsCoverTheWorld() {
+        Tile mundo = new Tile(0, 0, 0);
+
+        assertEquals(-Tile.LIMITE_MERCATOR, mundo.xMinimoMercator(), 1e-6);
+        assertEquals(Tile.LIMITE_MERCATOR, mundo.yMaximoMercator(), 1e-6);
+        assertEquals(2 * Tile.LIMITE_MERCATOR, mundo.tamanhoMercator(), 1e-6);
+    }
+
+    @Test
+    void whenCoordinatesOutOfRange_thenThrowsIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> new Tile(2, 4, 0));
+        assertThrows(IllegalArgumentException.class, () -> new Tile(23, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> new Tile(1, -1, 0));
+    }
+}
@@ -0,0 +1,34 @@
+package com.riquetti.ProjetoIntegrador.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VerificacaoIndicesServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void whenPlanUsesBitmapIndexScan_thenNestedIndexIsFound() throws Exception {
+        String plano = """
+                [{"Plan": {"Node Type": "Aggregate", "Plans": [
+                  {"Node Type": "Bitmap Heap Scan", "Relation Name": "SHP_Ruas", "Plans": [
+                    {"Node Type": "Bitmap Index Scan", "Index Name": "shp_ruas_avenidas_utm_idx"}]}]}}]
+                """;
+
+        assertEquals(List.of("shp_ruas_avenidas_utm_idx"), VerificacaoIndicesService.indicesUtilizados(objectMapper.readTree(plano)));
+    }
+
+    @Test
+    void whenPlanIsSequentialScan_thenNoIndexIsFound() throws Exception {
+        String plano = """
+                [{"Plan": {"Node Type": "Aggregate", "Plans": [
+                  {"Node Type": "Seq Scan", "Relation Name": "IBGE_Limeira_2010"}]}}]
+                """;
+
+        assertTrue(VerificacaoIndicesService.indicesUtilizados(objectMapper.readTree(plano)).isEmpty());
+    }
+}
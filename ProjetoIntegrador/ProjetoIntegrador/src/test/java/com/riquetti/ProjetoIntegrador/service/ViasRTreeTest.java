@@ -0,0 +1,94 @@
+package com.riquetti.ProjetoIntegrador.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ViasRTreeTest {
+
+    private static final double LONGITUDE = -47.4042319;
+    private static final double LATITUDE = -22.561447;
+
+    @Test
+    void whenRoadCrossesCenter_thenRingLengthsAreDiameters() {
+        // Via primária (peso 4) de leste a oeste passando pelo ponto
+        ViasRTree vias = ViasRTree.builder()
+                .adicionarLinha(new double[]{LONGITUDE - 0.05, LATITUDE, LONGITUDE + 0.05, LATITUDE}, "primary")
+                .build();
+
+        ViasRTree.Medicao medicao = vias.medir(LONGITUDE, LATITUDE, 1000);
+
+        assertEquals(2000 * 4 / 10.0, medicao.comprimentoTotalPonderado(), 1e-6);
+        for (int i = 0; i < ViasRTree.ANEIS_METROS.length; i++) {
+            assertEquals(2 * ViasRTree.ANEIS_METROS[i], medicao.comprimentosAneis()[i], 1e-6);
+        }
+    }
+
+    @Test
+    void whenRoadIsOutsideLargestRing_thenLengthsAreZero() {
+        ViasRTree vias = ViasRTree.builder()
+                .adicionarLinha(new double[]{LONGITUDE + 0.1, LATITUDE, LONGITUDE + 0.2, LATITUDE}, "residential")
+                .build();
+
+        ViasRTree.Medicao medicao = vias.medir(LONGITUDE, LATITUDE, 1000);
+
+        assertEquals(0, medicao.comprimentoTotalPonderado());
+        assertEquals(0, medicao.comprimentosAneis()[4]);
+    }
+
+    @Test
+    void whenManySegments_thenTreeMatchesSegmentBySegmentSum() {
+        Random random = new Random(7);
+        ViasRTree.Builder builder = ViasRTree.builder();
+        List<ViasRTree> individuais = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            double x = LONGITUDE + (random.nextDouble() - 0.5) * 0.06;
+            double y = LATITUDE + (random.nextDouble() - 0.5) * 0.06;
+            double[] linha = {x, y, x + (random.nextDouble() - 0.5) * 0.004, y + (random.nextDouble() - 0.5) * 0.004};
+            builder.adicionarLinha(linha, "secondary");
+            individuais.add(ViasRTree.builder().adicionarLinha(linha, "secondary").build());
+        }
+
+        ViasRTree.Medicao medicao = builder.build().medir(LONGITUDE, LATITUDE, 1200);
+
+        double ponderado = 0;
+        double anel2500 = 0;
+        for (ViasRTree individual : individuais) {
+            ViasRTree.Medicao parcial = individual.medir(LONGITUDE, LATITUDE, 1200);
+            ponderado += parcial.comprimentoTotalPonderado();
+            anel2500 += parcial.comprimentosAneis()[4];
+        }
+        assertEquals(ponderado, medicao.comprimentoTotalPonderado(), ponderado * 0.001);
+        assertEquals(anel2500, medicao.comprimentosAneis()[4], anel2500 * 0.001);
+    }
+
+    @Test
+    void whenWkbMultiLineString_thenAllPartsAreIndexed() {
+        ByteBuffer wkb = ByteBuffer.allocate(1 + 4 + 4 + 2 * (1 + 4 + 4 + 2 * 16)).order(ByteOrder.LITTLE_ENDIAN);
+        wkb.put((byte) 1).putInt(5).putInt(2);
+        wkb.put((byte) 1).putInt(2).putInt(2)
+                .putDouble(LONGITUDE - 0.01).putDouble(LATITUDE).putDouble(LONGITUDE).putDouble(LATITUDE);
+        wkb.put((byte) 1).putInt(2).putInt(2)
+                .putDouble(LONGITUDE).putDouble(LATITUDE).putDouble(LONGITUDE + 0.01).putDouble(LATITUDE);
+
+        ViasRTree vias = ViasRTree.builder().adicionarWkb(wkb.array(), "tertiary").build();
+
+        assertEquals(2, vias.tamanho());
+        assertEquals(1000, vias.medir(LONGITUDE, LATITUDE, 500).comprimentosAneis()[0], 1e-6);
+    }
+
+    @Test
+    void whenClassifyingAccessibility_thenUsesDatabaseRanges() {
+        assertEquals("Excelente", ComercioRaioViasMemoriaService.classificarAcessibilidade(15001));
+        assertEquals("Boa", ComercioRaioViasMemoriaService.classificarAcessibilidade(15000));
+        assertEquals("Média", ComercioRaioViasMemoriaService.classificarAcessibilidade(7000));
+        assertEquals("Ruim", ComercioRaioViasMemoriaService.classificarAcessibilidade(1000));
+        assertEquals("Muito Ruim", ComercioRaioViasMemoriaService.classificarAcessibilidade(999));
+    }
+}